@@ -38,6 +38,8 @@ import java.io.InputStream;
  */
 public class MovsimCommandLine {
 
+    private static final int KILOBYTE = 1024;
+
     final CommandLineParser parser;
     private Options options;
 
@@ -85,6 +87,25 @@ public class MovsimCommandLine {
 
         options.addOption(Option.builder("o").longOpt("directory").hasArg()
                 .desc("argument is the output path relative to calling directory").build());
+
+        options.addOption(Option.builder("t").longOpt("threads").hasArg()
+                .desc("number of threads for the road segment updates (overrides xml configuration, 0 uses all processors)")
+                .build());
+
+        options.addOption(Option.builder("b").longOpt("output_buffer").hasArg()
+                .desc("buffer size in kB of the file outputs, files are flushed when the buffer is full "
+                        + "(default 0: flush after each record)")
+                .build());
+
+        options.addOption(Option.builder().longOpt("flush_interval").hasArg()
+                .desc("maximum time in seconds between two flushes of buffered file outputs "
+                        + "(default 0: only if the buffer is full)")
+                .build());
+
+        options.addOption(Option.builder().longOpt("output_queue").hasArg()
+                .desc("writes the route outputs on a background thread with a queue of the given size "
+                        + "(default 0: written by the simulation thread)")
+                .build());
     }
 
     /**
@@ -111,6 +132,18 @@ public class MovsimCommandLine {
         if (cmdline.hasOption("s")) {
             ProjectMetaData.getInstance().setScanMode(true);
         }
+        if (cmdline.hasOption("t")) {
+            optionParallelThreads(cmdline.getOptionValue('t'));
+        }
+        if (cmdline.hasOption("b")) {
+            optionOutputBuffer(cmdline.getOptionValue('b'));
+        }
+        if (cmdline.hasOption("flush_interval")) {
+            optionFlushInterval(cmdline.getOptionValue("flush_interval"));
+        }
+        if (cmdline.hasOption("output_queue")) {
+            optionOutputQueue(cmdline.getOptionValue("output_queue"));
+        }
         requiredOptionOutputPath(cmdline);
         requiredOptionSimulation(cmdline);
     }
@@ -129,6 +162,43 @@ public class MovsimCommandLine {
         ProjectMetaData.getInstance().setOutputPath(FileUtils.getCanonicalPath(outputPath));
     }
 
+    private static void optionParallelThreads(String value) {
+        try {
+            ProjectMetaData.getInstance().setParallelThreads(Integer.parseInt(value.trim()));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid number of threads \"" + value + "\". Must be an integer >= 0.");
+            System.exit(-1);
+        }
+    }
+
+    private static void optionOutputBuffer(String value) {
+        try {
+            ProjectMetaData.getInstance().setOutputBufferSize(KILOBYTE * Integer.parseInt(value.trim()));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid output buffer size \"" + value + "\". Must be an integer >= 0.");
+            System.exit(-1);
+        }
+    }
+
+    private static void optionFlushInterval(String value) {
+        try {
+            ProjectMetaData.getInstance()
+                    .setOutputFlushIntervalMillis(Math.round(1000 * Double.parseDouble(value.trim())));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid flush interval \"" + value + "\". Must be a number >= 0.");
+            System.exit(-1);
+        }
+    }
+
+    private static void optionOutputQueue(String value) {
+        try {
+            ProjectMetaData.getInstance().setOutputQueueSize(Integer.parseInt(value.trim()));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid output queue size \"" + value + "\". Must be an integer >= 0.");
+            System.exit(-1);
+        }
+    }
+
     /**
      * Option: writes log4j.properties to local filesystem
      */
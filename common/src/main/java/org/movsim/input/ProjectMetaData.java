@@ -21,7 +21,8 @@ import org.joda.time.format.ISODateTimeFormat;
 import com.google.common.base.Preconditions;
 
 /**
- * Container for some shared information. Singleton pattern. <br>
+ * Container for some shared information. The default instance holds the settings from the command line, simulation runs
+ * with own settings use a copy, see {@link SimulationContext}. <br>
  * created: Mar 9, 2013<br>
  */
 // TODO this class needs a throughout refactoring !!!
@@ -55,6 +56,28 @@ public final class ProjectMetaData {
 
     private long timeOffsetMillis = 0;
 
+    /**
+     * number of threads for the road segment updates as given on the command line, negative if not set.
+     */
+    private int parallelThreads = -1;
+
+    /**
+     * buffer size in bytes of the file outputs, 0: the files are flushed after each record.
+     */
+    private int outputBufferSize = 0;
+
+    /**
+     * maximum time between two flushes of buffered file outputs, 0: flush only if the buffer is full and at the end of
+     * the simulation.
+     */
+    private long outputFlushIntervalMillis = 0;
+
+    /**
+     * maximum number of pending tasks of the asynchronous file output, 0: the files are written by the simulation
+     * thread.
+     */
+    private int outputQueueSize = 0;
+
     /**
      * Needed for Applet. Change to true, if you cannot access the file system. Allows to read the config files from resources
      * instead.
@@ -77,6 +100,32 @@ public final class ProjectMetaData {
      */
     private ProjectMetaData() {}
 
+    /**
+     * Copy constructor.
+     * @param other the settings to copy
+     */
+    public ProjectMetaData(ProjectMetaData other) {
+        this.projectName = other.projectName;
+        this.pathToProjectXmlFile = other.pathToProjectXmlFile;
+        this.outputPath = other.outputPath;
+        this.xodrNetworkFilename = other.xodrNetworkFilename;
+        this.consumptionFilename = other.consumptionFilename;
+        this.consumptionPath = other.consumptionPath;
+        this.instantaneousFileOutput = other.instantaneousFileOutput;
+        this.writeDotFile = other.writeDotFile;
+        this.scanMode = other.scanMode;
+        this.timeOffsetMillis = other.timeOffsetMillis;
+        this.parallelThreads = other.parallelThreads;
+        this.outputBufferSize = other.outputBufferSize;
+        this.outputFlushIntervalMillis = other.outputFlushIntervalMillis;
+        this.outputQueueSize = other.outputQueueSize;
+        this.xmlFromResources = other.xmlFromResources;
+        this.parseFromInputstream = other.parseFromInputstream;
+        this.movsimXml = other.movsimXml;
+        this.networkXml = other.networkXml;
+        this.projectProperties = other.projectProperties;
+    }
+
     /**
      * Gets the single instance of ProjectMetaData.
      * @return single instance of ProjectMetaData
@@ -312,4 +361,65 @@ public final class ProjectMetaData {
     public boolean isScanMode() {
         return scanMode;
     }
+
+    public boolean hasParallelThreads() {
+        return parallelThreads >= 0;
+    }
+
+    public int getParallelThreads() {
+        if (!hasParallelThreads()) {
+            throw new IllegalStateException("parallel threads not set. Check in advance using \"hasParallelThreads()\"");
+        }
+        return parallelThreads;
+    }
+
+    /**
+     * Sets the number of threads for the road segment updates. Overrides the value from the xml configuration.
+     * @param parallelThreads number of threads, 0 uses all available processors
+     */
+    public void setParallelThreads(int parallelThreads) {
+        Preconditions.checkArgument(parallelThreads >= 0, "parallelThreads=" + parallelThreads);
+        this.parallelThreads = parallelThreads;
+    }
+
+    public int getOutputBufferSize() {
+        return outputBufferSize;
+    }
+
+    /**
+     * Sets the buffer size of the file outputs. Buffered files are flushed when the buffer is full, when the flush
+     * interval has elapsed and at the end of the simulation.
+     * @param outputBufferSize buffer size in bytes, 0 flushes the files after each record
+     */
+    public void setOutputBufferSize(int outputBufferSize) {
+        Preconditions.checkArgument(outputBufferSize >= 0, "outputBufferSize=" + outputBufferSize);
+        this.outputBufferSize = outputBufferSize;
+    }
+
+    public long getOutputFlushIntervalMillis() {
+        return outputFlushIntervalMillis;
+    }
+
+    /**
+     * Sets the maximum time between two flushes of buffered file outputs.
+     * @param outputFlushIntervalMillis interval in milliseconds, 0 flushes only if the buffer is full
+     */
+    public void setOutputFlushIntervalMillis(long outputFlushIntervalMillis) {
+        Preconditions.checkArgument(outputFlushIntervalMillis >= 0,
+                "outputFlushIntervalMillis=" + outputFlushIntervalMillis);
+        this.outputFlushIntervalMillis = outputFlushIntervalMillis;
+    }
+
+    public int getOutputQueueSize() {
+        return outputQueueSize;
+    }
+
+    /**
+     * Sets the size of the queue between the simulation thread and the writer thread of the file outputs.
+     * @param outputQueueSize maximum number of pending output tasks, 0 writes the files on the simulation thread
+     */
+    public void setOutputQueueSize(int outputQueueSize) {
+        Preconditions.checkArgument(outputQueueSize >= 0, "outputQueueSize=" + outputQueueSize);
+        this.outputQueueSize = outputQueueSize;
+    }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.input;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.movsim.io.OutputQueue;
+import org.movsim.shutdown.ShutdownHooks;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * State which belongs to a single simulation run: the project settings, the shutdown callbacks of the run's outputs,
+ * the queue of the asynchronous file output and the id counter of the vehicles.
+ * </p>
+ * <p>
+ * The context is handed down from the simulator to the road network, the vehicle factory and the file outputs, so several
+ * simulations can run concurrently in the same JVM without sharing state.
+ * </p>
+ */
+public final class SimulationContext {
+
+    /** first vehicle id of a simulation run */
+    private static final long INITIAL_VEHICLE_ID = 1;
+
+    private final ProjectMetaData projectMetaData;
+
+    private final ShutdownHooks shutdownHooks = new ShutdownHooks();
+
+    private final OutputQueue outputQueue;
+
+    private final AtomicLong nextVehicleId = new AtomicLong(INITIAL_VEHICLE_ID);
+
+    /**
+     * Constructor.
+     *
+     * @param projectMetaData
+     *            the project settings of the run, must not be shared with concurrently running simulations which modify
+     *            them
+     */
+    public SimulationContext(ProjectMetaData projectMetaData) {
+        this.projectMetaData = Preconditions.checkNotNull(projectMetaData);
+        this.outputQueue = new OutputQueue(projectMetaData.getOutputQueueSize());
+        // registered first: pending output is written before the files are closed
+        shutdownHooks.addCallback(outputQueue);
+    }
+
+    public ProjectMetaData getProjectMetaData() {
+        return projectMetaData;
+    }
+
+    /**
+     * @return the callbacks performed at the end of the simulation run
+     */
+    public ShutdownHooks getShutdownHooks() {
+        return shutdownHooks;
+    }
+
+    public OutputQueue getOutputQueue() {
+        return outputQueue;
+    }
+
+    public long nextVehicleId() {
+        return nextVehicleId.getAndIncrement();
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.io;
+
+import com.google.common.base.Preconditions;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.ISODateTimeFormat;
+import org.movsim.utilities.FileUtils;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads trajectory files written by {@link BinaryTrajectoryWriter} block by block.
+ * 
+ * <p>
+ * Usage: call {@link #next()} until it returns false, the accessors return the vehicle data of the current output time.
+ * The {@link #main(String[])} method converts a binary file to the csv trajectory format.
+ * </p>
+ */
+public class BinaryTrajectoryReader implements Closeable {
+
+    private static final String OUTPUT_HEADING = FileOutputBase.COMMENT_CHAR
+            + "     t[s], lane,       x[m],     v[m/s],   a[m/s^2],     gap[m],    dv[m/s], label,           id,  roadId, originId, absTime, xWithOffset[m]";
+    private static final String OUTPUT_FORMAT = "%10.2f, %4d, %10.1f, %10.4f, %10.5f, %10.2f, %10.6f,  %s, %12d, %8d, %8d, %s, %10.4f%n";
+
+    private final Inflater inflater = new Inflater();
+    private final DataInputStream in;
+    private final String routeName;
+    private final double offsetPosition;
+    private final long timeOffsetMillis;
+    private final List<String> labels = new ArrayList<>();
+
+    private byte[] bytes = new byte[4096];
+    private double time;
+    private int size;
+    private float[] position = new float[0];
+    private float[] speed = new float[0];
+    private float[] acc = new float[0];
+    private float[] gap = new float[0];
+    private float[] dv = new float[0];
+    private long[] id = new long[0];
+    private int[] roadId = new int[0];
+    private int[] originId = new int[0];
+    private short[] lane = new short[0];
+    private int[] labelIndex = new int[0];
+
+    public BinaryTrajectoryReader(File file) throws IOException {
+        in = new DataInputStream(new InflaterInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16),
+                inflater, 1 << 16));
+        try {
+            ByteBuffer header = read(4 + 2);
+            int magic = header.getInt();
+            if (magic != BinaryTrajectoryWriter.MAGIC) {
+                throw new IOException("not a binary trajectory file: " + file);
+            }
+            short version = header.getShort();
+            if (version != BinaryTrajectoryWriter.VERSION) {
+                throw new IOException("unsupported version " + version + " of binary trajectory file " + file);
+            }
+            routeName = readString();
+            header = read(8 + 8);
+            offsetPosition = header.getDouble();
+            timeOffsetMillis = header.getLong();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next output time.
+     * 
+     * @return false if the end of the file is reached
+     * @throws IOException
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            int blockType = in.read();
+            if (blockType == -1) {
+                size = 0;
+                return false;
+            }
+            if (blockType == BinaryTrajectoryWriter.BLOCK_LABEL) {
+                int index = read(4).getInt();
+                Preconditions.checkState(index == labels.size(), "unexpected label index " + index);
+                labels.add(readString());
+            } else if (blockType == BinaryTrajectoryWriter.BLOCK_SAMPLES) {
+                readSamples();
+                return true;
+            } else {
+                throw new IOException("unknown block type " + blockType);
+            }
+        }
+    }
+
+    private void readSamples() throws IOException {
+        ByteBuffer block = read(8 + 4);
+        time = block.getDouble();
+        size = block.getInt();
+        if (size < 0) {
+            throw new IOException("invalid number of samples " + size);
+        }
+        if (position.length < size) {
+            allocate(size);
+        }
+        block = read(size * BinaryTrajectoryWriter.SAMPLE_BYTES);
+        getFloats(block, position);
+        getFloats(block, speed);
+        getFloats(block, acc);
+        getFloats(block, gap);
+        getFloats(block, dv);
+        for (int i = 0; i < size; i++) {
+            id[i] = block.getLong();
+        }
+        for (int i = 0; i < size; i++) {
+            roadId[i] = block.getInt();
+        }
+        for (int i = 0; i < size; i++) {
+            originId[i] = block.getInt();
+        }
+        for (int i = 0; i < size; i++) {
+            lane[i] = block.getShort();
+        }
+        for (int i = 0; i < size; i++) {
+            labelIndex[i] = block.getInt();
+        }
+    }
+
+    private void getFloats(ByteBuffer block, float[] values) {
+        for (int i = 0; i < size; i++) {
+            values[i] = block.getFloat();
+        }
+    }
+
+    private void allocate(int capacity) {
+        position = new float[capacity];
+        speed = new float[capacity];
+        acc = new float[capacity];
+        gap = new float[capacity];
+        dv = new float[capacity];
+        id = new long[capacity];
+        roadId = new int[capacity];
+        originId = new int[capacity];
+        lane = new short[capacity];
+        labelIndex = new int[capacity];
+    }
+
+    private String readString() throws IOException {
+        int length = read(2).getShort();
+        return new String(read(length).array(), 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the given number of bytes, the returned buffer is only valid until the next call.
+     */
+    private ByteBuffer read(int length) throws IOException {
+        if (bytes.length < length) {
+            bytes = new byte[Math.max(length, 2 * bytes.length)];
+        }
+        try {
+            in.readFully(bytes, 0, length);
+        } catch (EOFException e) {
+            throw new IOException("truncated binary trajectory file", e);
+        }
+        return ByteBuffer.wrap(bytes, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public String getRouteName() {
+        return routeName;
+    }
+
+    public double getOffsetPosition() {
+        return offsetPosition;
+    }
+
+    public long getTimeOffsetMillis() {
+        return timeOffsetMillis;
+    }
+
+    /** simulation time of the current output */
+    public double time() {
+        return time;
+    }
+
+    /** number of vehicles of the current output */
+    public int size() {
+        return size;
+    }
+
+    public double position(int index) {
+        return position[checkIndex(index)];
+    }
+
+    public double speed(int index) {
+        return speed[checkIndex(index)];
+    }
+
+    public double acc(int index) {
+        return acc[checkIndex(index)];
+    }
+
+    public double gap(int index) {
+        return gap[checkIndex(index)];
+    }
+
+    public double dv(int index) {
+        return dv[checkIndex(index)];
+    }
+
+    public long id(int index) {
+        return id[checkIndex(index)];
+    }
+
+    public int roadId(int index) {
+        return roadId[checkIndex(index)];
+    }
+
+    public int originId(int index) {
+        return originId[checkIndex(index)];
+    }
+
+    public int lane(int index) {
+        return lane[checkIndex(index)];
+    }
+
+    /** @return the label of the vehicle, null if it has no label */
+    public String label(int index) {
+        int i = labelIndex[checkIndex(index)];
+        return i < 0 ? null : labels.get(i);
+    }
+
+    private int checkIndex(int index) {
+        return Preconditions.checkElementIndex(index, size);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            in.close();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Converts the current output time to csv lines in the format of the csv trajectory output, without the user data.
+     */
+    public void writeCsv(PrintWriter writer) {
+        String absTime = ISODateTimeFormat.dateTimeNoMillis().print(
+                new DateTime(timeOffsetMillis + Math.round(1000 * time), DateTimeZone.UTC));
+        for (int i = 0; i < size; i++) {
+            writer.printf(OUTPUT_FORMAT, time, lane[i], position[i], speed[i], acc[i], gap[i], dv[i], label(i), id[i],
+                    roadId[i], originId[i], absTime, position[i] + offsetPosition);
+        }
+    }
+
+    /**
+     * Converts a binary trajectory file to csv.
+     * 
+     * @param args
+     *            the binary file and optionally the csv file, default is the binary filename with the extension csv
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("usage: BinaryTrajectoryReader <trajectory file> [csv file]");
+            System.exit(1);
+        }
+        String csvFilename = args.length == 2 ? args[1] : args[0].replaceFirst("\\.[^.\\\\/]*$", "") + ".csv";
+        try (BinaryTrajectoryReader reader = new BinaryTrajectoryReader(new File(args[0]))) {
+            PrintWriter writer = FileUtils.getWriter(csvFilename);
+            if (writer == null) {
+                System.exit(1);
+            }
+            writer.println(String.format("%s route=%s", FileOutputBase.COMMENT_CHAR, reader.getRouteName()));
+            writer.println(OUTPUT_HEADING);
+            while (reader.next()) {
+                reader.writeCsv(writer);
+            }
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.io;
+
+import com.google.common.base.Preconditions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes vehicle trajectories in a compact binary format, read by {@link BinaryTrajectoryReader}.
+ * 
+ * <p>
+ * The file is a zlib (deflate) stream of little-endian data. It starts with a header: the {@link #MAGIC} int, the
+ * {@link #VERSION} short, the route name, the position offset (double) and the time offset of the simulation in
+ * milliseconds (long). Strings are written as the number of UTF-8 bytes (short) followed by the bytes.
+ * </p>
+ * 
+ * <p>
+ * The header is followed by blocks, each starting with a type byte. A {@link #BLOCK_LABEL} block defines a vehicle
+ * label: index (int) and string. A {@link #BLOCK_SAMPLES} block holds all vehicles of one output time: the time
+ * (double), the number of vehicles n (int) and then the columns position, speed, acceleration, gap, approaching rate
+ * (float[n] each), id (long[n]), road segment id, origin road segment id (int[n] each), lane (short[n]) and label index
+ * (int[n], -1 if the vehicle has no label).
+ * </p>
+ */
+public class BinaryTrajectoryWriter implements Closeable {
+
+    /** "MTRJ" in the little-endian byte order */
+    public static final int MAGIC = 0x4A52544D;
+    public static final short VERSION = 1;
+
+    static final byte BLOCK_LABEL = 'L';
+    static final byte BLOCK_SAMPLES = 'S';
+
+    private static final int HEADER_BYTES = 4 + 2 + 8 + 8;
+    /** bytes per vehicle in a samples block */
+    static final int SAMPLE_BYTES = 5 * 4 + 8 + 2 * 4 + 2 + 4;
+
+    private final OutputStream out;
+    private final Deflater deflater;
+    private final Map<String, Integer> labels = new HashMap<>();
+    private ByteBuffer buffer = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Constructor, writes the header.
+     * 
+     * @param out
+     *            the (buffered) file stream, closed by {@link #close()}
+     * @param routeName
+     * @param offsetPosition
+     *            offset added to the positions in the csv format, stored in the header
+     * @param timeOffsetMillis
+     *            absolute time of the simulation start
+     * @throws IOException
+     */
+    public BinaryTrajectoryWriter(OutputStream out, String routeName, double offsetPosition, long timeOffsetMillis)
+            throws IOException {
+        Preconditions.checkNotNull(out);
+        // fast compression level: the columns compress well and writing must keep up with the simulation
+        this.deflater = new Deflater(Deflater.BEST_SPEED);
+        this.out = new DeflaterOutputStream(out, deflater, 1 << 16);
+        byte[] name = encode(routeName);
+        ensureCapacity(HEADER_BYTES + 2 + name.length);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        putString(name);
+        buffer.putDouble(offsetPosition);
+        buffer.putLong(timeOffsetMillis);
+        flushBuffer();
+    }
+
+    /**
+     * Writes the vehicles of one output time, the arrays must contain at least {@code size} elements.
+     */
+    public void writeSamples(double time, int size, int[] lane, double[] position, double[] speed, double[] acc,
+            double[] gap, double[] dv, long[] id, int[] roadId, int[] originId, String[] label) throws IOException {
+        int[] labelIndex = new int[size];
+        for (int i = 0; i < size; i++) {
+            labelIndex[i] = labelIndex(label[i]);
+        }
+        ensureCapacity(1 + 8 + 4 + size * SAMPLE_BYTES);
+        buffer.put(BLOCK_SAMPLES);
+        buffer.putDouble(time);
+        buffer.putInt(size);
+        putFloats(position, size);
+        putFloats(speed, size);
+        putFloats(acc, size);
+        putFloats(gap, size);
+        putFloats(dv, size);
+        for (int i = 0; i < size; i++) {
+            buffer.putLong(id[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(roadId[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(originId[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            buffer.putShort((short) lane[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(labelIndex[i]);
+        }
+        flushBuffer();
+    }
+
+    /**
+     * Returns the index of the label, a new label is defined by a label block.
+     */
+    private int labelIndex(String label) throws IOException {
+        if (label == null) {
+            return -1;
+        }
+        Integer index = labels.get(label);
+        if (index == null) {
+            index = labels.size();
+            labels.put(label, index);
+            byte[] bytes = encode(label);
+            ensureCapacity(1 + 4 + 2 + bytes.length);
+            buffer.put(BLOCK_LABEL);
+            buffer.putInt(index);
+            putString(bytes);
+            flushBuffer();
+        }
+        return index;
+    }
+
+    private void putFloats(double[] values, int size) {
+        for (int i = 0; i < size; i++) {
+            buffer.putFloat((float) values[i]);
+        }
+    }
+
+    private void putString(byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static byte[] encode(String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        Preconditions.checkArgument(bytes.length <= Short.MAX_VALUE, "string too long: " + string);
+        return bytes;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocate(Math.max(bytes, 2 * buffer.capacity())).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.close();
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -26,14 +26,21 @@
 package org.movsim.io;
 
 import com.google.common.base.Preconditions;
+import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
 import org.movsim.shutdown.ShutdownHooks;
 import org.movsim.shutdown.SimulationShutDown;
 import org.movsim.utilities.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
 
 public class FileOutputBase implements SimulationShutDown {
 
@@ -44,21 +51,116 @@ public class FileOutputBase implements SimulationShutDown {
     public static final String SEPARATOR_CHAR = ",";
     public static final String NEWLINE = "%n";
 
+    /** minimum buffer size of binary streams in bytes, binary records are written block-wise */
+    private static final int BINARY_BUFFER_SIZE = 1 << 16;
+
     protected final String path;
     protected final String baseFilename;
     protected String filename;
     protected PrintWriter writer;
+    private final ShutdownHooks shutdownHooks;
+
+    /** performs the tasks submitted by the outputs, synchronous if not created with a simulation context */
+    private final OutputQueue outputQueue;
+
+    /** buffer size of the writers in bytes, 0: writers are flushed after each record */
+    private final int bufferSize;
+
+    /** maximum time in milliseconds between two flushes of buffered writers, 0: flush only if the buffer is full */
+    private final long flushIntervalMillis;
+
+    private long lastFlushMillis;
+
+    /** all writers created by this output, some outputs write to several files */
+    private final List<PrintWriter> writers = new ArrayList<>();
+
+    /** binary streams and other resources closed at the end of the simulation run */
+    private final List<Closeable> closeables = new ArrayList<>();
+
+    private boolean registered;
+
+    /**
+     * Constructor for the output of a simulation run. The file is named after the project and closed at the end of the run.
+     * The buffering of the file is configured by the {@link ProjectMetaData} of the run.
+     * 
+     * @param context
+     */
+    public FileOutputBase(SimulationContext context) {
+        this(context.getProjectMetaData().getOutputPath(), context.getProjectMetaData().getProjectName(),
+                context.getShutdownHooks(), context.getOutputQueue(),
+                context.getProjectMetaData().getOutputBufferSize(),
+                context.getProjectMetaData().getOutputFlushIntervalMillis());
+    }
 
     public FileOutputBase(String path, String baseFilename) {
+        this(path, baseFilename, ShutdownHooks.INSTANCE);
+    }
+
+    public FileOutputBase(String path, String baseFilename, ShutdownHooks shutdownHooks) {
+        this(path, baseFilename, shutdownHooks, new OutputQueue(0), 0, 0);
+    }
+
+    private FileOutputBase(String path, String baseFilename, ShutdownHooks shutdownHooks, OutputQueue outputQueue,
+            int bufferSize, long flushIntervalMillis) {
+        Preconditions.checkArgument(bufferSize >= 0, "bufferSize=" + bufferSize);
         this.path = path;
         this.baseFilename = baseFilename;
+        this.shutdownHooks = Preconditions.checkNotNull(shutdownHooks);
+        this.outputQueue = Preconditions.checkNotNull(outputQueue);
+        this.bufferSize = bufferSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.lastFlushMillis = System.currentTimeMillis();
     }
 
     public PrintWriter createWriter(String extension) {
         filename = getFilename(extension);
         Preconditions.checkArgument(filename.length() > 0);
-        ShutdownHooks.INSTANCE.addCallback(this);
-        return FileUtils.getWriter(filename);
+        PrintWriter newWriter = bufferSize > 0 ? FileUtils.getWriter(filename, bufferSize)
+                : FileUtils.getWriter(filename);
+        synchronized (writers) {
+            registerShutDown();
+            writers.add(newWriter);
+        }
+        return newWriter;
+    }
+
+    /**
+     * Creates a buffered stream for binary output. Streams wrapping it have to be passed to
+     * {@link #closeOnShutDown(Closeable)}, the returned stream itself is not closed by this output.
+     * 
+     * @param extension
+     * @return the output stream
+     */
+    public OutputStream createOutputStream(String extension) {
+        filename = getFilename(extension);
+        Preconditions.checkArgument(filename.length() > 0);
+        OutputStream outputStream = FileUtils.getOutputStream(filename, Math.max(bufferSize, BINARY_BUFFER_SIZE));
+        if (outputStream == null) {
+            throw new IllegalStateException("cannot open file " + filename);
+        }
+        return outputStream;
+    }
+
+    /**
+     * Closes the given resource at the end of the simulation run, after the pending tasks of the output queue have been
+     * performed.
+     * 
+     * @param resource
+     * @return the resource
+     */
+    protected <T extends Closeable> T closeOnShutDown(T resource) {
+        synchronized (writers) {
+            registerShutDown();
+            closeables.add(Preconditions.checkNotNull(resource));
+        }
+        return resource;
+    }
+
+    private void registerShutDown() {
+        if (!registered) {
+            registered = true;
+            shutdownHooks.addCallback(this);
+        }
     }
 
     private String getFilename(String extension) {
@@ -67,14 +169,59 @@ public class FileOutputBase implements SimulationShutDown {
 
     public void write(String format, Object... args) {
         writer.printf(format, args);
-        writer.flush();
+        flushIfDue(writer);
+    }
+
+    /**
+     * Submits a task which writes to the files of this output. The task may run on a background thread, so it must only
+     * use a snapshot of the simulation data. The tasks of all outputs of a simulation run are performed in submission
+     * order.
+     * 
+     * @param task
+     */
+    protected void submit(Runnable task) {
+        outputQueue.submit(task);
+    }
+
+    /**
+     * Called after a record has been written: flushes the given writer in the unbuffered mode, and all writers of this
+     * output if the flush interval of the buffered mode has elapsed.
+     * 
+     * @param recordWriter
+     *            the writer of the record
+     */
+    protected void flushIfDue(PrintWriter recordWriter) {
+        if (bufferSize == 0) {
+            recordWriter.flush();
+        } else if (flushIntervalMillis > 0) {
+            long now = System.currentTimeMillis();
+            if (now - lastFlushMillis >= flushIntervalMillis) {
+                lastFlushMillis = now;
+                synchronized (writers) {
+                    for (PrintWriter printWriter : writers) {
+                        printWriter.flush();
+                    }
+                }
+            }
+        }
     }
 
     @Override
     public void onShutDown() {
-        if (writer != null) {
-            LOG.info("close writer for file={}", filename);
-            writer.close();
+        synchronized (writers) {
+            for (PrintWriter printWriter : writers) {
+                printWriter.close();
+            }
+            for (Closeable closeable : closeables) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    LOG.error("cannot close file {}: {}", filename, e.getMessage());
+                }
+            }
+        }
+        if (filename != null) {
+            LOG.info("closed {} file(s), last file={}", writers.size() + closeables.size(), filename);
         }
     }
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.io;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.movsim.shutdown.SimulationShutDown;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * Decouples the file outputs from the simulation thread. The outputs take a snapshot of the data on the simulation
+ * thread and submit the formatting and writing as task which is performed by a single background thread in submission
+ * order.
+ * </p>
+ * <p>
+ * The queue is bounded: if the writer thread falls behind, {@link #submit(Runnable)} blocks until there is space again.
+ * On shutdown all pending tasks are performed before the writer thread terminates. With a capacity of 0 the tasks are
+ * performed directly by the calling thread.
+ * </p>
+ */
+public final class OutputQueue implements SimulationShutDown {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutputQueue.class);
+
+    /** marks the end of the tasks */
+    private static final Runnable END = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private final int capacity;
+
+    private BlockingQueue<Runnable> queue;
+
+    private Thread writerThread;
+
+    private volatile Throwable failure;
+
+    /**
+     * Constructor.
+     * 
+     * @param capacity
+     *            maximum number of pending tasks, 0 performs the tasks synchronously
+     */
+    public OutputQueue(int capacity) {
+        Preconditions.checkArgument(capacity >= 0, "capacity=" + capacity);
+        this.capacity = capacity;
+    }
+
+    public boolean isAsynchronous() {
+        return capacity > 0;
+    }
+
+    /**
+     * Submits an output task. Blocks while the queue is full.
+     * 
+     * @param task
+     * @throws IllegalStateException
+     *             if a previous task has failed or the calling thread is interrupted
+     */
+    public void submit(Runnable task) {
+        Preconditions.checkNotNull(task);
+        if (!isAsynchronous()) {
+            task.run();
+            return;
+        }
+        checkFailure();
+        try {
+            queue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for the output queue", e);
+        }
+    }
+
+    private synchronized BlockingQueue<Runnable> queue() {
+        if (writerThread == null) {
+            queue = new ArrayBlockingQueue<>(capacity);
+            writerThread = new Thread(new Writer(queue), "movsim-output-writer");
+            // pending output is written by the shutdown callbacks, do not keep the JVM alive
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+        return queue;
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("output writer failed", failure);
+        }
+    }
+
+    /**
+     * Performs all pending tasks and stops the writer thread. The thread is restarted on demand if the simulation
+     * continues.
+     */
+    @Override
+    public synchronized void onShutDown() {
+        if (writerThread == null) {
+            return;
+        }
+        try {
+            queue.put(END);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("interrupted while draining the output queue");
+        }
+        writerThread = null;
+        queue = null;
+    }
+
+    private final class Writer implements Runnable {
+        private final BlockingQueue<Runnable> tasks;
+
+        Writer(BlockingQueue<Runnable> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                final Runnable task;
+                try {
+                    task = tasks.take();
+                } catch (InterruptedException e) {
+                    LOG.error("output writer interrupted, pending output is lost");
+                    return;
+                }
+                if (task == END) {
+                    return;
+                }
+                if (failure == null) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException | Error e) {
+                        LOG.error("output writer failed", e);
+                        failure = e;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -3,28 +3,41 @@ package org.movsim.shutdown;
 import java.util.ArrayList;
 import java.util.List;
 
-public enum ShutdownHooks implements SimulationShutDown {
+/**
+ * Collection of shutdown callbacks. Each simulation run has its own instance, see
+ * {@code org.movsim.input.SimulationContext}. {@link #INSTANCE} collects the callbacks which have to be performed when
+ * the JVM terminates.
+ */
+public final class ShutdownHooks implements SimulationShutDown {
 
-    INSTANCE;
+    public static final ShutdownHooks INSTANCE = new ShutdownHooks();
 
     private final List<SimulationShutDown> callbacks = new ArrayList<>();
 
-    public void addCallback(final SimulationShutDown callback) {
-	if (callback != null) {
-	    callbacks.add(callback);
-	}
+    public synchronized void addCallback(final SimulationShutDown callback) {
+        if (callback != null) {
+            callbacks.add(callback);
+        }
+    }
+
+    public synchronized void removeCallback(final SimulationShutDown callback) {
+        callbacks.remove(callback);
     }
 
     @Override
     public void onShutDown() {
-        System.out.println("perform shutdown callbacks=" + callbacks.size());
-        for (final SimulationShutDown shutDownCallback : callbacks) {
+        final List<SimulationShutDown> copy;
+        synchronized (this) {
+            copy = new ArrayList<>(callbacks);
+        }
+        System.out.println("perform shutdown callbacks=" + copy.size());
+        for (final SimulationShutDown shutDownCallback : copy) {
             shutDownCallback.onShutDown();
         }
     }
 
-    public void clear() {
-	callbacks.clear();
+    public synchronized void clear() {
+        callbacks.clear();
     }
 
 }
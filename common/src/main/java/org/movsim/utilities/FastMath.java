@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.utilities;
+
+/**
+ * Fast approximations of the mathematical functions used in the inner loop of the acceleration models.
+ * 
+ * <p>
+ * Accuracy bounds:
+ * <ul>
+ * <li>{@link #pow(double, double)}: integer exponents from 0 to {@value #MAX_INTEGER_EXPONENT} are evaluated by repeated
+ * multiplication with a relative error of at most a few ulp (e.g. 2 roundings for x^4), other exponents are delegated
+ * to {@link Math#pow(double, double)}.</li>
+ * <li>{@link #tanh(double)}: linear interpolation in a table with step 1/{@value #TANH_SCALE}, absolute error below
+ * 1e-7.</li>
+ * <li>{@link #gaussDensity(double)}: linear interpolation in a table with step 1/{@value #GAUSS_SCALE}, absolute error
+ * below 1e-7.</li>
+ * </ul>
+ * </p>
+ */
+public final class FastMath {
+
+    /** largest exponent evaluated by repeated multiplication */
+    public static final int MAX_INTEGER_EXPONENT = 16;
+
+    /** tanh(x) is approximated by +-1 for |x| >= TANH_MAX, error 1 - tanh(10) < 5e-9 */
+    private static final double TANH_MAX = 10;
+    private static final int TANH_SCALE = 1024;
+    private static final double[] TANH_TABLE = tabulate(TANH_MAX, TANH_SCALE, false);
+
+    /** the Gaussian density is approximated by 0 for |z| >= GAUSS_MAX, error < 1e-17 */
+    private static final double GAUSS_MAX = 9;
+    private static final int GAUSS_SCALE = 1024;
+    private static final double[] GAUSS_TABLE = tabulate(GAUSS_MAX, GAUSS_SCALE, true);
+
+    private FastMath() {
+        throw new IllegalStateException("do not instanciate");
+    }
+
+    private static double[] tabulate(double max, int scale, boolean gauss) {
+        final int n = (int) (max * scale) + 2;
+        final double[] table = new double[n];
+        for (int i = 0; i < n; ++i) {
+            final double x = (double) i / scale;
+            table[i] = gauss ? ProbabilityUtils.getGaussDensity(x) : Math.tanh(x);
+        }
+        return table;
+    }
+
+    private static double interpolate(double[] table, double t) {
+        final int i = (int) t;
+        final double y0 = table[i];
+        return y0 + (t - i) * (table[i + 1] - y0);
+    }
+
+    /**
+     * Returns x raised to the power of exponent. Integer exponents, especially the acceleration exponent 4 of the IDM,
+     * are evaluated by repeated multiplication.
+     * 
+     * @param x
+     *            the base
+     * @param exponent
+     *            the exponent
+     * @return x^exponent
+     */
+    public static double pow(double x, double exponent) {
+        if (exponent == 4.0) {
+            final double x2 = x * x;
+            return x2 * x2;
+        }
+        final int n = (int) exponent;
+        if (n != exponent || n < 0 || n > MAX_INTEGER_EXPONENT) {
+            return Math.pow(x, exponent);
+        }
+        double result = 1.0;
+        double base = x;
+        for (int k = n; k != 0; k >>= 1) {
+            if ((k & 1) != 0) {
+                result *= base;
+            }
+            base *= base;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the tabulated hyperbolic tangent.
+     * 
+     * @param x
+     * @return tanh(x) with an absolute error below 1e-7
+     */
+    public static double tanh(double x) {
+        final double ax = Math.abs(x);
+        if (ax >= TANH_MAX) {
+            return Math.copySign(1.0, x);
+        }
+        return Math.copySign(interpolate(TANH_TABLE, ax * TANH_SCALE), x);
+    }
+
+    /**
+     * Returns the tabulated normalized Gaussian density, see {@link ProbabilityUtils#getGaussDensity(double)}.
+     * 
+     * @param z
+     * @return the normalized Gaussian density with an absolute error below 1e-7
+     */
+    public static double gaussDensity(double z) {
+        final double az = Math.abs(z);
+        if (az >= GAUSS_MAX) {
+            return 0.0;
+        }
+        return interpolate(GAUSS_TABLE, az * GAUSS_SCALE);
+    }
+}
@@ -25,17 +25,20 @@
  */
 package org.movsim.utilities;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -87,6 +90,44 @@ public final class FileUtils {
         return null;
     }
 
+    /**
+     * Gets a writer with the given buffer size which is only flushed if the buffer is full or on explicit request.
+     * 
+     * @param filename
+     *            the filename
+     * @param bufferSize
+     *            the buffer size in bytes
+     * @return the writer, null if the file cannot be opened
+     */
+    public static PrintWriter getWriter(String filename, int bufferSize) {
+        try {
+            LOG.info("open file {} for buffered writing, buffer size={}", filename, bufferSize);
+            return new PrintWriter(new BufferedWriter(new FileWriter(filename, false), bufferSize));
+        } catch (final java.io.IOException e) {
+            LOG.error("cannot open file {} for writing", filename);
+        }
+        return null;
+    }
+
+    /**
+     * Gets a buffered output stream for binary files.
+     * 
+     * @param filename
+     *            the filename
+     * @param bufferSize
+     *            the buffer size in bytes
+     * @return the output stream, null if the file cannot be opened
+     */
+    public static OutputStream getOutputStream(String filename, int bufferSize) {
+        try {
+            LOG.info("open file {} for binary writing, buffer size={}", filename, bufferSize);
+            return new BufferedOutputStream(new FileOutputStream(filename, false), bufferSize);
+        } catch (final java.io.IOException e) {
+            LOG.error("cannot open file {} for writing", filename);
+        }
+        return null;
+    }
+
     /**
      * Gets the reader.
      * 
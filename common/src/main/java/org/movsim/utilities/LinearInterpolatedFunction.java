@@ -2,8 +2,6 @@ package org.movsim.utilities;
 
 import java.util.Arrays;
 
-import org.apache.commons.math3.analysis.interpolation.LinearInterpolator;
-import org.apache.commons.math3.analysis.polynomials.PolynomialSplineFunction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,59 +12,134 @@ import com.google.common.base.Preconditions;
  * the boundaries.
  * 
  * <p>
- * In case of only one data point no splineFunction is created.
+ * The interval containing the argument is found by a binary search over the knots. For knots on a uniform grid (e.g.
+ * tabulated functions) the interval is computed directly from the argument, see {@link #isUniformGrid()}. Both lookups
+ * select the same interval, so the values do not depend on the lookup. Time series which are queried with increasing
+ * arguments should use {@link LinearInterpolatedTimeSeries}.
+ * </p>
+ * 
+ * <p>
+ * In case of only one data point the function is constant.
+ * </p>
  */
 public class LinearInterpolatedFunction {
-    
+
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(LinearInterpolatedFunction.class);
 
+    /** relative deviation of the knots from the uniform grid up to which the direct index computation is used */
+    private static final double UNIFORM_GRID_TOLERANCE = 1e-9;
 
-    private PolynomialSplineFunction splineFunction;
-
-    private final XYDataPoint start;
-    private final XYDataPoint end;
-    
-    private final int numberOfDataPoints;
+    private final double[] x;
+    private final double[] y;
+    /** slope of the interval [x[i], x[i+1]] */
+    private final double[] slope;
 
-    public int getNumberOfDataPoints() {
-        return numberOfDataPoints;
-    }
+    private final boolean uniformGrid;
+    /** 1/(grid step) if the knots are on a uniform grid */
+    private final double inverseStep;
 
     /**
      * @throws IllegalArgumentException
-     *             , DimensionMismatchException, NumberIsTooSmallException, NonMonotonicSequenceException
+     *             if the dimensions mismatch or are zero, or if the x values are not strictly increasing
      */
     public LinearInterpolatedFunction(double[] x, double[] y) {
         Preconditions.checkArgument(x.length == y.length, "dimensions mismatch");
         Preconditions.checkArgument(x.length != 0, "dimension zero");
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("x={}", Arrays.toString(x));
+            LOG.debug("y={}", Arrays.toString(y));
+        }
+        final int n = x.length;
+        this.x = Arrays.copyOf(x, n);
+        this.y = Arrays.copyOf(y, n);
+        this.slope = new double[Math.max(n - 1, 0)];
+        for (int i = 0; i < n - 1; i++) {
+            Preconditions.checkArgument(x[i] < x[i + 1], "x values not strictly increasing at index %s", i);
+            slope[i] = (y[i + 1] - y[i]) / (x[i + 1] - x[i]);
+        }
+        this.uniformGrid = n > 2 && isUniform(x);
+        this.inverseStep = n > 1 ? (n - 1) / (x[n - 1] - x[0]) : 0;
+    }
 
-        if (x.length > 1) {
-            LinearInterpolator linearInterpolator = new LinearInterpolator();
-            if(LOG.isDebugEnabled()){
-                LOG.debug("x={}", Arrays.toString(x));
-                LOG.debug("y={}", Arrays.toString(y));
+    private static boolean isUniform(double[] x) {
+        final int n = x.length;
+        final double range = x[n - 1] - x[0];
+        final double step = range / (n - 1);
+        for (int i = 1; i < n - 1; i++) {
+            if (Math.abs(x[i] - (x[0] + i * step)) > UNIFORM_GRID_TOLERANCE * range) {
+                return false;
             }
-            splineFunction = linearInterpolator.interpolate(x, y);
         }
-        
-        numberOfDataPoints = x.length;
+        return true;
+    }
+
+    public int getNumberOfDataPoints() {
+        return x.length;
+    }
 
-        start = new XYDataPoint(x[0], y[0]);
-        end = new XYDataPoint(x[x.length - 1], y[y.length - 1]);
+    /**
+     * Returns true if the knots are equidistant, so that the interval of an argument is computed directly instead of
+     * searched.
+     * 
+     * @return true for equidistant knots
+     */
+    public boolean isUniformGrid() {
+        return uniformGrid;
     }
 
     public double value(double x0) {
-        if (splineFunction != null && splineFunction.isValidPoint(x0)) {
-            return splineFunction.value(x0);
+        final int n = x.length;
+        if (n > 1 && x0 >= x[0] && x0 <= x[n - 1]) {
+            return interpolate(intervalIndex(x0), x0);
         }
-        if (x0 <= start.getX()) {
-            return start.getY();
+        if (x0 <= x[0]) {
+            return y[0];
         }
-        if (x0 >= end.getX()) {
-            return end.getY();
+        if (x0 >= x[n - 1]) {
+            return y[n - 1];
         }
         throw new IllegalStateException("should not reach undefined function range=" + x0);
     }
 
+    /**
+     * Returns the index of the interval [x[i], x[i+1]] containing the argument, which lies within the range of the
+     * knots. The last interval is closed at both ends.
+     */
+    int intervalIndex(double x0) {
+        if (uniformGrid) {
+            return correctIndex((int) ((x0 - x[0]) * inverseStep), x0);
+        }
+        return searchIndex(x0);
+    }
+
+    final int searchIndex(double x0) {
+        int i = Arrays.binarySearch(x, x0);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return Math.min(i, x.length - 2);
+    }
+
+    /**
+     * Moves the guessed index to the interval containing the argument.
+     */
+    final int correctIndex(int guess, double x0) {
+        final int last = x.length - 2;
+        int i = Math.max(0, Math.min(guess, last));
+        while (i > 0 && x0 < x[i]) {
+            --i;
+        }
+        while (i < last && x0 >= x[i + 1]) {
+            ++i;
+        }
+        return i;
+    }
+
+    final double interpolate(int i, double x0) {
+        final double m = slope[i];
+        // a constant interval returns the data value itself (preserves the sign of zero)
+        return m == 0 ? y[i] : (x0 - x[i]) * m + y[i];
+    }
+
 }
@@ -0,0 +1,27 @@
+package org.movsim.utilities;
+
+/**
+ * Linearly interpolated time series which is queried with (mostly) increasing arguments, e.g. once per simulation time
+ * step or along a route. The interval of the last query is kept as cursor, so that a query only advances the cursor by
+ * the intervals passed since the last query. Decreasing arguments are supported by moving the cursor backwards.
+ * 
+ * <p>
+ * The values are the same as those of {@link LinearInterpolatedFunction}. Because of the cursor an instance must not be
+ * shared between threads.
+ * </p>
+ */
+public class LinearInterpolatedTimeSeries extends LinearInterpolatedFunction {
+
+    private int cursor;
+
+    public LinearInterpolatedTimeSeries(double[] times, double[] values) {
+        super(times, values);
+    }
+
+    @Override
+    int intervalIndex(double time) {
+        cursor = correctIndex(cursor, time);
+        return cursor;
+    }
+
+}
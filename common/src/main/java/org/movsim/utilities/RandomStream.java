@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.utilities;
+
+/**
+ * <p>
+ * Pseudo-random number generator for a single consumer, e.g. one vehicle.
+ * </p>
+ * <p>
+ * The generator implements the SplitMix64 algorithm which passes the usual statistical test suites and allows to derive
+ * statistically independent streams from a single seed, see {@link RandomStreams}. In contrast to {@link java.util.Random}
+ * the state is not synchronized, so a stream must not be shared between threads without external synchronization.
+ * </p>
+ */
+public final class RandomStream {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long state;
+
+    private double nextNextGaussian;
+
+    private boolean haveNextNextGaussian = false;
+
+    /**
+     * Constructor.
+     *
+     * @param seed
+     *            the initial seed, different seeds result in uncorrelated sequences
+     */
+    public RandomStream(long seed) {
+        this.state = mix64(seed);
+    }
+
+    /**
+     * Returns a new stream which is seeded from this stream's sequence. The new stream is independent of this stream.
+     *
+     * @return the new stream
+     */
+    public RandomStream split() {
+        return new RandomStream(nextLong());
+    }
+
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    /**
+     * @param bound
+     *            the upper bound (exclusive), must be positive
+     * @return a uniformly distributed {@code int} value between 0 (inclusive) and {@code bound} (exclusive)
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive, got " + bound);
+        }
+        int r = nextInt() >>> 1;
+        final int m = bound - 1;
+        if ((bound & m) == 0) {
+            return (int) ((bound * (long) r) >> 31);
+        }
+        for (int u = r; u - (r = u % bound) + m < 0; u = nextInt() >>> 1) {
+            // reject values of the incomplete last interval
+        }
+        return r;
+    }
+
+    /**
+     * @return the next pseudo-random, uniformly distributed {@code double} value between {@code 0.0} (inclusive) and
+     *         {@code 1.0} (exclusive) from the stream's sequence
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * @return the next pseudo-random, Gaussian distributed {@code double} value with mean {@code 0.0} and standard
+     *         deviation {@code 1.0} from the stream's sequence (polar method)
+     */
+    public double nextGaussian() {
+        if (haveNextNextGaussian) {
+            haveNextNextGaussian = false;
+            return nextNextGaussian;
+        }
+        double v1;
+        double v2;
+        double s;
+        do {
+            v1 = 2 * nextDouble() - 1;
+            v2 = 2 * nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        final double multiplier = Math.sqrt(-2 * Math.log(s) / s);
+        nextNextGaussian = v2 * multiplier;
+        haveNextNextGaussian = true;
+        return v1 * multiplier;
+    }
+
+    /**
+     * returns a realization of a uniformly distributed random variable in [-1, 1]
+     * 
+     * @return a uniformly distributed realization in [-1, 1]
+     */
+    public double getUniformDistribution() {
+        return 2 * nextDouble() - 1;
+    }
+
+    public double getUniformlyDistributedRandomizedFactor(double randomizationStrength) {
+        return 1 + randomizationStrength * getUniformDistribution();
+    }
+
+    public double getGaussiansDistributedRandomizedFactor(double sigma, double nSigmaCutoff) {
+        return 1 + Math.max(-nSigmaCutoff * sigma, Math.min(nSigmaCutoff, sigma * nextGaussian()));
+    }
+
+    /**
+     * SplitMix64 finalizer (variant 13 of D. Stafford's 64-bit mix functions).
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    static long golden(long index) {
+        return index * GOLDEN_GAMMA;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.utilities;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * Source of the random numbers of a single simulation run.
+ * </p>
+ * <p>
+ * All streams are derived from the seed of the simulation. Each consumer (vehicle, traffic composition, ...) gets its own
+ * {@link RandomStream} identified by a name and an index, so the realizations of a consumer do neither depend on the order
+ * in which the consumers draw their random numbers nor on the number of threads used for the simulation.
+ * </p>
+ */
+public final class RandomStreams {
+
+    private static final String VEHICLE_STREAMS = "vehicle";
+
+    private final long seed;
+
+    private final AtomicLong vehicleCount = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param seed
+     *            the seed of the simulation run
+     */
+    public RandomStreams(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Creates the random streams for a simulation run which is not reproducible.
+     *
+     * @return the random streams with a seed based on the system time
+     */
+    public static RandomStreams unseeded() {
+        return new RandomStreams(System.nanoTime() ^ RandomStream.mix64(System.currentTimeMillis()));
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * Returns a new stream for the given consumer. The same name always results in the same sequence.
+     *
+     * @param name
+     *            identifies the consumer of the stream
+     * @return the new stream
+     */
+    public RandomStream stream(String name) {
+        return stream(name, 0);
+    }
+
+    /**
+     * Returns a new stream for the consumer with the given name and index.
+     *
+     * @param name
+     *            identifies the group of consumers
+     * @param index
+     *            index within the group of consumers
+     * @return the new stream
+     */
+    public RandomStream stream(String name, long index) {
+        Preconditions.checkNotNull(name);
+        final long key = RandomStream.mix64(name.hashCode()) + RandomStream.golden(index + 1);
+        return new RandomStream(seed ^ RandomStream.mix64(key));
+    }
+
+    /**
+     * Returns the stream for the next vehicle. The vehicles are numbered in the order of their creation which does not
+     * depend on the number of threads.
+     *
+     * @return the new stream
+     */
+    public RandomStream vehicleStream() {
+        return stream(VEHICLE_STREAMS, vehicleCount.getAndIncrement());
+    }
+}
@@ -6,6 +6,7 @@ import java.net.URL;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
@@ -25,7 +26,7 @@ public final class FileUnmarshaller<T> {
     /** Assure that only one loading/jaxb operation is active. */
     private static final Object SYNC_OBJECT = new Object();
 
-    public final T load(StreamSource source, Class<T> clazz, Class<?> factory, URL xsdFile) throws JAXBException,
+    public final T load(Source source, Class<T> clazz, Class<?> factory, URL xsdFile) throws JAXBException,
             SAXException {
         T result;
         synchronized (SYNC_OBJECT) {
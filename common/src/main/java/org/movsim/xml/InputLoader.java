@@ -15,6 +15,12 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
+
 import org.movsim.autogen.Movsim;
 import org.movsim.network.autogen.opendrive.OpenDRIVE;
 import org.movsim.scenario.boundary.autogen.MovsimMicroscopicBoundaryConditions;
@@ -23,6 +29,9 @@ import org.movsim.scenario.vehicle.autogen.MovsimExternalVehicleControl;
 import org.movsim.utilities.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
 
 public final class InputLoader {
 
@@ -63,6 +72,39 @@ public final class InputLoader {
         return fileUnmarshaller.load(xmlFile, Movsim.class, xsdResourcen.factory, xsdResourcen.getUrl());
     }
 
+    /**
+     * Validates and unmarshalls a movsim input given as DOM node, e.g. a document created by
+     * {@link #marshallMovsim(Movsim)} and modified afterwards.
+     * 
+     * @throws IllegalStateException
+     */
+    public static Movsim unmarshallMovsim(Node node) {
+        FileUnmarshaller<Movsim> fileUnmarshaller = new FileUnmarshaller<>();
+        XmlInput xsdResourcen = XmlInput.MOVSIM_XPRJ;
+        try {
+            return fileUnmarshaller.load(new DOMSource(node), Movsim.class, xsdResourcen.factory,
+                    xsdResourcen.getUrl());
+        } catch (JAXBException | SAXException e) {
+            throw new IllegalStateException(e.toString());
+        }
+    }
+
+    /**
+     * Converts the movsim input to a DOM document.
+     * 
+     * @throws IllegalStateException
+     */
+    public static Document marshallMovsim(Movsim movsim) {
+        try {
+            Marshaller marshaller = JAXBContext.newInstance(XmlInput.MOVSIM_XPRJ.factory).createMarshaller();
+            DOMResult result = new DOMResult();
+            marshaller.marshal(movsim, result);
+            return (Document) result.getNode();
+        } catch (JAXBException e) {
+            throw new IllegalStateException(e.toString());
+        }
+    }
+
     /**
      * @throws IllegalStateException
      */
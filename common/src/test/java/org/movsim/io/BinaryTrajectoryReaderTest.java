@@ -0,0 +1,65 @@
+package org.movsim.io;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BinaryTrajectoryReaderTest {
+
+    private static final double DELTA = 0.0001;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        File file = folder.newFile("test.traj.route_main.bin");
+        try (BinaryTrajectoryWriter writer = new BinaryTrajectoryWriter(new FileOutputStream(file), "main", 100,
+                3600000)) {
+            writer.writeSamples(1.5, 2, new int[] { 1, 2 }, new double[] { 12.5, 1234.5 },
+                    new double[] { 20.25, 0 }, new double[] { -0.5, 1 }, new double[] { 35, 0 },
+                    new double[] { 1.75, 0 }, new long[] { 7, 8 }, new int[] { 1, 3 }, new int[] { 1, 1 },
+                    new String[] { "ACC", null });
+            writer.writeSamples(2.5, 1, new int[] { 1 }, new double[] { 33 }, new double[] { 20 },
+                    new double[] { 0 }, new double[] { 0 }, new double[] { 0 }, new long[] { 7 }, new int[] { 1 },
+                    new int[] { 1 }, new String[] { "ACC" });
+        }
+
+        try (BinaryTrajectoryReader reader = new BinaryTrajectoryReader(file)) {
+            assertThat(reader.getRouteName(), is("main"));
+            assertThat(reader.getOffsetPosition(), closeTo(100, DELTA));
+            assertThat(reader.getTimeOffsetMillis(), is(3600000L));
+
+            assertThat(reader.next(), is(true));
+            assertThat(reader.time(), closeTo(1.5, DELTA));
+            assertThat(reader.size(), is(2));
+            assertThat(reader.lane(1), is(2));
+            assertThat(reader.position(1), closeTo(1234.5, DELTA));
+            assertThat(reader.speed(0), closeTo(20.25, DELTA));
+            assertThat(reader.acc(0), closeTo(-0.5, DELTA));
+            assertThat(reader.gap(0), closeTo(35, DELTA));
+            assertThat(reader.dv(0), closeTo(1.75, DELTA));
+            assertThat(reader.id(1), is(8L));
+            assertThat(reader.roadId(1), is(3));
+            assertThat(reader.originId(1), is(1));
+            assertThat(reader.label(0), is("ACC"));
+            assertThat(reader.label(1), nullValue());
+
+            assertThat(reader.next(), is(true));
+            assertThat(reader.time(), closeTo(2.5, DELTA));
+            assertThat(reader.size(), is(1));
+            assertThat(reader.label(0), is("ACC"));
+
+            assertThat(reader.next(), is(false));
+        }
+    }
+}
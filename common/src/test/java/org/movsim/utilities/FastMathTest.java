@@ -0,0 +1,37 @@
+package org.movsim.utilities;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class FastMathTest {
+
+    @Test
+    public void testIntegerPow() {
+        for (double x = -3; x < 3; x += 0.013) {
+            for (int n = 0; n <= FastMath.MAX_INTEGER_EXPONENT; n++) {
+                final double exact = Math.pow(x, n);
+                assertEquals(exact, FastMath.pow(x, n), 1e-14 * Math.max(1, Math.abs(exact)));
+            }
+        }
+        assertEquals(Math.pow(2.5, 0.5), FastMath.pow(2.5, 0.5), 0);
+        assertEquals(Math.pow(2.5, -2), FastMath.pow(2.5, -2), 0);
+    }
+
+    @Test
+    public void testTanh() {
+        for (double x = -15; x < 15; x += 0.000731) {
+            assertEquals(Math.tanh(x), FastMath.tanh(x), 1e-7);
+        }
+        assertEquals(1.0, FastMath.tanh(Double.POSITIVE_INFINITY), 0);
+        assertEquals(-1.0, FastMath.tanh(Double.NEGATIVE_INFINITY), 0);
+        assertEquals(Double.NaN, FastMath.tanh(Double.NaN), 0);
+    }
+
+    @Test
+    public void testGaussDensity() {
+        for (double z = -12; z < 12; z += 0.000731) {
+            assertEquals(ProbabilityUtils.getGaussDensity(z), FastMath.gaussDensity(z), 1e-7);
+        }
+    }
+}
@@ -3,6 +3,10 @@ package org.movsim.utilities;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import java.util.Random;
+
+import org.apache.commons.math3.analysis.interpolation.LinearInterpolator;
+import org.apache.commons.math3.analysis.polynomials.PolynomialSplineFunction;
 import org.junit.Test;
 
 public class LinearInterpolatedFunctionTest {
@@ -32,4 +36,61 @@ public class LinearInterpolatedFunctionTest {
         assertThat(fct.value(5.5), equalTo(8.75));
     }
 
+    /** values must be identical to the spline function of commons-math within the range */
+    private static void assertSameAsSpline(double[] x, double[] y, LinearInterpolatedFunction fct, double[] args) {
+        PolynomialSplineFunction spline = new LinearInterpolator().interpolate(x, y);
+        for (double arg : args) {
+            double expected = arg < x[0] ? y[0] : arg > x[x.length - 1] ? y[y.length - 1] : spline.value(arg);
+            assertThat(fct.value(arg), equalTo(expected));
+        }
+    }
+
+    private static double[] arguments(double[] x, Random random) {
+        double[] args = new double[4 * x.length + 2];
+        for (int i = 0; i < x.length; i++) {
+            args[4 * i] = x[i];
+            args[4 * i + 1] = x[i] + 1e-12;
+            args[4 * i + 2] = x[i] - 1e-12;
+            args[4 * i + 3] = x[0] + random.nextDouble() * (x[x.length - 1] - x[0]);
+        }
+        args[args.length - 2] = x[0] - 1;
+        args[args.length - 1] = x[x.length - 1] + 1;
+        return args;
+    }
+
+    @Test
+    public void testUniformGrid() {
+        Random random = new Random(42);
+        int n = 100;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = 3.0 * (-1 + 2 * i / ((double) (n - 1)));
+            y[i] = Math.sin(x[i]);
+        }
+        LinearInterpolatedFunction fct = new LinearInterpolatedFunction(x, y);
+        assertThat(fct.isUniformGrid(), equalTo(true));
+        assertSameAsSpline(x, y, fct, arguments(x, random));
+    }
+
+    @Test
+    public void testTimeSeries() {
+        Random random = new Random(42);
+        double[] x = new double[] { 0, 0.5, 3, 3.1, 10, 100 };
+        double[] y = new double[] { 1, 0, 10, -2, 4, 4 };
+        LinearInterpolatedFunction fct = new LinearInterpolatedFunction(x, y);
+        assertThat(fct.isUniformGrid(), equalTo(false));
+        double[] args = arguments(x, random);
+        assertSameAsSpline(x, y, fct, args);
+
+        // increasing queries advance the cursor, random ones move it in both directions
+        LinearInterpolatedTimeSeries timeSeries = new LinearInterpolatedTimeSeries(x, y);
+        double[] times = new double[1200];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = -1 + i * 0.1;
+        }
+        assertSameAsSpline(x, y, timeSeries, times);
+        assertSameAsSpline(x, y, timeSeries, args);
+    }
+
 }
@@ -26,15 +26,22 @@
 package org.movsim.consumption;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.io.FilenameUtils;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 import org.movsim.autogen.BatchData;
+import org.movsim.autogen.BatchJobs;
 import org.movsim.autogen.Consumption;
 import org.movsim.autogen.ConsumptionModel;
 import org.movsim.autogen.Movsim;
@@ -60,6 +67,10 @@ public class ConsumptionMain {
 
     private Movsim inputData;
 
+    private int batchCount;
+
+    private final AtomicInteger finishedBatches = new AtomicInteger();
+
     private ConsumptionMain() {
         init();
     }
@@ -74,22 +85,88 @@ public class ConsumptionMain {
     }
 
     private void run() {
-        int batchSize = inputData.getConsumption().getBatchJobs().getBatchData().size();
-        LOG.info("size of batches={}", batchSize);
-        for (BatchData batch : inputData.getConsumption().getBatchJobs().getBatchData()) {
-            InputReader reader = InputReader.create(batch);
-            List<ConsumptionDataRecord> records = reader.getRecords();
-
-            EnergyFlowModel model = consumptionModelPool.get(batch.getModel());
-            Preconditions.checkNotNull(model, "model not available with name=" + batch.getModel());
-            ConsumptionCalculation calculation = new ConsumptionCalculation(model);
+        BatchJobs batchJobs = inputData.getConsumption().getBatchJobs();
+        List<BatchData> batches = batchJobs.getBatchData();
+        batchCount = batches.size();
+        int threadCount = batchJobs.getThreads() < 1 ? Runtime.getRuntime().availableProcessors() : batchJobs
+                .getThreads();
+        LOG.info("size of batches={}, threads={}", batches.size(), threadCount);
+
+        long startMillis = System.currentTimeMillis();
+        long recordCount = 0;
+        if (threadCount == 1) {
+            for (BatchData batch : batches) {
+                recordCount += runBatch(batch, null);
+            }
+        } else {
+            recordCount = runParallel(batches, threadCount);
+        }
+        long elapsedMillis = System.currentTimeMillis() - startMillis;
+        LOG.info(String.format("%d batches done: %d records in %.3fs (%.0f records/s) with %d thread(s)",
+                batches.size(), recordCount, elapsedMillis / 1000.0, recordCount * 1000.0 / Math.max(1, elapsedMillis),
+                threadCount));
+    }
 
-            calculation.process(records);
+    /**
+     * Runs the batches concurrently on a worker pool which also evaluates the records within a batch in parallel.
+     * Each batch writes its own output file.
+     */
+    private long runParallel(List<BatchData> batches, int threadCount) {
+        final ForkJoinPool pool = new ForkJoinPool(threadCount);
+        try {
+            List<Future<Long>> results = new ArrayList<>(batches.size());
+            for (final BatchData batch : batches) {
+                results.add(pool.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() {
+                        return runBatch(batch, pool);
+                    }
+                }));
+            }
+            long recordCount = 0;
+            for (Future<Long> result : results) {
+                recordCount += result.get();
+            }
+            return recordCount;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for batches", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
 
-            OutputWriter writer = createWriter(batch, ProjectMetaData.getInstance().getOutputPath());
-            writer.write(records);
+    /**
+     * Reads, calculates and writes one batch chunk by chunk.
+     * 
+     * @return the number of processed records
+     */
+    private long runBatch(BatchData batch, ForkJoinPool pool) {
+        long startMillis = System.currentTimeMillis();
+        EnergyFlowModel model = consumptionModelPool.get(batch.getModel());
+        Preconditions.checkNotNull(model, "model not available with name=" + batch.getModel());
+        ConsumptionCalculation calculation = new ConsumptionCalculation(model, pool);
+
+        long recordCount = 0;
+        try (InputReader reader = InputReader.create(batch);
+                OutputWriter writer = createWriter(batch, ProjectMetaData.getInstance().getOutputPath())) {
+            for (List<ConsumptionDataRecord> chunk = reader.nextChunk(); !chunk.isEmpty(); chunk = reader.nextChunk()) {
+                calculation.process(chunk);
+                writer.write(chunk);
+                recordCount += chunk.size();
+            }
         }
-        LOG.info("{} batches done.", batchSize);
+        LOG.info("batch {} of {} done: inputfile={}, model={}, records={} in {}ms", finishedBatches.incrementAndGet(),
+                batchCount, batch.getInputfile(), batch.getModel(), recordCount, System.currentTimeMillis() - startMillis);
+        return recordCount;
     }
 
     public static void main(String[] args) {
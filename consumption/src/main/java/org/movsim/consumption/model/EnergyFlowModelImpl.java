@@ -41,6 +41,9 @@ class EnergyFlowModelImpl implements EnergyFlowModel {
     /** if cons(m^3/(Ws)) higher, point (f,pe) out of Bounds 900=3-4 times the minimum, in m^3/(Ws) */
     private final double limitSpecificConsumption;
 
+    /** speed below which the electric generator is not active, in m/s */
+    private static final double ELECTRIC_GENERATOR_MIN_SPEED = 1;
+
     /** extremely high flow in motor regimes that cannot be reached. Set to 10000 KW */
     private final double POW_ERROR = 1e7;
 
@@ -54,6 +57,9 @@ class EnergyFlowModelImpl implements EnergyFlowModel {
 
     private final VehicleData vehicleData;
 
+    /** tabulated fuel flow with optimal gear, null if not configured */
+    private final FuelFlowSurface fuelFlowSurface;
+
     EnergyFlowModelImpl(String keyLabel, ConsumptionModel modelInput) {
         Preconditions.checkNotNull(modelInput);
         Preconditions.checkArgument(!StringUtils.isBlank(keyLabel));
@@ -75,12 +81,15 @@ class EnergyFlowModelImpl implements EnergyFlowModel {
             throw new IllegalArgumentException("no engine efficiency mapping provided");
         }
 
+        fuelFlowSurface = modelInput.isSetFuelFlowTable() ? new FuelFlowSurface(keyLabel,
+                modelInput.getFuelFlowTable(), this) : null;
+
         if (modelInput.isOutput()) {
             writeOutput(keyLabel);
         }
     }
 
-    double fuelflowError() {
+    double fuelFlowError() {
         return fuelFlowError;
     }
 
@@ -110,6 +119,11 @@ class EnergyFlowModelImpl implements EnergyFlowModel {
      */
     @Override
     public double getFuelFlow(double v, double acc, double grade, int gearIndex, boolean withJante) {
+        return fuelFlow(v, acc, grade, gearIndex, withJante, true, true);
+    }
+
+    private double fuelFlow(double v, double acc, double grade, int gearIndex, boolean withJante, boolean logErrors,
+            boolean cutOff) {
 
         final double fMot = engineRotationModel.getEngineFrequency(v, gearIndex);
 
@@ -119,14 +133,15 @@ class EnergyFlowModelImpl implements EnergyFlowModel {
         // resulting in idle fuel consumption from engine specification
         // modeling assumption becomes invalid if lot of standstills are considered
         // electric consumption is active and no electric energy is provided by generator
-        final double elecPower = (v < 1) ? 0 : vehicleData.getElectricPower();
+        final double elecPower = (v < ELECTRIC_GENERATOR_MIN_SPEED) ? 0 : vehicleData.getElectricPower();
 
         final double powMechEl = powMech + elecPower;// can be <0
 
         double fuelFlow = fuelFlowError;
 
         if (engineRotationModel.isFrequencyPossible(v, gearIndex) || gearIndex == 0) {
-            fuelFlow = engineEfficiencyModel.getFuelFlow(fMot, powMechEl);
+            fuelFlow = cutOff ? engineEfficiencyModel.getFuelFlow(fMot, powMechEl) : engineEfficiencyModel
+                    .getUncutFuelFlow(fMot, powMechEl);
         }
 
         // check if motor regime can be reached; otherwise increase fuelFlow prohibitively
@@ -138,9 +153,11 @@ class EnergyFlowModelImpl implements EnergyFlowModel {
 
         // indicates that too high motor frequency
         if (withJante && (fMot > engineRotationModel.getMaxFrequency())) {
-            LOG.info(String
+            if (logErrors) {
+                LOG.info(String
                     .format("v_kmh=%f, acc=%f, gear=%d, motor frequency=%d/min too high -- > return fuelErrorConsumption: %.2f",
                             (3.6 * v), acc, gearIndex + 1, (int) (fMot * 60), fuelFlowError));
+            }
             fuelFlow = fuelFlowError;
         }
 
@@ -148,7 +165,9 @@ class EnergyFlowModelImpl implements EnergyFlowModel {
         if (withJante && (fMot < engineRotationModel.getMinFrequency())) {
             if (gearIndex == 0) {
                 fuelFlow = vehicleData.getElectricPower() * limitSpecificConsumption;
-                LOG.info(String.format("v=%f, gear=%d, fuelFlow=%f %n", v, gearIndex + 1, fuelFlow));
+                if (logErrors) {
+                    LOG.info(String.format("v=%f, gear=%d, fuelFlow=%f %n", v, gearIndex + 1, fuelFlow));
+                }
             } else {
                 fuelFlow = fuelFlowError;
             }
@@ -191,9 +210,70 @@ class EnergyFlowModelImpl implements EnergyFlowModel {
      */
     @Override
     public double getFuelFlowInLiterPerS(double v, double acc) {
+        if (fuelFlowSurface != null) {
+            final double fuelFlow = fuelFlowSurface.value(v, acc);
+            if (!Double.isNaN(fuelFlow)) {
+                return fuelFlow;
+            }
+        }
         return getMinFuelFlow(v, acc, 0, true).getFuelFlowInLiterPerSecond();
     }
 
+    /**
+     * Calculates the fuel flow with optimal gear in liter per s like {@link #getFuelFlowInLiterPerS(double, double)},
+     * but without the tabulated surface and without logging of impossible operating points. Used to build the surface.
+     * 
+     * @param v
+     * @param acc
+     * @return the fuel flow in liter per s
+     */
+    double calcFuelFlowInLiterPerS(double v, double acc) {
+        double fuelFlow = fuelFlowError;
+        for (int testGearIndex = engineRotationModel.getMaxGearIndex(); testGearIndex >= 0; testGearIndex--) {
+            fuelFlow = Math.min(fuelFlow, fuelFlow(v, acc, 0, testGearIndex, true, false, true));
+        }
+        // conversion from m^3/s to liter/s
+        return 1000 * fuelFlow;
+    }
+
+    /**
+     * Calculates the fuel flow in liter per s in the given gear before the cut-off at zero (see
+     * {@link EngineEfficiencyModel#getUncutFuelFlow(double, double)}), the fuel flow error in liter per s if the
+     * operating point is not possible. Without logging of impossible operating points, used to build the tabulated
+     * surface.
+     * 
+     * @param v
+     * @param acc
+     * @param gearIndex
+     * @return the fuel flow in liter per s
+     */
+    double calcFuelFlowInLiterPerS(double v, double acc, int gearIndex) {
+        // conversion from m^3/s to liter/s
+        return 1000 * fuelFlow(v, acc, 0, gearIndex, true, false, false);
+    }
+
+    int numberOfGears() {
+        return engineRotationModel.getNumberOfGears();
+    }
+
+    /**
+     * Returns the speeds at which the fuel flow in a gear is not smooth: the speeds at the idle and maximum engine
+     * frequency of each gear, beyond which the gear is not possible (the first gear keeps the limiting frequency), and
+     * the speed below which the electric generator is not active.
+     * 
+     * @return the speeds (m/s), unsorted
+     */
+    double[] nonSmoothSpeeds() {
+        final int n = engineRotationModel.getNumberOfGears();
+        final double[] speeds = new double[2 * n + 1];
+        for (int gearIndex = 0; gearIndex < n; gearIndex++) {
+            speeds[2 * gearIndex] = engineRotationModel.getSpeed(engineRotationModel.getMinFrequency(), gearIndex);
+            speeds[2 * gearIndex + 1] = engineRotationModel.getSpeed(engineRotationModel.getMaxFrequency(), gearIndex);
+        }
+        speeds[2 * n] = ELECTRIC_GENERATOR_MIN_SPEED;
+        return speeds;
+    }
+
     /**
      * Returns the instantaneous fuel consumption flowin liter per second considering speed, acceleration and the gradient (in radians)
      * 
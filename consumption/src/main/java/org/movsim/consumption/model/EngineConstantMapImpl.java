@@ -37,6 +37,11 @@ public class EngineConstantMapImpl implements EngineEfficiencyModel {
         return Math.max(0, power * constConsumptionRate);
     }
 
+    @Override
+    public double getUncutFuelFlow(double frequency, double power) {
+        return power * constConsumptionRate;
+    }
+
     @Override
     public double getMaxPower() {
         return maxPower;
@@ -32,6 +32,11 @@ interface EngineEfficiencyModel {
      */
     double getFuelFlow(double frequency, double power);
 
+    /**
+     * @return fuel flow in m^3/s before the cut-off at zero, the fuel flow is the maximum of zero and this value
+     */
+    double getUncutFuelFlow(double frequency, double power);
+
     /**
      * @return maximum engine power in W
      */
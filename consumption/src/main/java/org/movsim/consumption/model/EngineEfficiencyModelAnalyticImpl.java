@@ -85,7 +85,7 @@ class EngineEfficiencyModelAnalyticImpl implements EngineEfficiencyModel {
         final double totalPower = mechPower + MomentsHelper.getLossPower(frequency);
         final double dotCInLiterPerSecond = 1. / fuelDensityPerLiter * totalPower
                 * cSpecific0(frequency, indMoment, minSpecificConsumption);
-        return Math.max(0, dotCInLiterPerSecond / 1000.);
+        return dotCInLiterPerSecond / 1000.;
     }
 
     /**
@@ -111,6 +111,11 @@ class EngineEfficiencyModelAnalyticImpl implements EngineEfficiencyModel {
 
     @Override
     public double getFuelFlow(double frequency, double power) {
+        return Math.max(0, calcConsumptionRate(frequency, power));
+    }
+
+    @Override
+    public double getUncutFuelFlow(double frequency, double power) {
         return calcConsumptionRate(frequency, power);
     }
 
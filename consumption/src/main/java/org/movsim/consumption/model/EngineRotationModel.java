@@ -132,6 +132,18 @@ class EngineRotationModel {
         return Math.max(minFrequency, Math.min(freq, maxFrequency));
     }
 
+    /**
+     * Returns the speed at which the engine runs with the given frequency in the given gear.
+     * 
+     * @param frequency
+     *            engine frequency (1/s)
+     * @param gearIndex
+     * @return the speed (m/s)
+     */
+    public double getSpeed(double frequency, int gearIndex) {
+        return frequency * dynamicWheelCircumfence() / getGearRatio(gearIndex);
+    }
+
     public boolean isFrequencyPossible(double v, int gearIndex) {
         if (gearIndex < 0 || gearIndex > getMaxGearIndex()) {
             LOG.error("gear out of range !  g={}", gearIndex);
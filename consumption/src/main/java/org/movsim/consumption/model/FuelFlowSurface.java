@@ -0,0 +1,385 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.consumption.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.movsim.autogen.FuelFlowTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Fuel flow with optimal gear on a grid over speed and acceleration (for zero gradient).
+ * 
+ * <p>
+ * The fuel flow with optimal gear is discontinuous where the optimal gear changes, so the fuel flow of each gear is
+ * tabulated separately and {@link #value(double, double)} returns the minimum of the bilinear interpolations over the
+ * gears possible in the grid cell. The fuel flow of a gear is tabulated before its cut-off at zero, which is applied
+ * to the minimum. The minimum reproduces the gear changes within a cell, and neither the minimum nor the cut-off
+ * increases the largest error of the interpolations of the single gears.
+ * </p>
+ * <p>
+ * The fuel flow of a gear is not smooth at the speeds given by {@link EnergyFlowModelImpl#nonSmoothSpeeds()}, where the
+ * gear becomes impossible. The cells containing such a speed are split there, and the fuel flow at the split speed is
+ * tabulated as the limit from each side. Thus a gear is possible either in a whole cell or nowhere in it, apart from
+ * the power limit: the limit does not depend on the gear and the mechanical power is convex in the speed and linear in
+ * the acceleration, so it is within the limit in the whole cell if it is at the corners. For the same reason the fuel
+ * flow of a gear before the cut-off, whose sign is the sign of the total engine power, is not positive in the whole
+ * cell if it is not positive at the corners; the fuel flow with optimal gear is zero in such a cell.
+ * </p>
+ * <p>
+ * Up to terms of fourth order in the grid steps, the error of the bilinear interpolation of a smooth function is
+ * {@code x(1-x)(a + bx + cy) + y(1-y)(d + ey + fx)} in relative cell coordinates. Its maximum over the cell is less
+ * than 1.28 times its maximum at the points of the quarter lattice of the cell (the maximum of the ratio over the
+ * coefficients a to f), so the error of each gear is checked at these points against {@link #CHECK_MARGIN} times the
+ * configured relative error. {@link #value(double, double)} returns NaN for cells not tabulated as for arguments
+ * outside of the table.
+ * </p>
+ */
+final class FuelFlowSurface {
+
+    /** The Constant LOG. */
+    private static final Logger LOG = LoggerFactory.getLogger(FuelFlowSurface.class);
+
+    /** points of the quarter lattice of a cell without the corners, in relative cell coordinates */
+    private static final double[][] CHECK_POINTS = checkPoints();
+
+    /**
+     * fraction of the relative error allowed at the check points, below 1 / 1.28 to bound the interpolation error in
+     * the whole cell
+     */
+    private static final double CHECK_MARGIN = 0.75;
+
+    /** distance from a split speed, relative to the speed step, at which the limit of the fuel flow is taken */
+    private static final double SPLIT_OFFSET = 1e-9;
+
+    private final double minAcc;
+    private final double inverseSpeedStep;
+    private final double inverseAccStep;
+
+    /** number of grid points */
+    private final int nSpeed;
+    private final int nAcc;
+
+    /**
+     * index of the first column of each speed interval of the grid, the columns of the interval i end at index
+     * firstColumn[i + 1]; an interval is split into several columns at the speeds where the fuel flow is not smooth
+     */
+    private final int[] firstColumn;
+
+    /** speed at the left boundary of each column */
+    private final double[] columnSpeed;
+    private final double[] inverseColumnWidth;
+
+    private final int nGears;
+
+    /**
+     * index in {@link #cellFlow} of the values of each cell, index column * (nAcc - 1) + iAcc; the values of cell n end
+     * at cellStart[n + 1], a cell without values is not tabulated
+     */
+    private final int[] cellStart;
+
+    /**
+     * fuel flow before the cut-off at zero in liter/s at the corners of the cells, for each gear whose interpolation
+     * can be the minimum within the cell the four values at (left, iAcc), (left, iAcc + 1), (right, iAcc) and (right,
+     * iAcc + 1)
+     */
+    private final double[] cellFlow;
+
+    FuelFlowSurface(String keyLabel, FuelFlowTable config, EnergyFlowModelImpl model) {
+        Preconditions.checkArgument(config.getMaxAcc() > config.getMinAcc(), "max_acc must be larger than min_acc");
+        final double speedStep = config.getSpeedStep();
+        final double accStep = config.getAccStep();
+        this.minAcc = config.getMinAcc();
+        this.inverseSpeedStep = 1 / speedStep;
+        this.inverseAccStep = 1 / accStep;
+        this.nSpeed = (int) (config.getMaxSpeed() / speedStep + 1e-9) + 1;
+        this.nAcc = (int) ((config.getMaxAcc() - minAcc) / accStep + 1e-9) + 1;
+        Preconditions.checkArgument(nSpeed > 1 && nAcc > 1, "fuel flow surface needs at least two grid points");
+        this.nGears = model.numberOfGears();
+        Preconditions.checkArgument(nGears < Integer.SIZE, "too many gears for the fuel flow surface");
+
+        // split the speed intervals, the boundaries of the columns are evaluated as limits from within the column
+        final double offset = SPLIT_OFFSET * speedStep;
+        final double[] splitSpeeds = model.nonSmoothSpeeds();
+        Arrays.sort(splitSpeeds);
+        final List<Double> left = new ArrayList<>();
+        final List<Double> right = new ArrayList<>();
+        firstColumn = new int[nSpeed];
+        for (int i = 0; i < nSpeed - 1; i++) {
+            firstColumn[i] = left.size();
+            double start = i * speedStep;
+            final double end = (i + 1) * speedStep;
+            boolean split = isSplitSpeed(start, splitSpeeds, offset);
+            for (final double speed : splitSpeeds) {
+                if (speed > start + offset && speed < end - offset) {
+                    left.add(split ? start + offset : start);
+                    right.add(speed - offset);
+                    start = speed;
+                    split = true;
+                }
+            }
+            left.add(split ? start + offset : start);
+            right.add(isSplitSpeed(end, splitSpeeds, offset) ? end - offset : end);
+        }
+        firstColumn[nSpeed - 1] = left.size();
+        final int nColumns = left.size();
+        columnSpeed = new double[nColumns];
+        inverseColumnWidth = new double[nColumns];
+        for (int c = 0; c < nColumns; c++) {
+            columnSpeed[c] = left.get(c);
+            inverseColumnWidth[c] = 1 / (right.get(c) - left.get(c));
+        }
+
+        // fuel flow at the left and right boundary of the columns, index ((2 * column + side) * nAcc + iAcc) * nGears
+        // + gearIndex
+        final double[] nodeFlow = new double[2 * nColumns * nAcc * nGears];
+        for (int c = 0; c < nColumns; c++) {
+            for (int j = 0; j < nAcc; j++) {
+                final double acc = minAcc + j * accStep;
+                for (int g = 0; g < nGears; g++) {
+                    nodeFlow[(2 * c * nAcc + j) * nGears + g] = model.calcFuelFlowInLiterPerS(left.get(c), acc, g);
+                    nodeFlow[((2 * c + 1) * nAcc + j) * nGears + g] = model.calcFuelFlowInLiterPerS(right.get(c),
+                            acc, g);
+                }
+            }
+        }
+
+        // fuel flow of impossible operating points in liter/s
+        final double errorFlow = 1000 * model.fuelFlowError();
+        // reference for the relative error near zero fuel flow: consumption in standstill
+        final double referenceFlow = Math.abs(model.calcFuelFlowInLiterPerS(0, 0));
+        final double maxRelativeError = config.getMaxRelativeError();
+        // bit set of the gear indices whose interpolation can be the minimum within the cell, 0 if not tabulated
+        final int[] cellGears = new int[nColumns * (nAcc - 1)];
+        int count = 0;
+        int valueCount = 0;
+        for (int c = 0; c < nColumns; c++) {
+            for (int j = 0; j < nAcc - 1; j++) {
+                final int k = 2 * c * nAcc + j;
+                final int gears = possibleGears(nodeFlow, k, errorFlow);
+                if (gears == 0) {
+                    continue;
+                }
+                final int cutOffGears = cutOffGears(nodeFlow, k, gears);
+                if (cutOffGears != 0) {
+                    // any of these gears gives the exact fuel flow of zero
+                    cellGears[c * (nAcc - 1) + j] = Integer.lowestOneBit(cutOffGears);
+                } else if (withinBound(model, nodeFlow, gears, c, j, referenceFlow, maxRelativeError)) {
+                    cellGears[c * (nAcc - 1) + j] = candidateGears(nodeFlow, k, gears);
+                } else {
+                    continue;
+                }
+                ++count;
+                valueCount += 4 * Integer.bitCount(cellGears[c * (nAcc - 1) + j]);
+            }
+        }
+
+        // the values of the candidate gears of a cell are stored together, so a lookup reads one cache line
+        cellStart = new int[cellGears.length + 1];
+        cellFlow = new double[valueCount];
+        int n = 0;
+        for (int c = 0; c < nColumns; c++) {
+            for (int j = 0; j < nAcc - 1; j++) {
+                final int cell = c * (nAcc - 1) + j;
+                cellStart[cell] = n;
+                final int k = 2 * c * nAcc + j;
+                for (int gears = cellGears[cell]; gears != 0; gears &= gears - 1) {
+                    final int g = Integer.numberOfTrailingZeros(gears);
+                    cellFlow[n++] = flow(nodeFlow, k, g);
+                    cellFlow[n++] = flow(nodeFlow, k + 1, g);
+                    cellFlow[n++] = flow(nodeFlow, k + nAcc, g);
+                    cellFlow[n++] = flow(nodeFlow, k + nAcc + 1, g);
+                }
+            }
+        }
+        cellStart[cellGears.length] = n;
+        LOG.info("fuel flow surface for consumption model={}: {}x{} grid points, {} of {} cells tabulated", keyLabel,
+                nSpeed, nAcc, count, cellGears.length);
+    }
+
+    private static boolean isSplitSpeed(double speed, double[] splitSpeeds, double offset) {
+        for (final double splitSpeed : splitSpeeds) {
+            if (Math.abs(speed - splitSpeed) <= offset) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double[][] checkPoints() {
+        final double[][] points = new double[21][];
+        int n = 0;
+        for (int i = 0; i <= 4; i++) {
+            for (int j = 0; j <= 4; j++) {
+                if ((i % 4 != 0) || (j % 4 != 0)) {
+                    points[n++] = new double[] { 0.25 * i, 0.25 * j };
+                }
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Returns the gears possible at all corners of the cell, 0 if a gear is possible at some corners only.
+     */
+    private int possibleGears(double[] nodeFlow, int k, double errorFlow) {
+        int gears = 0;
+        for (int g = 0; g < nGears; g++) {
+            int possible = 0;
+            for (final int corner : new int[] { k, k + 1, k + nAcc, k + nAcc + 1 }) {
+                if (flow(nodeFlow, corner, g) < errorFlow) {
+                    ++possible;
+                }
+            }
+            if (possible == 4) {
+                gears |= 1 << g;
+            } else if (possible > 0) {
+                return 0;
+            }
+        }
+        return gears;
+    }
+
+    /**
+     * Returns the gears whose fuel flow before the cut-off is not positive at the corners of the cell.
+     */
+    private int cutOffGears(double[] nodeFlow, int k, int gears) {
+        int cutOffGears = 0;
+        for (int g = 0; g < nGears; g++) {
+            if ((gears & (1 << g)) != 0 && flow(nodeFlow, k, g) <= 0 && flow(nodeFlow, k + 1, g) <= 0
+                    && flow(nodeFlow, k + nAcc, g) <= 0 && flow(nodeFlow, k + nAcc + 1, g) <= 0) {
+                cutOffGears |= 1 << g;
+            }
+        }
+        return cutOffGears;
+    }
+
+    private boolean withinBound(EnergyFlowModelImpl model, double[] nodeFlow, int gears, int c, int j,
+            double referenceFlow, double maxRelativeError) {
+        final int k = 2 * c * nAcc + j;
+        final double[] exact = new double[nGears];
+        for (final double[] point : CHECK_POINTS) {
+            final double v = columnSpeed[c] + point[0] / inverseColumnWidth[c];
+            final double acc = minAcc + (j + point[1]) / inverseAccStep;
+            // fuel flow with optimal gear as in EnergyFlowModelImpl#calcFuelFlowInLiterPerS(double, double)
+            double optimal = Double.POSITIVE_INFINITY;
+            for (int g = 0; g < nGears; g++) {
+                exact[g] = model.calcFuelFlowInLiterPerS(v, acc, g);
+                optimal = Math.min(optimal, exact[g]);
+            }
+            final double bound = CHECK_MARGIN * maxRelativeError * Math.max(Math.max(0, optimal), referenceFlow);
+            for (int g = 0; g < nGears; g++) {
+                if ((gears & (1 << g)) != 0
+                        && Math.abs(interpolate(nodeFlow, k, g, point[0], point[1]) - exact[g]) > bound) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes the gears whose interpolation is nowhere in the cell below the interpolation of another gear. The
+     * difference of two bilinear interpolations is bilinear, so it suffices to compare the corners.
+     */
+    private int candidateGears(double[] nodeFlow, int k, int gears) {
+        int candidates = gears;
+        for (int g = 0; g < nGears; g++) {
+            if ((candidates & (1 << g)) == 0) {
+                continue;
+            }
+            for (int h = 0; h < nGears; h++) {
+                if (h != g && (candidates & (1 << h)) != 0 && flow(nodeFlow, k, h) <= flow(nodeFlow, k, g)
+                        && flow(nodeFlow, k + 1, h) <= flow(nodeFlow, k + 1, g)
+                        && flow(nodeFlow, k + nAcc, h) <= flow(nodeFlow, k + nAcc, g)
+                        && flow(nodeFlow, k + nAcc + 1, h) <= flow(nodeFlow, k + nAcc + 1, g)) {
+                    candidates &= ~(1 << g);
+                    break;
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private double flow(double[] nodeFlow, int k, int g) {
+        return nodeFlow[k * nGears + g];
+    }
+
+    private double interpolate(double[] nodeFlow, int k, int g, double fx, double fy) {
+        return interpolate(flow(nodeFlow, k, g), flow(nodeFlow, k + 1, g), flow(nodeFlow, k + nAcc, g),
+                flow(nodeFlow, k + nAcc + 1, g), fx, fy);
+    }
+
+    private static double interpolate(double f00, double f01, double f10, double f11, double fx, double fy) {
+        final double f0 = f00 + fy * (f01 - f00);
+        final double f1 = f10 + fy * (f11 - f10);
+        return f0 + fx * (f1 - f0);
+    }
+
+    /**
+     * Returns the interpolated fuel flow with optimal gear.
+     * 
+     * @param v
+     *            speed (m/s)
+     * @param acc
+     *            acceleration (m/s^2)
+     * @return the fuel flow in liter/s, NaN if the argument is outside of the table or in a cell which is not tabulated
+     */
+    double value(double v, double acc) {
+        final double x = v * inverseSpeedStep;
+        final double y = (acc - minAcc) * inverseAccStep;
+        // also false for NaN arguments
+        if (!(x >= 0 && y >= 0 && x < nSpeed - 1 && y < nAcc - 1)) {
+            return Double.NaN;
+        }
+        final int i = (int) x;
+        int c = firstColumn[i];
+        while (c + 1 < firstColumn[i + 1] && v >= columnSpeed[c + 1]) {
+            ++c;
+        }
+        final int j = (int) y;
+        final int cell = c * (nAcc - 1) + j;
+        final int end = cellStart[cell + 1];
+        int n = cellStart[cell];
+        if (n == end) {
+            return Double.NaN;
+        }
+        final double fx = (v - columnSpeed[c]) * inverseColumnWidth[c];
+        final double fy = y - j;
+        double value = interpolate(cellFlow[n], cellFlow[n + 1], cellFlow[n + 2], cellFlow[n + 3], fx, fy);
+        for (n += 4; n < end; n += 4) {
+            value = Math.min(value,
+                    interpolate(cellFlow[n], cellFlow[n + 1], cellFlow[n + 2], cellFlow[n + 3], fx, fy));
+        }
+        return Math.max(0, value);
+    }
+
+}
@@ -26,6 +26,9 @@
 package org.movsim.consumption.offline;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import org.movsim.consumption.model.EnergyFlowModel;
 import org.movsim.consumption.model.FuelAndGear;
@@ -34,21 +37,68 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 
+/**
+ * Calculates the fuel flow and the cumulated consumption of the records of a batch.
+ * 
+ * <p>
+ * With a worker pool the fuel flows of a chunk of records are evaluated in parallel sub-ranges. The cumulated
+ * consumption is summed up afterwards in record order, so the result does not depend on the number of threads.
+ * </p>
+ */
 public class ConsumptionCalculation {
     
     private static final Logger LOG = LoggerFactory.getLogger(ConsumptionCalculation.class);
 
+    /** minimum number of records evaluated by one parallel task */
+    private static final int MIN_RECORDS_PER_TASK = 128;
+
     private final EnergyFlowModel model;
 
+    private final ForkJoinPool pool;
+
+    /** last processed record, carries the cumulated consumption over to the next chunk */
+    private ConsumptionDataRecord previous;
+
     public ConsumptionCalculation(EnergyFlowModel model) {
+        this(model, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param model
+     *            the energy flow model, shared between calculations and therefore used read-only
+     * @param pool
+     *            the worker pool for the fuel flow evaluation, null for the sequential evaluation
+     */
+    public ConsumptionCalculation(EnergyFlowModel model, ForkJoinPool pool) {
         Preconditions.checkNotNull(model);
         this.model = model;
+        this.pool = pool;
     }
 
+    /**
+     * Calculates the consumption of the given records. Consecutive chunks of one batch are processed by successive
+     * calls, the cumulated consumption continues from the last record of the previous chunk.
+     * 
+     * @param records
+     *            the next consecutive records of the batch
+     */
     public void process(List<ConsumptionDataRecord> records) {
-        double timestep = 0; // in seconds
-        ConsumptionDataRecord previous = null;
-        for (ConsumptionDataRecord record : records) {
+        if (pool == null || records.size() < 2 * MIN_RECORDS_PER_TASK) {
+            calcFuelFlows(records, 0, records.size());
+        } else if (ForkJoinTask.getPool() == pool) {
+            // called by a batch running on the pool: fork within the pool instead of blocking the worker
+            new FuelFlowTask(records, 0, records.size()).invoke();
+        } else {
+            pool.invoke(new FuelFlowTask(records, 0, records.size()));
+        }
+        cumulate(records);
+    }
+
+    private void calcFuelFlows(List<ConsumptionDataRecord> records, int from, int to) {
+        for (int i = from; i < to; i++) {
+            ConsumptionDataRecord record = records.get(i);
             FuelAndGear minFuelFlowResult = model.getMinFuelFlow(record.getSpeed(), record.getAcceleration(),
                     record.getGrade(), true);
             double fuelFlowInLiterPerSecond = minFuelFlowResult.getFuelFlowInLiterPerSecond();
@@ -58,14 +108,51 @@ public class ConsumptionCalculation {
             }
             record.setConsumptionRate(fuelFlowInLiterPerSecond);
             record.setGear(minFuelFlowResult.getGear());
+        }
+    }
+
+    /** Prefix sum of the consumption over the records, continued from the previous chunk. */
+    private void cumulate(List<ConsumptionDataRecord> records) {
+        double timestep = 0; // in seconds
+        for (ConsumptionDataRecord record : records) {
             if (previous != null) {
                 // set cumulated value from previous step
                 timestep = record.getTime() - previous.getTime();
-                double cumulated = previous.getCumulatedConsumption() + timestep * fuelFlowInLiterPerSecond;
+                double cumulated = previous.getCumulatedConsumption() + timestep * record.getConsumptionRate();
                 record.setCumulatedConsumption(cumulated);
             }
             previous = record;
         }
     }
 
+    /**
+     * Evaluates the fuel flows of a range of records, larger ranges are split in halves.
+     */
+    private final class FuelFlowTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<ConsumptionDataRecord> records;
+
+        private final int from;
+
+        private final int to;
+
+        FuelFlowTask(List<ConsumptionDataRecord> records, int from, int to) {
+            this.records = records;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from < 2 * MIN_RECORDS_PER_TASK) {
+                calcFuelFlows(records, from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new FuelFlowTask(records, from, middle), new FuelFlowTask(records, middle, to));
+            }
+        }
+    }
+
 }
@@ -25,29 +25,60 @@
  */
 package org.movsim.consumption.offline;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.Deque;
 import java.util.List;
 
 import org.movsim.autogen.BatchData;
-import org.movsim.io.CsvReaderUtil;
 import org.movsim.utilities.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import au.com.bytecode.opencsv.CSVReader;
+
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
 
-public class InputReader {
+/**
+ * Streams the records of a consumption batch input file.
+ * 
+ * <p>
+ * The input is read line by line and handed out in chunks of at most {@link #CHUNK_SIZE} records, so the memory needed
+ * does not depend on the length of the input file. Missing speeds and accelerations are derived numerically by
+ * centered differences over a sliding window of three records (one-sided at the start and the end of the input).
+ * </p>
+ */
+public class InputReader implements Closeable {
 
     private static final Logger LOG = LoggerFactory.getLogger(InputReader.class);
 
-    private final char separator;
+    /** maximum number of records returned by {@link #nextChunk()} */
+    public static final int CHUNK_SIZE = 1024;
+
+    private final CSVReader csvReader;
+
+    private final InputDataParser parser;
+
+    /** completed records not yet handed out */
+    private final Deque<ConsumptionDataRecord> completed = new ArrayDeque<>();
+
+    private DerivativeWindow speedWindow;
+
+    private DerivativeWindow accelerationWindow;
 
-    private List<ConsumptionDataRecord> records;
+    private int lineCount;
 
-    private final BatchData batchInput;
+    private int parsedCount;
+
+    private double startTime = Double.NaN;
+
+    private boolean exhausted;
 
     public static InputReader create(BatchData batch) {
         File inputFile = FileUtils.lookupFilename(batch.getInputfile());
@@ -60,113 +91,213 @@ public class InputReader {
         Preconditions.checkNotNull(batch);
         Preconditions.checkArgument(inputFile.exists() && inputFile.isFile(), "file=" + inputFile.getAbsolutePath()
                 + " does not exist!");
-        this.separator = batch.getSeparator().charAt(0);
-        this.batchInput = batch;
-        this.records = new LinkedList<ConsumptionDataRecord>();
-
-        process(inputFile);
+        this.parser = new InputDataParser(batch.getColumns(), batch.getConversions());
+        try {
+            this.csvReader = new CSVReader(new FileReader(inputFile), batch.getSeparator().charAt(0));
+        } catch (FileNotFoundException e) {
+            throw new IllegalArgumentException("cannot read file=" + inputFile.getAbsolutePath(), e);
+        }
     }
 
-    public List<ConsumptionDataRecord> getRecords() {
-        return records;
+    /**
+     * Returns the next chunk of completely processed records in input order.
+     * 
+     * @return the next records, at most {@link #CHUNK_SIZE}; an empty list if the input is exhausted
+     */
+    public List<ConsumptionDataRecord> nextChunk() {
+        List<ConsumptionDataRecord> chunk = new ArrayList<>(CHUNK_SIZE);
+        while (chunk.size() < CHUNK_SIZE) {
+            ConsumptionDataRecord record = completed.poll();
+            if (record != null) {
+                chunk.add(record);
+            } else if (exhausted) {
+                break;
+            } else {
+                readNextLine();
+            }
+        }
+        return chunk;
     }
 
-    private void process(File inputFile) {
-        List<String[]> inputDataLines = CsvReaderUtil.readData(inputFile, separator);
+    @Override
+    public void close() {
+        try {
+            csvReader.close();
+        } catch (IOException e) {
+            LOG.error(e.getMessage());
+        }
+    }
 
-        if (inputDataLines == null || inputDataLines.isEmpty()) {
-            LOG.warn("no input read");
+    private void readNextLine() {
+        String[] line = null;
+        try {
+            line = csvReader.readNext();
+        } catch (IOException e) {
+            LOG.error("cannot read input: {}", e.getMessage());
+        }
+        if (line == null) {
+            finish();
+            return;
+        }
+        ++lineCount;
+        ConsumptionDataRecord record;
+        try {
+            record = parser.parse(parsedCount, line);
+        } catch (NumberFormatException e) {
+            LOG.info("cannot parse data. Ignore line={}", Arrays.toString(line));
+            return;
+        } catch (IllegalArgumentException e) {
+            LOG.info("cannot parse data. Ignore line={}", Arrays.toString(line));
             return;
         }
+        feed(record);
+        ++parsedCount;
+    }
 
-        parseInputData(inputDataLines);
+    private void feed(ConsumptionDataRecord record) {
+        if (parsedCount == 0) {
+            initPostProcessing(record);
+        }
+        ConsumptionDataRecord next = record;
+        if (speedWindow != null) {
+            next = speedWindow.push(record);
+        }
+        if (next != null) {
+            feedAcceleration(next);
+        }
+    }
 
-        if (!hasSpeed()) {
-            records = calculateSpeeds();
+    private void feedAcceleration(ConsumptionDataRecord record) {
+        ConsumptionDataRecord next = record;
+        if (accelerationWindow != null) {
+            next = accelerationWindow.push(record);
         }
-        if (!hasAcceleration()) {
-            records = calculateAccelerations();
+        if (next != null) {
+            complete(next);
         }
+    }
 
-        // do this after post processing
-        addNormalizedTime();
+    /** Decides on the first parsed record which quantities have to be derived numerically. */
+    private void initPostProcessing(ConsumptionDataRecord first) {
+        if (!first.hasSpeed()) {
+            LOG.info("calculate speeds numerically.");
+            speedWindow = new SpeedWindow();
+        }
+        if (!first.hasAcceleration()) {
+            LOG.info("calculate accelerations numerically.");
+            accelerationWindow = new AccelerationWindow();
+        }
     }
 
-    private boolean hasSpeed() {
-        return !records.isEmpty() && records.get(0).hasSpeed();
+    private void finish() {
+        exhausted = true;
+        if (speedWindow != null) {
+            ConsumptionDataRecord last = speedWindow.flush();
+            if (last != null) {
+                feedAcceleration(last);
+            }
+        }
+        if (accelerationWindow != null) {
+            ConsumptionDataRecord last = accelerationWindow.flush();
+            if (last != null) {
+                complete(last);
+            }
+        }
+        if (lineCount == 0) {
+            LOG.warn("no input read");
+        } else {
+            LOG.info("parsed={} from={} input lines", parsedCount, lineCount);
+        }
     }
 
-    private boolean hasAcceleration() {
-        return !records.isEmpty() && records.get(0).hasAcceleration();
+    private void complete(ConsumptionDataRecord record) {
+        if (Double.isNaN(startTime)) {
+            startTime = record.getTime();
+            LOG.info("add normalized time with startTime={}", startTime);
+        }
+        record.setNormalizedTime(record.getTime() - startTime);
+        completed.add(record);
     }
 
-    private boolean hasPosition() {
-        return !records.isEmpty() && records.get(0).hasPosition();
+    private static double calcDerivate(double dx, double dy) {
+        return (dy == 0) ? Double.NaN : dx / dy;
     }
 
-    private void addNormalizedTime() {
-        if (!records.isEmpty()) {
-            final double startTime = records.get(0).getTime();
-            LOG.info("add normalized time with startTime={}", startTime);
-            for (ConsumptionDataRecord record : records) {
-                record.setNormalizedTime(record.getTime() - startTime);
+    /**
+     * Sliding window over three consecutive records which completes the middle record as soon as its successor is
+     * known.
+     */
+    private abstract static class DerivativeWindow {
+
+        private ConsumptionDataRecord backward;
+
+        private ConsumptionDataRecord current;
+
+        /**
+         * Pushes the next record into the window.
+         * 
+         * @return the completed predecessor of the pushed record, or null if the window has been empty
+         */
+        ConsumptionDataRecord push(ConsumptionDataRecord next) {
+            if (current == null) {
+                checkInput(next);
             }
+            ConsumptionDataRecord result = current == null ? null : derive(current, backward == null ? current
+                    : backward, next);
+            backward = current;
+            current = next;
+            return result;
         }
-    }
 
-    private List<ConsumptionDataRecord> calculateSpeeds() {
-        Preconditions.checkArgument(hasPosition(), "cannot calculate speeds without positions.");
-        LOG.info("calculate speeds numerically.");
-        List<ConsumptionDataRecord> newRecords = Lists.newArrayList();
-        for (int i = 0, N = records.size() - 1; i <= N; i++) {
-            ConsumptionDataRecord record = records.get(i);
-            ConsumptionDataRecord recordFwd = records.get(Math.min(i + 1, N));
-            ConsumptionDataRecord recordBwd = records.get(Math.max(0, i - 1));
-            double speed = calcDerivate(recordFwd.getPosition() - recordBwd.getPosition(), recordFwd.getTime()
-                    - recordBwd.getTime());
-            newRecords.add(new ConsumptionDataRecord(record.getIndex(), record.getTime(), record.getTimestamp(), record
-                    .getPosition(), speed, record.getAcceleration(), record.getGrade()));
+        /** Completes the last record at the end of the input, or returns null if there is none. */
+        ConsumptionDataRecord flush() {
+            if (current == null) {
+                return null;
+            }
+            ConsumptionDataRecord result = derive(current, backward == null ? current : backward, current);
+            backward = null;
+            current = null;
+            return result;
         }
-        return newRecords;
+
+        abstract void checkInput(ConsumptionDataRecord record);
+
+        abstract ConsumptionDataRecord derive(ConsumptionDataRecord record, ConsumptionDataRecord recordBwd,
+                ConsumptionDataRecord recordFwd);
     }
 
-    private List<ConsumptionDataRecord> calculateAccelerations() {
-        Preconditions.checkArgument(hasSpeed(), "cannot calculate accelerations without speeds.");
-        LOG.info("calculate accelerations numerically.");
-        List<ConsumptionDataRecord> newRecords = Lists.newArrayList();
-        for (int i = 0, N = records.size() - 1; i <= N; i++) {
-            ConsumptionDataRecord record = records.get(i);
-            ConsumptionDataRecord recordFwd = records.get(Math.min(i + 1, N));
-            ConsumptionDataRecord recordBwd = records.get(Math.max(0, i - 1));
-            double acceleration = calcDerivate(recordFwd.getSpeed() - recordBwd.getSpeed(), recordFwd.getTime()
+    private static final class SpeedWindow extends DerivativeWindow {
+
+        @Override
+        void checkInput(ConsumptionDataRecord record) {
+            Preconditions.checkArgument(record.hasPosition(), "cannot calculate speeds without positions.");
+        }
+
+        @Override
+        ConsumptionDataRecord derive(ConsumptionDataRecord record, ConsumptionDataRecord recordBwd,
+                ConsumptionDataRecord recordFwd) {
+            double speed = calcDerivate(recordFwd.getPosition() - recordBwd.getPosition(), recordFwd.getTime()
                     - recordBwd.getTime());
-            newRecords.add(new ConsumptionDataRecord(record.getIndex(), record.getTime(), record.getTimestamp(), record
-                    .getPosition(), record.getSpeed(), acceleration, record.getGrade()));
+            return new ConsumptionDataRecord(record.getIndex(), record.getTime(), record.getTimestamp(),
+                    record.getPosition(), speed, record.getAcceleration(), record.getGrade());
         }
-        return newRecords;
     }
 
-    private double calcDerivate(double dx, double dy) {
-        return (dy == 0) ? Double.NaN : dx / dy;
-    }
+    private static final class AccelerationWindow extends DerivativeWindow {
 
-    private void parseInputData(List<String[]> input) {
-        InputDataParser parser = new InputDataParser(batchInput.getColumns(), batchInput.getConversions());
-        int index = 0;
-        for (String[] line : input) {
-            try {
-                ConsumptionDataRecord record = parser.parse(index, line);
-                records.add(record);
-                ++index;
-            } catch (NumberFormatException e) {
-                LOG.info("cannot parse data. Ignore line={}", Arrays.toString(line));
-            } catch (IllegalArgumentException e) {
-                LOG.info("cannot parse data. Ignore line={}", Arrays.toString(line));
-            }
+        @Override
+        void checkInput(ConsumptionDataRecord record) {
+            Preconditions.checkArgument(record.hasSpeed(), "cannot calculate accelerations without speeds.");
         }
 
-        LOG.info("parsed={} from={} input lines", records.size(), input.size());
+        @Override
+        ConsumptionDataRecord derive(ConsumptionDataRecord record, ConsumptionDataRecord recordBwd,
+                ConsumptionDataRecord recordFwd) {
+            double acceleration = calcDerivate(recordFwd.getSpeed() - recordBwd.getSpeed(), recordFwd.getTime()
+                    - recordBwd.getTime());
+            return new ConsumptionDataRecord(record.getIndex(), record.getTime(), record.getTimestamp(),
+                    record.getPosition(), record.getSpeed(), acceleration, record.getGrade());
+        }
     }
 
-
 }
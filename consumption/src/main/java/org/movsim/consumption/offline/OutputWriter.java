@@ -25,6 +25,7 @@
  */
 package org.movsim.consumption.offline;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -38,7 +39,7 @@ import au.com.bytecode.opencsv.CSVWriter;
 
 import com.google.common.base.Preconditions;
 
-public class OutputWriter {
+public class OutputWriter implements Closeable {
 
     private static final Logger LOG = LoggerFactory.getLogger(OutputWriter.class);
     
@@ -50,6 +51,10 @@ public class OutputWriter {
     
     private DateTimeFormatter dateTimeFormatter;
 
+    private CSVWriter writer;
+
+    private boolean headerWritten;
+
     public OutputWriter(File outputFile, char separator) {
         this.separator = separator;
         this.output = Preconditions.checkNotNull(outputFile);
@@ -63,28 +68,43 @@ public class OutputWriter {
         this.dateTimeFormatter = Preconditions.checkNotNull(dtFormat);
     }
 
+    /**
+     * Appends the given records to the output file. The file is opened with the first call and the csv header is
+     * written before the first record.
+     * 
+     * @param records
+     *            the next consecutive records of the batch
+     */
     public void write(List<ConsumptionDataRecord> records) {
-        CSVWriter writer = null;
         try {
-            writer = new CSVWriter(new FileWriter(output), separator, QUOTE_CHARACTER);
-            if (!records.isEmpty()) {
-                writer.writeNext(records.get(0).csvHeader(String.valueOf(separator)));
-                for (ConsumptionDataRecord record : records) {
-                    writer.writeNext(record.toCsv(String.valueOf(separator), dateTimeFormatter));
+            open();
+            for (ConsumptionDataRecord record : records) {
+                if (!headerWritten) {
+                    writer.writeNext(record.csvHeader(String.valueOf(separator)));
+                    headerWritten = true;
                 }
+                writer.writeNext(record.toCsv(String.valueOf(separator), dateTimeFormatter));
             }
         } catch (IOException e) {
             e.printStackTrace();
-        } finally {
-            if (writer != null) {
-                try {
-                    writer.close();
-                } catch (IOException e) {
-                    LOG.error(e.getMessage());
-                }
-            }
         }
+    }
 
+    /** Closes the output file; an empty file is created if nothing has been written. */
+    @Override
+    public void close() {
+        try {
+            open();
+            writer.close();
+        } catch (IOException e) {
+            LOG.error(e.getMessage());
+        }
+    }
+
+    private void open() throws IOException {
+        if (writer == null) {
+            writer = new CSVWriter(new FileWriter(output), separator, QUOTE_CHARACTER);
+        }
     }
 
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.consumption.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.movsim.autogen.ConsumptionModel;
+import org.movsim.autogen.EngineCombustionMap;
+import org.movsim.autogen.FuelFlowTable;
+import org.movsim.autogen.GearRatio;
+import org.movsim.autogen.RotationModel;
+import org.movsim.autogen.VehicleData;
+
+/**
+ * Regression test of the tabulated fuel flow against the direct calculation of the energy flow model.
+ */
+public class FuelFlowSurfaceTest {
+
+    private static final double[] GEAR_RATIOS = { 16.7, 10.1, 6.8, 5.0, 3.8, 3.1, 2.6 };
+
+    private static ConsumptionModel createModelInput(FuelFlowTable fuelFlowTable) {
+        final VehicleData vehicleData = new VehicleData();
+        vehicleData.setMass(1000);
+        vehicleData.setCrossSectionSurface(2.13);
+        vehicleData.setCdValue(0.32);
+        vehicleData.setConstFriction(0.015);
+        vehicleData.setVFriction(0);
+        vehicleData.setElectricPower(1500);
+
+        final EngineCombustionMap combustionMap = new EngineCombustionMap();
+        combustionMap.setMaxPowerKW(100);
+        combustionMap.setCylinderVolL(1.8);
+        combustionMap.setIdleConsRateLinvh(0.8);
+        combustionMap.setCspecMinGPerKwh(225);
+        combustionMap.setPeMinBar(1);
+        combustionMap.setPeMaxBar(22);
+
+        final RotationModel rotationModel = new RotationModel();
+        rotationModel.setIdleRotationRateInvmin(700);
+        rotationModel.setMaxRotationRateInvmin(4500);
+        rotationModel.setDynamicTyreRadius(0.31);
+        for (final double phi : GEAR_RATIOS) {
+            final GearRatio gearRatio = new GearRatio();
+            gearRatio.setPhi(phi);
+            rotationModel.getGearRatio().add(gearRatio);
+        }
+
+        final ConsumptionModel modelInput = new ConsumptionModel();
+        modelInput.setLabel("test");
+        modelInput.setVehicleData(vehicleData);
+        modelInput.setEngineCombustionMap(combustionMap);
+        modelInput.setRotationModel(rotationModel);
+        modelInput.setFuelFlowTable(fuelFlowTable);
+        return modelInput;
+    }
+
+    @Test
+    public void testWithinErrorBound() {
+        final FuelFlowTable config = new FuelFlowTable();
+        final EnergyFlowModelImpl model = new EnergyFlowModelImpl("test", createModelInput(config));
+        final FuelFlowSurface surface = new FuelFlowSurface("test", config, model);
+
+        // same reference as for the check of the cells
+        final double referenceFlow = Math.abs(model.calcFuelFlowInLiterPerS(0, 0));
+        final double maxRelativeError = config.getMaxRelativeError();
+        int tabulatedCount = 0;
+        int count = 0;
+        // operating points of the traffic, tabulated except near the zero fuel flow and the maximum power
+        int trafficTabulatedCount = 0;
+        int trafficCount = 0;
+        // steps incommensurate with the grid, so most points are off the grid nodes
+        for (double v = 0; v < config.getMaxSpeed(); v += 0.0931) {
+            for (double acc = config.getMinAcc(); acc < config.getMaxAcc(); acc += 0.0237) {
+                final double exact = model.calcFuelFlowInLiterPerS(v, acc);
+                final double tabulated = surface.value(v, acc);
+                ++count;
+                final boolean traffic = v < 40 && acc > -3 && acc < 1.5;
+                if (traffic) {
+                    ++trafficCount;
+                    if (!Double.isNaN(tabulated)) {
+                        ++trafficTabulatedCount;
+                    }
+                }
+                if (Double.isNaN(tabulated)) {
+                    // not tabulated, the model falls back to the direct calculation
+                    assertEquals(exact, model.getFuelFlowInLiterPerS(v, acc), 0.0);
+                    continue;
+                }
+                ++tabulatedCount;
+                final double bound = maxRelativeError * Math.max(Math.abs(exact), referenceFlow);
+                if (Math.abs(tabulated - exact) > bound) {
+                    assertEquals("v=" + v + ", acc=" + acc, exact, tabulated, bound);
+                }
+                assertEquals(tabulated, model.getFuelFlowInLiterPerS(v, acc), 0.0);
+            }
+        }
+        // most of the operating range is tabulated
+        assertTrue("tabulated " + tabulatedCount + " of " + count, tabulatedCount > count / 2);
+        assertTrue("tabulated " + trafficTabulatedCount + " of " + trafficCount,
+                trafficTabulatedCount > 0.9 * trafficCount);
+    }
+
+    @Test
+    public void testOnGridNodes() {
+        final FuelFlowTable config = new FuelFlowTable();
+        final EnergyFlowModelImpl model = new EnergyFlowModelImpl("test", createModelInput(config));
+        final FuelFlowSurface surface = new FuelFlowSurface("test", config, model);
+        for (int i = 0; i < 200; i += 7) {
+            for (int j = 1; j < 190; j += 11) {
+                final double v = i * config.getSpeedStep();
+                final double acc = config.getMinAcc() + j * config.getAccStep();
+                final double tabulated = surface.value(v, acc);
+                if (!Double.isNaN(tabulated)) {
+                    assertEquals(model.calcFuelFlowInLiterPerS(v, acc), tabulated, 1e-12);
+                }
+            }
+        }
+    }
+}
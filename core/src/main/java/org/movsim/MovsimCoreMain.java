@@ -50,8 +50,9 @@ public class MovsimCoreMain {
      * @param args the command line arguments
      * @throws SAXException
      * @throws JAXBException
+     * @throws InterruptedException
      */
-    public static void main(String[] args) throws JAXBException, SAXException {
+    public static void main(String[] args) throws JAXBException, SAXException, InterruptedException {
         Locale.setDefault(Locale.US);
         org.movsim.logging.Logger.initializeLogger();
         MovsimCommandLine.parse(args);
@@ -25,20 +25,19 @@
  */
 package org.movsim;
 
-import com.google.common.base.Preconditions;
 import org.movsim.autogen.Movsim;
-import org.movsim.autogen.VehiclePrototypeConfiguration;
-import org.movsim.autogen.VehicleType;
+import org.movsim.autogen.Sweep;
+import org.movsim.autogen.SweepParameter;
+import org.movsim.autogen.SweepTarget;
 import org.movsim.input.ProjectMetaData;
-import org.movsim.simulator.Simulator;
-import org.movsim.utilities.FileUtils;
+import org.movsim.sweep.ParameterSweep;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xml.sax.SAXException;
-
-import javax.xml.bind.JAXBException;
-import java.io.PrintWriter;
 
+/**
+ * Simulation scanning mode: runs the parameter sweep defined in the input. Without a sweep definition the equipped
+ * fraction and the uncertainty of the navigation devices are scanned on a grid.
+ */
 public final class SimulationScan {
 
     private static final Logger LOG = LoggerFactory.getLogger(SimulationScan.class);
@@ -47,78 +46,52 @@ public final class SimulationScan {
         throw new IllegalStateException("do not instanciate");
     }
 
-    static final String OUTPUT_NAME = ".totalAvgTravelTime.csv";
-
-    public static void invokeSimulationScan(final Movsim inputData) throws JAXBException, SAXException {
+    public static void invokeSimulationScan(final Movsim inputData) throws InterruptedException {
+        Sweep sweep = inputData.isSetSweep() ? inputData.getSweep() : createEquippedUncertaintySweep();
+        int failures = new ParameterSweep(inputData, ProjectMetaData.getInstance(), sweep).run();
+        if (failures > 0) {
+            LOG.warn("{} simulation runs of the scan failed", failures);
+        }
+    }
 
-        // 50x50 grid scan
-        double uncertaintyMin = 0;
-        double uncertaintyMax = 300;
-        double uncertaintyStep = 30;
+    /**
+     * Grid scan of the fraction of vehicles equipped with a navigation device and the uncertainty of the travel time
+     * information. Requires the vehicle types "Equipped" and "NonEquipped" and a single service provider.
+     */
+    private static Sweep createEquippedUncertaintySweep() {
+        SweepParameter fraction = createParameter("fraction", 0, 1, 0.1);
+        fraction.getSweepTarget().add(createTarget(
+                "/Movsim/Scenario/Simulation/TrafficComposition/VehicleType[@label='Equipped']/@fraction", 1, 0));
+        fraction.getSweepTarget().add(createTarget(
+                "/Movsim/Scenario/Simulation/TrafficComposition/VehicleType[@label='NonEquipped']/@fraction", -1, 1));
 
-        double fractionMin = 0;
-        double fractionMax = 1;
-        double fractionStep = 0.1;
+        SweepParameter uncertainty = createParameter("uncertainty", 0, 300, 30);
+        uncertainty.getSweepTarget().add(createTarget("/Movsim/VehiclePrototypes/VehiclePrototypeConfiguration"
+                + "[@label='Equipped']/PersonalNavigationDevice/@uncertainty", 1, 0));
+        uncertainty.getSweepTarget().add(
+                createTarget("/Movsim/ServiceProviders/ServiceProvider/DecisionPoints/@uncertainty", 1, 0));
 
-        String filename = ProjectMetaData.getInstance().getProjectName() + OUTPUT_NAME;
-        PrintWriter writer = FileUtils.getWriter(filename);
-        double fraction = fractionMin;
-        double uncertainty = uncertaintyMin;
-        while (fraction <= fractionMax) {
-            while (uncertainty <= uncertaintyMax) {
-                modifyInput(inputData, fraction, uncertainty);
-                Simulator simRun = MovsimCoreMain.invokeSingleSimulation(inputData);
-                writeOutput(writer, fraction, uncertainty, simRun);
-                if (uncertainty < uncertaintyMax && uncertainty + uncertaintyStep > uncertaintyMax) {
-                    // handle boundary explicitly, not elegant
-                    uncertainty = uncertaintyMax;
-                } else {
-                    uncertainty += uncertaintyStep;
-                }
-            }
-            writer.println();
-            uncertainty = uncertaintyMin;
-            if (fraction < fractionMax && fraction + fractionStep > fractionMax) {
-                // handle boundary explicitly
-                fraction = fractionMax;
-            } else {
-                fraction += fractionStep;
-            }
-        }
-        writer.close();
+        Sweep sweep = new Sweep();
+        sweep.getSweepParameter().add(fraction);
+        sweep.getSweepParameter().add(uncertainty);
+        return sweep;
     }
 
-    private static void writeOutput(PrintWriter writer, double fraction, double uncertainty, Simulator simRun) {
-        StringBuilder sb = new StringBuilder();
-        double avgTravelTime =
-                simRun.getRoadNetwork().totalVehicleTravelTime() / simRun.getRoadNetwork().totalVehiclesRemoved();
-        sb.append(String.format("%.3f", fraction)).append(", ").append(String.format("%.3f", uncertainty)).append(", ")
-                .append(String.format("%.3f", avgTravelTime));
-        writer.println(sb.toString());
-        writer.flush();
+    private static SweepParameter createParameter(String name, double min, double max, double step) {
+        SweepParameter parameter = new SweepParameter();
+        parameter.setName(name);
+        parameter.setMin(min);
+        parameter.setMax(max);
+        parameter.setStep(step);
+        return parameter;
     }
 
-    private static void modifyInput(final Movsim inputData, double fraction, double uncertainty) {
-        Preconditions.checkArgument(
-                inputData.getScenario().getSimulation().getTrafficComposition().getVehicleType().size() == 2);
-        VehicleType equippedVehicleType = inputData.getScenario().getSimulation().getTrafficComposition()
-                .getVehicleType().get(0);
-        Preconditions.checkArgument(equippedVehicleType.getLabel().equals("Equipped"));
-        equippedVehicleType.setFraction(fraction);
-
-        VehicleType nonEquippedVehicleType = inputData.getScenario().getSimulation().getTrafficComposition()
-                .getVehicleType().get(1);
-        Preconditions.checkArgument(nonEquippedVehicleType.getLabel().equals("NonEquipped"));
-        nonEquippedVehicleType.setFraction(1 - fraction);
-
-        VehiclePrototypeConfiguration equippedVehPrototypeConfig = inputData.getVehiclePrototypes()
-                .getVehiclePrototypeConfiguration().get(0);
-        Preconditions.checkArgument(equippedVehPrototypeConfig.getLabel().equals("Equipped"));
-        Preconditions.checkArgument(equippedVehPrototypeConfig.getPersonalNavigationDevice().isSetServiceProvider());
-        equippedVehPrototypeConfig.getPersonalNavigationDevice().setUncertainty(uncertainty);
-        Preconditions.checkArgument(inputData.getServiceProviders().getServiceProvider().size() == 1);
-        inputData.getServiceProviders().getServiceProvider().get(0).getDecisionPoints().setUncertainty(uncertainty);
-        LOG.info("### modified input: uncertainty={}, fraction={}", uncertainty, fraction);
+    private static SweepTarget createTarget(String xpath, double scale, double offset) {
+        SweepTarget target = new SweepTarget();
+        target.setXpath(xpath);
+        target.setScale(scale);
+        target.setOffset(offset);
+        return target;
     }
 
 }
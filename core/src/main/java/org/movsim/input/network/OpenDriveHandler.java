@@ -86,7 +86,7 @@ public class OpenDriveHandler {
             final RoadMapping roadMapping = createRoadMappings(road);
             for (LaneSectionType laneType : Lanes.LaneSectionType.values()) {
                 if (hasLaneSectionType(road, laneType)) {
-                    RoadSegment roadSegment = createRoadSegment(laneType, road, hasPeer, roadMapping);
+                    RoadSegment roadSegment = createRoadSegment(roadNetwork, laneType, road, hasPeer, roadMapping);
                     if (roadSegment == null) {
                         throw new IllegalStateException("could not create roadSegment for road=" + road.getId());
                     }
@@ -126,8 +126,8 @@ public class OpenDriveHandler {
         return false; // xodr CENTER lane not supported
     }
 
-    private RoadSegment createRoadSegment(LaneSectionType laneType, Road road, boolean hasPeer,
-            RoadMapping roadMapping) {
+    private RoadSegment createRoadSegment(RoadNetwork roadNetwork, LaneSectionType laneType, Road road,
+            boolean hasPeer, RoadMapping roadMapping) {
 
         Preconditions.checkArgument(road.getLanes().getLaneSection().size() == 1,
                 "cannot handle more than one laneSection in roadId=" + road.getId());
@@ -144,19 +144,23 @@ public class OpenDriveHandler {
         // final RoadMapping roadMapping = createRoadMapping(laneType, road);
 
         final RoadSegment roadSegment = laneType.isReverseDirection() ?
-                new RoadSegment(roadMapping.roadLength(), lanes.size(), new RoadMappingPeer(roadMapping),
-                        RoadSegmentDirection.BACKWARD) :
-                new RoadSegment(roadMapping.roadLength(), lanes.size(), roadMapping, RoadSegmentDirection.FORWARD);
+                new RoadSegment(roadNetwork.nextRoadSegmentId(), roadMapping.roadLength(), lanes.size(),
+                        new RoadMappingPeer(roadMapping), RoadSegmentDirection.BACKWARD) :
+                new RoadSegment(roadNetwork.nextRoadSegmentId(), roadMapping.roadLength(), lanes.size(), roadMapping,
+                        RoadSegmentDirection.FORWARD);
 
         roadSegment.setUserId(getRoadSegmentId(road.getId(), laneType, hasPeer));
         roadSegment.setUserRoadname(road.getName());
+        final RoadTypeSpeeds roadTypeSpeeds = roadNetwork.roadTypeSpeeds();
         if (road.isSetType() && !road.getType().isEmpty()) {
             if (road.getType().size() > 1) {
                 LOG.error("Movsim considers only first entry of the road.type and ignores the others defined for road="
                         + road.getId());
             }
-            double freeFlowSpeed = RoadTypeSpeeds.INSTANCE.getFreeFlowSpeed(road.getType().iterator().next().getType());
+            double freeFlowSpeed = roadTypeSpeeds.getFreeFlowSpeed(road.getType().iterator().next().getType());
             roadSegment.setFreeFlowSpeed((int) freeFlowSpeed);
+        } else {
+            roadSegment.setFreeFlowSpeed(roadTypeSpeeds.getDefaultFreeFlowSpeed());
         }
 
         if (road.isSetElevationProfile()) {
@@ -168,7 +172,7 @@ public class OpenDriveHandler {
 
         for (Lane lane : lanes) {
             int laneIndex = laneIdToLaneIndex(lane.getId());
-            setLaneType(laneIndex, lane, roadSegment);
+            setLaneType(roadNetwork, laneIndex, lane, roadSegment);
             // speed is definied lane-wise, but movsim handles speed limits on road segment level, further
             // entries overwrite previous entry
             if (lane.isSetSpeed()) {
@@ -385,18 +389,20 @@ public class OpenDriveHandler {
         }
     }
 
-    private static void setLaneType(int laneNumber, Lane lane, RoadSegment roadSegment) {
+    private static void setLaneType(RoadNetwork roadNetwork, int laneNumber, Lane lane, RoadSegment roadSegment) {
         LOG.debug("laneNumber={}, roadSegmentId={}", laneNumber, roadSegment.userId());
         if (lane.getType().equals(Lanes.Type.TRAFFIC.getOpenDriveIdentifier())) {
             roadSegment.setLaneType(laneNumber, Lanes.Type.TRAFFIC);
         } else if (lane.getType().equals(Lanes.Type.ENTRANCE.getOpenDriveIdentifier())) {
             roadSegment.setLaneType(laneNumber, Lanes.Type.ENTRANCE);
-            Vehicle obstacle = new Vehicle(roadSegment.roadLength(), 0.0, laneNumber, 1.0, 1.0);
+            Vehicle obstacle = new Vehicle(roadNetwork.context().nextVehicleId(), roadSegment.roadLength(), 0.0,
+                    laneNumber, 1.0, 1.0);
             obstacle.setType(Vehicle.Type.OBSTACLE);
             roadSegment.addObstacle(obstacle);
         } else if (lane.getType().equals(Lanes.Type.RESTRICTED.getOpenDriveIdentifier())) {
             roadSegment.setLaneType(laneNumber, Lanes.Type.RESTRICTED);
-            Vehicle obstacle = new Vehicle(roadSegment.roadLength(), 0.0, laneNumber, 1.0, 1.0);
+            Vehicle obstacle = new Vehicle(roadNetwork.context().nextVehicleId(), roadSegment.roadLength(), 0.0,
+                    laneNumber, 1.0, 1.0);
             obstacle.setType(Vehicle.Type.OBSTACLE);
             roadSegment.addObstacle(obstacle);
         } else if (lane.getType().equals(Lanes.Type.EXIT.getOpenDriveIdentifier())) {
@@ -25,7 +25,7 @@
  */
 package org.movsim.output;
 
-import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
 import org.movsim.io.FileOutputBase;
 import org.movsim.simulator.roadnetwork.Lanes;
 import org.movsim.simulator.roadnetwork.controller.LoopDetector;
@@ -51,8 +51,9 @@ public class FileDetector extends FileOutputBase {
     private int laneCount;
     private final boolean loggingLanes;
 
-    public FileDetector(LoopDetector detector, String roadId, int laneCount, boolean loggingLanes) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    public FileDetector(SimulationContext context, LoopDetector detector, String roadId, int laneCount,
+            boolean loggingLanes) {
+        super(context);
         final int xDetectorInt = (int) detector.position();
         this.detector = detector;
         this.laneCount = laneCount;
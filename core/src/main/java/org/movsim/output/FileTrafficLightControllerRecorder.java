@@ -27,6 +27,7 @@ package org.movsim.output;
 
 import org.movsim.autogen.TrafficLightStatus;
 import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
 import org.movsim.io.FileOutputBase;
 import org.movsim.simulator.roadnetwork.controller.TrafficLight;
 import org.movsim.simulator.roadnetwork.controller.TrafficLightController;
@@ -38,9 +39,12 @@ public class FileTrafficLightControllerRecorder extends FileOutputBase implement
 
     private static final String EXTENSION_FORMAT = ".controllerGroup_%s.firstSignal_%s.csv";
     private final int nTimestep;
+    private final ProjectMetaData projectMetaData;
 
-    public FileTrafficLightControllerRecorder(TrafficLightController controller, int nTimestep) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    public FileTrafficLightControllerRecorder(SimulationContext context, TrafficLightController controller,
+            int nTimestep) {
+        super(context);
+        this.projectMetaData = context.getProjectMetaData();
         Preconditions.checkArgument(!controller.groupId().isEmpty());
         Preconditions.checkArgument(!controller.firstSignalId().isEmpty());
         this.nTimestep = nTimestep;
@@ -67,7 +71,7 @@ public class FileTrafficLightControllerRecorder extends FileOutputBase implement
         if (iterationCount % nTimestep != 0) {
             return;
         }
-        String formattedTime = ProjectMetaData.getInstance().getFormatedTimeWithOffset(simulationTime);
+        String formattedTime = projectMetaData.getFormatedTimeWithOffset(simulationTime);
         writeData(simulationTime, formattedTime, trafficLights);
     }
 
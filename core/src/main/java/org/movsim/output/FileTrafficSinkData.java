@@ -27,6 +27,7 @@
 package org.movsim.output;
 
 import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
 import org.movsim.io.FileOutputBase;
 import org.movsim.simulator.vehicles.Vehicle;
 
@@ -38,18 +39,21 @@ public class FileTrafficSinkData extends FileOutputBase implements
             + "     t[s], timeFormatted, totalVehiclesRemoved, lane, route, vehicleId, vehicleLabel, vehicleUserData ...\n";
     private static final String OUTPUT_FORMAT = "%10.2f, %s, %6d, %2d, %s, %s, %s, %s %n";
 
-    public FileTrafficSinkData(String roadId) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    private final ProjectMetaData projectMetaData;
+
+    public FileTrafficSinkData(SimulationContext context, String roadId) {
+        super(context);
+        this.projectMetaData = context.getProjectMetaData();
         writer = createWriter(String.format(EXTENSION_FORMAT, roadId));
         writer.printf(OUTPUT_HEADING);
     }
 
     @Override
     public void recordData(double simulationTime, int totalVehiclesRemoved, Vehicle vehicle) {
-        String formattedTime = ProjectMetaData.getInstance().getFormatedTimeWithOffset(simulationTime);
+        String formattedTime = projectMetaData.getFormatedTimeWithOffset(simulationTime);
         writer.printf(OUTPUT_FORMAT, simulationTime, formattedTime, totalVehiclesRemoved, vehicle.lane(),
                 vehicle.getRouteName(), vehicle.getId(), vehicle.getLabel(),
                 vehicle.getUserData().getString(SEPARATOR_CHAR));
-        writer.flush();
+        flushIfDue(writer);
     }
 }
@@ -25,7 +25,7 @@
  */
 package org.movsim.output;
 
-import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
 import org.movsim.io.FileOutputBase;
 import org.movsim.simulator.roadnetwork.boundaries.TrafficSourceMacro;
 
@@ -36,8 +36,8 @@ public class FileTrafficSourceData extends FileOutputBase implements TrafficSour
             COMMENT_CHAR + "     t[s], lane,  xEnter[m],    v[km/h],   qBC[1/h],    count,      queue\n";
     private static final String OUTPUT_FORMAT = "%10.2f, %4d, %10.2f, %10.2f, %10.2f, %8d, %10.5f%n";
 
-    public FileTrafficSourceData(String roadId) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    public FileTrafficSourceData(SimulationContext context, String roadId) {
+        super(context);
         writer = createWriter(String.format(EXTENSION_FORMAT, roadId));
         writer.printf(OUTPUT_HEADING);
     }
@@ -47,6 +47,6 @@ public class FileTrafficSourceData extends FileOutputBase implements TrafficSour
             int enteringVehCounter, double nWait) {
         writer.printf(OUTPUT_FORMAT, simulationTime, laneEnter, xEnter, 3.6 * vEnter, 3600 * totalInflow,
                 enteringVehCounter, nWait);
-        writer.flush();
+        flushIfDue(writer);
     }
 }
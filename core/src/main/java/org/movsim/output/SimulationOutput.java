@@ -124,7 +124,7 @@ public class SimulationOutput implements SimulationTimeStep {
                     LOG.warn("trajectory output for route \"{}\" already defined!", route.getName());
                     continue;
                 }
-                filesTrajectories.put(route, new FileTrajectories(traj, route));
+                filesTrajectories.put(route, new FileTrajectories(roadNetwork.context(), traj, route));
             }
         }
     }
@@ -142,7 +142,7 @@ public class SimulationOutput implements SimulationTimeStep {
     private void initFloatingCars(boolean writeOutput, OutputConfiguration outputInput) {
         for (FloatingCarOutput floatingCarOutput : outputInput.getFloatingCarOutput()) {
             Route route = getCheckedRoute(floatingCarOutput.getRoute());
-            floatingCarOutputs.add(new FloatingCars(floatingCarOutput, route, writeOutput));
+            floatingCarOutputs.add(new FloatingCars(roadNetwork.context(), floatingCarOutput, route, writeOutput));
         }
     }
 
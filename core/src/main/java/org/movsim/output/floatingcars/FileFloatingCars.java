@@ -25,7 +25,7 @@
  */
 package org.movsim.output.floatingcars;
 
-import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
 import org.movsim.io.FileOutputBase;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.simulator.vehicles.PhysicalQuantities;
@@ -33,6 +33,8 @@ import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.utilities.FileUtils;
 
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.HashMap;
 import java.util.Map;
 
 // TODO output of physical quantities for Cellular Automata. Test scenario test_speedlimits.xml
@@ -47,17 +49,36 @@ class FileFloatingCars extends FileOutputBase {
     // note: number before decimal point is total width of field, not width of integer part
     private static final String OUTPUT_FORMAT = "%10.2f,%10d,%10d,%10.2f,%10.2f,%10.3f,%10.5f,%10.5f,%10.3f,%10.5f,%10.2f,%10f,%10d,%8.5f%n";
 
-    FileFloatingCars() {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    /** writers of the floating cars by vehicle id, only accessed by the submitted tasks */
+    private final Map<Long, PrintWriter> printWriters = new HashMap<>(149, 0.75f);
+
+    FileFloatingCars(SimulationContext context) {
+        super(context);
         String regex = baseFilename + EXTENSION_REGEX;
         FileUtils.deleteFileList(path, regex);
     }
 
-    PrintWriter createWriter(Vehicle vehicle, Route route) {
-        return createWriter(String.format(EXTENSION_FORMAT, route.getName(), vehicle.getVehNumber()));
+    /**
+     * Creates the output file of a floating car and writes its header.
+     */
+    void addFloatingCar(Vehicle vehicle, Route route) {
+        final long id = vehicle.getId();
+        final String extension = String.format(EXTENSION_FORMAT, route.getName(), vehicle.getVehNumber());
+        StringWriter header = new StringWriter();
+        writeHeader(new PrintWriter(header), vehicle, route);
+        final String headerLines = header.toString();
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                PrintWriter writer = createWriter(extension);
+                writer.print(headerLines);
+                writer.flush();
+                printWriters.put(id, writer);
+            }
+        });
     }
 
-    static void writeHeader(PrintWriter writer, Vehicle vehicle, Route route) {
+    private static void writeHeader(PrintWriter writer, Vehicle vehicle, Route route) {
         writer.println(String.format("%s vehicle id = %d", COMMENT_CHAR, vehicle.getId()));
         writer.println(String.format("%s random fix = %.8f", COMMENT_CHAR, vehicle.getRandomFix()));
         writer.println(String.format("%s vehicle type = %s", COMMENT_CHAR, vehicle.type()));
@@ -88,18 +109,25 @@ class FileFloatingCars extends FileOutputBase {
      * @param time     the time
      * @param veh      the veh
      * @param frontVeh the front veh
-     * @param writer   the writer
      */
-    static void writeData(double time, Vehicle veh, Vehicle frontVeh, PrintWriter writer) {
+    void writeData(double time, Vehicle veh, Vehicle frontVeh) {
+        final long id = veh.getId();
         final PhysicalQuantities physicalQuantities = veh.physicalQuantities();
-        writer.printf(OUTPUT_FORMAT, time, veh.roadSegmentId(), veh.lane(), physicalQuantities.getFrontPosition(),
+        final Object[] values = { time, veh.roadSegmentId(), veh.lane(), physicalQuantities.getFrontPosition(),
                 physicalQuantities.totalTravelDistance(), physicalQuantities.getSpeed(), physicalQuantities.getAcc(),
                 physicalQuantities.accModel(), physicalQuantities.getNetDistance(frontVeh),
                 physicalQuantities.getRelSpeed(frontVeh),
                 physicalQuantities.getxScale() * veh.getDistanceToTrafficlight(),
                 1000 * veh.getEnergyModel().getActualFuelFlowLiterPerS(),
-                frontVeh == null ? -1 : frontVeh.getVehNumber(), veh.getSlope());
-        writer.flush();
+                frontVeh == null ? -1 : frontVeh.getVehNumber(), veh.getSlope() };
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                PrintWriter writer = printWriters.get(id);
+                writer.printf(OUTPUT_FORMAT, values);
+                flushIfDue(writer);
+            }
+        });
     }
 
 }
@@ -25,13 +25,12 @@
  */
 package org.movsim.output.floatingcars;
 
-import java.io.PrintWriter;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.Set;
 
 import org.movsim.autogen.FloatingCarOutput;
+import org.movsim.input.SimulationContext;
 import org.movsim.simulator.SimulationTimeStep;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.routing.Route;
@@ -55,9 +54,10 @@ public class FloatingCars implements SimulationTimeStep {
 
     private final FileFloatingCars fileFloatingCars;
 
-    private final Map<Vehicle, PrintWriter> printWriters;
+    private final Set<Vehicle> floatingCars;
 
-    public FloatingCars(FloatingCarOutput floatingCarOutput, Route route, boolean writeFileOutput) {
+    public FloatingCars(SimulationContext context, FloatingCarOutput floatingCarOutput, Route route,
+            boolean writeFileOutput) {
         Preconditions.checkNotNull(route);
         this.nDtOut = floatingCarOutput.getNTimestep();
         this.randomFraction = (floatingCarOutput.getRandomFraction() < 0 || floatingCarOutput.getRandomFraction() > 1) ? 0
@@ -67,8 +67,8 @@ public class FloatingCars implements SimulationTimeStep {
         for (org.movsim.autogen.FloatingCar fc : floatingCarOutput.getFloatingCar()) {
             floatingCarVehicleNumbers.add(Integer.valueOf(fc.getNumber()));
         }
-        fileFloatingCars = (writeFileOutput) ? new FileFloatingCars() : null;
-        printWriters = new HashMap<>(149, 0.75f);
+        fileFloatingCars = (writeFileOutput) ? new FileFloatingCars(context) : null;
+        floatingCars = new HashSet<>(149, 0.75f);
     }
 
     @Override
@@ -82,30 +82,26 @@ public class FloatingCars implements SimulationTimeStep {
     private void writeOutput(double simulationTime) {
         for (final RoadSegment roadSegment : route) {
             for (Vehicle vehicle : roadSegment) {
-                PrintWriter writer = checkFloatingCar(vehicle);
-                if (writer != null) {
+                if (checkFloatingCar(vehicle)) {
                     final Vehicle frontVeh = roadSegment.frontVehicleOnLane(vehicle);
-                    FileFloatingCars.writeData(simulationTime, vehicle, frontVeh, writer);
+                    fileFloatingCars.writeData(simulationTime, vehicle, frontVeh);
                 }
             }
         }
     }
 
-    private PrintWriter checkFloatingCar(Vehicle vehicle) {
-        PrintWriter printWriter = printWriters.get(vehicle);
-        if (printWriter != null) {
-            return printWriter;
+    private boolean checkFloatingCar(Vehicle vehicle) {
+        if (floatingCars.contains(vehicle)) {
+            return true;
         }
         final int vehNumber = vehicle.getVehNumber();
         if (floatingCarVehicleNumbers.contains(vehNumber) || selectRandomPercentage(vehicle)) {
             floatingCarVehicleNumbers.remove(vehNumber);
-            final PrintWriter writer = fileFloatingCars.createWriter(vehicle, route);
-            FileFloatingCars.writeHeader(writer, vehicle, route);
-            writer.flush();
-            printWriters.put(vehicle, writer);
-            return writer;
+            fileFloatingCars.addFloatingCar(vehicle, route);
+            floatingCars.add(vehicle);
+            return true;
         }
-        return null;
+        return false;
     }
 
     private boolean selectRandomPercentage(Vehicle vehicle) {
@@ -27,7 +27,7 @@ public class ConsumptionOnRoute extends OutputOnRouteBase {
         super(roadNetwork, route);
         this.tauEMA = fuelRouteInput.getTauEMA();
         this.beta = Math.exp(-simulationTimestep / tauEMA);
-        fileWriter = (writeOutput) ? new FileConsumptionOnRoute(fuelRouteInput, route) : null;
+        fileWriter = (writeOutput) ? new FileConsumptionOnRoute(roadNetwork.context(), fuelRouteInput, route) : null;
         totalConsumption = 0;
     }
 
@@ -1,7 +1,7 @@
 package org.movsim.output.route;
 
 import org.movsim.autogen.ConsumptionCalculation;
-import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
 import org.movsim.io.FileOutputBase;
 import org.movsim.simulator.MovsimConstants;
 import org.movsim.simulator.roadnetwork.routing.Route;
@@ -22,8 +22,8 @@ public class FileConsumptionOnRoute extends FileOutputBase {
 
     private final ConsumptionCalculation consumptionConfig;
 
-    public FileConsumptionOnRoute(ConsumptionCalculation fuelRouteInput, Route route) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    public FileConsumptionOnRoute(SimulationContext context, ConsumptionCalculation fuelRouteInput, Route route) {
+        super(context);
         this.consumptionConfig = Preconditions.checkNotNull(fuelRouteInput);
         lastUpdateTime = 0;
         writer = createWriter(String.format(EXTENSION_FORMAT, route.getName()));
@@ -36,9 +36,15 @@ public class FileConsumptionOnRoute extends FileOutputBase {
             if (simulationTime - lastUpdateTime + MovsimConstants.SMALL_VALUE >= consumptionConfig.getDt()
                     || simulationTime == 0) {
                 lastUpdateTime = simulationTime;
-                write(OUTPUT_FORMAT, simulationTime, consumption.getInstantaneousConsumptionRate(),
+                final Object[] values = { simulationTime, consumption.getInstantaneousConsumptionRate(),
                         consumption.getInstantaneousConsumptionEMA(), consumption.getTotalConsumption(),
-                        consumption.getNumberOfVehicles());
+                        consumption.getNumberOfVehicles() };
+                submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        write(OUTPUT_FORMAT, values);
+                    }
+                });
             }
         }
     }
@@ -1,6 +1,6 @@
 package org.movsim.output.route;
 
-import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
 import org.movsim.io.FileOutputBase;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.simulator.vehicles.Vehicle;
@@ -15,8 +15,8 @@ public class FileIndividualTravelTimesOnRoute extends FileOutputBase {
                     "traveltime[s]", "meanSpeed[km/h]", "VehicleID", "VehicleLabel");
     private static final String OUTPUT_FORMAT = "%10.2f, %10.2f, %10.2f, %10.2f, %d, %s %n";
 
-    public FileIndividualTravelTimesOnRoute(Route route) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    public FileIndividualTravelTimesOnRoute(SimulationContext context, Route route) {
+        super(context);
         writer = createWriter(String.format(EXTENSION_FORMAT, route.getName()));
         writer.printf(OUTPUT_HEADING);
         writer.flush();
@@ -25,8 +25,14 @@ public class FileIndividualTravelTimesOnRoute extends FileOutputBase {
     public void write(Vehicle vehicle, double entryTime, double exitTime, double routeLength) {
         double traveltime = exitTime - entryTime;
         double meanSpeed = (traveltime > 0) ? routeLength / traveltime : -1;
-        write(OUTPUT_FORMAT, entryTime, exitTime, traveltime, meanSpeed * Units.MS_TO_KMH, vehicle.getId(),
-                vehicle.getLabel());
+        final Object[] values = { entryTime, exitTime, traveltime, meanSpeed * Units.MS_TO_KMH, vehicle.getId(),
+                vehicle.getLabel() };
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                write(OUTPUT_FORMAT, values);
+            }
+        });
     }
 
 }
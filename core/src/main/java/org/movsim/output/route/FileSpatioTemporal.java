@@ -25,7 +25,7 @@
  */
 package org.movsim.output.route;
 
-import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
 import org.movsim.io.FileOutputBase;
 
 class FileSpatioTemporal extends FileOutputBase {
@@ -34,22 +34,31 @@ class FileSpatioTemporal extends FileOutputBase {
     private static final String OUTPUT_HEADING = COMMENT_CHAR + "     t[s],       x[m],     v[m/s],   a[m/s^2]\n";
     private static final String OUTPUT_FORMAT = "%10.2f, %10.1f, %10.4f, %10.4f%n";
 
-    FileSpatioTemporal(String routeLabel) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    FileSpatioTemporal(SimulationContext context, String routeLabel) {
+        super(context);
         writer = createWriter(String.format(EXTENSION_FORMAT, routeLabel));
         writer.printf(OUTPUT_HEADING);
         writer.flush();
     }
 
-    void writeOutput(SpatioTemporal spatioTemporal, double simulationTime) {
+    void writeOutput(SpatioTemporal spatioTemporal, final double simulationTime) {
         final int count = spatioTemporal.size();
         final double dx = spatioTemporal.getDxOutput();
+        final double[] speeds = new double[count];
+        final double[] accelerations = new double[count];
         for (int i = 0; i < count; i++) {
-            final double x = i * dx;
-            writer.printf(OUTPUT_FORMAT, simulationTime, x, spatioTemporal.getAverageSpeed(i),
-                    spatioTemporal.getAverageAcceleration(i));
+            speeds[i] = spatioTemporal.getAverageSpeed(i);
+            accelerations[i] = spatioTemporal.getAverageAcceleration(i);
         }
-        write(NEWLINE); // block ends
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < count; i++) {
+                    writer.printf(OUTPUT_FORMAT, simulationTime, i * dx, speeds[i], accelerations[i]);
+                }
+                write(NEWLINE); // block ends
+            }
+        });
     }
 
 }
@@ -27,7 +27,10 @@ package org.movsim.output.route;
 
 import com.google.common.base.Preconditions;
 import org.movsim.autogen.Trajectories;
+import org.movsim.autogen.TrajectoryFormatEnum;
 import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
+import org.movsim.io.BinaryTrajectoryWriter;
 import org.movsim.io.FileOutputBase;
 import org.movsim.simulator.MovsimConstants;
 import org.movsim.simulator.SimulationTimeStep;
@@ -36,10 +39,15 @@ import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.simulator.vehicles.Vehicle;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
 public class FileTrajectories extends FileOutputBase implements SimulationTimeStep {
 
     private static final String SEPARATOR = ",";
     private static final String EXTENSION_FORMAT = ".traj.route_%s.csv";
+    private static final String BINARY_EXTENSION_FORMAT = ".traj.route_%s.bin";
     private static final String OUTPUT_HEADING = COMMENT_CHAR
             + "     t[s], lane,       x[m],     v[m/s],   a[m/s^2],     gap[m],    dv[m/s], label,           id,  roadId, originId, infoComment, absTime, xWithOffset[m]";
     private static final String OUTPUT_FORMAT = "%10.2f, %4d, %10.1f, %10.4f, %10.5f, %10.2f, %10.6f,  %s, %12d, %8d, %8d, %s, %10.4f, %s%n";
@@ -49,11 +57,18 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
     private double time;
     private double lastUpdateTime = 0;
     private final Route route;
+    private final ProjectMetaData projectMetaData;
+    /** number of samples of the last output time, used as initial capacity of the next snapshot */
+    private int lastSampleCount;
 
     private final Trajectories traj;
 
-    public FileTrajectories(Trajectories traj, Route route) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    /** writer of the binary format, null for the csv format */
+    private final BinaryTrajectoryWriter binaryWriter;
+
+    public FileTrajectories(SimulationContext context, Trajectories traj, Route route) {
+        super(context);
+        this.projectMetaData = context.getProjectMetaData();
         this.traj = Preconditions.checkNotNull(traj);
         this.route = Preconditions.checkNotNull(route);
         positionIntervalStart = 0;
@@ -61,8 +76,19 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
 
         LOG.info("interval for output: timeStart={}, timeEnd={}", traj.isSetStartTime() ? traj.getStartTime() : "--",
                 traj.isSetEndTime() ? traj.getEndTime() : "--");
-        writer = createWriter(String.format(EXTENSION_FORMAT, route.getName()));
-        writeHeader(route);
+        if (traj.getFormat() == TrajectoryFormatEnum.BINARY) {
+            try {
+                binaryWriter = closeOnShutDown(new BinaryTrajectoryWriter(createOutputStream(String.format(
+                        BINARY_EXTENSION_FORMAT, route.getName())), route.getName(), traj.getOffsetPosition(),
+                        projectMetaData.getTimeOffsetMillis()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot write trajectory file " + filename, e);
+            }
+        } else {
+            binaryWriter = null;
+            writer = createWriter(String.format(EXTENSION_FORMAT, route.getName()));
+            writeHeader(route);
+        }
     }
 
     private void writeHeader(Route route) {
@@ -80,8 +106,13 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
             }
             if ((time - lastUpdateTime + MovsimConstants.SMALL_VALUE) >= traj.getDt()) {
                 lastUpdateTime = time;
-                String formattedTime = ProjectMetaData.getInstance().getFormatedTimeWithOffset(simulationTime);
-                writeTrajectories(formattedTime);
+                final Samples samples = collectSamples();
+                submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        writeSamples(samples);
+                    }
+                });
             }
         }
     }
@@ -100,7 +131,11 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
         return time <= traj.getEndTime();
     }
 
-    private void writeTrajectories(String formattedTime) {
+    /**
+     * Takes a snapshot of the vehicle data, the formatting is done by {@link #writeSamples(Samples)}.
+     */
+    private Samples collectSamples() {
+        Samples samples = new Samples(time, lastSampleCount);
         double positionOnRoute = 0.0;
         for (final RoadSegment roadSegment : route) {
             for (LaneSegment laneSegment : roadSegment.laneSegments()) {
@@ -111,26 +146,92 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
                     if (!traj.isSetRandomFraction() || vehicle.getRandomFix() < traj.getRandomFraction()) {
                         if (vehicle.getFrontPosition() >= positionIntervalStart
                                 && vehicle.getFrontPosition() <= positionIntervalEnd) {
-                            writeVehicleData(vehicle, positionOnRoute, laneSegment.frontVehicle(vehicle),
-                                    formattedTime);
+                            samples.add(vehicle, positionOnRoute, laneSegment.frontVehicle(vehicle),
+                                    binaryWriter == null);
                         }
                     }
                 }
             }
             positionOnRoute += roadSegment.roadLength();
         }
+        lastSampleCount = samples.size;
+        return samples;
     }
 
-    private void writeVehicleData(Vehicle me, double positionOnRoute, Vehicle frontVehicle, String formattedTime) {
-        double pos = me.getFrontPosition() + positionOnRoute;
-        double s = (frontVehicle == null || frontVehicle.type() == Vehicle.Type.OBSTACLE) ?
-                0 :
-                me.getNetDistance(frontVehicle);
-        double dv = (frontVehicle == null || frontVehicle.type() == Vehicle.Type.OBSTACLE) ?
-                0 :
-                me.getRelSpeed(frontVehicle);
-        write(OUTPUT_FORMAT, time, me.lane(), pos, me.getSpeed(), me.getAcc(), s, dv, me.getLabel(), me.getId(),
-                me.roadSegmentId(), me.originRoadSegmentId(), formattedTime, pos + traj.getOffsetPosition(),
-                me.getUserData().getString(SEPARATOR));
+    private void writeSamples(Samples samples) {
+        if (binaryWriter != null) {
+            try {
+                binaryWriter.writeSamples(samples.time, samples.size, samples.lane, samples.position, samples.speed,
+                        samples.acc, samples.gap, samples.dv, samples.id, samples.roadId, samples.originId,
+                        samples.label);
+            } catch (IOException e) {
+                throw new UncheckedIOException("cannot write trajectory file " + filename, e);
+            }
+            return;
+        }
+        String formattedTime = projectMetaData.getFormatedTimeWithOffset(samples.time);
+        for (int i = 0; i < samples.size; i++) {
+            write(OUTPUT_FORMAT, samples.time, samples.lane[i], samples.position[i], samples.speed[i],
+                    samples.acc[i], samples.gap[i], samples.dv[i], samples.label[i], samples.id[i], samples.roadId[i],
+                    samples.originId[i], formattedTime, samples.position[i] + traj.getOffsetPosition(),
+                    samples.userData[i]);
+        }
+    }
+
+    /**
+     * Vehicle data of one output time stored in primitive arrays.
+     */
+    private static final class Samples {
+        final double time;
+        int size;
+        int[] lane;
+        double[] position;
+        double[] speed;
+        double[] acc;
+        double[] gap;
+        double[] dv;
+        String[] label;
+        long[] id;
+        int[] roadId;
+        int[] originId;
+        String[] userData;
+
+        Samples(double time, int initialCapacity) {
+            this.time = time;
+            allocate(Math.max(initialCapacity, 16));
+        }
+
+        void add(Vehicle me, double positionOnRoute, Vehicle frontVehicle, boolean withUserData) {
+            if (size == id.length) {
+                allocate(2 * size);
+            }
+            boolean hasFront = frontVehicle != null && frontVehicle.type() != Vehicle.Type.OBSTACLE;
+            lane[size] = me.lane();
+            position[size] = me.getFrontPosition() + positionOnRoute;
+            speed[size] = me.getSpeed();
+            acc[size] = me.getAcc();
+            gap[size] = hasFront ? me.getNetDistance(frontVehicle) : 0;
+            dv[size] = hasFront ? me.getRelSpeed(frontVehicle) : 0;
+            label[size] = me.getLabel();
+            id[size] = me.getId();
+            roadId[size] = me.roadSegmentId();
+            originId[size] = me.originRoadSegmentId();
+            userData[size] = withUserData ? me.getUserData().getString(SEPARATOR) : null;
+            ++size;
+        }
+
+        private void allocate(int capacity) {
+            lane = lane == null ? new int[capacity] : Arrays.copyOf(lane, capacity);
+            position = position == null ? new double[capacity] : Arrays.copyOf(position, capacity);
+            speed = speed == null ? new double[capacity] : Arrays.copyOf(speed, capacity);
+            acc = acc == null ? new double[capacity] : Arrays.copyOf(acc, capacity);
+            gap = gap == null ? new double[capacity] : Arrays.copyOf(gap, capacity);
+            dv = dv == null ? new double[capacity] : Arrays.copyOf(dv, capacity);
+            label = label == null ? new String[capacity] : Arrays.copyOf(label, capacity);
+            id = id == null ? new long[capacity] : Arrays.copyOf(id, capacity);
+            roadId = roadId == null ? new int[capacity] : Arrays.copyOf(roadId, capacity);
+            originId = originId == null ? new int[capacity] : Arrays.copyOf(originId, capacity);
+            userData = userData == null ? new String[capacity] : Arrays.copyOf(userData, capacity);
+        }
     }
 }
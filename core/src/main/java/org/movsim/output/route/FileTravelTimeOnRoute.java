@@ -1,6 +1,6 @@
 package org.movsim.output.route;
 
-import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
 import org.movsim.io.FileOutputBase;
 import org.movsim.output.route.TravelTimeOnRoute.TravelTime;
 import org.movsim.simulator.MovsimConstants;
@@ -20,8 +20,8 @@ public class FileTravelTimeOnRoute extends FileOutputBase {
 
     private double lastUpdateTime;
 
-    public FileTravelTimeOnRoute(double dtOut, Route route, String extension) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    public FileTravelTimeOnRoute(SimulationContext context, double dtOut, Route route, String extension) {
+        super(context);
         this.dtOutput = dtOut;
         lastUpdateTime = 0;
         writer = createWriter(String.format(EXTENSION_FORMAT, extension, route.getName()));
@@ -32,9 +32,15 @@ public class FileTravelTimeOnRoute extends FileOutputBase {
     public void write(double simulationTime, TravelTime tt) {
         if (simulationTime - lastUpdateTime + MovsimConstants.SMALL_VALUE >= dtOutput || simulationTime == 0) {
             lastUpdateTime = simulationTime;
-            write(OUTPUT_FORMAT, simulationTime, tt.getInstantaneousTravelTime(), tt.getInstantaneousTravelTimeEMA(),
-                    tt.getMeanSpeed() * Units.MS_TO_KMH, tt.getTotalTravelTime() * Units.S_TO_H,
-                    tt.getNumberOfVehicles());
+            final Object[] values = { simulationTime, tt.getInstantaneousTravelTime(),
+                    tt.getInstantaneousTravelTimeEMA(), tt.getMeanSpeed() * Units.MS_TO_KMH,
+                    tt.getTotalTravelTime() * Units.S_TO_H, tt.getNumberOfVehicles() };
+            submit(new Runnable() {
+                @Override
+                public void run() {
+                    write(OUTPUT_FORMAT, values);
+                }
+            });
         }
     }
 
@@ -26,7 +26,7 @@ public class IndividualTravelTimesOnRoute extends OutputOnRouteBase {
 
     public IndividualTravelTimesOnRoute(RoadNetwork roadNetwork, Route route, boolean writeOutput) {
         super(roadNetwork, route);
-        this.fileWriter = writeOutput ? new FileIndividualTravelTimesOnRoute(route) : null;
+        this.fileWriter = writeOutput ? new FileIndividualTravelTimesOnRoute(roadNetwork.context(), route) : null;
 
         RoadSegment firstRoadSegmentOnRoute = route.get(0);
         entrySignalPoint = new SignalPoint(0, firstRoadSegmentOnRoute);
@@ -30,7 +30,7 @@ import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.Vehicle.Type;
-import org.movsim.utilities.LinearInterpolatedFunction;
+import org.movsim.utilities.LinearInterpolatedTimeSeries;
 
 import java.util.Comparator;
 import java.util.TreeSet;
@@ -57,7 +57,7 @@ public class SpatioTemporal extends OutputOnRouteBase {
         macroSpeed = new double[size];
         macroAcceleration = new double[size];
 
-        fileWriter = writeOutput ? new FileSpatioTemporal(route.getName()) : null;
+        fileWriter = writeOutput ? new FileSpatioTemporal(roadNetwork.context(), route.getName()) : null;
     }
 
     @Override
@@ -92,8 +92,9 @@ public class SpatioTemporal extends OutputOnRouteBase {
             ++j;
         }
 
-        LinearInterpolatedFunction speeds = new LinearInterpolatedFunction(xMicro, vMicro);
-        LinearInterpolatedFunction accelerations = new LinearInterpolatedFunction(xMicro, aMicro);
+        // queried with increasing positions
+        LinearInterpolatedTimeSeries speeds = new LinearInterpolatedTimeSeries(xMicro, vMicro);
+        LinearInterpolatedTimeSeries accelerations = new LinearInterpolatedTimeSeries(xMicro, aMicro);
 
         for (int i = 0; i < macroSpeed.length; ++i) {
             final double x = i * dxOutput;
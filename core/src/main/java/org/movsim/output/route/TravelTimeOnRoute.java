@@ -51,7 +51,8 @@ public class TravelTimeOnRoute extends OutputOnRouteBase {
         this.beta = Math.exp(-simulationTimestep / tauEMA);
         for (TravelTimeType type : TravelTimeType.values()) {
             FileTravelTimeOnRoute writer = writeOutput ?
-                    new FileTravelTimeOnRoute(travelTimeInput.getDt(), route, type.toString().toLowerCase()) :
+                    new FileTravelTimeOnRoute(roadNetwork.context(), travelTimeInput.getDt(), route,
+                            type.toString().toLowerCase()) :
                     null;
             travelTimes.put(type, new TravelTime(writer));
         }
@@ -350,9 +350,24 @@ public abstract class RoadMapping {
      * @return polygon representing vehicle
      */
     public PolygonFloat mapFloat(Vehicle vehicle) {
-        final PosTheta posTheta = map(vehicle.physicalQuantities().getMidPosition(),
-                -laneCenterOffset(vehicle.getContinuousLane()));
-        return mapFloat(posTheta, vehicle.physicalQuantities().getLength(), vehicle.physicalQuantities().getWidth());
+        return mapFloat(vehicle.physicalQuantities().getMidPosition(), vehicle.getContinuousLane(), vehicle
+                .physicalQuantities().getLength(), vehicle.physicalQuantities().getWidth());
+    }
+
+    /**
+     * Returns a polygon with its vertices at the corners of a vehicle with the given position and dimensions.
+     * 
+     * @param midPosition
+     *            position of the vehicle center along the road
+     * @param continuousLane
+     *            lane of the vehicle, fractional during a lane change
+     * @param length
+     * @param width
+     * @return polygon representing the vehicle
+     */
+    public PolygonFloat mapFloat(double midPosition, double continuousLane, double length, double width) {
+        final PosTheta posTheta = map(midPosition, -laneCenterOffset(continuousLane));
+        return mapFloat(posTheta, length, width);
     }
 
     @SuppressWarnings("static-method")
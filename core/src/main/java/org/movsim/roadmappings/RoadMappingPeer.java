@@ -1,7 +1,6 @@
 package org.movsim.roadmappings;
 
 import com.google.common.base.Preconditions;
-import org.movsim.simulator.vehicles.Vehicle;
 
 public class RoadMappingPeer extends RoadMapping {
 
@@ -22,10 +21,9 @@ public class RoadMappingPeer extends RoadMapping {
     }
 
     @Override
-    public PolygonFloat mapFloat(Vehicle vehicle) {
-        final PosTheta posTheta = map(vehicle.physicalQuantities().getMidPosition(),
-                laneCenterOffset(vehicle.getContinuousLane()));
-        return mapFloat(posTheta, vehicle.physicalQuantities().getLength(), vehicle.physicalQuantities().getWidth());
+    public PolygonFloat mapFloat(double midPosition, double continuousLane, double length, double width) {
+        final PosTheta posTheta = map(midPosition, laneCenterOffset(continuousLane));
+        return mapFloat(posTheta, length, width);
     }
 
     @Override
@@ -27,6 +27,7 @@ package org.movsim.simulator;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.movsim.shutdown.ShutdownHooks;
 
@@ -34,6 +35,8 @@ import com.google.common.base.Preconditions;
 
 public class SimulationRun {
 
+    private static final AtomicBoolean JVM_SHUTDOWN_HOOK_INSTALLED = new AtomicBoolean();
+
     public interface CompletionCallback {
         /**
          * Callback to inform the application that the simulation has run to
@@ -73,6 +76,9 @@ public class SimulationRun {
     // simulation is an object that implements the SimulationTimeStep interface.
     protected final SimulationTimeStep simulation;
 
+    // callbacks performed when the simulation run is complete
+    protected final ShutdownHooks shutdownHooks;
+
     /**
      * Constructor, sets the simulation object.
      *
@@ -80,7 +86,23 @@ public class SimulationRun {
      *                   interface
      */
     public SimulationRun(SimulationTimeStep simulation) {
+        this(simulation, ShutdownHooks.INSTANCE);
+    }
+
+    /**
+     * Constructor, sets the simulation object and the shutdown callbacks of this run. The callbacks are also
+     * performed if the JVM terminates before the run is complete.
+     *
+     * @param simulation    a simulation object that implements the SimulationTimeStep
+     *                      interface
+     * @param shutdownHooks the callbacks performed at the end of the run
+     */
+    public SimulationRun(SimulationTimeStep simulation, ShutdownHooks shutdownHooks) {
         this.simulation = Preconditions.checkNotNull(simulation);
+        this.shutdownHooks = Preconditions.checkNotNull(shutdownHooks);
+        if (shutdownHooks != ShutdownHooks.INSTANCE) {
+            ShutdownHooks.INSTANCE.addCallback(shutdownHooks);
+        }
         initShutdownHook();
     }
 
@@ -217,10 +239,19 @@ public class SimulationRun {
         if (completionCallback != null) {
             completionCallback.simulationComplete(simulationTime);
         }
-        ShutdownHooks.INSTANCE.onShutDown();
+        shutdownHooks.onShutDown();
+        if (shutdownHooks != ShutdownHooks.INSTANCE) {
+            // the run is finished, nothing left to do when the JVM terminates
+            ShutdownHooks.INSTANCE.removeCallback(shutdownHooks);
+            // the callbacks of the run are performed only once
+            shutdownHooks.clear();
+        }
     }
 
     private static void initShutdownHook() {
+        if (!JVM_SHUTDOWN_HOOK_INSTALLED.compareAndSet(false, true)) {
+            return;
+        }
         Runtime.getRuntime().addShutdownHook(new Thread() {
             @Override
             public void run() {
@@ -92,7 +92,17 @@ public class SimulationRunnable extends SimulationRun implements Runnable {
      * @param simulation a simulation object that implements the SimulationTimeStep interface
      */
     public SimulationRunnable(SimulationTimeStep simulation) {
-        super(simulation);
+        this(simulation, ShutdownHooks.INSTANCE);
+    }
+
+    /**
+     * Constructor, sets the simulation object, the shutdown callbacks of the run and default sleep time.
+     *
+     * @param simulation    a simulation object that implements the SimulationTimeStep interface
+     * @param shutdownHooks the callbacks performed at the end of the run
+     */
+    public SimulationRunnable(SimulationTimeStep simulation, ShutdownHooks shutdownHooks) {
+        super(simulation, shutdownHooks);
         setSleepTime(DEFAULT_SLEEP_TIME_MS);
     }
 
@@ -234,8 +244,10 @@ public class SimulationRunnable extends SimulationRun implements Runnable {
      * </p>
      * <p>
      * <p>
-     * This method must be synchronized (using <code>dataLock</code>) (normally with the <code>drawForeground</code> method), so that
-     * elements are not updated, added or removed from the simulation while they are being drawn.
+     * The timestep is synchronized using <code>dataLock</code>, so that elements are not updated, added or removed from the simulation
+     * while another thread accesses them. Drawing should not take the lock: the <code>updateDrawing</code> callback is called by the
+     * simulation thread after each timestep and can publish a snapshot of the elements for the UI thread, so that painting never
+     * delays the simulation.
      * </p>
      * <p>
      * <p>
@@ -253,7 +265,7 @@ public class SimulationRunnable extends SimulationRun implements Runnable {
                 if (completionCallback != null) {
                     completionCallback.simulationComplete(simulationTime);
                 }
-                ShutdownHooks.INSTANCE.onShutDown();
+                shutdownHooks.onShutDown();
                 break;
             }
             try {
@@ -269,7 +281,7 @@ public class SimulationRunnable extends SimulationRun implements Runnable {
                 try {
                     simulation.timeStep(dt, simulationTime, iterationCount);
                 } catch (final Exception e) {
-                    ShutdownHooks.INSTANCE.onShutDown();
+                    shutdownHooks.onShutDown();
                     if (handleExceptionCallback != null) {
                         handleExceptionCallback.handleException(e);
                     }
@@ -18,17 +18,16 @@ import org.joda.time.LocalDateTime;
 import org.joda.time.format.DateTimeFormat;
 import org.movsim.autogen.*;
 import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
 import org.movsim.input.network.OpenDriveReader;
 import org.movsim.output.FileTrafficSinkData;
 import org.movsim.output.FileTrafficSourceData;
 import org.movsim.output.SimulationOutput;
 import org.movsim.scenario.boundary.autogen.BoundaryConditionsType;
 import org.movsim.scenario.vehicle.autogen.MovsimExternalVehicleControl;
-import org.movsim.shutdown.ShutdownHooks;
 import org.movsim.simulator.observer.ServiceProviders;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadSegment;
-import org.movsim.simulator.roadnetwork.RoadTypeSpeeds;
 import org.movsim.simulator.roadnetwork.boundaries.*;
 import org.movsim.simulator.roadnetwork.boundaries.SimpleRamp;
 import org.movsim.simulator.roadnetwork.controller.*;
@@ -40,7 +39,7 @@ import org.movsim.simulator.vehicles.ExternalVehiclesController;
 import org.movsim.simulator.vehicles.TrafficCompositionGenerator;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.VehicleFactory;
-import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.RandomStreams;
 import org.movsim.xml.InputLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,12 +57,17 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
 
     private long startTimeMillis;
 
+    private final SimulationContext context;
+
     private final ProjectMetaData projectMetaData;
 
     private String projectName;
 
     private Movsim movsimInput;
 
+    /** true if the input is reread from the project file in each {@link #initialize()} */
+    private final boolean reloadInput;
+
     private VehicleFactory vehicleFactory;
 
     private TrafficCompositionGenerator defaultTrafficComposition;
@@ -74,6 +78,8 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
 
     private ServiceProviders serviceProviders;
 
+    private RandomStreams randomStreams;
+
     private SimulationOutput simOutput;
 
     private final RoadNetwork roadNetwork;
@@ -87,19 +93,39 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
     private long timeOffsetMillis;
 
     /**
-     * Constructor.
+     * Constructor for a simulation configured by the global {@link ProjectMetaData} instance. The input is reread from
+     * the project file in each {@link #initialize()}.
      *
      * @param inputData
      */
     public Simulator(Movsim inputData) {
-        this.projectMetaData = ProjectMetaData.getInstance();
-        ShutdownHooks.INSTANCE.clear(); // TODO move to better place
+        this(inputData, new SimulationContext(ProjectMetaData.getInstance()), true);
+    }
+
+    /**
+     * Constructor. Simulators with different contexts are independent of each other and can be run concurrently.
+     * <p>
+     * The given input is used as is and must not be modified while the simulator is in use.
+     * </p>
+     *
+     * @param inputData
+     * @param context
+     *            the state of this simulation run
+     */
+    public Simulator(Movsim inputData, SimulationContext context) {
+        this(inputData, context, false);
+    }
+
+    private Simulator(Movsim inputData, SimulationContext context, boolean reloadInput) {
+        this.reloadInput = reloadInput;
+        this.context = Preconditions.checkNotNull(context);
+        this.projectMetaData = context.getProjectMetaData();
         this.movsimInput = Preconditions.checkNotNull(inputData);
+        roadNetwork = new RoadNetwork(context);
         if (movsimInput.isSetRoadTypeSpeedMappings()) {
-            RoadTypeSpeeds.INSTANCE.init(inputData.getRoadTypeSpeedMappings());
+            roadNetwork.roadTypeSpeeds().init(inputData.getRoadTypeSpeedMappings());
         }
-        roadNetwork = new RoadNetwork();
-        simulationRunnable = new SimulationRunnable(this);
+        simulationRunnable = new SimulationRunnable(this, context.getShutdownHooks());
         simulationRunnable.setCompletionCallback(this);
     }
 
@@ -107,7 +133,9 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
         LOG.info("Copyright '\u00A9' by Arne Kesting, Martin Treiber, Ralph Germ and Martin Budden (2011-2013)");
 
         projectName = projectMetaData.getProjectName();
-        movsimInput = InputLoader.unmarshallMovsim(projectMetaData.getInputFile());
+        if (reloadInput) {
+            movsimInput = InputLoader.unmarshallMovsim(projectMetaData.getInputFile());
+        }
 
         timeOffsetMillis = 0;
         if (movsimInput.getScenario().getSimulation().isSetTimeOffset()) {
@@ -115,24 +143,31 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
                     DateTimeFormat.forPattern("YYYY-MM-dd'T'HH:mm:ssZ")).toDateTime(DateTimeZone.UTC);
             timeOffsetMillis = dateTime.getMillis();
             LOG.info("global time offset set={} --> {} milliseconds.", dateTime, timeOffsetMillis);
-            ProjectMetaData.getInstance();
-            ProjectMetaData.getInstance().setTimeOffsetMillis(timeOffsetMillis);
+            projectMetaData.setTimeOffsetMillis(timeOffsetMillis);
         }
         projectMetaData.setXodrNetworkFilename(movsimInput.getScenario().getNetworkFilename()); // TODO
 
         Simulation simulationInput = movsimInput.getScenario().getSimulation();
 
+        randomStreams = simulationInput.isWithSeed() ? new RandomStreams(simulationInput.getSeed())
+                : RandomStreams.unseeded();
+
         parseOpenDriveXml(roadNetwork, projectMetaData);
         routing = new Routing(movsimInput.getScenario().getRoutes(), roadNetwork);
 
         if (movsimInput.isSetServiceProviders()) {
-            serviceProviders = new ServiceProviders(movsimInput.getServiceProviders(), routing, roadNetwork);
+            serviceProviders = new ServiceProviders(movsimInput.getServiceProviders(), routing, roadNetwork,
+                    randomStreams);
         }
 
-        vehicleFactory = new VehicleFactory(simulationInput.getTimestep(), movsimInput.getVehiclePrototypes(),
-                movsimInput.getConsumption(), routing, serviceProviders);
+        vehicleFactory = new VehicleFactory(context, simulationInput.getTimestep(),
+                movsimInput.getVehiclePrototypes(), movsimInput.getConsumption(), routing, serviceProviders,
+                randomStreams);
 
         roadNetwork.setWithCrashExit(simulationInput.isCrashExit());
+        roadNetwork.setParallelThreads(projectMetaData.hasParallelThreads() ? projectMetaData.getParallelThreads()
+                : simulationInput.getParallelThreads());
+        roadNetwork.setLaneArrays(simulationInput.isLaneArrays());
 
         simulationRunnable.setTimeStep(simulationInput.getTimestep());
 
@@ -141,12 +176,8 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
 
         simulationRunnable.setDuration(duration < 0 ? Double.MAX_VALUE : duration);
 
-        if (simulationInput.isWithSeed()) {
-            MyRandom.initializeWithSeed(simulationInput.getSeed());
-        }
-
         defaultTrafficComposition = new TrafficCompositionGenerator(simulationInput.getTrafficComposition(),
-                vehicleFactory);
+                vehicleFactory, randomStreams.stream("traffic-composition"));
 
         trafficLights = new TrafficLights(movsimInput.getScenario().getTrafficLights(), roadNetwork);
 
@@ -201,7 +232,11 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
     }
 
     public ProjectMetaData getProjectMetaData() {
-        return ProjectMetaData.getInstance();
+        return projectMetaData;
+    }
+
+    public SimulationContext getContext() {
+        return context;
     }
 
     public RoadNetwork getRoadNetwork() {
@@ -269,7 +304,8 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
         TrafficCompositionGenerator composition = defaultTrafficComposition;
 
         if (roadInput.isSetTrafficComposition()) {
-            composition = new TrafficCompositionGenerator(roadInput.getTrafficComposition(), vehicleFactory);
+            composition = new TrafficCompositionGenerator(roadInput.getTrafficComposition(), vehicleFactory,
+                    randomStreams.stream("traffic-composition:" + roadInput.getId()));
             roadSegment.setTrafficComposition(composition);
             LOG.info("road with id={} has its own vehicle composition generator.", roadSegment.id());
         }
@@ -297,14 +333,14 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
             }
 
             if (trafficSourceData.isLogging()) {
-                trafficSource.setRecorder(new FileTrafficSourceData(roadSegment.userId()));
+                trafficSource.setRecorder(new FileTrafficSourceData(context, roadSegment.userId()));
             }
             roadSegment.setTrafficSource(trafficSource);
         }
 
         // set up the traffic sink
         if (roadInput.isSetTrafficSink()) {
-            configureTrafficSink(roadInput.getTrafficSink(), roadSegment);
+            configureTrafficSink(context, roadInput.getTrafficSink(), roadSegment);
         }
 
         // set up simple ramp with dropping mechanism
@@ -313,7 +349,7 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
             InflowTimeSeries inflowTimeSeries = new InflowTimeSeries(simpleRampData.getInflow());
             SimpleRamp simpleRamp = new SimpleRamp(composition, roadSegment, simpleRampData, inflowTimeSeries);
             if (simpleRampData.isLogging()) {
-                simpleRamp.setRecorder(new FileTrafficSourceData(roadSegment.userId()));
+                simpleRamp.setRecorder(new FileTrafficSourceData(context, roadSegment.userId()));
             }
             roadSegment.setSimpleRamp(simpleRamp);
         }
@@ -324,7 +360,8 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
             boolean logLanes = roadInput.getDetectors().isLoggingLanes();
             double sampleDt = roadInput.getDetectors().getSampleInterval();
             for (CrossSection crossSection : roadInput.getDetectors().getCrossSection()) {
-                LoopDetector det = new LoopDetector(roadSegment, crossSection.getPosition(), sampleDt, log, logLanes);
+                LoopDetector det = new LoopDetector(context, roadSegment, crossSection.getPosition(), sampleDt, log,
+                        logLanes);
                 roadSegment.roadObjects().add(det);
             }
         }
@@ -356,12 +393,13 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
         }
     }
 
-    private static void configureTrafficSink(TrafficSinkType trafficSinkType, RoadSegment roadSegment) {
+    private static void configureTrafficSink(SimulationContext context, TrafficSinkType trafficSinkType,
+            RoadSegment roadSegment) {
         if (!roadSegment.hasSink()) {
             throw new IllegalArgumentException("roadsegment=" + roadSegment.userId() + " does not have a TrafficSink.");
         }
         if (trafficSinkType.isLogging()) {
-            roadSegment.sink().setRecorder(new FileTrafficSinkData(roadSegment.userId()));
+            roadSegment.sink().setRecorder(new FileTrafficSinkData(context, roadSegment.userId()));
         }
     }
 
@@ -10,6 +10,7 @@ import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadNetworkUtils;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.routing.Routing;
+import org.movsim.utilities.RandomStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,14 +36,15 @@ public class ServiceProvider implements SimulationTimeStep {
 
     private final ServiceProviderLogging fileOutput;
 
-    public ServiceProvider(ServiceProviderType configuration, Routing routing, RoadNetwork roadNetwork) {
+    public ServiceProvider(ServiceProviderType configuration, Routing routing, RoadNetwork roadNetwork,
+            RandomStream random) {
         Preconditions.checkNotNull(configuration);
         this.label = configuration.getLabel();
         this.serverUpdateInterval = configuration.getServerUpdateInterval();
         this.vehicleUpdateInterval = configuration.getVehicleUpdateInterval();
         this.decisionPoints = new DecisionPoints(configuration.getDecisionPoints(), routing);
-        this.noise = new Noise(configuration.getTau(), configuration.getFluctStrength());
-        this.fileOutput = configuration.isLogging() ? new ServiceProviderLogging(this) : null;
+        this.noise = new Noise(configuration.getTau(), configuration.getFluctStrength(), random);
+        this.fileOutput = configuration.isLogging() ? new ServiceProviderLogging(roadNetwork.context(), this) : null;
     }
 
     public String getLabel() {
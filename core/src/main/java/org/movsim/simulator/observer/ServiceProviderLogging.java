@@ -1,6 +1,6 @@
 package org.movsim.simulator.observer;
 
-import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
 import org.movsim.io.FileOutputBase;
 import org.movsim.simulator.SimulationTimeStep;
 
@@ -23,8 +23,8 @@ class ServiceProviderLogging extends FileOutputBase implements SimulationTimeSte
 
     private final ServiceProvider serviceProvider;
 
-    public ServiceProviderLogging(ServiceProvider serviceProvider) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    public ServiceProviderLogging(SimulationContext context, ServiceProvider serviceProvider) {
+        super(context);
         this.serviceProvider = Preconditions.checkNotNull(serviceProvider);
         writer = createWriter(String.format(extensionFormat, serviceProvider.getLabel()));
         writeHeader();
@@ -55,7 +55,7 @@ class ServiceProviderLogging extends FileOutputBase implements SimulationTimeSte
             }
         }
         writer.printf(NEWLINE);
-        writer.flush();
+        flushIfDue(writer);
     }
 
 }
@@ -11,6 +11,7 @@ import org.movsim.autogen.ServiceProvidersType;
 import org.movsim.simulator.SimulationTimeStep;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.routing.Routing;
+import org.movsim.utilities.RandomStreams;
 
 import com.google.common.base.Preconditions;
 
@@ -18,11 +19,13 @@ public final class ServiceProviders implements Iterable<ServiceProvider>, Simula
 
     private final Map<String, ServiceProvider> serviceProviders = new HashMap<>();
 
-    public ServiceProviders(ServiceProvidersType configuration, Routing routing, RoadNetwork roadNetwork) {
+    public ServiceProviders(ServiceProvidersType configuration, Routing routing, RoadNetwork roadNetwork,
+            RandomStreams randomStreams) {
         Preconditions.checkNotNull(routing);
         Preconditions.checkNotNull(roadNetwork);
         for (ServiceProviderType serviceProviderType : configuration.getServiceProvider()) {
-            ServiceProvider provider = new ServiceProvider(serviceProviderType, routing, roadNetwork);
+            ServiceProvider provider = new ServiceProvider(serviceProviderType, routing, roadNetwork,
+                    randomStreams.stream("service-provider:" + serviceProviderType.getLabel()));
             String key = provider.getLabel();
             if (serviceProviders.containsKey(key)) {
                 throw new IllegalArgumentException("service provider label " + key + " already exists.");
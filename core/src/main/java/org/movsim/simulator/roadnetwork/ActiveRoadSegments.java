@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * <p>
+ * The road segments of a road network which are not parked, in the order of the road network. The update of the road
+ * network only iterates this list, so its cost does not depend on the number of parked road segments.
+ * </p>
+ * <p>
+ * The list is maintained incrementally: a road segment which is woken up (see {@link RoadSegment#wake()}) is queued and
+ * inserted at its position with the next {@link #update()}, parked road segments are removed with
+ * {@link #removeParked()} after the parking has been updated.
+ * </p>
+ */
+final class ActiveRoadSegments {
+
+    private static final Comparator<RoadSegment> NETWORK_ORDER = Comparator.comparingInt(RoadSegment::networkIndex);
+
+    /** sorted by the index in the road network */
+    private final ArrayList<RoadSegment> active = new ArrayList<>();
+    private final List<RoadSegment> woken = new ArrayList<>();
+
+    /**
+     * Adds a road segment which has just been added to the road network, it has the highest index.
+     *
+     * @param roadSegment
+     */
+    void add(RoadSegment roadSegment) {
+        assert active.isEmpty() || roadSegment.networkIndex() > active.get(active.size() - 1).networkIndex();
+        if (!roadSegment.isParked()) {
+            active.add(roadSegment);
+        }
+    }
+
+    /**
+     * Queues a road segment which has been woken up.
+     *
+     * @param roadSegment
+     */
+    void wake(RoadSegment roadSegment) {
+        woken.add(roadSegment);
+    }
+
+    /**
+     * Returns true if road segments have been woken up since the last {@link #update()}.
+     *
+     * @return true if woken road segments are queued
+     */
+    boolean hasWoken() {
+        return !woken.isEmpty();
+    }
+
+    /**
+     * Inserts the queued road segments at their positions and returns the active road segments. The returned list is
+     * changed by the following calls of {@link #update()} and {@link #removeParked()}.
+     *
+     * @return the active road segments in the order of the road network
+     */
+    List<RoadSegment> update() {
+        for (final RoadSegment roadSegment : woken) {
+            final int index = Collections.binarySearch(active, roadSegment, NETWORK_ORDER);
+            if (index < 0 && !roadSegment.isParked()) {
+                active.add(-index - 1, roadSegment);
+            }
+        }
+        woken.clear();
+        return active;
+    }
+
+    /**
+     * Returns the position of the given active road segment.
+     *
+     * @param roadSegment
+     * @return the position in the list returned by {@link #update()}
+     */
+    int indexOf(RoadSegment roadSegment) {
+        return Collections.binarySearch(active, roadSegment, NETWORK_ORDER);
+    }
+
+    /**
+     * Removes the road segments which have been parked.
+     */
+    void removeParked() {
+        int size = 0;
+        for (int i = 0, n = active.size(); i < n; ++i) {
+            final RoadSegment roadSegment = active.get(i);
+            if (!roadSegment.isParked()) {
+                active.set(size++, roadSegment);
+            }
+        }
+        active.subList(size, active.size()).clear();
+    }
+
+    void clear() {
+        active.clear();
+        woken.clear();
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import org.movsim.simulator.vehicles.InhomogeneityAdaption;
+import org.movsim.simulator.vehicles.Vehicle;
+import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.ArrayKernelModel;
+
+/**
+ * <p>
+ * Struct-of-arrays representation of the vehicles of a {@link LaneSegment}, in the order of the lane (decreasing
+ * position). The {@link Vehicle} objects remain the primary storage, the arrays are gathered at the beginning of the
+ * acceleration update of the lane.
+ * </p>
+ * <p>
+ * Besides the state of the vehicles the arrays hold the input of the array kernels of the longitudinal models (see
+ * {@link ArrayKernelModel#calcAccelerations(LaneArrays, int, int)}): the gap and approaching rate to the front
+ * vehicle and the local model parameters. Consecutive vehicles whose models share the same parameters are calculated by
+ * a single kernel call, the result is the acceleration in the own lane which is then passed to
+ * {@link Vehicle#updateAcceleration(double, RoadSegment, LaneSegment, LaneSegment, double)}.
+ * </p>
+ */
+public final class LaneArrays {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int size;
+
+    // state of the vehicles
+    private long[] id;
+    private double[] frontPosition;
+    private double[] speed;
+    private double[] acc;
+    private double[] length;
+
+    // input and output of the array kernels
+    private double[] netDistance;
+    private double[] relSpeed;
+    private double[] alphaT;
+    private double[] desiredSpeed;
+    private double[] speedlimit;
+    private double[] accInOwnLane;
+
+    LaneArrays() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        id = new long[capacity];
+        frontPosition = new double[capacity];
+        speed = new double[capacity];
+        acc = new double[capacity];
+        length = new double[capacity];
+        netDistance = new double[capacity];
+        relSpeed = new double[capacity];
+        alphaT = new double[capacity];
+        desiredSpeed = new double[capacity];
+        speedlimit = new double[capacity];
+        accInOwnLane = new double[capacity];
+    }
+
+    /**
+     * Gathers the vehicles of the lane segment and calculates the accelerations in the own lane with the array kernels.
+     * Vehicles whose model has no array kernel get the acceleration NaN.
+     *
+     * @param laneSegment
+     */
+    void update(LaneSegment laneSegment) {
+        size = laneSegment.vehicleCount();
+        if (size > id.length) {
+            allocate(Math.max(size, 2 * id.length));
+        }
+        boolean sorted = true;
+        for (int i = 0; i < size; ++i) {
+            final Vehicle vehicle = laneSegment.getVehicle(i);
+            id[i] = vehicle.getId();
+            frontPosition[i] = vehicle.getFrontPosition();
+            speed[i] = vehicle.getSpeed();
+            acc[i] = vehicle.getAcc();
+            length[i] = vehicle.getLength();
+            if (i > 0 && rearPosition(i - 1) < rearPosition(i)) {
+                sorted = false;
+            }
+        }
+
+        int runStart = 0;
+        ArrayKernelModel runModel = null;
+        for (int i = 0; i < size; ++i) {
+            final Vehicle vehicle = laneSegment.getVehicle(i);
+            final ArrayKernelModel model = vehicle.longitudinalModelWithArrayKernel();
+            if (runModel != null && (model == null || model.getClass() != runModel.getClass()
+                    || model.arrayKernelKey() != runModel.arrayKernelKey())) {
+                runModel.calcAccelerations(this, runStart, i);
+                runModel = null;
+            }
+            if (model == null) {
+                accInOwnLane[i] = Double.NaN;
+                continue;
+            }
+            if (runModel == null) {
+                runModel = model;
+                runStart = i;
+            }
+            if (sorted && hasUniqueFrontVehicle(i)) {
+                // the front vehicle is the preceding vehicle in the lane
+                netDistance[i] = rearPosition(i - 1) - frontPosition[i];
+                relSpeed[i] = speed[i] - speed[i - 1];
+            } else {
+                final Vehicle frontVehicle = laneSegment.frontVehicle(vehicle);
+                netDistance[i] = vehicle.getNetDistance(frontVehicle);
+                relSpeed[i] = vehicle.getRelSpeed(frontVehicle);
+            }
+            final InhomogeneityAdaption inhomogeneity = vehicle.inhomogeneityAdaptation();
+            alphaT[i] = inhomogeneity.alphaT();
+            desiredSpeed[i] = inhomogeneity.alphaV0() * model.getDesiredSpeed();
+            speedlimit[i] = vehicle.getEffectiveSpeedlimit();
+        }
+        if (runModel != null) {
+            runModel.calcAccelerations(this, runStart, size);
+        }
+    }
+
+    /**
+     * Returns true if the binary search of the lane segment finds the preceding vehicle as front vehicle, that is if
+     * there is a preceding vehicle and the position of the vehicle is not shared with a neighbour.
+     */
+    private boolean hasUniqueFrontVehicle(int i) {
+        final double rearPosition = rearPosition(i);
+        return i > 0 && rearPosition(i - 1) != rearPosition && (i == size - 1 || rearPosition(i + 1) != rearPosition);
+    }
+
+    private double rearPosition(int i) {
+        // same calculation as Vehicle.getRearPosition()
+        return frontPosition[i] - length[i];
+    }
+
+    void setAcc(int index, double acceleration) {
+        acc[index] = acceleration;
+    }
+
+    /**
+     * Returns the number of vehicles.
+     *
+     * @return the number of vehicles
+     */
+    public int size() {
+        return size;
+    }
+
+    public long[] id() {
+        return id;
+    }
+
+    public double[] frontPosition() {
+        return frontPosition;
+    }
+
+    public double[] speed() {
+        return speed;
+    }
+
+    public double[] acc() {
+        return acc;
+    }
+
+    public double[] length() {
+        return length;
+    }
+
+    /** net distance to the front vehicle, kernel input */
+    public double[] netDistance() {
+        return netDistance;
+    }
+
+    /** approaching rate (own speed minus speed of the front vehicle), kernel input */
+    public double[] relSpeed() {
+        return relSpeed;
+    }
+
+    /** local factor of the time gap parameter, kernel input */
+    public double[] alphaT() {
+        return alphaT;
+    }
+
+    /** local desired speed without the speedlimit, kernel input */
+    public double[] desiredSpeed() {
+        return desiredSpeed;
+    }
+
+    /** effective speedlimit, kernel input */
+    public double[] speedlimit() {
+        return speedlimit;
+    }
+
+    /** acceleration in the own lane, kernel output */
+    public double[] accInOwnLane() {
+        return accInOwnLane;
+    }
+
+    /**
+     * Returns the acceleration in the own lane calculated by an array kernel.
+     *
+     * @param index
+     * @return the acceleration, NaN if not calculated by a kernel
+     */
+    public double accInOwnLane(int index) {
+        return accInOwnLane[index];
+    }
+}
@@ -27,15 +27,18 @@
 package org.movsim.simulator.roadnetwork;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterators;
 import org.movsim.simulator.roadnetwork.boundaries.TrafficSink;
+import org.movsim.simulator.roadnetwork.predicates.VehicleWithinRange;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.List;
 
 /**
  * <p>
@@ -46,8 +49,8 @@ import java.util.List;
  * behavior (and especially lane change behavior) is different in each type of lane.
  * </p>
  * <p>
- * The vehicles in a lane segment are stored in a sorted ArrayList. This ArrayList is kept sorted so that the vehicles in front of and
- * behind a given vehicle can be found efficiently.
+ * The vehicles in a lane segment are stored in a sorted ring buffer (see {@link LaneVehicles}). This buffer is kept sorted so that
+ * the vehicles in front of and behind a given vehicle can be found efficiently.
  * </p>
  * <p>
  * Vehicles are sorted in order of decreasing position:
@@ -70,9 +73,16 @@ public class LaneSegment implements Iterable<Vehicle> {
     // physical lane, not the laneIndex
     private final int lane;
     private Lanes.Type type;
-    private final List<Vehicle> vehicles;
+    private final LaneVehicles vehicles;
     private int removedVehicleCount; // used for calculating traffic flow
 
+    // reused position-adjusted copies of the neighbours on the sink and source lane segments
+    private Vehicle sinkRearVehicleCopy;
+    private Vehicle sourceFrontVehicleCopy;
+
+    // optional struct-of-arrays representation used in the acceleration update, null if disabled
+    private LaneArrays laneArrays;
+
     /**
      * Constructor.
      *
@@ -84,7 +94,9 @@ public class LaneSegment implements Iterable<Vehicle> {
         // overtaking lane is Lane == 0
         // assert lane >= Lanes.MOST_INNER_LANE;
         this.lane = lane;
-        vehicles = new ArrayList<>(VEHICLES_PER_LANE_INITIAL_SIZE);
+        // the overtaking segment is not part of the aggregates of the road segment
+        vehicles = new LaneVehicles(VEHICLES_PER_LANE_INITIAL_SIZE,
+                lane == Lanes.OVERTAKING ? null : roadSegment.vehicleAggregates());
         type = Lanes.Type.TRAFFIC;
     }
 
@@ -162,6 +174,38 @@ public class LaneSegment implements Iterable<Vehicle> {
         return sinkLaneSegment != null;
     }
 
+    /**
+     * Returns the number of structural modifications of the vehicle list, used to detect stale {@link NeighbourIndex}
+     * entries.
+     *
+     * @return the modification count
+     */
+    final int modCount() {
+        return vehicles.modCount();
+    }
+
+    /**
+     * Returns the struct-of-arrays representation of this lane segment.
+     *
+     * @return the lane arrays, null if disabled
+     */
+    final LaneArrays laneArrays() {
+        return laneArrays;
+    }
+
+    /**
+     * Enables or disables the struct-of-arrays representation used in the acceleration update.
+     *
+     * @param enabled
+     */
+    final void setLaneArrays(boolean enabled) {
+        if (!enabled) {
+            laneArrays = null;
+        } else if (laneArrays == null) {
+            laneArrays = new LaneArrays();
+        }
+    }
+
     /**
      * Clears this lane segment of any vehicles.
      */
@@ -188,7 +232,7 @@ public class LaneSegment implements Iterable<Vehicle> {
     public int stoppedVehicleCount() {
         int stoppedVehicleCount = 0;
         for (final Vehicle vehicle : vehicles) {
-            if (vehicle.type() == Vehicle.Type.VEHICLE && vehicle.getSpeed() <= 0.01) {
+            if (vehicle.type() == Vehicle.Type.VEHICLE && vehicle.getSpeed() <= VehicleAggregates.STOPPED_SPEED) {
                 ++stoppedVehicleCount;
             }
         }
@@ -209,13 +253,7 @@ public class LaneSegment implements Iterable<Vehicle> {
      * @return the number of obstacles on this lane segment
      */
     public final int obstacleCount() {
-        int obstacleCount = 0;
-        for (final Vehicle vehicle : vehicles) {
-            if (vehicle.type() == Vehicle.Type.OBSTACLE) {
-                ++obstacleCount;
-            }
-        }
-        return obstacleCount;
+        return vehicles.obstacleCount();
     }
 
     /**
@@ -370,6 +408,7 @@ public class LaneSegment implements Iterable<Vehicle> {
             // vehicle is in the same position as an existing vehicle - this should not happen
             assert false;
         }
+        roadSegment.wake();
         assert laneIsSorted();
         assert assertInvariant();
     }
@@ -390,6 +429,7 @@ public class LaneSegment implements Iterable<Vehicle> {
             // vehicle is in the same position as an existing vehicle - this should not happen
             assert false;
         }
+        roadSegment.wake();
         assert laneIsSorted();
         assert assertInvariant();
         return pos;
@@ -411,6 +451,7 @@ public class LaneSegment implements Iterable<Vehicle> {
             }
         }
         vehicles.add(vehicle);
+        roadSegment.wake();
         assert laneIsSorted();
         assert assertInvariant();
     }
@@ -430,6 +471,10 @@ public class LaneSegment implements Iterable<Vehicle> {
 
     /**
      * Finds the vehicle immediately at or behind the given position.
+     * <p>
+     * If the rear vehicle is on a source lane segment a copy with the position relative to this lane segment is
+     * returned. The copy is reused by later calls, so it must neither be modified nor kept beyond the current update
+     * phase.
      *
      * @param vehiclePos
      * @return reference to the rear vehicle
@@ -470,8 +515,12 @@ public class LaneSegment implements Iterable<Vehicle> {
             if (sourceFrontVehicle != null) {
                 // return a copy of the front vehicle on the source road segment, with its
                 // position set relative to the current road segment
-                final Vehicle rearVehicle = new Vehicle(sourceFrontVehicle);
-                rearVehicle.setFrontPosition(rearVehicle.getFrontPosition() - accumDistance);
+                Vehicle rearVehicle = sourceFrontVehicleCopy;
+                if (rearVehicle == null || !rearVehicle.isCopyOf(sourceFrontVehicle)) {
+                    rearVehicle = new Vehicle(sourceFrontVehicle);
+                    sourceFrontVehicleCopy = rearVehicle;
+                }
+                rearVehicle.updateCopy(-accumDistance);
                 return rearVehicle;
             }
         }
@@ -479,6 +528,13 @@ public class LaneSegment implements Iterable<Vehicle> {
     }
 
     public final Vehicle rearVehicle(Vehicle vehicle) {
+        final NeighbourIndex neighbourIndex = roadSegment.neighbourIndex();
+        if (neighbourIndex != null) {
+            final Vehicle rearVehicle = neighbourIndex.rearVehicle(vehicle, this);
+            if (rearVehicle != null) {
+                return rearVehicle;
+            }
+        }
         return rearVehicle(vehicle.getRearPosition());
     }
 
@@ -535,6 +591,9 @@ public class LaneSegment implements Iterable<Vehicle> {
     /**
      * Finds the vehicle immediately in front of the given position. That is a vehicle such that vehicle.position() strictly greater than
      * vehicePos. The vehicle whose position equals vehiclePos is deemed to be in the rear.
+     * <p>
+     * If the front vehicle is on a sink lane segment a reused copy with the position relative to this lane segment is
+     * returned, see {@link #rearVehicle(double)}.
      *
      * @param vehiclePos
      * @return reference to the front vehicle
@@ -573,8 +632,12 @@ public class LaneSegment implements Iterable<Vehicle> {
             if (sinkRearVehicle != null) {
                 // return a copy of the rear vehicle on the sink road segment, with its position
                 // set relative to the current road segment
-                final Vehicle frontVehicle = new Vehicle(sinkRearVehicle);
-                frontVehicle.setFrontPosition(frontVehicle.getFrontPosition() + accumDistance);
+                Vehicle frontVehicle = sinkRearVehicleCopy;
+                if (frontVehicle == null || !frontVehicle.isCopyOf(sinkRearVehicle)) {
+                    frontVehicle = new Vehicle(sinkRearVehicle);
+                    sinkRearVehicleCopy = frontVehicle;
+                }
+                frontVehicle.updateCopy(accumDistance);
                 return frontVehicle;
             }
         }
@@ -588,9 +651,123 @@ public class LaneSegment implements Iterable<Vehicle> {
      * @return the next downstream vehicle
      */
     public final Vehicle frontVehicle(Vehicle vehicle) {
+        final NeighbourIndex neighbourIndex = roadSegment.neighbourIndex();
+        if (neighbourIndex != null) {
+            final Vehicle frontVehicle = neighbourIndex.frontVehicle(vehicle, this);
+            if (frontVehicle != null) {
+                return frontVehicle;
+            }
+        }
         return frontVehicle(vehicle.getRearPosition());
     }
 
+    /**
+     * Returns the maximum distance the rear of a vehicle in this lane segment moved since the last position update. This
+     * bounds the vehicles which can have passed a given position.
+     *
+     * @return the maximum rear displacement, infinity if the lane segment is not sorted
+     */
+    final double maxRearDisplacement() {
+        double maxDisplacement = 0;
+        double previousRearPosition = Double.POSITIVE_INFINITY;
+        for (int i = 0, count = vehicles.size(); i < count; ++i) {
+            final Vehicle vehicle = vehicles.get(i);
+            final double rearPosition = vehicle.getRearPosition();
+            if (rearPosition > previousRearPosition) {
+                return Double.POSITIVE_INFINITY;
+            }
+            previousRearPosition = rearPosition;
+            maxDisplacement = Math.max(maxDisplacement, rearPosition - vehicle.getRearPositionOld());
+        }
+        return maxDisplacement;
+    }
+
+    /**
+     * Adds the vehicles which passed the given position in the last update to the collection, in the order of the lane.
+     * Only the vehicles whose rear is in front of the position by at most the maximum rear displacement are tested with
+     * the predicate.
+     *
+     * @param position
+     * @param maxRearDisplacement see {@link #maxRearDisplacement()}
+     * @param passedPosition      predicate selecting the vehicles which passed the position
+     * @param passedVehicles      the collection the passed vehicles are added to
+     */
+    final void addVehiclesPassed(double position, double maxRearDisplacement, Predicate<Vehicle> passedPosition,
+            Collection<Vehicle> passedVehicles) {
+        int begin = 0;
+        int end = vehicles.size();
+        if (maxRearDisplacement != Double.POSITIVE_INFINITY) {
+            // tolerance for the rounding of the displacement
+            begin = firstIndexNotInFront(position + maxRearDisplacement + 1e-6);
+            end = firstIndexNotInFront(position);
+        }
+        for (int i = begin; i < end; ++i) {
+            final Vehicle vehicle = vehicles.get(i);
+            if (passedPosition.apply(vehicle)) {
+                passedVehicles.add(vehicle);
+            }
+        }
+    }
+
+    /**
+     * Returns the vehicles whose front position is within the given range (see {@link VehicleWithinRange}), in the
+     * order of the lane. The vehicles are searched with binary search in the sorted lane, the returned iterator is a view
+     * of the lane and must not be used after the lane has been modified.
+     *
+     * @param begin lower bound of the front position, inclusive
+     * @param end   upper bound of the front position, inclusive
+     * @return iterator over the vehicles within the range
+     */
+    public final Iterator<Vehicle> vehiclesWithinRange(double begin, double end) {
+        final int first = firstIndexWithinRange(end);
+        final int last = lastIndexWithinRange(begin);
+        if (first >= last) {
+            return Collections.emptyIterator();
+        }
+        return Iterators.filter(vehicles.subList(first, last).iterator(), new VehicleWithinRange(begin, end));
+    }
+
+    /**
+     * Returns the index of the first vehicle which can have its front position at or behind the given end of a range.
+     * Together with {@link #lastIndexWithinRange(double)} this bounds the index range of the vehicles within a range of
+     * front positions, the bounded vehicles still have to be tested.
+     *
+     * @param end upper bound of the front position
+     * @return the first index of the range
+     */
+    public final int firstIndexWithinRange(double end) {
+        // tolerance for the rounding of the rear position
+        return firstIndexNotInFront(end + 1e-6);
+    }
+
+    /**
+     * Returns the index after the last vehicle which can have its front position at or in front of the given begin of a
+     * range, see {@link #firstIndexWithinRange(double)}.
+     *
+     * @param begin lower bound of the front position
+     * @return the index after the range
+     */
+    public final int lastIndexWithinRange(double begin) {
+        return firstIndexNotInFront(begin - vehicles.maxLength() - 1e-6);
+    }
+
+    /**
+     * Returns the index of the first vehicle whose rear position is not greater than the given position.
+     */
+    private int firstIndexNotInFront(double position) {
+        int low = 0;
+        int high = vehicles.size();
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (vehicles.get(mid).getRearPosition() > position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
     private int positionBinarySearch(double vehiclePos) {
         int low = 0;
         int high = vehicles.size() - 1;
@@ -767,6 +944,7 @@ public class LaneSegment implements Iterable<Vehicle> {
                     // swap the two vehicles
                     vehicles.set(i - 1, rear);
                     vehicles.set(i, front);
+                    vehicles.touch();
                 }
             }
         }
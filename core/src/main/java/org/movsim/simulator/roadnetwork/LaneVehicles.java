@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import org.movsim.simulator.vehicles.Vehicle;
+
+/**
+ * <p>
+ * Vehicle container of a {@link LaneSegment}, a ring buffer with head index and power of two capacity.
+ * </p>
+ * <p>
+ * Removing the front vehicle (index 0) in the outflow and appending a vehicle at the rear in the inflow only move the
+ * head or tail of the buffer. Inserting or removing a vehicle in the interior, as for lane changes, shifts the vehicles
+ * on the shorter side of the given index, so at most half of the lane. The order of the elements is not changed by the
+ * container, the lane segment keeps them sorted in decreasing position.
+ * </p>
+ * <p>
+ * The modification count is exposed for the detection of stale {@link NeighbourIndex} entries. The number of
+ * obstacles is counted on insertion and removal, the type of a vehicle must therefore not change while it is stored.
+ * Insertions and removals are also passed to the {@link VehicleAggregates} of the road segment, if any.
+ * </p>
+ */
+final class LaneVehicles extends AbstractList<Vehicle> implements RandomAccess {
+
+    private Vehicle[] elements;
+    private int mask;
+    private int head;
+    private int size;
+    private int obstacleCount;
+    private double maxLength;
+    private final VehicleAggregates aggregates;
+
+    LaneVehicles(int initialCapacity) {
+        this(initialCapacity, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param initialCapacity
+     * @param aggregates
+     *            aggregates which are changed on insertion and removal, may be null
+     */
+    LaneVehicles(int initialCapacity, VehicleAggregates aggregates) {
+        this.aggregates = aggregates;
+        int capacity = Integer.highestOneBit(Math.max(initialCapacity, 2) - 1) << 1;
+        elements = new Vehicle[capacity];
+        mask = capacity - 1;
+    }
+
+    int modCount() {
+        return modCount;
+    }
+
+    /**
+     * Records a modification which does not change the size, e.g. swapping two elements.
+     */
+    void touch() {
+        ++modCount;
+    }
+
+    /**
+     * Returns the number of stored vehicles of type {@link Vehicle.Type#OBSTACLE}.
+     *
+     * @return the number of obstacles
+     */
+    int obstacleCount() {
+        return obstacleCount;
+    }
+
+    /**
+     * Returns an upper bound of the vehicle lengths, the maximum length since the container was last empty.
+     *
+     * @return the maximum vehicle length
+     */
+    double maxLength() {
+        return maxLength;
+    }
+
+    private static int obstacles(Vehicle vehicle) {
+        return vehicle != null && vehicle.type() == Vehicle.Type.OBSTACLE ? 1 : 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Vehicle get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+        }
+        return elements[(head + index) & mask];
+    }
+
+    @Override
+    public Vehicle set(int index, Vehicle vehicle) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+        }
+        final int slot = (head + index) & mask;
+        final Vehicle previous = elements[slot];
+        elements[slot] = vehicle;
+        obstacleCount += obstacles(vehicle) - obstacles(previous);
+        maxLength = Math.max(maxLength, vehicle.getLength());
+        if (aggregates != null && vehicle != previous) {
+            aggregates.remove(previous);
+            aggregates.add(vehicle);
+        }
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Vehicle vehicle) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+        }
+        if (size == elements.length) {
+            grow();
+        }
+        if (index < size - index) {
+            // shift the front part one slot towards the head
+            head = (head - 1) & mask;
+            for (int i = 0; i < index; ++i) {
+                elements[(head + i) & mask] = elements[(head + i + 1) & mask];
+            }
+        } else {
+            // shift the rear part one slot towards the tail
+            for (int i = size; i > index; --i) {
+                elements[(head + i) & mask] = elements[(head + i - 1) & mask];
+            }
+        }
+        elements[(head + index) & mask] = vehicle;
+        obstacleCount += obstacles(vehicle);
+        maxLength = Math.max(maxLength, vehicle.getLength());
+        ++size;
+        ++modCount;
+        if (aggregates != null) {
+            aggregates.add(vehicle);
+        }
+    }
+
+    @Override
+    public Vehicle remove(int index) {
+        final Vehicle removed = get(index);
+        if (index < size - 1 - index) {
+            // shift the front part one slot towards the tail
+            for (int i = index; i > 0; --i) {
+                elements[(head + i) & mask] = elements[(head + i - 1) & mask];
+            }
+            elements[head] = null;
+            head = (head + 1) & mask;
+        } else {
+            // shift the rear part one slot towards the head
+            for (int i = index; i < size - 1; ++i) {
+                elements[(head + i) & mask] = elements[(head + i + 1) & mask];
+            }
+            elements[(head + size - 1) & mask] = null;
+        }
+        obstacleCount -= obstacles(removed);
+        if (--size == 0) {
+            maxLength = 0;
+        }
+        ++modCount;
+        if (aggregates != null) {
+            aggregates.remove(removed);
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; ++i) {
+            final int slot = (head + i) & mask;
+            if (aggregates != null) {
+                aggregates.remove(elements[slot]);
+            }
+            elements[slot] = null;
+        }
+        head = 0;
+        size = 0;
+        obstacleCount = 0;
+        maxLength = 0;
+        ++modCount;
+    }
+
+    private void grow() {
+        final Vehicle[] grown = new Vehicle[elements.length << 1];
+        for (int i = 0; i < size; ++i) {
+            grown[i] = elements[(head + i) & mask];
+        }
+        elements = grown;
+        mask = grown.length - 1;
+        head = 0;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import org.movsim.simulator.vehicles.Vehicle;
+
+/**
+ * <p>
+ * Index of the neighbours of the vehicles in a road network: the front and the rear vehicle in the vehicle's own lane and
+ * in the adjacent lanes of its road segment.
+ * </p>
+ * <p>
+ * The index is rebuilt once per timestep when all lanes are sorted, merging the vehicle lists of adjacent lanes instead
+ * of searching the neighbours of each vehicle. An entry is only used while the vehicles of the lane it refers to have
+ * not been changed (e.g. by lane changes or the inflow) and the vehicle positions have not been updated, otherwise the
+ * {@link LaneSegment} falls back to the binary search. Neighbours on sink or source road segments are never cached.
+ * </p>
+ * <p>
+ * The lookups only read the index, so they may be performed concurrently during the parallel update phases.
+ * </p>
+ */
+public final class NeighbourIndex {
+
+    private static final int SLOT_COUNT = 3;
+
+    /** incremented by each rebuild and invalidation, entries with an older epoch are stale */
+    private long epoch;
+
+    /**
+     * Invalidates all entries. Must be called before the vehicle positions are changed.
+     */
+    void invalidate() {
+        ++epoch;
+    }
+
+    /**
+     * Rebuilds the index for all vehicles of the given road segments.
+     *
+     * @param roadSegments
+     */
+    void rebuild(Iterable<RoadSegment> roadSegments) {
+        ++epoch;
+        for (final RoadSegment roadSegment : roadSegments) {
+            final int laneCount = roadSegment.laneCount();
+            for (int lane = Lanes.LANE1; lane <= laneCount; ++lane) {
+                final LaneSegment laneSegment = roadSegment.laneSegment(lane);
+                if (laneSegment.vehicleCount() == 0 || !laneSegment.laneIsSorted()) {
+                    continue;
+                }
+                indexOwnLane(laneSegment);
+                if (lane > Lanes.LANE1) {
+                    indexAdjacentLane(laneSegment, roadSegment.laneSegment(lane - 1));
+                }
+                if (lane < laneCount) {
+                    indexAdjacentLane(laneSegment, roadSegment.laneSegment(lane + 1));
+                }
+            }
+        }
+    }
+
+    private void indexOwnLane(LaneSegment laneSegment) {
+        final int count = laneSegment.vehicleCount();
+        for (int i = 0; i < count; ++i) {
+            final Vehicle vehicle = laneSegment.getVehicle(i);
+            final Slot slot = entry(vehicle).slots[1];
+            final double rearPosition = vehicle.getRearPosition();
+            if ((i > 0 && laneSegment.getVehicle(i - 1).getRearPosition() == rearPosition)
+                    || (i < count - 1 && laneSegment.getVehicle(i + 1).getRearPosition() == rearPosition)) {
+                // the search result is ambiguous for equal positions
+                slot.clear();
+                continue;
+            }
+            // as found by the search at the vehicle's position, the rear vehicle in its own lane is the vehicle itself
+            slot.set(laneSegment, epoch, i > 0 ? laneSegment.getVehicle(i - 1) : null, vehicle);
+        }
+    }
+
+    private void indexAdjacentLane(LaneSegment laneSegment, LaneSegment adjacentLaneSegment) {
+        if (!adjacentLaneSegment.laneIsSorted()) {
+            return;
+        }
+        final int slotIndex = adjacentLaneSegment.lane() - laneSegment.lane() + 1;
+        final int count = laneSegment.vehicleCount();
+        final int adjacentCount = adjacentLaneSegment.vehicleCount();
+        // both lanes are sorted by decreasing position, so the insertion point only moves towards the end
+        int insertionPoint = 0;
+        for (int i = 0; i < count; ++i) {
+            final Vehicle vehicle = laneSegment.getVehicle(i);
+            final Slot slot = entry(vehicle).slots[slotIndex];
+            final double rearPosition = vehicle.getRearPosition();
+            while (insertionPoint < adjacentCount
+                    && adjacentLaneSegment.getVehicle(insertionPoint).getRearPosition() > rearPosition) {
+                ++insertionPoint;
+            }
+            if (insertionPoint < adjacentCount
+                    && adjacentLaneSegment.getVehicle(insertionPoint).getRearPosition() == rearPosition) {
+                slot.clear();
+                continue;
+            }
+            slot.set(adjacentLaneSegment, epoch,
+                    insertionPoint > 0 ? adjacentLaneSegment.getVehicle(insertionPoint - 1) : null,
+                    insertionPoint < adjacentCount ? adjacentLaneSegment.getVehicle(insertionPoint) : null);
+        }
+    }
+
+    private static Entry entry(Vehicle vehicle) {
+        Entry entry = vehicle.getNeighbourIndexEntry();
+        if (entry == null) {
+            entry = new Entry();
+            vehicle.setNeighbourIndexEntry(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the cached front vehicle of the vehicle in the given lane segment.
+     *
+     * @param vehicle
+     * @param laneSegment the vehicle's lane or an adjacent lane of the same road segment
+     * @return the front vehicle, null if not cached
+     */
+    Vehicle frontVehicle(Vehicle vehicle, LaneSegment laneSegment) {
+        final Slot slot = validSlot(vehicle, laneSegment);
+        return slot == null ? null : slot.front;
+    }
+
+    /**
+     * Returns the cached rear vehicle of the vehicle in the given lane segment.
+     *
+     * @param vehicle
+     * @param laneSegment the vehicle's lane or an adjacent lane of the same road segment
+     * @return the rear vehicle, null if not cached
+     */
+    Vehicle rearVehicle(Vehicle vehicle, LaneSegment laneSegment) {
+        final Slot slot = validSlot(vehicle, laneSegment);
+        return slot == null ? null : slot.rear;
+    }
+
+    private Slot validSlot(Vehicle vehicle, LaneSegment laneSegment) {
+        final Entry entry = vehicle.getNeighbourIndexEntry();
+        if (entry == null) {
+            return null;
+        }
+        final int slotIndex = laneSegment.lane() - vehicle.lane() + 1;
+        if (slotIndex < 0 || slotIndex >= SLOT_COUNT) {
+            return null;
+        }
+        final Slot slot = entry.slots[slotIndex];
+        if (slot.epoch != epoch || slot.laneSegment != laneSegment || slot.modCount != laneSegment.modCount()) {
+            return null;
+        }
+        return slot;
+    }
+
+    /**
+     * The cached neighbours of a single vehicle, stored in the vehicle.
+     */
+    public static final class Entry {
+        // slots for the lane offsets -1, 0 and +1
+        private final Slot[] slots = new Slot[SLOT_COUNT];
+
+        Entry() {
+            for (int i = 0; i < SLOT_COUNT; ++i) {
+                slots[i] = new Slot();
+            }
+        }
+    }
+
+    private static final class Slot {
+        private LaneSegment laneSegment;
+        private int modCount;
+        private long epoch;
+        private Vehicle front;
+        private Vehicle rear;
+
+        void set(LaneSegment laneSegment, long epoch, Vehicle front, Vehicle rear) {
+            this.laneSegment = laneSegment;
+            this.modCount = laneSegment.modCount();
+            this.epoch = epoch;
+            this.front = front;
+            this.rear = rear;
+        }
+
+        void clear() {
+            laneSegment = null;
+            front = null;
+            rear = null;
+        }
+    }
+}
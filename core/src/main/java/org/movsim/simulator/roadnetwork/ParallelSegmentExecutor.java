@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import com.google.common.base.Preconditions;
+import org.movsim.shutdown.ShutdownHooks;
+import org.movsim.shutdown.SimulationShutDown;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Applies one update phase of the {@link RoadNetwork} timestep to all road segments using a fixed pool of worker threads.
+ * </p>
+ * <p>
+ * The road segments are split into contiguous chunks, each chunk is processed by a single worker in the original segment order
+ * and {@link #forEach(List, SegmentUpdate)} only returns when all chunks are finished. The call therefore acts as the barrier
+ * between two update phases.
+ * </p>
+ * <p>
+ * Only phases which exclusively modify the vehicles of the road segment that is updated (and read the rest of the network) may
+ * be run in parallel. Then the result does not depend on the number of threads.
+ * </p>
+ */
+final class ParallelSegmentExecutor implements SimulationShutDown {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelSegmentExecutor.class);
+
+    /**
+     * number of chunks per worker thread, more chunks balance the load between unevenly occupied road segments.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * One update step applied to a single road segment.
+     */
+    interface SegmentUpdate {
+        void update(RoadSegment roadSegment);
+    }
+
+    private final int threadCount;
+
+    private ExecutorService executor;
+
+    /**
+     * Constructor.
+     *
+     * @param threadCount number of worker threads, must be at least 2
+     * @param shutdownHooks the shutdown callbacks of the simulation run which stop the worker threads
+     */
+    ParallelSegmentExecutor(int threadCount, ShutdownHooks shutdownHooks) {
+        Preconditions.checkArgument(threadCount > 1, "parallel execution needs at least two threads, got " + threadCount);
+        this.threadCount = threadCount;
+        shutdownHooks.addCallback(this);
+    }
+
+    int threadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Applies the given update to each road segment and waits until all updates have been finished.
+     *
+     * @param roadSegments
+     * @param update
+     */
+    void forEach(List<RoadSegment> roadSegments, final SegmentUpdate update) {
+        final int size = roadSegments.size();
+        final int chunkCount = Math.min(size, threadCount * CHUNKS_PER_THREAD);
+        if (chunkCount <= 1) {
+            for (RoadSegment roadSegment : roadSegments) {
+                update.update(roadSegment);
+            }
+            return;
+        }
+        final List<Callable<Void>> tasks = new ArrayList<>(chunkCount);
+        for (int chunk = 0; chunk < chunkCount; ++chunk) {
+            final List<RoadSegment> chunkSegments = roadSegments
+                    .subList(chunk * size / chunkCount, (chunk + 1) * size / chunkCount);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (RoadSegment roadSegment : chunkSegments) {
+                        update.update(roadSegment);
+                    }
+                    return null;
+                }
+            });
+        }
+        try {
+            for (Future<Void> future : executor().invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for road segment updates", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            LOG.info("start {} worker threads for parallel road segment updates", threadCount);
+            executor = Executors.newFixedThreadPool(threadCount, new WorkerThreadFactory());
+        }
+        return executor;
+    }
+
+    /**
+     * Stops the worker threads. They are restarted on demand if the simulation continues.
+     */
+    @Override
+    public synchronized void onShutDown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "movsim-segment-worker-" + count.incrementAndGet());
+            // do not keep the JVM alive if the simulation ends without shutdown callbacks
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
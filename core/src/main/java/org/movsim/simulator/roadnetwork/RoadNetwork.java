@@ -13,6 +13,7 @@
 package org.movsim.simulator.roadnetwork;
 
 import com.google.common.base.Preconditions;
+import org.movsim.input.SimulationContext;
 import org.movsim.simulator.SimulationTimeStep;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.simulator.vehicles.ExternalVehiclesController;
@@ -21,7 +22,10 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.CheckForNull;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Iterable collection of the road segments in the road network.
@@ -31,6 +35,18 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
     private static final Logger LOG = LoggerFactory.getLogger(RoadNetwork.class);
 
     private final ArrayList<RoadSegment> roadSegments = new ArrayList<>();
+    private final Map<Integer, RoadSegment> roadSegmentsById = new HashMap<>();
+    private final Map<String, RoadSegment> roadSegmentsByUserId = new HashMap<>();
+    private RoadSegmentGrid roadSegmentGrid;
+
+    /**
+     * road segments which are not parked, maintained as road segments are woken up and parked.
+     */
+    private final ActiveRoadSegments activeRoadSegments = new ActiveRoadSegments();
+
+    private final SimulationContext context;
+
+    private int nextRoadSegmentId = RoadSegment.INITIAL_ID;
 
     private String name;
 
@@ -38,6 +54,67 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
 
     private ExternalVehiclesController externalVehicleController;
 
+    /**
+     * executes the parallelizable update phases, null for sequential execution.
+     */
+    private ParallelSegmentExecutor parallelExecutor;
+
+    /**
+     * neighbours of the vehicles, rebuilt at the end of each timestep.
+     */
+    private final NeighbourIndex neighbourIndex = new NeighbourIndex();
+
+    /**
+     * freeflow speeds of the road types, configured per simulation run.
+     */
+    private final RoadTypeSpeeds roadTypeSpeeds = new RoadTypeSpeeds();
+
+    /**
+     * struct-of-arrays representation of the lanes in the acceleration update.
+     */
+    private boolean laneArrays;
+
+    /**
+     * counts and sums over the vehicles of all road segments, the road segments pass their changes.
+     */
+    private final VehicleAggregates vehicleAggregates = new VehicleAggregates();
+
+    /**
+     * Constructor.
+     *
+     * @param context the context of the simulation run the road network belongs to
+     */
+    public RoadNetwork(SimulationContext context) {
+        this.context = Preconditions.checkNotNull(context);
+    }
+
+    /**
+     * Returns the context of the simulation run.
+     *
+     * @return the context of the simulation run
+     */
+    public final SimulationContext context() {
+        return context;
+    }
+
+    /**
+     * Returns the freeflow speeds of the road types of this road network.
+     *
+     * @return the road type speeds
+     */
+    public final RoadTypeSpeeds roadTypeSpeeds() {
+        return roadTypeSpeeds;
+    }
+
+    /**
+     * Returns a new road segment id which is unique within this road network.
+     *
+     * @return the next road segment id
+     */
+    public int nextRoadSegmentId() {
+        return nextRoadSegmentId++;
+    }
+
     /**
      * Sets the name of the road network.
      *
@@ -63,12 +140,7 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
      * @return the road segment with the given id
      */
     public RoadSegment findById(int id) {
-        for (final RoadSegment roadSegment : roadSegments) {
-            if (roadSegment.id() == id) {
-                return roadSegment;
-            }
-        }
-        return null;
+        return roadSegmentsById.get(id);
     }
 
     /**
@@ -79,12 +151,63 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
      */
     @CheckForNull
     public RoadSegment findByUserId(String userId) {
+        final RoadSegment roadSegment = roadSegmentsByUserId.get(userId);
+        if (roadSegment != null && !userId.equals(roadSegment.userId())) {
+            // userId changed after the road segment was added
+            reindexUserIds();
+            return roadSegmentsByUserId.get(userId);
+        }
+        return roadSegment;
+    }
+
+    private void reindexUserIds() {
+        roadSegmentsByUserId.clear();
         for (final RoadSegment roadSegment : roadSegments) {
-            if (roadSegment.userId() != null && roadSegment.userId().equals(userId)) {
-                return roadSegment;
+            if (roadSegment.userId() != null) {
+                roadSegmentsByUserId.putIfAbsent(roadSegment.userId(), roadSegment);
             }
         }
-        return null;
+    }
+
+    /**
+     * Returns the road segments whose geometry is near the given point in the coordinates of the road mappings, that is
+     * with the screen y coordinate negated. The road segments are candidates, found with a grid over the bounding boxes
+     * of the road mappings (built on first use), which still have to be tested exactly, e.g. for picking.
+     *
+     * @param x
+     * @param y
+     * @return the road segments near the point in the order of the road network
+     */
+    public List<RoadSegment> roadSegmentsNear(double x, double y) {
+        return roadSegmentGrid().roadSegmentsNear(x, y);
+    }
+
+    /**
+     * Returns the road segments whose geometry may intersect the given rectangle in the coordinates of the road
+     * mappings, see {@link #roadSegmentsNear(double, double)}. Used to restrict the drawing to the visible road
+     * segments.
+     *
+     * @param x0
+     *            the minimum x coordinate of the rectangle
+     * @param y0
+     *            the minimum y coordinate of the rectangle
+     * @param x1
+     *            the maximum x coordinate of the rectangle
+     * @param y1
+     *            the maximum y coordinate of the rectangle
+     * @return the road segments within the rectangle in the order of the road network, empty if the rectangle is empty
+     */
+    public List<RoadSegment> roadSegmentsWithin(double x0, double y0, double x1, double y1) {
+        return roadSegmentGrid().roadSegmentsWithin(x0, y0, x1, y1);
+    }
+
+    private RoadSegmentGrid roadSegmentGrid() {
+        RoadSegmentGrid grid = roadSegmentGrid;
+        if (grid == null) {
+            grid = new RoadSegmentGrid(roadSegments);
+            roadSegmentGrid = grid;
+        }
+        return grid;
     }
 
     /**
@@ -94,10 +217,19 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
         name = null;
         // LaneChangeModel.resetCount();
         // LongitudinalDriverModel.resetNextId();
-        RoadSegment.resetNextId();
+        nextRoadSegmentId = RoadSegment.INITIAL_ID;
         // TrafficFlowBase.resetNextId();
         // Vehicle.resetNextId();
+        for (final RoadSegment roadSegment : roadSegments) {
+            roadSegment.vehicleAggregates().setParent(null);
+            roadSegment.setActiveRoadSegments(null, -1);
+        }
+        vehicleAggregates.reset();
+        activeRoadSegments.clear();
         roadSegments.clear();
+        roadSegmentsById.clear();
+        roadSegmentsByUserId.clear();
+        roadSegmentGrid = null;
     }
 
     /**
@@ -125,7 +257,17 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
     public RoadSegment add(RoadSegment roadSegment) {
         assert roadSegment != null;
         assert roadSegment.eachLaneIsSorted();
+        roadSegment.setNeighbourIndex(neighbourIndex);
+        roadSegment.setLaneArrays(laneArrays);
+        roadSegment.setActiveRoadSegments(activeRoadSegments, roadSegments.size());
         roadSegments.add(roadSegment);
+        activeRoadSegments.add(roadSegment);
+        roadSegmentsById.putIfAbsent(roadSegment.id(), roadSegment);
+        if (roadSegment.userId() != null) {
+            roadSegmentsByUserId.putIfAbsent(roadSegment.userId(), roadSegment);
+        }
+        roadSegmentGrid = null;
+        roadSegment.vehicleAggregates().setParent(vehicleAggregates);
         return roadSegment;
     }
 
@@ -171,6 +313,18 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
      * <p>
      * The blocks can be swapped as long as each block is done serially for the whole network in exactly the above order (i),(ii),(iii).
      * </p>
+     * <p>
+     * If parallel execution is enabled (see {@link #setParallelThreads(int)}) the calculation of the accelerations, the update of
+     * speeds and positions and the consistency check are distributed over the worker threads. These phases only change the
+     * vehicles of the road segment being updated, so each phase still completes for the whole network before the next one starts.
+     * All other phases are performed sequentially.
+     * </p>
+     * <p>
+     * Road segments which are idle at the end of a timestep (no vehicles and nothing time-dependent, see
+     * {@link RoadSegment#updateParking()}) are parked and skipped by all phases until a vehicle is added to one of their
+     * lanes, so the cost of a timestep scales with the occupied part of the road network. The active road segments are
+     * kept as a list in network order which is changed only when road segments are woken up or parked.
+     * </p>
      *
      * @param dt             simulation time interval, seconds.
      * @param simulationTime the current logical time in the simulation
@@ -184,41 +338,76 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
 
         LOG.debug("called timeStep: time={}, timestep={}", simulationTime, dt);
         externalVehicleController.addAndRemoveVehicles(simulationTime, this);
-        for (final RoadSegment roadSegment : roadSegments) {
+        // the road segments woken up by added vehicles are inserted with each update of the list
+        List<RoadSegment> active = activeRoadSegments.update();
+        for (final RoadSegment roadSegment : active) {
             roadSegment.updateRoadConditions(dt, simulationTime, iterationCount);
         }
 
-        for (RoadSegment roadSegment : roadSegments) {
+        active = activeRoadSegments.update();
+        for (RoadSegment roadSegment : active) {
             roadSegment.makeDynamicRoutingDecisions(dt, simulationTime, iterationCount);
         }
 
         // Note: must do lane changes before vehicle positions are updated (or after outFlow) to ensure
         // the vehicle's roadSegmentId is correctly set
-        for (final RoadSegment roadSegment : roadSegments) {
+        active = activeRoadSegments.update();
+        for (final RoadSegment roadSegment : active) {
             roadSegment.makeLaneChanges(dt, simulationTime, iterationCount);
         }
 
-        for (final RoadSegment roadSegment : roadSegments) {
-            roadSegment.updateVehicleAccelerations(dt, simulationTime, iterationCount);
+        // the following phases do not add vehicles, so the active road segments do not change until the outflow
+        active = activeRoadSegments.update();
+        if (parallelExecutor == null) {
+            for (final RoadSegment roadSegment : active) {
+                roadSegment.updateVehicleAccelerations(dt, simulationTime, iterationCount);
+            }
+        } else {
+            parallelExecutor.forEach(active,
+                    roadSegment -> roadSegment.updateVehicleAccelerations(dt, simulationTime, iterationCount));
         }
 
         externalVehicleController.setSpeeds(simulationTime);
-        for (final RoadSegment roadSegment : roadSegments) {
-            roadSegment.updateVehiclePositionsAndSpeeds(dt, simulationTime, iterationCount);
-        }
-
-        for (final RoadSegment roadSegment : roadSegments) {
-            roadSegment.checkForInconsistencies(simulationTime, iterationCount, isWithCrashExit);
+        neighbourIndex.invalidate();
+        if (parallelExecutor == null) {
+            for (final RoadSegment roadSegment : active) {
+                roadSegment.updateVehiclePositionsAndSpeeds(dt, simulationTime, iterationCount);
+            }
+            for (final RoadSegment roadSegment : active) {
+                roadSegment.checkForInconsistencies(simulationTime, iterationCount, isWithCrashExit);
+            }
+        } else {
+            parallelExecutor.forEach(active,
+                    roadSegment -> roadSegment.updateVehiclePositionsAndSpeeds(dt, simulationTime, iterationCount));
+            parallelExecutor.forEach(active,
+                    roadSegment -> roadSegment.checkForInconsistencies(simulationTime, iterationCount, isWithCrashExit));
         }
 
-        for (final RoadSegment roadSegment : roadSegments) {
+        // parked road segments are woken up by vehicles moving onto them, those further down the road network still
+        // perform their outflow in this timestep
+        for (int i = 0; i < active.size(); ++i) {
+            final RoadSegment roadSegment = active.get(i);
+            // pass the aggregates recalculated with the positions and speeds before vehicles move on
+            roadSegment.vehicleAggregates().flush();
             roadSegment.outFlow(dt, simulationTime, iterationCount);
+            if (activeRoadSegments.hasWoken()) {
+                activeRoadSegments.update();
+                i = activeRoadSegments.indexOf(roadSegment);
+            }
         }
 
-        for (final RoadSegment roadSegment : roadSegments) {
+        active = activeRoadSegments.update();
+        for (final RoadSegment roadSegment : active) {
             roadSegment.inFlow(dt, simulationTime, iterationCount);
             roadSegment.updateSignalPointsAfterOutflowAndInflow(simulationTime);
         }
+
+        // all lanes are sorted again, the index is used by the outputs and the next timestep
+        neighbourIndex.rebuild(active);
+        for (final RoadSegment roadSegment : active) {
+            roadSegment.updateParking();
+        }
+        activeRoadSegments.removeParked();
     }
 
     public void setWithCrashExit(boolean isWithCrashExit) {
@@ -226,40 +415,87 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
     }
 
     /**
-     * Returns the number of vehicles on this road network.
+     * Sets the number of worker threads used for the parallelizable update phases of {@link #timeStep(double, double, long)}.
+     * <p>
+     * A value of 1 selects the sequential update, a value less than 1 uses all available processors.
+     * </p>
+     * <p>
+     * Each vehicle draws from its own random stream, so the results do not depend on the number of threads, also for stochastic
+     * models.
+     * </p>
      *
-     * @return the number of vehicles on this road network
+     * @param parallelThreads number of worker threads
      */
-    public int vehicleCount() {
-        int vehicleCount = 0;
-        for (final RoadSegment roadSegment : roadSegments) {
-            vehicleCount += roadSegment.getVehicleCount();
+    public void setParallelThreads(int parallelThreads) {
+        final int threads = parallelThreads < 1 ? Runtime.getRuntime().availableProcessors() : parallelThreads;
+        if (parallelExecutor != null) {
+            parallelExecutor.onShutDown();
+            context.getShutdownHooks().removeCallback(parallelExecutor);
+            parallelExecutor = null;
         }
-        return vehicleCount;
+        if (threads > 1) {
+            parallelExecutor = new ParallelSegmentExecutor(threads, context.getShutdownHooks());
+        }
+        LOG.info("road segment updates with {} thread(s)", threads);
     }
 
-    public int getObstacleCount() {
-        int obstacleCount = 0;
+    /**
+     * Enables the struct-of-arrays representation of the lanes (see {@link LaneArrays}), the accelerations of
+     * longitudinal models with array kernel are then calculated per lane in a contiguous loop. The results are identical
+     * to the update vehicle by vehicle.
+     *
+     * @param laneArrays
+     */
+    public void setLaneArrays(boolean laneArrays) {
+        this.laneArrays = laneArrays;
         for (final RoadSegment roadSegment : roadSegments) {
-            obstacleCount += roadSegment.getObstacleCount();
+            roadSegment.setLaneArrays(laneArrays);
+        }
+        if (laneArrays) {
+            LOG.info("acceleration update with struct-of-arrays lanes");
         }
-        return obstacleCount;
     }
 
+    /**
+     * Returns the number of threads used for the road segment updates.
+     *
+     * @return number of threads, 1 for sequential execution
+     */
+    public int parallelThreads() {
+        return parallelExecutor == null ? 1 : parallelExecutor.threadCount();
+    }
+
+    /**
+     * Returns the number of vehicles on this road network, including the obstacles.
+     *
+     * @return the number of vehicles on this road network
+     */
+    public int vehicleCount() {
+        return vehicleAggregates.vehicleCount();
+    }
+
+    public int getObstacleCount() {
+        return vehicleAggregates.obstacleCount();
+    }
+
+    /**
+     * Returns the number of stopped vehicles on this road network, as of the last update step or modification of the
+     * lanes.
+     *
+     * @return the number of stopped vehicles
+     */
     public int getStoppedVehicleCount() {
-        int stoppedVehicleCount = 0;
-        for (final RoadSegment roadSegment : roadSegments) {
-            stoppedVehicleCount += roadSegment.getStoppedVehicleCount();
-        }
-        return stoppedVehicleCount;
+        return vehicleAggregates.stoppedVehicleCount();
     }
 
+    /**
+     * Returns the mean over the road segments of the mean speeds of their vehicles (see
+     * {@link RoadSegment#meanSpeedOfVehicles()}).
+     *
+     * @return the mean speed
+     */
     public double vehiclesMeanSpeed() {
-        double averageSpeed = 0;
-        for (final RoadSegment roadSegment : roadSegments) {
-            averageSpeed += roadSegment.meanSpeedOfVehicles();
-        }
-        return averageSpeed / roadSegments.size();
+        return vehicleAggregates.meanSpeedSum() / roadSegments.size();
     }
 
     /**
@@ -268,11 +504,7 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
      * @return the number of obstacles on this road network
      */
     public int obstacleCount() {
-        int obstacleCount = 0;
-        for (final RoadSegment roadSegment : roadSegments) {
-            obstacleCount += roadSegment.obstacleCount();
-        }
-        return obstacleCount;
+        return vehicleAggregates.obstacleCount();
     }
 
     /**
@@ -282,7 +514,7 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
      */
     public int obstacleCount(Route route) {
         int obstacleCount = 0;
-        for (final RoadSegment roadSegment : roadSegments) {
+        for (final RoadSegment roadSegment : route) {
             obstacleCount += roadSegment.obstacleCount();
         }
         return obstacleCount;
@@ -344,9 +576,8 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
      * @return the total vehicle travel distance
      */
     public double totalVehicleTravelDistance() {
-        double totalVehicleTravelDistance = 0.0;
+        double totalVehicleTravelDistance = vehicleAggregates.travelDistance();
         for (RoadSegment roadSegment : roadSegments) {
-            totalVehicleTravelDistance += roadSegment.totalVehicleTravelDistance();
             if (roadSegment.sink() != null) {
                 totalVehicleTravelDistance += roadSegment.sink().totalVehicleTravelDistance();
             }
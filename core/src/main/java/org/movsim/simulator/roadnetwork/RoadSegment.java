@@ -24,7 +24,6 @@ import org.movsim.simulator.roadnetwork.boundaries.SimpleRamp;
 import org.movsim.simulator.roadnetwork.boundaries.TrafficSink;
 import org.movsim.simulator.roadnetwork.controller.*;
 import org.movsim.simulator.roadnetwork.controller.RoadObject.RoadObjectType;
-import org.movsim.simulator.roadnetwork.predicates.VehicleWithinRange;
 import org.movsim.simulator.vehicles.TrafficCompositionGenerator;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.Vehicle.Type;
@@ -81,7 +80,7 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
     /**
      * vehicle's minimum speed for calculating traveltime, in m/s
      */
-    private static final double MIN_SPEED_TT = 1;
+    static final double MIN_SPEED_TT = 1;
 
     private static int nextId = INITIAL_ID;
 
@@ -116,6 +115,13 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
     private final RoadObjects roadObjects;
 
     private final SignalPoints signalPoints = new SignalPoints();
+    private double[] maxRearDisplacements;
+
+    // skipped by the update of the road network while idle, see updateParking()
+    private boolean parked;
+    // active road segments of the road network this road segment belongs to, null if not part of a network
+    private ActiveRoadSegments activeRoadSegments;
+    private int networkIndex = -1;
 
     /**
      * will be initialized lazily
@@ -124,6 +130,12 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
 
     private boolean overtakingSegmentInitialized = false;
 
+    /** neighbour cache of the road network this road segment belongs to, null if not part of a network */
+    private NeighbourIndex neighbourIndex;
+
+    /** counts and sums over the vehicles in the lanes, without the overtaking segment */
+    private final VehicleAggregates vehicleAggregates = new VehicleAggregates();
+
     // Sources and Sinks
     private AbstractTrafficSource trafficSource;
 
@@ -152,7 +164,7 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
     /**
      * static freeflow speed as maximum speed that is allowed.
      */
-    private double freeFlowSpeed = RoadTypeSpeeds.INSTANCE.getDefaultFreeFlowSpeed();
+    private double freeFlowSpeed = RoadTypeSpeeds.DEFAULT_FREE_FLOW_SPEED;
 
     public static class TestCar {
         public double s = 0.0; // distance
@@ -181,24 +193,36 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
     }
 
     /**
-     * Constructor.
+     * Constructor for a road segment which does not belong to a road network, the id is taken from a global counter.
      *
      * @param roadLength road length, in meters.
      * @param laneCount  number of lanes in this road segment
      */
     public RoadSegment(double roadLength, int laneCount) {
+        this(nextId++, roadLength, laneCount);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param id         the road segment id, see {@link RoadNetwork#nextRoadSegmentId()}
+     * @param roadLength road length, in meters.
+     * @param laneCount  number of lanes in this road segment
+     */
+    public RoadSegment(int id, double roadLength, int laneCount) {
         assert roadLength > 0.0;
         assert laneCount >= 1 : "laneCount=" + laneCount;
         laneSegments = new LaneSegment[laneCount];
         for (int index = 0; index < laneCount; ++index) {
             laneSegments[index] = new LaneSegment(this, index + 1);
         }
-        id = nextId++;
+        this.id = id;
         assert roadLength > 0;
         this.roadLength = roadLength;
         this.laneCount = laneCount;
         this.roadObjects = new RoadObjects(this);
         overtakingSegment = new LaneSegment(this, Lanes.OVERTAKING);
+        vehicleAggregates.setEmptyMeanSpeed(freeFlowSpeed);
     }
 
     public RoadSegment(double roadLength, int laneCount, RoadMapping roadMapping,
@@ -208,6 +232,13 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
         this.roadMapping = Preconditions.checkNotNull(roadMapping);
     }
 
+    public RoadSegment(int id, double roadLength, int laneCount, RoadMapping roadMapping,
+            RoadSegmentDirection roadSegmentDirection) {
+        this(id, roadLength, laneCount);
+        this.directionType = roadSegmentDirection;
+        this.roadMapping = Preconditions.checkNotNull(roadMapping);
+    }
+
     /**
      * Sets a default sink for this road segment.
      */
@@ -228,7 +259,8 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
     }
 
     /**
-     * Set this road segment's userId
+     * Set this road segment's userId. Must be set before the road segment is added to the road network, which indexes
+     * the road segments by userId.
      *
      * @param userId
      */
@@ -365,6 +397,51 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
         return trafficLaneMax;
     }
 
+    final NeighbourIndex neighbourIndex() {
+        return neighbourIndex;
+    }
+
+    final void setNeighbourIndex(NeighbourIndex neighbourIndex) {
+        this.neighbourIndex = neighbourIndex;
+    }
+
+    final VehicleAggregates vehicleAggregates() {
+        return vehicleAggregates;
+    }
+
+    /**
+     * Sets the active road segments of the road network and the index of this road segment in the road network.
+     *
+     * @param activeRoadSegments
+     * @param networkIndex
+     */
+    final void setActiveRoadSegments(ActiveRoadSegments activeRoadSegments, int networkIndex) {
+        this.activeRoadSegments = activeRoadSegments;
+        this.networkIndex = networkIndex;
+    }
+
+    /**
+     * Returns the index of this road segment in the road network, that is its position in the iteration order of the
+     * road network.
+     *
+     * @return the index, -1 if not part of a network
+     */
+    public final int networkIndex() {
+        return networkIndex;
+    }
+
+    /**
+     * Enables or disables the struct-of-arrays representation of the lanes, see {@link LaneArrays}. The overtaking
+     * segment is always updated vehicle by vehicle.
+     *
+     * @param enabled
+     */
+    final void setLaneArrays(boolean enabled) {
+        for (final LaneSegment laneSegment : laneSegments) {
+            laneSegment.setLaneArrays(enabled);
+        }
+    }
+
     public final LaneSegment laneSegment(int lane) {
         Preconditions.checkArgument(lane >= Lanes.LANE1 && lane <= laneCount, "lane=" + lane);
         return laneSegments[lane - 1];
@@ -504,19 +581,17 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
      * @return the total number of vehicles on this road segment
      */
     public int getVehicleCount() {
-        int vehicleCount = 0;
-        for (final LaneSegment laneSegment : laneSegments) {
-            vehicleCount += laneSegment.vehicleCount();
-        }
-        return vehicleCount;
+        return vehicleAggregates.vehicleCount();
     }
 
+    /**
+     * Returns the number of stopped vehicles on this road segment, all lanes, as of the last update of the vehicle
+     * speeds or modification of the lanes.
+     *
+     * @return the number of stopped vehicles on this road segment
+     */
     public int getStoppedVehicleCount() {
-        int stoppedVehicleCount = 0;
-        for (final LaneSegment laneSegment : laneSegments) {
-            stoppedVehicleCount += laneSegment.stoppedVehicleCount();
-        }
-        return stoppedVehicleCount;
+        return vehicleAggregates.stoppedVehicleCount();
     }
 
     /**
@@ -525,11 +600,7 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
      * @return the total number of vehicles on this road segment
      */
     public int getObstacleCount() {
-        int obstacleCount = 0;
-        for (final LaneSegment laneSegment : laneSegments) {
-            obstacleCount += laneSegment.obstacleCount();
-        }
-        return obstacleCount;
+        return vehicleAggregates.obstacleCount();
     }
 
     /**
@@ -562,11 +633,7 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
      * @return the total vehicle travel distance
      */
     protected double totalVehicleTravelDistance() {
-        double totalVehicleTravelDistance = 0;
-        for (final LaneSegment laneSegment : laneSegments) {
-            totalVehicleTravelDistance += laneSegment.totalVehicleTravelDistance();
-        }
-        return totalVehicleTravelDistance;
+        return vehicleAggregates.travelDistance();
     }
 
     /**
@@ -595,20 +662,9 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
      * of stand-stills
      */
     public double meanSpeedOfVehicles() {
-        double sumSpeed = 0;
-        int vehCount = 0;
-        for (LaneSegment laneSegment : laneSegments) {
-            for (Vehicle veh : laneSegment) {
-                if (veh.type() == Vehicle.Type.OBSTACLE) {
-                    continue;
-                }
-                sumSpeed += Math.max(MIN_SPEED_TT, veh.getSpeed());
-                ++vehCount;
-            }
-        }
         // return (vehCount > 0) ? sumSpeed / vehCount : getHarmonicMeanFreeflowSpeed();
         // TODO speed limits ignored
-        return (vehCount > 0) ? sumSpeed / vehCount : freeFlowSpeed;
+        return vehicleAggregates.meanSpeed();
     }
 
     private double getHarmonicMeanFreeflowSpeed() {
@@ -684,11 +740,72 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
      * @return the number of obstacles on this road segment
      */
     protected int obstacleCount() {
-        int obstacleCount = 0;
+        return vehicleAggregates.obstacleCount();
+    }
+
+    /**
+     * Returns true if this road segment is parked, that is idle and skipped by the update of the road network until a
+     * vehicle is added.
+     *
+     * @return true if parked
+     */
+    final boolean isParked() {
+        return parked;
+    }
+
+    /**
+     * Wakes this road segment up, called when a vehicle is added to one of its lanes. A parked road segment is passed
+     * to the active road segments of the road network.
+     */
+    final void wake() {
+        if (parked) {
+            parked = false;
+            if (activeRoadSegments != null) {
+                activeRoadSegments.wake(this);
+            }
+        }
+    }
+
+    /**
+     * Parks this road segment if an update would not change anything: there are no vehicles, no vehicles registered at
+     * the signal points, no traffic source, ramp or sink and only road objects which act on the vehicles passing them
+     * on this road segment. Called at the end of the update of the road network.
+     */
+    final void updateParking() {
+        parked = canBeParked();
+        if (parked) {
+            // the signal points are empty as after an update of the empty road segment
+            updateSignalPointsBeforeOutflowCalled = true;
+        }
+    }
+
+    private boolean canBeParked() {
+        if (trafficSource != null || simpleRamp != null || sink != null || overtakingSegment.vehicleCount() > 0) {
+            return false;
+        }
         for (final LaneSegment laneSegment : laneSegments) {
-            obstacleCount += laneSegment.obstacleCount();
+            if (laneSegment.vehicleCount() > 0) {
+                return false;
+            }
+        }
+        for (final SignalPoint signalPoint : signalPoints) {
+            if (!signalPoint.passedVehicles().isEmpty()) {
+                return false;
+            }
+        }
+        for (final RoadObject roadObject : roadObjects) {
+            switch (roadObject.getType()) {
+            case SPEEDLIMIT:
+            case GRADIENT_PROFILE:
+            case FLOW_CONSERVING_BOTTLENECK:
+                // act only on the vehicles passing their signal points on this road segment
+                break;
+            default:
+                // time-dependent or acting on other road segments
+                return false;
+            }
         }
-        return obstacleCount;
+        return true;
     }
 
     /**
@@ -797,24 +914,69 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
 
     protected void updateSignalPointsBeforeOutflow(double simulationTime) {
         updateSignalPointsBeforeOutflowCalled = true;
+        updateMaxRearDisplacements();
         for (SignalPoint signalPoint : signalPoints) {
             signalPoint.clear();
-            signalPoint.registerPassingVehicles(simulationTime, iterator());
+            signalPoint.registerPassingVehicles(simulationTime, laneSegments, maxRearDisplacements);
         }
     }
 
     public void updateSignalPointsAfterOutflowAndInflow(double simulationTime) {
         assert updateSignalPointsBeforeOutflowCalled; // hack for assuring right calling process
+        updateMaxRearDisplacements();
         for (SignalPoint signalPoint : signalPoints) {
             // TODO vehicles on overtaking segment ignored here, iterate over those as well...test with iteratorAllVehicles()
-            signalPoint.registerPassingVehicles(simulationTime, iterator());
+            signalPoint.registerPassingVehicles(simulationTime, laneSegments, maxRearDisplacements);
         }
         updateSignalPointsBeforeOutflowCalled = false;
     }
 
-    // TOO SLOW FOR GENERAL PURPOSE
+    /**
+     * Determines the maximum rear displacement of each lane once for all signal points, so that each signal point only
+     * tests the vehicles in the window behind its position.
+     */
+    private void updateMaxRearDisplacements() {
+        if (signalPoints.isEmpty()) {
+            return;
+        }
+        if (maxRearDisplacements == null) {
+            maxRearDisplacements = new double[laneCount];
+        }
+        for (int i = 0; i < laneCount; ++i) {
+            maxRearDisplacements[i] = laneSegments[i].maxRearDisplacement();
+        }
+    }
+
+    /**
+     * Returns the vehicles whose front position is within the given range, lane by lane in the order of
+     * {@link #iterator()}. Each lane is searched with binary search, see
+     * {@link LaneSegment#vehiclesWithinRange(double, double)}.
+     *
+     * @param begin lower bound of the front position, inclusive
+     * @param end   upper bound of the front position, inclusive
+     * @return iterator over the vehicles within the range
+     */
     public Iterator<Vehicle> vehiclesWithinRange(double begin, double end) {
-        return Iterators.filter(iterator(), new VehicleWithinRange(begin, end));
+        if (laneCount == 1) {
+            return laneSegments[0].vehiclesWithinRange(begin, end);
+        }
+        final List<Iterator<Vehicle>> iterators = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; ++i) {
+            iterators.add(laneSegments[i].vehiclesWithinRange(begin, end));
+        }
+        return Iterators.concat(iterators.iterator());
+    }
+
+    /**
+     * Returns the vehicles in the given lane whose front position is within the given range.
+     *
+     * @param lane
+     * @param begin lower bound of the front position, inclusive
+     * @param end   upper bound of the front position, inclusive
+     * @return iterator over the vehicles within the range
+     */
+    public Iterator<Vehicle> vehiclesWithinRange(int lane, double begin, double end) {
+        return laneSegment(lane).vehiclesWithinRange(begin, end);
     }
 
     public Iterator<Vehicle> filteredVehicles(Predicate<Vehicle> predicate) {
@@ -924,6 +1086,16 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
             assert laneSegment.laneIsSorted();
             assert laneSegment.assertInvariant();
             final LaneSegment leftLaneSegment = getLeftLane(laneSegment);
+            final LaneArrays laneArrays = laneSegment.laneArrays();
+            if (laneArrays != null) {
+                laneArrays.update(laneSegment);
+                for (int i = 0, count = laneArrays.size(); i < count; ++i) {
+                    final Vehicle vehicle = laneSegment.getVehicle(i);
+                    vehicle.updateAcceleration(dt, this, laneSegment, leftLaneSegment, laneArrays.accInOwnLane(i));
+                    laneArrays.setAcc(i, vehicle.getAcc());
+                }
+                continue;
+            }
             for (final Vehicle vehicle : laneSegment) {
                 vehicle.updateAcceleration(dt, this, laneSegment, leftLaneSegment);
             }
@@ -941,19 +1113,32 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
     }
 
     /**
-     * Update the vehicle positions and velocities by calling vehicle.updatePositionAndSpeed for each vehicle.
+     * Update the vehicle positions and velocities by calling vehicle.updatePositionAndSpeed for each vehicle. The
+     * aggregates depending on the speeds and positions are recalculated on the way, they are passed to the road
+     * network with the next sequential {@link VehicleAggregates#flush()}.
      *
      * @param dt             delta-t, simulation time interval, seconds
      * @param simulationTime current simulation time, seconds
      * @param iterationCount the number of iterations that have been executed
      */
     public void updateVehiclePositionsAndSpeeds(double dt, double simulationTime, long iterationCount) {
+        int stoppedVehicleCount = 0;
+        double speedSum = 0;
+        double travelDistance = 0;
         for (final LaneSegment laneSegment : laneSegments) {
             assert laneSegment.laneIsSorted();
             for (final Vehicle vehicle : laneSegment) {
                 vehicle.updatePositionAndSpeed(dt);
+                travelDistance += vehicle.totalTravelDistance();
+                if (vehicle.type() != Type.OBSTACLE) {
+                    speedSum += Math.max(MIN_SPEED_TT, vehicle.getSpeed());
+                    if (vehicle.type() == Type.VEHICLE && vehicle.getSpeed() <= VehicleAggregates.STOPPED_SPEED) {
+                        ++stoppedVehicleCount;
+                    }
+                }
             }
         }
+        vehicleAggregates.set(stoppedVehicleCount, speedSum, travelDistance);
         for (final Vehicle vehicle : overtakingSegment) {
             vehicle.updatePositionAndSpeed(dt);
         }
@@ -1347,6 +1532,7 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
 
     public void setFreeFlowSpeed(double freeFlowSpeed) {
         this.freeFlowSpeed = freeFlowSpeed;
+        vehicleAggregates.setEmptyMeanSpeed(freeFlowSpeed);
     }
 
 }
@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.movsim.roadmappings.PosTheta;
+import org.movsim.roadmappings.RoadMapping;
+
+/**
+ * <p>
+ * Uniform grid over the bounding boxes of the road mappings, used to find the road segments near a point or within a
+ * rectangle without testing every road segment of the network, e.g. for picking in the viewer.
+ * </p>
+ * <p>
+ * The coordinates are the mapping coordinates (x, y) of {@link PosTheta}. The viewer draws in screen coordinates,
+ * where the y coordinate is negated (see {@link PosTheta#getScreenY()} and {@link RoadMapping.PolygonFloat#getYPoint}),
+ * so a point (x, y) on the screen is queried as (x, -y). The bounding boxes are sampled along the road and enlarged by
+ * the road width and a margin for the objects drawn on the road, so the returned road segments are candidates which
+ * still have to be tested exactly. The grid is static, it is built once from the road mappings, and each query only
+ * tests the bounding boxes stored in the cells it covers.
+ * </p>
+ */
+final class RoadSegmentGrid {
+
+    /** margin for the extent of objects like vehicles, traffic lights and sources beyond the sampled road */
+    private static final double OBJECT_MARGIN = 25;
+
+    private static final int MAX_SAMPLES_PER_ROAD = 200;
+    private static final double MIN_SAMPLE_DISTANCE = 5;
+
+    private final List<RoadSegment> mapped = new ArrayList<>();
+    private final List<double[]> boxes = new ArrayList<>();
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    /** indices into mapped and boxes in ascending order, null for an empty cell */
+    private final int[][] cells;
+
+    RoadSegmentGrid(Iterable<RoadSegment> roadSegments) {
+        double x0 = Double.POSITIVE_INFINITY;
+        double y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY;
+        double y1 = Double.NEGATIVE_INFINITY;
+        double sumExtent = 0;
+        for (final RoadSegment roadSegment : roadSegments) {
+            final RoadMapping roadMapping = roadSegment.roadMapping();
+            if (roadMapping == null) {
+                continue;
+            }
+            final double[] box = boundingBox(roadMapping);
+            mapped.add(roadSegment);
+            boxes.add(box);
+            x0 = Math.min(x0, box[0]);
+            y0 = Math.min(y0, box[1]);
+            x1 = Math.max(x1, box[2]);
+            y1 = Math.max(y1, box[3]);
+            sumExtent += Math.max(box[2] - box[0], box[3] - box[1]);
+        }
+        if (mapped.isEmpty()) {
+            minX = minY = 0;
+            maxX = maxY = -1;
+            cellSize = 1;
+            columns = rows = 0;
+            cells = new int[0][];
+            return;
+        }
+        // cells of about the size of a road segment, at most a few cells per road segment
+        final double maxCells = 4.0 * mapped.size();
+        double size = Math.max(sumExtent / mapped.size(), 1.0);
+        while (Math.ceil((x1 - x0) / size) * Math.ceil((y1 - y0) / size) > maxCells) {
+            size *= 2;
+        }
+        minX = x0;
+        minY = y0;
+        maxX = x1;
+        maxY = y1;
+        cellSize = size;
+        columns = Math.max(1, (int) Math.ceil((x1 - x0) / size));
+        rows = Math.max(1, (int) Math.ceil((y1 - y0) / size));
+        final int[] counts = new int[columns * rows];
+        for (final double[] box : boxes) {
+            final int c1 = column(box[2]);
+            final int r1 = row(box[3]);
+            for (int r = row(box[1]); r <= r1; ++r) {
+                for (int c = column(box[0]); c <= c1; ++c) {
+                    ++counts[r * columns + c];
+                }
+            }
+        }
+        cells = new int[columns * rows][];
+        for (int index = 0; index < cells.length; ++index) {
+            if (counts[index] > 0) {
+                cells[index] = new int[counts[index]];
+                counts[index] = 0;
+            }
+        }
+        for (int k = 0; k < boxes.size(); ++k) {
+            final double[] box = boxes.get(k);
+            final int c1 = column(box[2]);
+            final int r1 = row(box[3]);
+            for (int r = row(box[1]); r <= r1; ++r) {
+                for (int c = column(box[0]); c <= c1; ++c) {
+                    final int index = r * columns + c;
+                    cells[index][counts[index]++] = k;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the road segments whose enlarged bounding box contains the given point, in the order of the road network.
+     *
+     * @param x
+     * @param y
+     * @return the candidate road segments, an empty list if there are none
+     */
+    List<RoadSegment> roadSegmentsNear(double x, double y) {
+        return roadSegmentsWithin(x, y, x, y);
+    }
+
+    /**
+     * Returns the road segments whose enlarged bounding box intersects the given rectangle, in the order of the road
+     * network. Each road segment is returned once, even if its bounding box covers several cells.
+     *
+     * @param x0
+     *            the minimum x coordinate of the rectangle
+     * @param y0
+     *            the minimum y coordinate of the rectangle
+     * @param x1
+     *            the maximum x coordinate of the rectangle
+     * @param y1
+     *            the maximum y coordinate of the rectangle
+     * @return the candidate road segments, an empty list if there are none or if the rectangle is empty
+     */
+    List<RoadSegment> roadSegmentsWithin(double x0, double y0, double x1, double y1) {
+        if (cells.length == 0 || x1 < x0 || y1 < y0 || x1 < minX || y1 < minY || x0 > maxX || y0 > maxY) {
+            return Collections.emptyList();
+        }
+        final int c0 = column(x0);
+        final int c1 = column(x1);
+        final int r0 = row(y0);
+        final int r1 = row(y1);
+        if (c0 == c1 && r0 == r1) {
+            // single cell, its indices are already unique and ordered
+            return collect(cells[r0 * columns + c0], x0, y0, x1, y1);
+        }
+        final BitSet found = new BitSet(mapped.size());
+        for (int r = r0; r <= r1; ++r) {
+            for (int c = c0; c <= c1; ++c) {
+                final int[] cell = cells[r * columns + c];
+                if (cell == null) {
+                    continue;
+                }
+                for (final int k : cell) {
+                    if (!found.get(k) && intersects(boxes.get(k), x0, y0, x1, y1)) {
+                        found.set(k);
+                    }
+                }
+            }
+        }
+        if (found.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<RoadSegment> result = new ArrayList<>(found.cardinality());
+        for (int k = found.nextSetBit(0); k >= 0; k = found.nextSetBit(k + 1)) {
+            result.add(mapped.get(k));
+        }
+        return result;
+    }
+
+    private List<RoadSegment> collect(int[] cell, double x0, double y0, double x1, double y1) {
+        if (cell == null) {
+            return Collections.emptyList();
+        }
+        final List<RoadSegment> result = new ArrayList<>(cell.length);
+        for (final int k : cell) {
+            if (intersects(boxes.get(k), x0, y0, x1, y1)) {
+                result.add(mapped.get(k));
+            }
+        }
+        return result;
+    }
+
+    private static boolean intersects(double[] box, double x0, double y0, double x1, double y1) {
+        return box[0] <= x1 && x0 <= box[2] && box[1] <= y1 && y0 <= box[3];
+    }
+
+    private int column(double x) {
+        return Math.min(columns - 1, Math.max(0, (int) ((x - minX) / cellSize)));
+    }
+
+    private int row(double y) {
+        return Math.min(rows - 1, Math.max(0, (int) ((y - minY) / cellSize)));
+    }
+
+    /**
+     * Returns the bounding box of the road mapping as {minX, minY, maxX, maxY}, enlarged by the road width, the sample
+     * distance and the object margin.
+     *
+     * @param roadMapping
+     * @return the enlarged bounding box
+     */
+    static double[] boundingBox(RoadMapping roadMapping) {
+        final double roadLength = roadMapping.roadLength();
+        final int samples = (int) Math.min(MAX_SAMPLES_PER_ROAD, Math.ceil(roadLength / MIN_SAMPLE_DISTANCE)) + 1;
+        final double step = roadLength / Math.max(1, samples - 1);
+        final double[] box = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.NEGATIVE_INFINITY };
+        for (int i = 0; i < samples; ++i) {
+            final PosTheta posTheta = roadMapping.map(Math.min(i * step, roadLength), 0);
+            // mapping coordinates, the screen y coordinate is negated
+            final double x = posTheta.getScreenX();
+            final double y = -posTheta.getScreenY();
+            box[0] = Math.min(box[0], x);
+            box[1] = Math.min(box[1], y);
+            box[2] = Math.max(box[2], x);
+            box[3] = Math.max(box[3], y);
+        }
+        final double margin = roadMapping.roadWidth() + step + OBJECT_MARGIN;
+        box[0] -= margin;
+        box[1] -= margin;
+        box[2] += margin;
+        box[3] += margin;
+        return box;
+    }
+}
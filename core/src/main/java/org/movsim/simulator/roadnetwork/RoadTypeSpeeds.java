@@ -12,12 +12,16 @@ import org.slf4j.LoggerFactory;
 import java.util.EnumMap;
 import java.util.Map;
 
-public enum RoadTypeSpeeds {
-
-    INSTANCE;
+/**
+ * Freeflow speeds of the road types of a road network, the mapping is configured per simulation run.
+ */
+public final class RoadTypeSpeeds {
 
     private static final Logger LOG = LoggerFactory.getLogger(RoadTypeSpeeds.class);
 
+    /** freeflow speed of roads without configured mapping */
+    static final double DEFAULT_FREE_FLOW_SPEED = MovsimConstants.MAX_VEHICLE_SPEED;
+
     private final Map<RoadTypeEnum, Double> roadTypeSpeedMappings = new EnumMap<>(RoadTypeEnum.class);
 
     RoadTypeSpeeds() {
@@ -25,9 +29,8 @@ public enum RoadTypeSpeeds {
     }
 
     private void initWithDummyValues() {
-        final double noLimitedFreeFlowSpeed = MovsimConstants.MAX_VEHICLE_SPEED;
         for (RoadTypeEnum roadTypeEnum : RoadTypeEnum.values()) {
-            roadTypeSpeedMappings.put(roadTypeEnum, noLimitedFreeFlowSpeed);
+            roadTypeSpeedMappings.put(roadTypeEnum, DEFAULT_FREE_FLOW_SPEED);
         }
     }
 
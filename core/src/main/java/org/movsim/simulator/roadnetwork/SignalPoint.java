@@ -28,12 +28,10 @@ package org.movsim.simulator.roadnetwork;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
-import com.google.common.collect.Iterators;
 import org.movsim.simulator.roadnetwork.predicates.VehiclePassedPosition;
 import org.movsim.simulator.vehicles.Vehicle;
 
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -41,7 +39,7 @@ public class SignalPoint {
 
     private final double position;
 
-    private final Predicate<Vehicle> predicate; // TODO measure performance for this vehicle iterator
+    private final Predicate<Vehicle> predicate;
 
     protected double simulationTime;
 
@@ -55,10 +53,23 @@ public class SignalPoint {
         predicate = new VehiclePassedPosition(position);
     }
 
-    // will be called twice, therefore cleaning separately
-    void registerPassingVehicles(double simulationTime, Iterator<Vehicle> vehicles) {
+    /**
+     * Registers the vehicles which passed the position in the last update. Only the vehicles within the maximum rear
+     * displacement of each lane behind the position are tested, see
+     * {@link LaneSegment#addVehiclesPassed(double, double, Predicate, Collection)}.
+     * <p>
+     * Will be called twice, therefore cleaning separately.
+     * </p>
+     *
+     * @param simulationTime
+     * @param laneSegments         the lane segments in the order of registering
+     * @param maxRearDisplacements maximum rear displacement of each lane segment
+     */
+    void registerPassingVehicles(double simulationTime, LaneSegment[] laneSegments, double[] maxRearDisplacements) {
         this.simulationTime = simulationTime;
-        Iterators.addAll(vehiclesPassed, Iterators.filter(vehicles, predicate));
+        for (int i = 0; i < maxRearDisplacements.length; ++i) {
+            laneSegments[i].addVehiclesPassed(position, maxRearDisplacements[i], predicate, vehiclesPassed);
+        }
     }
 
     public double position() {
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import org.movsim.simulator.vehicles.Vehicle;
+
+/**
+ * <p>
+ * Running counts and sums over the vehicles in the lanes of a road segment, or of all road segments of a road network.
+ * </p>
+ * <p>
+ * The aggregates of a road segment are changed by the {@link LaneVehicles} of its lanes when a vehicle is inserted or
+ * removed, and are recalculated from the vehicles when the road segment updates their speeds and positions. Each change
+ * is passed to the aggregates of the road network (the parent) as a difference. The insertions and removals happen in
+ * the sequential phases of the update and pass their differences immediately; the recalculation may run in parallel
+ * for several road segments, so its differences are kept as pending until {@link #flush()} is called sequentially.
+ * </p>
+ * <p>
+ * The recalculation and the reset when the last vehicle is removed also correct the rounding errors of the running
+ * sums and the contributions of vehicles whose speed was changed while stored.
+ * </p>
+ */
+final class VehicleAggregates {
+
+    /** vehicles at or below this speed are counted as stopped, in m/s */
+    static final double STOPPED_SPEED = 0.01;
+
+    private VehicleAggregates parent;
+
+    private int vehicleCount;
+    private int obstacleCount;
+    private int stoppedVehicleCount;
+    /** sum of the speeds of the vehicles which are not obstacles, each at least {@link RoadSegment#MIN_SPEED_TT} */
+    private double speedSum;
+    private double travelDistance;
+    /** mean speed of the road segment if it has no vehicles */
+    private double emptyMeanSpeed;
+    /** sum of the mean speeds of the children, only used in the parent */
+    private double meanSpeedSum;
+
+    // changes not yet passed to the parent
+    private int pendingVehicleCount;
+    private int pendingObstacleCount;
+    private int pendingStoppedVehicleCount;
+    private double pendingSpeedSum;
+    private double pendingTravelDistance;
+    // mean speed as contained in meanSpeedSum of the parent
+    private double passedMeanSpeed;
+
+    /**
+     * Attaches these aggregates to the given parent, or detaches them if the parent is null. The current values are
+     * added to the new parent.
+     *
+     * @param parent
+     */
+    void setParent(VehicleAggregates parent) {
+        if (this.parent != null) {
+            flush();
+            this.parent.subtract(this);
+        }
+        this.parent = parent;
+        clearPending();
+        if (parent != null) {
+            passedMeanSpeed = meanSpeed();
+            parent.vehicleCount += vehicleCount;
+            parent.obstacleCount += obstacleCount;
+            parent.stoppedVehicleCount += stoppedVehicleCount;
+            parent.speedSum += speedSum;
+            parent.travelDistance += travelDistance;
+            parent.meanSpeedSum += passedMeanSpeed;
+        }
+    }
+
+    private void subtract(VehicleAggregates child) {
+        vehicleCount -= child.vehicleCount;
+        obstacleCount -= child.obstacleCount;
+        stoppedVehicleCount -= child.stoppedVehicleCount;
+        speedSum -= child.speedSum;
+        travelDistance -= child.travelDistance;
+        meanSpeedSum -= child.passedMeanSpeed;
+    }
+
+    /**
+     * Resets all values, used for the parent when its children are removed.
+     */
+    void reset() {
+        vehicleCount = 0;
+        obstacleCount = 0;
+        stoppedVehicleCount = 0;
+        speedSum = 0;
+        travelDistance = 0;
+        meanSpeedSum = 0;
+        clearPending();
+    }
+
+    private void clearPending() {
+        pendingVehicleCount = 0;
+        pendingObstacleCount = 0;
+        pendingStoppedVehicleCount = 0;
+        pendingSpeedSum = 0;
+        pendingTravelDistance = 0;
+    }
+
+    /**
+     * Adds the given vehicle, called on insertion into a lane.
+     *
+     * @param vehicle
+     */
+    void add(Vehicle vehicle) {
+        change(vehicle, 1);
+    }
+
+    /**
+     * Removes the given vehicle, called on removal from a lane.
+     *
+     * @param vehicle
+     */
+    void remove(Vehicle vehicle) {
+        change(vehicle, -1);
+    }
+
+    private void change(Vehicle vehicle, int sign) {
+        int stopped = 0;
+        double speed = 0;
+        if (vehicle.type() == Vehicle.Type.OBSTACLE) {
+            obstacleCount += sign;
+            pendingObstacleCount += sign;
+        } else {
+            speed = Math.max(RoadSegment.MIN_SPEED_TT, vehicle.getSpeed());
+            if (vehicle.type() == Vehicle.Type.VEHICLE && vehicle.getSpeed() <= STOPPED_SPEED) {
+                stopped = 1;
+            }
+        }
+        vehicleCount += sign;
+        pendingVehicleCount += sign;
+        if (vehicleCount == 0) {
+            // no running sums left over
+            set(0, 0, 0);
+        } else {
+            set(stoppedVehicleCount + sign * stopped, speedSum + sign * speed,
+                    travelDistance + sign * vehicle.totalTravelDistance());
+        }
+        flush();
+    }
+
+    /**
+     * Sets the values which depend on the speeds and positions of the vehicles, recalculated after the update of the
+     * vehicles. The differences are passed to the parent with the next {@link #flush()}.
+     *
+     * @param stoppedVehicleCount
+     * @param speedSum
+     * @param travelDistance
+     */
+    void set(int stoppedVehicleCount, double speedSum, double travelDistance) {
+        pendingStoppedVehicleCount += stoppedVehicleCount - this.stoppedVehicleCount;
+        pendingSpeedSum += speedSum - this.speedSum;
+        pendingTravelDistance += travelDistance - this.travelDistance;
+        this.stoppedVehicleCount = stoppedVehicleCount;
+        this.speedSum = speedSum;
+        this.travelDistance = travelDistance;
+    }
+
+    /**
+     * Sets the mean speed if there are no vehicles.
+     *
+     * @param emptyMeanSpeed
+     */
+    void setEmptyMeanSpeed(double emptyMeanSpeed) {
+        this.emptyMeanSpeed = emptyMeanSpeed;
+        flush();
+    }
+
+    /**
+     * Passes the pending changes to the parent.
+     */
+    void flush() {
+        if (parent != null) {
+            parent.vehicleCount += pendingVehicleCount;
+            parent.obstacleCount += pendingObstacleCount;
+            parent.stoppedVehicleCount += pendingStoppedVehicleCount;
+            parent.speedSum += pendingSpeedSum;
+            parent.travelDistance += pendingTravelDistance;
+            final double meanSpeed = meanSpeed();
+            parent.meanSpeedSum += meanSpeed - passedMeanSpeed;
+            passedMeanSpeed = meanSpeed;
+        }
+        clearPending();
+    }
+
+    int vehicleCount() {
+        return vehicleCount;
+    }
+
+    int obstacleCount() {
+        return obstacleCount;
+    }
+
+    int stoppedVehicleCount() {
+        return stoppedVehicleCount;
+    }
+
+    double travelDistance() {
+        return travelDistance;
+    }
+
+    /**
+     * Returns the arithmetic mean of the speeds of the vehicles which are not obstacles, or the empty mean speed if
+     * there are none.
+     *
+     * @return the mean speed
+     */
+    double meanSpeed() {
+        final int count = vehicleCount - obstacleCount;
+        return count > 0 ? speedSum / count : emptyMeanSpeed;
+    }
+
+    /**
+     * Returns the sum of the mean speeds of the children.
+     *
+     * @return the sum of the mean speeds
+     */
+    double meanSpeedSum() {
+        return meanSpeedSum;
+    }
+}
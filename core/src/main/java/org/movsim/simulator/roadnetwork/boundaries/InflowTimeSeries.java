@@ -12,7 +12,7 @@
 package org.movsim.simulator.roadnetwork.boundaries;
 
 import org.movsim.autogen.Inflow;
-import org.movsim.utilities.LinearInterpolatedFunction;
+import org.movsim.utilities.LinearInterpolatedTimeSeries;
 import org.movsim.utilities.Units;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,9 +28,9 @@ public class InflowTimeSeries {
 
     private static final double CONSTANT_INIT_SPEED = 80 / 3.6;
 
-    private LinearInterpolatedFunction flowFunction;
+    private LinearInterpolatedTimeSeries flowFunction;
 
-    private LinearInterpolatedFunction speedFunction;
+    private LinearInterpolatedTimeSeries speedFunction;
 
     /**
      * Instantiates a new inflow time series.
@@ -56,8 +56,8 @@ public class InflowTimeSeries {
             LOG.debug("add data: flow={}, speed={}", flowValues[i], speedValues[i]);
         }
 
-        flowFunction = new LinearInterpolatedFunction(timeValues, flowValues);
-        speedFunction = new LinearInterpolatedFunction(timeValues, speedValues);
+        flowFunction = new LinearInterpolatedTimeSeries(timeValues, flowValues);
+        speedFunction = new LinearInterpolatedTimeSeries(timeValues, speedValues);
     }
 
     public double getFlowPerLane(double time) {
@@ -38,11 +38,8 @@ import org.movsim.network.autogen.opendrive.OpenDRIVE.Road.ElevationProfile;
 import org.movsim.network.autogen.opendrive.OpenDRIVE.Road.ElevationProfile.Elevation;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.SignalPoint;
-import org.movsim.simulator.roadnetwork.predicates.VehicleWithinRange;
 import org.movsim.simulator.vehicles.Vehicle;
 
-import com.google.common.base.Predicate;
-
 /**
  * Sets the road slope within a spatial range of a RoadSection. The range is limited to the extend of one roadSection only.
  * 
@@ -56,8 +53,6 @@ public class GradientProfile extends RoadObjectController {
     /** mapping of positions to gradients along track */
     private final SortedMap<Double, Double> gradients = new TreeMap<>();
 
-    private final Predicate<Vehicle> vehiclesWithRange;
-
     private final SignalPoint endSignalPoint;
 
     public GradientProfile(ElevationProfile elevationProfile, RoadSegment roadSegment) {
@@ -72,7 +67,6 @@ public class GradientProfile extends RoadObjectController {
             throw new IllegalArgumentException("elevation profile track position s=" + endPosition
                     + " exceeds roadlength.");
         }
-        this.vehiclesWithRange = new VehicleWithinRange(position, endPosition);
         endSignalPoint = new SignalPoint(endPosition, roadSegment);
     }
 
@@ -84,7 +78,7 @@ public class GradientProfile extends RoadObjectController {
     @Override
     public void timeStep(double dt, double simulationTime, long iterationCount) {
         LOG.debug("vehiclesPassedEnd={}", endSignalPoint.passedVehicles().size());
-        Iterator<Vehicle> iterator = roadSegment.filteredVehicles(vehiclesWithRange);
+        Iterator<Vehicle> iterator = roadSegment.vehiclesWithinRange(position, endPosition);
         while (iterator.hasNext()) {
             Vehicle vehicle = iterator.next();
             apply(vehicle);
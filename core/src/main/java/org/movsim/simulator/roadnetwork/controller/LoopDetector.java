@@ -25,6 +25,7 @@
  */
 package org.movsim.simulator.roadnetwork.controller;
 
+import org.movsim.input.SimulationContext;
 import org.movsim.output.FileDetector;
 import org.movsim.simulator.MovsimConstants;
 import org.movsim.simulator.roadnetwork.Lanes;
@@ -62,14 +63,15 @@ public class LoopDetector extends RoadObjectController {
     /**
      * Constructor
      * 
+     * @param context
      * @param roadSegment
      * @param detPosition
      * @param dtSample
      * @param logging
      * @param loggingLanes
      */
-    public LoopDetector(RoadSegment roadSegment, double detPosition, double dtSample, boolean logging,
-            boolean loggingLanes) {
+    public LoopDetector(SimulationContext context, RoadSegment roadSegment, double detPosition, double dtSample,
+            boolean logging, boolean loggingLanes) {
         super(RoadObjectType.LOOPDETECTOR, detPosition, roadSegment);
         this.dtSample = dtSample;
 
@@ -86,8 +88,9 @@ public class LoopDetector extends RoadObjectController {
 
         resetLaneAverages();
 
-        fileDetector = (logging) ? new FileDetector(this, roadSegment.userId(), roadSegment.laneCount(), loggingLanes)
-                : null;
+        fileDetector = (logging) ?
+                new FileDetector(context, this, roadSegment.userId(), roadSegment.laneCount(), loggingLanes) :
+                null;
         if (fileDetector != null) {
             fileDetector.writeAggregatedData(0);
         }
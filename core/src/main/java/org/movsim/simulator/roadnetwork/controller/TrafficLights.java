@@ -34,6 +34,7 @@ import javax.annotation.Nullable;
 
 import org.movsim.autogen.ControllerGroup;
 import org.movsim.network.autogen.opendrive.OpenDRIVE.Controller.Control;
+import org.movsim.input.SimulationContext;
 import org.movsim.output.FileTrafficLightControllerRecorder;
 import org.movsim.simulator.SimulationTimeStep;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
@@ -70,7 +71,7 @@ public class TrafficLights implements SimulationTimeStep {
             setUp(trafficLightsInput, roadNetwork);
             checkIfAllTrafficlightsAreReferenced();
             if (trafficLightsInput.isLogging()) {
-                setUpLogging(trafficLightsInput.getNTimestep());
+                setUpLogging(roadNetwork.context(), trafficLightsInput.getNTimestep());
             }
         }
     }
@@ -153,9 +154,9 @@ public class TrafficLights implements SimulationTimeStep {
         }
     }
 
-    private void setUpLogging(int nTimestep) {
+    private void setUpLogging(SimulationContext context, int nTimestep) {
         for (TrafficLightController controller : trafficLightControllers) {
-            controller.setRecorder(new FileTrafficLightControllerRecorder(controller, nTimestep));
+            controller.setRecorder(new FileTrafficLightControllerRecorder(context, controller, nTimestep));
         }
     }
 
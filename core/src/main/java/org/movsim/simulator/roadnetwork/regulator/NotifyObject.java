@@ -60,9 +60,6 @@ public class NotifyObject {
         signalPoint = new SignalPoint(position, roadSegment);
         // roadNetwork already constructed: adding of signalPoint to roadSegments possible here
         roadSegment.signalPoints().add(signalPoint);
-        if (notifyObjectType.isSetId() && !Regulators.addNotifyObjectId(notifyObjectType.getId())) {
-            throw new IllegalArgumentException("NotifyObject id=" + notifyObjectType.getId() + " not unique!");
-        }
 
     }
 
@@ -86,17 +86,17 @@ public class Regulator implements SimulationTimeStep {
         initializeNotifyObjects(roadNetwork);
         initializeTrafficLights(roadNetwork);
         if (regulatorType.isLogging()) {
-            initFileLogger();
+            initFileLogger(roadNetwork.context().getProjectMetaData());
         }
     }
 
-    private void initFileLogger() {
+    private void initFileLogger(ProjectMetaData projectMetaData) {
         StringBuilder sb = new StringBuilder();
-        sb.append(ProjectMetaData.getInstance().getProjectName());
+        sb.append(projectMetaData.getProjectName());
         sb.append(".regulator_").append(parameter.getType().toString());
         sb.append(".id_").append(parameter.getId());
         sb.append(".csv");
-        File file = new File(ProjectMetaData.getInstance().getPathToProjectFile(), sb.toString());
+        File file = new File(projectMetaData.getPathToProjectFile(), sb.toString());
         try {
             fileLogging = new RegulatorFileLogging(file);
         } catch (FileNotFoundException e) {
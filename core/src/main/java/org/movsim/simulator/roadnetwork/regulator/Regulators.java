@@ -26,7 +26,7 @@
 
 package org.movsim.simulator.roadnetwork.regulator;
 
-import com.google.common.base.Preconditions;
+import org.movsim.autogen.NotifyObjectType;
 import org.movsim.autogen.RegulatorType;
 import org.movsim.autogen.RegulatorsType;
 import org.movsim.simulator.SimulationRun;
@@ -41,26 +41,28 @@ public final class Regulators implements Iterable<Regulator>, SimulationTimeStep
 
     private static final Logger LOG = LoggerFactory.getLogger(Regulators.class);
 
-    private static final Set<String> REGULATOR_ID_CACHE = new HashSet<>();
-    private static final Set<String> NOTIFY_OBJECTS_ID_CACHE = new HashSet<>();
-
     private final List<Regulator> regulators = new ArrayList<>();
 
     public Regulators(RegulatorsType regulatorsType, RoadNetwork roadNetwork) {
-        REGULATOR_ID_CACHE.clear();
-        NOTIFY_OBJECTS_ID_CACHE.clear();
         if (regulatorsType != null) {
             initialize(regulatorsType, roadNetwork);
         }
     }
 
     private void initialize(RegulatorsType regulatorsType, RoadNetwork roadNetwork) {
+        Set<String> regulatorIds = new HashSet<>();
+        Set<String> notifyObjectIds = new HashSet<>();
         for (RegulatorType regulatorType : regulatorsType.getRegulator()) {
             if (regulatorType.isSetId()) {
-                if (!REGULATOR_ID_CACHE.add(regulatorType.getId())) {
+                if (!regulatorIds.add(regulatorType.getId())) {
                     throw new IllegalArgumentException("regulator id=" + regulatorType.getId() + " not unique!");
                 }
             }
+            for (NotifyObjectType notifyObjectType : regulatorType.getNotifyObject()) {
+                if (notifyObjectType.isSetId() && !notifyObjectIds.add(notifyObjectType.getId())) {
+                    throw new IllegalArgumentException("NotifyObject id=" + notifyObjectType.getId() + " not unique!");
+                }
+            }
             Regulator regulator = Regulator.create(regulatorType, roadNetwork);
             regulators.add(regulator);
         }
@@ -84,11 +86,6 @@ public final class Regulators implements Iterable<Regulator>, SimulationTimeStep
         LOG.info("simulation completed at simTime={}", simulationTime);
     }
 
-    static boolean addNotifyObjectId(String id) {
-        Preconditions.checkArgument(id != null && !id.isEmpty(), "invalid id=" + id);
-        return NOTIFY_OBJECTS_ID_CACHE.add(id);
-    }
-
     @Override
     public Iterator<Regulator> iterator() {
         return regulators.iterator();
@@ -44,8 +44,6 @@ final class NetworkGraph {
 
     private static final Logger LOG = LoggerFactory.getLogger(NetworkGraph.class);
 
-    private static long vertexId = 0;
-
     private NetworkGraph() {
         // private constructor
     }
@@ -53,6 +51,7 @@ final class NetworkGraph {
     public static WeightedGraph<Long, RoadSegment> create(RoadNetwork roadNetwork) {
         DefaultDirectedWeightedGraph<Long, RoadSegment> graph = new DefaultDirectedWeightedGraph<>(RoadSegment.class);
         HashMap<RoadSegment, Node> connections = Maps.newLinkedHashMap();
+        long nextVertexId = 0;
         for (final RoadSegment roadSegment : roadNetwork) {
             connections.clear();
             connections.put(roadSegment, roadSegment.getDestinationNode());
@@ -68,7 +67,7 @@ final class NetworkGraph {
                     }
                 }
             }
-            createOrUpdateNode(connections);
+            nextVertexId = createOrUpdateNode(connections, nextVertexId);
 
             connections.clear();
             connections.put(roadSegment, roadSegment.getOriginNode());
@@ -84,7 +83,7 @@ final class NetworkGraph {
                     }
                 }
             }
-            createOrUpdateNode(connections);
+            nextVertexId = createOrUpdateNode(connections, nextVertexId);
         }
         LOG.info("created graph with {} edges and {} nodes", graph.edgeSet().size(), graph.vertexSet().size());
         for (RoadSegment roadSegment : roadNetwork) {
@@ -97,22 +96,27 @@ final class NetworkGraph {
             LOG.info("weight={}, roadSegment={}", graph.getEdgeWeight(roadSegment), roadSegment);
         }
 
-        if (ProjectMetaData.getInstance().isWriteDotFile()) {
-            exportToFile(graph);
+        ProjectMetaData projectMetaData = roadNetwork.context().getProjectMetaData();
+        if (projectMetaData.isWriteDotFile()) {
+            exportToFile(graph, projectMetaData.getProjectName());
         }
         return graph;
     }
 
-    private static void createOrUpdateNode(HashMap<RoadSegment, Node> connections) {
+    /**
+     * @return the next unused vertex id
+     */
+    private static long createOrUpdateNode(HashMap<RoadSegment, Node> connections, long nextVertexId) {
         Preconditions.checkArgument(connections.size() > 0);
         showConnections(connections);
         long nodeId = determineNodeId(connections);
         if (nodeId == Long.MAX_VALUE) {
-            nodeId = vertexId++;
+            nodeId = nextVertexId++;
         }
         for (Node nodeType : connections.values()) {
             nodeType.setId(nodeId);
         }
+        return nextVertexId;
     }
 
     private static void showConnections(HashMap<RoadSegment, Node> connections) {
@@ -138,8 +142,8 @@ final class NetworkGraph {
         return nodeId;
     }
 
-    private static void exportToFile(DefaultDirectedWeightedGraph<Long, RoadSegment> graph) {
-        String fileName = ProjectMetaData.getInstance().getProjectName() + GraphExporter.FILE_ENDING_DOT;
+    private static void exportToFile(DefaultDirectedWeightedGraph<Long, RoadSegment> graph, String projectName) {
+        String fileName = projectName + GraphExporter.FILE_ENDING_DOT;
         GraphExporter.exportDOT(graph, fileName);
         LOG.info("export graph to file={}", fileName);
     }
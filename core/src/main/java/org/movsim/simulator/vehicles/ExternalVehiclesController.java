@@ -8,7 +8,7 @@ import org.movsim.scenario.vehicle.autogen.VehicleUserDataType;
 import org.movsim.simulator.roadnetwork.LaneSegment;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadSegment;
-import org.movsim.utilities.LinearInterpolatedFunction;
+import org.movsim.utilities.LinearInterpolatedTimeSeries;
 import org.movsim.utilities.TimeUtilities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,7 +30,7 @@ public class ExternalVehiclesController {
      */
     private final SortedMap<Double, List<Vehicle>> externalVehiclesToRemove = new TreeMap<>();
 
-    private final Map<Vehicle, LinearInterpolatedFunction> controlledVehicles = new HashMap<>();
+    private final Map<Vehicle, LinearInterpolatedTimeSeries> controlledVehicles = new HashMap<>();
 
     private String timeFormat;
 
@@ -44,7 +44,7 @@ public class ExternalVehiclesController {
      * sets the speeds of externally controlled vehicles in whole road network
      */
     public void setSpeeds(double simulationTime) {
-        for (Entry<Vehicle, LinearInterpolatedFunction> entry : controlledVehicles.entrySet()) {
+        for (Entry<Vehicle, LinearInterpolatedTimeSeries> entry : controlledVehicles.entrySet()) {
             double currentSpeed = entry.getValue().value(simulationTime);
             Vehicle vehicle = entry.getKey();
             vehicle.setSpeed(currentSpeed);
@@ -114,13 +114,13 @@ public class ExternalVehiclesController {
 
     private void addVehiclesToRoadSegments(List<ExternalVehicleType> vehicleInputs, RoadNetwork roadNetwork) {
         for (ExternalVehicleType vehicleInput : vehicleInputs) {
-            Vehicle vehicle = createVehicle(vehicleInput);
+            Vehicle vehicle = createVehicle(roadNetwork.context().nextVehicleId(), vehicleInput);
             String roadId = vehicleInput.getRoadId();
             RoadSegment roadSegment = roadNetwork.findByUserId(roadId);
             Preconditions
                     .checkNotNull(roadSegment, "cannot find roadSegment with id=" + roadId + " for external vehicle");
             roadSegment.addVehicle(vehicle);
-            LinearInterpolatedFunction speedProfile = createSpeedProfile(vehicleInput.getSpeedData());
+            LinearInterpolatedTimeSeries speedProfile = createSpeedProfile(vehicleInput.getSpeedData());
             controlledVehicles.put(vehicle, speedProfile);
             LOG.info("added externally controlled vehicle={} to roadSegment={}", vehicle, roadSegment);
 
@@ -133,7 +133,7 @@ public class ExternalVehiclesController {
         }
     }
 
-    private LinearInterpolatedFunction createSpeedProfile(List<SpeedDataType> speedData) {
+    private LinearInterpolatedTimeSeries createSpeedProfile(List<SpeedDataType> speedData) {
         int size = speedData.size();
         double[] times = new double[size];
         double[] speeds = new double[size];
@@ -143,12 +143,12 @@ public class ExternalVehiclesController {
             speeds[i] = dataPoint.getSpeed();
         }
 
-        return new LinearInterpolatedFunction(times, speeds);
+        return new LinearInterpolatedTimeSeries(times, speeds);
     }
 
-    private Vehicle createVehicle(ExternalVehicleType data) {
+    private Vehicle createVehicle(long id, ExternalVehicleType data) {
         double initialSpeed = data.getSpeedData().get(0).getSpeed();
-        Vehicle vehicle = new Vehicle(data.getPosition(), initialSpeed, data.getLane(), data.getLength(),
+        Vehicle vehicle = new Vehicle(id, data.getPosition(), initialSpeed, data.getLane(), data.getLength(),
                 data.getWidth());
         vehicle.setType(Vehicle.Type.EXTERNAL_CONTROL);
         for (VehicleUserDataType userData : data.getVehicleUserData()) {
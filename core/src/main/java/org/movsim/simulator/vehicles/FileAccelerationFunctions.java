@@ -25,7 +25,7 @@
  */
 package org.movsim.simulator.vehicles;
 
-import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
 import org.movsim.io.FileOutputBase;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelBase;
 
@@ -61,15 +61,17 @@ public class FileAccelerationFunctions extends FileOutputBase {
 
     private static final double STEPWIDTH = 0.4; // too small values causes plot problems for some (stochastic) models
 
-    public static void writeToFile(double simulationTimestep, VehiclePrototype vehiclePrototype) {
-        new FileAccelerationFunctions(simulationTimestep, vehiclePrototype);
+    public static void writeToFile(SimulationContext context, double simulationTimestep,
+            VehiclePrototype vehiclePrototype) {
+        new FileAccelerationFunctions(context, simulationTimestep, vehiclePrototype);
     }
 
     /**
      * Simulation timestep is model parameter for iterated map models (and cellular automata)
      */
-    private FileAccelerationFunctions(double simulationTimestep, VehiclePrototype vehiclePrototype) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    private FileAccelerationFunctions(SimulationContext context, double simulationTimestep,
+            VehiclePrototype vehiclePrototype) {
+        super(context);
         final String label = vehiclePrototype.getLabel();
         LongitudinalModelBase accModel = vehiclePrototype.createAccelerationModel();
 
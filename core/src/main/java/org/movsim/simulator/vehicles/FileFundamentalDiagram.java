@@ -25,7 +25,7 @@
  */
 package org.movsim.simulator.vehicles;
 
-import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
 import org.movsim.io.FileOutputBase;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.EquilibriumProperties;
 import org.movsim.utilities.Units;
@@ -38,15 +38,17 @@ public class FileFundamentalDiagram extends FileOutputBase {
                     "Q[veh/h]");
     private static final String OUTPUT_FORMAT = "%8.2f, %8.2f, %8.2f, %8.2f%n";
 
-    public static void writeToFile(double simulationTimestep, VehiclePrototype vehiclePrototype) {
-        new FileFundamentalDiagram(simulationTimestep, vehiclePrototype);
+    public static void writeToFile(SimulationContext context, double simulationTimestep,
+            VehiclePrototype vehiclePrototype) {
+        new FileFundamentalDiagram(context, simulationTimestep, vehiclePrototype);
     }
 
     /**
      * Simulation timestep is model parameter for iterated map models (and cellular automata)
      */
-    private FileFundamentalDiagram(double simulationTimestep, VehiclePrototype vehiclePrototype) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    private FileFundamentalDiagram(SimulationContext context, double simulationTimestep,
+            VehiclePrototype vehiclePrototype) {
+        super(context);
         final String label = vehiclePrototype.getLabel();
         final EquilibriumProperties eqProperties = vehiclePrototype.getEquiProperties();
         writer = createWriter(String.format(EXTENSION_FORMAT, label));
@@ -6,7 +6,6 @@ import org.movsim.simulator.observer.ServiceProvider;
 import org.movsim.simulator.roadnetwork.Lanes;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.routing.Route;
-import org.movsim.utilities.MyRandom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,7 +22,7 @@ public class RoutingDecisions {
     private ServiceProvider serviceProvider;
     private double uncertainty;
     private double reroutingThreshold;
-    private final double randomAlternative = MyRandom.nextDouble();
+    private double randomAlternative = NOT_INIT;
 
     private final Vehicle vehicle;
 
@@ -42,7 +41,8 @@ public class RoutingDecisions {
 
         if (lastUpdateTime == NOT_INIT) {
             // initialize update time with random (negative) offset to avoid synchronization at the inflow boundary
-            lastUpdateTime = simulationTime - MyRandom.nextDouble() * serviceProvider.getVehicleUpdateInterval();
+            randomAlternative = vehicle.random().nextDouble();
+            lastUpdateTime = simulationTime - vehicle.random().nextDouble() * serviceProvider.getVehicleUpdateInterval();
         }
 
         if (readyForNextUpdate(serviceProvider.getVehicleUpdateInterval(), simulationTime)) {
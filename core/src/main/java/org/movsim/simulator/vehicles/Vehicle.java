@@ -14,8 +14,10 @@ package org.movsim.simulator.vehicles;
 import com.google.common.base.Preconditions;
 import org.movsim.autogen.VehiclePrototypeConfiguration;
 import org.movsim.simulator.MovsimConstants;
+import org.movsim.simulator.roadnetwork.LaneArrays;
 import org.movsim.simulator.roadnetwork.LaneSegment;
 import org.movsim.simulator.roadnetwork.Lanes;
+import org.movsim.simulator.roadnetwork.NeighbourIndex;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.simulator.vehicles.lanechange.LaneChangeModel;
@@ -23,9 +25,10 @@ import org.movsim.simulator.vehicles.lanechange.LaneChangeModel.LaneChangeDecisi
 import org.movsim.simulator.vehicles.longitudinalmodel.Memory;
 import org.movsim.simulator.vehicles.longitudinalmodel.Noise;
 import org.movsim.simulator.vehicles.longitudinalmodel.TrafficLightApproaching;
+import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.ArrayKernelModel;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelBase;
 import org.movsim.utilities.Colors;
-import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.RandomStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -151,6 +154,11 @@ public class Vehicle {
      */
     final double randomFix;
 
+    /**
+     * the vehicle's own random stream, all stochastic elements of the vehicle and its models draw from it
+     */
+    private final RandomStream random;
+
     /**
      * The vehicle number.
      */
@@ -229,8 +237,14 @@ public class Vehicle {
 
     private int originRoadSegmentId = ROAD_SEGMENT_ID_NOT_SET;
 
+    /** the vehicle this vehicle has been copied from, null for the vehicles in the network */
+    private final Vehicle copySource;
+
+    /** cached neighbours of this vehicle, maintained by the {@link NeighbourIndex} of the road network */
+    private NeighbourIndex.Entry neighbourIndexEntry;
+
     /**
-     * Resets the next id.
+     * Resets the global id counter of vehicles which are created without an explicit id.
      */
     public static void resetNextId() {
         nextId = INITIAL_ID;
@@ -238,33 +252,34 @@ public class Vehicle {
     }
 
     /**
-     * Returns the id of the last vehicle created.
+     * Returns the id of the last vehicle created without an explicit id.
      *
-     * @return the id of the last vehicle created
+     * @return the id of the last vehicle created without an explicit id
      */
     public static long lastIdSet() {
         return nextId - 1;
     }
 
     /**
-     * Returns the number of vehicles that have been created. Used for instrumentation.
+     * Returns the number of vehicles that have been created without an explicit id. Used for instrumentation.
      *
-     * @return the number of vehicles that have been created
+     * @return the number of vehicles that have been created without an explicit id
      */
     public static long count() {
         return nextId - INITIAL_ID;
     }
 
-    public Vehicle(String label, LongitudinalModelBase longitudinalModel, VehiclePrototypeConfiguration vehInput,
-                   @Nullable LaneChangeModel lcModel) {
+    public Vehicle(long id, String label, LongitudinalModelBase longitudinalModel,
+                   VehiclePrototypeConfiguration vehInput, @Nullable LaneChangeModel lcModel, RandomStream random) {
         Preconditions.checkNotNull(longitudinalModel);
         Preconditions.checkNotNull(vehInput);
+        this.random = Preconditions.checkNotNull(random);
         this.label = label;
         dimensions = new VehicleDimensions(vehInput.getLength(), vehInput.getWidth());
         this.maxDeceleration = vehInput.getMaximumDeceleration();
 
-        id = nextId++;
-        randomFix = MyRandom.nextDouble();
+        this.id = id;
+        randomFix = random.nextDouble();
 
         initialize();
         this.longitudinalModel = longitudinalModel;
@@ -284,16 +299,26 @@ public class Vehicle {
         trafficLightApproaching = new TrafficLightApproaching();
         inhomogeneity = new InhomogeneityAdaption();
         userData = new VehicleUserData();
+        copySource = null;
     }
 
     /**
-     * Constructor.
+     * Constructor for a vehicle without models, the id is taken from a global counter.
      */
     public Vehicle(double rearPosition, double speed, int lane, double length, double width) {
+        this(nextId++, rearPosition, speed, lane, length, width);
+    }
+
+    /**
+     * Constructor for a vehicle without models, e.g. an obstacle or an externally controlled vehicle.
+     */
+    public Vehicle(long id, double rearPosition, double speed, int lane, double length, double width) {
         assert rearPosition >= 0.0;
         assert speed >= 0.0;
-        id = nextId++;
-        randomFix = MyRandom.nextDouble();
+        this.id = id;
+        // no stochastic models, the stream only provides the random fix
+        random = new RandomStream(id);
+        randomFix = random.nextDouble();
         dimensions = new VehicleDimensions(length, width);
         setRearPosition(rearPosition);
         this.speed = speed;
@@ -310,6 +335,7 @@ public class Vehicle {
         trafficLightApproaching = new TrafficLightApproaching();
         inhomogeneity = new InhomogeneityAdaption();
         userData = new VehicleUserData();
+        copySource = null;
     }
 
     /**
@@ -320,6 +346,7 @@ public class Vehicle {
     public Vehicle(Vehicle source) {
         id = source.id;
         randomFix = source.randomFix;
+        random = source.random;
         type = source.type;
         frontPosition = source.frontPosition;
         speed = source.speed;
@@ -342,6 +369,61 @@ public class Vehicle {
             routingDecisions.setUncertainty(source.routingDecisions().getUncertainty());
             routingDecisions.setReroutingThreshold(source.routingDecisions.getReroutingThreshold());
         }
+        copySource = source;
+    }
+
+    /**
+     * Returns the longitudinal model if the acceleration in the own lane can be calculated by the array kernel of the
+     * model. This requires a model with kernel and no memory that modifies the model parameters.
+     *
+     * @return the longitudinal model, null if the array kernel cannot be used
+     */
+    public final ArrayKernelModel longitudinalModelWithArrayKernel() {
+        if (memory != null || !(longitudinalModel instanceof ArrayKernelModel)) {
+            return null;
+        }
+        return (ArrayKernelModel) longitudinalModel;
+    }
+
+    public final NeighbourIndex.Entry getNeighbourIndexEntry() {
+        return neighbourIndexEntry;
+    }
+
+    public final void setNeighbourIndexEntry(NeighbourIndex.Entry neighbourIndexEntry) {
+        this.neighbourIndexEntry = neighbourIndexEntry;
+    }
+
+    /**
+     * Returns true if this vehicle has been created by the copy constructor from the given vehicle.
+     *
+     * @param source
+     * @return true if this vehicle is a copy of source
+     */
+    public final boolean isCopyOf(Vehicle source) {
+        return copySource == source;
+    }
+
+    /**
+     * Updates a copy with the current state of its source vehicle, in the same way as the copy constructor but without
+     * allocating. The front position is shifted by the given offset, so the copy can represent a vehicle on a
+     * neighbouring road segment.
+     *
+     * @param positionOffset
+     */
+    public final void updateCopy(double positionOffset) {
+        Preconditions.checkState(copySource != null, "not a copy");
+        type = copySource.type;
+        frontPosition = copySource.frontPosition + positionOffset;
+        speed = copySource.speed;
+        lane = copySource.lane;
+        laneOld = copySource.laneOld;
+        dimensions.setLength(copySource.getLength());
+        color = copySource.color;
+        laneChangeModel = copySource.laneChangeModel;
+        longitudinalModel = copySource.longitudinalModel;
+        slope = copySource.slope;
+        route = copySource.route;
+        routeIndex = copySource.routeIndex;
     }
 
     private void initialize() {
@@ -611,6 +693,21 @@ public class Vehicle {
 
     public void updateAcceleration(double dt, RoadSegment roadSegment, LaneSegment laneSegment,
                                    LaneSegment leftLaneSegment) {
+        updateAcceleration(dt, roadSegment, laneSegment, leftLaneSegment, Double.NaN);
+    }
+
+    /**
+     * Updates the acceleration with the acceleration in the own lane already calculated by the array kernel of the
+     * longitudinal model, see {@link LaneArrays}.
+     *
+     * @param dt
+     * @param roadSegment
+     * @param laneSegment
+     * @param leftLaneSegment
+     * @param accInOwnLane    acceleration of the longitudinal model in the own lane, NaN if not yet calculated
+     */
+    public void updateAcceleration(double dt, RoadSegment roadSegment, LaneSegment laneSegment,
+                                   LaneSegment leftLaneSegment, double accInOwnLane) {
 
         accOld = acc;
         // acceleration noise:
@@ -639,7 +736,8 @@ public class Vehicle {
             alphaALocal *= memory.alphaA();
         }
 
-        acc = accModel = calcAccModel(laneSegment, leftLaneSegment, alphaTLocal, alphaV0Local, alphaALocal);
+        acc = accModel = calcAccModel(laneSegment, leftLaneSegment, alphaTLocal, alphaV0Local, alphaALocal,
+                accInOwnLane);
 
         if (lane() != Lanes.OVERTAKING) {
             // moderate acceleration by traffic lights or for preparing
@@ -743,11 +841,11 @@ public class Vehicle {
     // also noise (for transfering stochasticity to lane-changing) and other
     // relevant traffic situations!
     public double calcAccModel(LaneSegment laneSegment, LaneSegment leftLaneSegment) {
-        return calcAccModel(laneSegment, leftLaneSegment, 1.0, 1.0, 1.0);
+        return calcAccModel(laneSegment, leftLaneSegment, 1.0, 1.0, 1.0, Double.NaN);
     }
 
     private double calcAccModel(LaneSegment laneSegment, LaneSegment leftLaneSegment, double alphaTLocal,
-                                double alphaV0Local, double alphaALocal) {
+                                double alphaV0Local, double alphaALocal, double accInOwnLane) {
         if (longitudinalModel == null) {
             return 0.0;
         }
@@ -755,11 +853,18 @@ public class Vehicle {
         double acc;
 
         if (laneChangeModel != null && laneChangeModel.isInitialized() && laneChangeModel.withEuropeanRules()) {
-            acc = longitudinalModel
-                    .calcAccEur(laneChangeModel.vCritEurRules(), this, laneSegment, leftLaneSegment, alphaTLocal,
-                            alphaV0Local, alphaALocal);
-        } else {
+            if (Double.isNaN(accInOwnLane)) {
+                acc = longitudinalModel
+                        .calcAccEur(laneChangeModel.vCritEurRules(), this, laneSegment, leftLaneSegment, alphaTLocal,
+                                alphaV0Local, alphaALocal);
+            } else {
+                acc = longitudinalModel.calcAccEur(laneChangeModel.vCritEurRules(), this, leftLaneSegment, alphaTLocal,
+                        alphaV0Local, alphaALocal, accInOwnLane);
+            }
+        } else if (Double.isNaN(accInOwnLane)) {
             acc = longitudinalModel.calcAcc(this, laneSegment, alphaTLocal, alphaV0Local, alphaALocal);
+        } else {
+            acc = accInOwnLane;
         }
 
         return acc;
@@ -1023,7 +1128,8 @@ public class Vehicle {
     }
 
     /**
-     * Sets this vehicle's type.
+     * Sets this vehicle's type. Must be set before the vehicle is added to a lane, the lanes count their obstacles on
+     * insertion.
      *
      * @param type
      */
@@ -1187,6 +1293,16 @@ public class Vehicle {
         return randomFix;
     }
 
+    /**
+     * Returns the vehicle's random stream. The stream is shared with the vehicle's models and must only be used from the
+     * thread updating the vehicle.
+     *
+     * @return the random stream
+     */
+    public RandomStream random() {
+        return random;
+    }
+
     public void setMemory(Memory memory) {
         this.memory = memory;
     }
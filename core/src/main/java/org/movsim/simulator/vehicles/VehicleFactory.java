@@ -6,12 +6,15 @@ import org.movsim.autogen.PersonalNavigationDeviceType;
 import org.movsim.autogen.VehiclePrototypeConfiguration;
 import org.movsim.autogen.VehiclePrototypes;
 import org.movsim.consumption.model.EnergyFlowModelFactory;
+import org.movsim.input.SimulationContext;
 import org.movsim.simulator.observer.ServiceProvider;
 import org.movsim.simulator.observer.ServiceProviders;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.simulator.roadnetwork.routing.Routing;
 import org.movsim.simulator.vehicles.lanechange.LaneChangeModel;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelBase;
+import org.movsim.utilities.RandomStream;
+import org.movsim.utilities.RandomStreams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,17 +36,25 @@ public final class VehicleFactory {
 
     private final ServiceProviders serviceProviders;
 
-    public VehicleFactory(double simulationTimestep, VehiclePrototypes vehPrototypes, @Nullable Consumption consumption,
-            Routing routing, @Nullable ServiceProviders serviceProviders) {
+    private final RandomStreams randomStreams;
+
+    private final SimulationContext context;
+
+    public VehicleFactory(SimulationContext context, double simulationTimestep, VehiclePrototypes vehPrototypes,
+            @Nullable Consumption consumption, Routing routing, @Nullable ServiceProviders serviceProviders,
+            RandomStreams randomStreams) {
+        this.context = Preconditions.checkNotNull(context);
         Preconditions.checkNotNull(vehPrototypes);
         this.routing = Preconditions.checkNotNull(routing);
+        this.randomStreams = Preconditions.checkNotNull(randomStreams);
         this.serviceProviders = serviceProviders;
 
         if (consumption != null) {
             fuelModelFactory.add(consumption.getConsumptionModels());
         }
 
-        initialize(simulationTimestep, vehPrototypes.getVehiclePrototypeConfiguration(), consumption);
+        initialize(simulationTimestep, vehPrototypes.getVehiclePrototypeConfiguration(), consumption,
+                vehPrototypes.isFastMath());
         if (vehPrototypes.isSetWriteFundDiagrams() && vehPrototypes.isWriteFundDiagrams()) {
             writeFundamentalDiagrams(simulationTimestep);
         }
@@ -55,17 +66,19 @@ public final class VehicleFactory {
     // set route explicitly, e.g. in microscopic initial or boundary conditions
     public Vehicle create(VehicleType vehicleType, @Nullable Route route) {
         VehiclePrototype prototype = getPrototype(vehicleType.getVehiclePrototypeLabel());
+        RandomStream random = randomStreams.vehicleStream();
         LongitudinalModelBase accelerationModel = prototype.createAccelerationModel();
+        accelerationModel.setRandomStream(random);
         accelerationModel.setRelativeRandomizationV0(vehicleType.getRelativeV0Randomization(),
                 vehicleType.getV0DistributionType());
         LaneChangeModel laneChangeModel = prototype.createLaneChangeModel();
 
-        Vehicle vehicle = new Vehicle(prototype.getLabel(), accelerationModel, prototype.getConfiguration(),
-                laneChangeModel);
+        Vehicle vehicle = new Vehicle(context.nextVehicleId(), prototype.getLabel(), accelerationModel,
+                prototype.getConfiguration(), laneChangeModel, random);
 
         vehicle.setRoute(route);
         vehicle.setMemory(prototype.createMemoryModel());
-        vehicle.setNoise(prototype.createAccNoiseModel());
+        vehicle.setNoise(prototype.createAccNoiseModel(random));
         vehicle.getEnergyModel().setModel(prototype.getEnergyFlowModel());
 
         if (prototype.getConfiguration().isSetPersonalNavigationDevice()) {
@@ -98,14 +111,14 @@ public final class VehicleFactory {
     }
 
     private void initialize(double simulationTimestep, List<VehiclePrototypeConfiguration> configurations,
-            @Nullable Consumption consumption) {
+            @Nullable Consumption consumption, boolean fastMath) {
         for (VehiclePrototypeConfiguration typeConfig : configurations) {
             if (vehiclePrototypes.containsKey(typeConfig.getLabel())) {
                 throw new IllegalArgumentException(
                         "ambiguous vehicle prototype definition: prototype with label=\"" + typeConfig.getLabel()
                                 + "\" already exists.");
             }
-            VehiclePrototype vehiclePrototype = new VehiclePrototype(simulationTimestep, typeConfig);
+            VehiclePrototype vehiclePrototype = new VehiclePrototype(simulationTimestep, typeConfig, fastMath);
             if (typeConfig.isSetConsumptionModelName()) {
                 String consumptionModelName = typeConfig.getConsumptionModelName();
                 if (!fuelModelFactory.hasModel(consumptionModelName)) {
@@ -139,7 +152,7 @@ public final class VehicleFactory {
         LOG.info("write fundamental diagrams but ignore label {}.", ignoreLabel);
         for (VehiclePrototype vehiclePrototype : vehiclePrototypes.values()) {
             if (!ignoreLabel.equalsIgnoreCase(vehiclePrototype.getLabel())) {
-                FileFundamentalDiagram.writeToFile(simulationTimestep, vehiclePrototype);
+                FileFundamentalDiagram.writeToFile(context, simulationTimestep, vehiclePrototype);
             }
         }
     }
@@ -149,7 +162,7 @@ public final class VehicleFactory {
         LOG.info("write acceleration function but ignore label {}.", ignoreLabel);
         for (VehiclePrototype vehiclePrototype : vehiclePrototypes.values()) {
             if (!ignoreLabel.equalsIgnoreCase(vehiclePrototype.getLabel())) {
-                FileAccelerationFunctions.writeToFile(simulationTimestep, vehiclePrototype);
+                FileAccelerationFunctions.writeToFile(context, simulationTimestep, vehiclePrototype);
             }
         }
 
@@ -9,6 +9,7 @@ import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.EquilibriumP
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.EquilibriumPropertiesImpl;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelBase;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelFactory;
+import org.movsim.utilities.RandomStream;
 
 import com.google.common.base.Preconditions;
 
@@ -22,12 +23,17 @@ class VehiclePrototype {
 
     private final double simulationTimestep;
 
-    VehiclePrototype(double simulationTimestep, VehiclePrototypeConfiguration configuration) {
+    /** shared by all vehicles of this prototype, see {@link LongitudinalModelBase#newInstance()} */
+    private final LongitudinalModelBase longitudinalModel;
+
+    VehiclePrototype(double simulationTimestep, VehiclePrototypeConfiguration configuration, boolean fastMath) {
         Preconditions.checkNotNull(configuration);
         this.configuration = configuration;
         this.simulationTimestep = simulationTimestep;
-        LongitudinalModelBase longModel = createAccelerationModel();
-        equiProperties = new EquilibriumPropertiesImpl(getLength(), longModel);
+        this.longitudinalModel = LongitudinalModelFactory.create(getLength(),
+                configuration.getAccelerationModelType(), simulationTimestep);
+        longitudinalModel.setFastMath(fastMath);
+        equiProperties = new EquilibriumPropertiesImpl(getLength(), longitudinalModel);
     }
 
     double getLength() {
@@ -51,8 +57,9 @@ class VehiclePrototype {
     }
 
     LongitudinalModelBase createAccelerationModel() {
-        return LongitudinalModelFactory.create(getLength(), configuration.getAccelerationModelType(),
-                simulationTimestep);
+        LongitudinalModelBase model = longitudinalModel.newInstance();
+        model.setFastMath(longitudinalModel.isFastMath());
+        return model;
     }
 
     LaneChangeModel createLaneChangeModel() {
@@ -61,8 +68,8 @@ class VehiclePrototype {
                 configuration.getLaneChangeModelType()) : null;
     }
 
-    Noise createAccNoiseModel() {
-        return configuration.isSetNoiseParameter() ? new Noise(configuration.getNoiseParameter()) : null;
+    Noise createAccNoiseModel(RandomStream random) {
+        return configuration.isSetNoiseParameter() ? new Noise(configuration.getNoiseParameter(), random) : null;
     }
 
     Memory createMemoryModel() {
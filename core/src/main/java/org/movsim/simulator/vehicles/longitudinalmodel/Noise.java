@@ -26,7 +26,7 @@
 package org.movsim.simulator.vehicles.longitudinalmodel;
 
 import org.movsim.autogen.NoiseParameter;
-import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.RandomStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,7 +67,10 @@ public class Noise {
     /** The xi acc as dynamic state variable (output) */
     private double xiAcc;
 
-    public Noise(NoiseParameter parameters) {
+    private final RandomStream random;
+
+    public Noise(NoiseParameter parameters, RandomStream random) {
+        this.random = random;
         xiAcc = 0;
         fluctStrength = parameters.getFluctStrength();
         tauRelaxAcc = parameters.getTau();
@@ -104,8 +107,8 @@ public class Noise {
      * 
      * @return random variable realization
      */
-    private static double getUniformlyDistributedRealization() {
-        final double randomVar = MyRandom.nextDouble();
+    private double getUniformlyDistributedRealization() {
+        final double randomVar = random.nextDouble();
         final double randomMu0Sigma1 = SQRT12 * (randomVar - 0.5);
         return randomMu0Sigma1;
     }
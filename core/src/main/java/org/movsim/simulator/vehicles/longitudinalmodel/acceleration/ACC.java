@@ -27,6 +27,7 @@ package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameterACC;
+import org.movsim.utilities.FastMath;
 
 // TODO: Auto-generated Javadoc
 
@@ -48,9 +49,31 @@ class ACC extends LongitudinalModelBase {
 
     private final IModelParameterACC param;
 
+    // parameters compiled at construction, the acceleration function does not call the (boxing) parameter getters
+    private final double T;
+    private final double a;
+    private final double b;
+    private final double s1;
+    private final double delta;
+    private final double coolness;
+    /** sqrt(a*b) */
+    private final double sqrtAB;
+
     public ACC(IModelParameterACC modelParameter) {
-        super(ModelName.ACC);
+        super(ModelName.ACC, modelParameter);
         this.param = modelParameter;
+        this.T = modelParameter.getT();
+        this.a = modelParameter.getA();
+        this.b = modelParameter.getB();
+        this.s1 = modelParameter.getS1();
+        this.delta = modelParameter.getDelta();
+        this.coolness = modelParameter.getCoolness();
+        this.sqrtAB = Math.sqrt(a * b);
+    }
+
+    @Override
+    public LongitudinalModelBase newInstance() {
+        return new ACC(param);
     }
 
     @Override
@@ -70,21 +93,21 @@ class ACC extends LongitudinalModelBase {
 
         // space dependencies modeled by speedlimits, alpha's
 
-        final double Tlocal = alphaT * param.getT();
+        final double Tlocal = alphaT * T;
         // if(alphaT!=1){
         // System.out.printf("calcAcc: pos=%.2f, speed=%.2f, alphaT=%.3f, alphaV0=%.3f, T=%.3f, Tlocal=%.3f \n",
         // me.getPosition(), me.getSpeed(), alphaT, alphaV0, T, Tlocal);
         // }
         // consider external speedlimit
         final double v0Local = Math.min(alphaV0 * getDesiredSpeed(), me.getEffectiveSpeedlimit());
-        final double aLocal = alphaA * param.getA();
+        final double aLocal = alphaA * a;
 
         return acc(s, v, dv, aLead, Tlocal, v0Local, aLocal);
     }
 
     @Override
     public double calcAccSimple(double s, double v, double dv) {
-        return acc(s, v, dv, 0, param.getT(), getDesiredSpeed(), param.getA());
+        return acc(s, v, dv, 0, T, getDesiredSpeed(), a);
     }
 
     // Implementation of ACC model with improved IDM (IIDM)
@@ -113,13 +136,12 @@ class ACC extends LongitudinalModelBase {
             return 0;
         }
 
+        final double sqrtAB = aLocal == a ? this.sqrtAB : Math.sqrt(aLocal * b);
         final double sstar = getMinimumGap()
-                + Math.max(
-                        TLocal * v + param.getS1() * Math.sqrt((v + 0.00001) / v0Local) + 0.5 * v * dv
-                                / Math.sqrt(aLocal * param.getB()), 0.);
+                + Math.max(TLocal * v + s1 * Math.sqrt((v + 0.00001) / v0Local) + 0.5 * v * dv / sqrtAB, 0.);
         final double z = sstar / Math.max(s, 0.01);
-        final double accEmpty = (v <= v0Local) ? aLocal * (1 - Math.pow((v / v0Local), param.getDelta())) : -param
-                .getB() * (1 - Math.pow((v0Local / v), aLocal * param.getDelta() / param.getB()));
+        final double accEmpty = (v <= v0Local) ? aLocal * (1 - powDelta(v / v0Local)) : -b
+                * (1 - Math.pow((v0Local / v), aLocal * delta / b));
         final double accPos = accEmpty * (1. - Math.pow(z, Math.min(2 * aLocal / accEmpty, 100.)));
         final double accInt = aLocal * (1 - z * z);
 
@@ -137,9 +159,17 @@ class ACC extends LongitudinalModelBase {
 
         // ACC with IIDM
 
-        final double accACC_IIDM = (accIIDM > accCAH) ? accIIDM : (1 - param.getCoolness()) * accIIDM
-                + param.getCoolness() * (accCAH + param.getB() * Math.tanh((accIIDM - accCAH) / param.getB()));
+        final double accACC_IIDM = (accIIDM > accCAH) ? accIIDM : (1 - coolness) * accIIDM + coolness
+                * (accCAH + b * tanh((accIIDM - accCAH) / b));
 
         return accACC_IIDM;
     }
+
+    private double powDelta(double x) {
+        return fastMath ? FastMath.pow(x, delta) : Math.pow(x, delta);
+    }
+
+    private double tanh(double x) {
+        return fastMath ? FastMath.tanh(x) : Math.tanh(x);
+    }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
+
+import org.movsim.simulator.roadnetwork.LaneArrays;
+
+/**
+ * Longitudinal model with an array kernel, which calculates the accelerations of consecutive vehicles of a lane in a
+ * single call, see {@link LaneArrays}.
+ */
+public interface ArrayKernelModel {
+
+    /**
+     * Returns the desired speed of the model parameters.
+     *
+     * @return the desired speed, m/s
+     */
+    double getDesiredSpeed();
+
+    /**
+     * Returns the key of the parameters used by the array kernel. Vehicles whose models have the same class and key are
+     * calculated by a single kernel call, so all parameters which differ between such models must be taken from the
+     * {@link LaneArrays}.
+     *
+     * @return the parameter set of the model
+     */
+    Object arrayKernelKey();
+
+    /**
+     * Array kernel: calculates the accelerations in the own lane, that is {@code calcAcc(me, frontVehicle, alphaT,
+     * alphaV0, 1)}, of the vehicles with index from (inclusive) to (exclusive) of the lane arrays and stores them in
+     * {@link LaneArrays#accInOwnLane()}. The models of these vehicles have the same {@link #arrayKernelKey()}.
+     *
+     * @param lane
+     * @param from
+     * @param to
+     */
+    void calcAccelerations(LaneArrays lane, int from, int to);
+}
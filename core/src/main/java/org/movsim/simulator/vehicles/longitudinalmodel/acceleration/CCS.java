@@ -48,11 +48,16 @@ public class CCS extends LongitudinalModelBase {
      * @param vehLength
      */
     public CCS(IModelParameterCCS modelParameter, double vehLength) {
-        super(ModelName.CCS);
+        super(ModelName.CCS, modelParameter);
         this.param = modelParameter;
         this.length = vehLength;
     }
 
+    @Override
+    public LongitudinalModelBase newInstance() {
+        return new CCS(param, length);
+    }
+
     /**
      * make (mis)use of randomization factor intended for desired speed.
      */
@@ -26,6 +26,7 @@
 package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 
 import org.movsim.autogen.DistributionTypeEnum;
+import org.movsim.simulator.roadnetwork.LaneArrays;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameterGipps;
 import org.slf4j.Logger;
@@ -45,7 +46,7 @@ import org.slf4j.LoggerFactory;
  * <li>b</li>
  * </ul>
  */
-class Gipps extends LongitudinalModelBase {
+class Gipps extends LongitudinalModelBase implements ArrayKernelModel {
 
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(Gipps.class);
@@ -54,10 +55,24 @@ class Gipps extends LongitudinalModelBase {
 
     private final double parameterT;
 
+    // parameters compiled at construction, the acceleration function does not call the parameter getters
+    private final double a;
+    private final double b;
+    /** b*b */
+    private final double bSquare;
+
     Gipps(double simulationTimestep, IModelParameterGipps modelParameter) {
-        super(ModelName.GIPPS);
+        super(ModelName.GIPPS, modelParameter);
         this.parameterT = simulationTimestep;
         this.param = modelParameter;
+        this.a = modelParameter.getA();
+        this.b = modelParameter.getB();
+        this.bSquare = b * b;
+    }
+
+    @Override
+    public LongitudinalModelBase newInstance() {
+        return new Gipps(parameterT, param);
     }
 
     @Override
@@ -94,6 +109,37 @@ class Gipps extends LongitudinalModelBase {
         return acc(s, v, dv, getDesiredSpeed(), parameterT);
     }
 
+    @Override
+    public Object arrayKernelKey() {
+        return getParameter();
+    }
+
+    @Override
+    public void calcAccelerations(LaneArrays lane, int from, int to) {
+        final double[] netDistance = lane.netDistance();
+        final double[] speed = lane.speed();
+        final double[] relSpeed = lane.relSpeed();
+        final double[] alphaT = lane.alphaT();
+        final double[] desiredSpeed = lane.desiredSpeed();
+        final double[] speedlimit = lane.speedlimit();
+        final double[] accInOwnLane = lane.accInOwnLane();
+        // parameters shared by all vehicles of the run, same calculation as acc(...)
+        final double a = this.a;
+        final double b = this.b;
+        final double bSquare = this.bSquare;
+        final double s0 = getMinimumGap();
+        for (int i = from; i < to; ++i) {
+            final double v = speed[i];
+            final double vp = v - relSpeed[i];
+            final double v0Local = Math.min(desiredSpeed[i], speedlimit[i]);
+            final double TLocal = alphaT[i] * parameterT;
+            final double vSafe = -b * TLocal
+                    + Math.sqrt(bSquare * TLocal * TLocal + vp * vp + 2 * b * Math.max(netDistance[i] - s0, 0.));
+            final double vNew = Math.min(vSafe, Math.min(v + a * TLocal, v0Local));
+            accInOwnLane[i] = (vNew - v) / TLocal;
+        }
+    }
+
     /**
      * Acc.
      * 
@@ -112,10 +158,8 @@ class Gipps extends LongitudinalModelBase {
     private double acc(double s, double v, double dv, double v0Local, double TLocal) {
         final double vp = v - dv;
         // safe speed
-        final double a = param.getA();
-        final double b = param.getB();
         final double vSafe = -b * TLocal
-                + Math.sqrt(b * b * TLocal * TLocal + vp * vp + 2 * b * Math.max(s - getMinimumGap(), 0.));
+                + Math.sqrt(bSquare * TLocal * TLocal + vp * vp + 2 * b * Math.max(s - getMinimumGap(), 0.));
         final double vNew = Math.min(vSafe, Math.min(v + a * TLocal, v0Local));
         final double aWanted = (vNew - v) / TLocal;
         return aWanted;
@@ -26,8 +26,10 @@
 package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 
 import org.movsim.autogen.ModelParameterIDM;
+import org.movsim.simulator.roadnetwork.LaneArrays;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameterIDM;
+import org.movsim.utilities.FastMath;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,16 +59,36 @@ import org.slf4j.LoggerFactory;
  * </ul>
  */
 // TODO reduce visibility
-public class IDM extends LongitudinalModelBase {
+public class IDM extends LongitudinalModelBase implements ArrayKernelModel {
 
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(IDM.class);
 
     private final IModelParameterIDM param;
 
+    // parameters compiled at construction, the acceleration function does not call the (boxing) parameter getters
+    private final double T;
+    private final double a;
+    private final double b;
+    private final double s1;
+    private final double delta;
+    /** sqrt(a*b) */
+    private final double sqrtAB;
+
     IDM(IModelParameterIDM parameters) {
-        super(ModelName.IDM);
+        super(ModelName.IDM, parameters);
         this.param = parameters;
+        this.T = parameters.getT();
+        this.a = parameters.getA();
+        this.b = parameters.getB();
+        this.s1 = parameters.getS1();
+        this.delta = parameters.getDelta();
+        this.sqrtAB = Math.sqrt(a * b);
+    }
+
+    @Override
+    public LongitudinalModelBase newInstance() {
+        return new IDM(param);
     }
 
     /**
@@ -86,8 +108,7 @@ public class IDM extends LongitudinalModelBase {
      *         gap parameter, meters
      */
     public IDM(double v0, double a, double b, double T, double s0, double s1) {
-        super(ModelName.IDM);
-        this.param = create(v0, a, b, T, s0, s1);
+        this(create(v0, a, b, T, s0, s1));
     }
 
     private static ModelParameterIDM create(double v0, double a, double b, double T, double s0, double s1) {
@@ -112,7 +133,7 @@ public class IDM extends LongitudinalModelBase {
 
         // space dependencies modeled by speedlimits, alpha's
 
-        final double localT = alphaT * param.getT();
+        final double localT = alphaT * T;
         // consider external speedlimit
         final double localV0;
         if (me.getEffectiveSpeedlimit() != 0.0) {
@@ -120,14 +141,49 @@ public class IDM extends LongitudinalModelBase {
         } else {
             localV0 = alphaV0 * getDesiredSpeed();
         }
-        final double localA = alphaA * param.getA();
+        final double localA = alphaA * a;
 
         return acc(s, v, dv, localT, localV0, localA);
     }
 
     @Override
     public double calcAccSimple(double s, double v, double dv) {
-        return acc(s, v, dv, param.getT(), param.getV0(), param.getA());
+        return acc(s, v, dv, T, param.getV0(), a);
+    }
+
+    @Override
+    public Object arrayKernelKey() {
+        return getParameter();
+    }
+
+    @Override
+    public void calcAccelerations(LaneArrays lane, int from, int to) {
+        final double[] netDistance = lane.netDistance();
+        final double[] speed = lane.speed();
+        final double[] relSpeed = lane.relSpeed();
+        final double[] alphaT = lane.alphaT();
+        final double[] desiredSpeed = lane.desiredSpeed();
+        final double[] speedlimit = lane.speedlimit();
+        final double[] accInOwnLane = lane.accInOwnLane();
+        // parameters shared by all vehicles of the run, same calculation as acc(...)
+        final double T = this.T;
+        final double a = this.a;
+        final double s0 = getMinimumGap();
+        final double sqrtAB = this.sqrtAB;
+        for (int i = from; i < to; ++i) {
+            final double v0Local = speedlimit[i] != 0.0 ? Math.min(desiredSpeed[i], speedlimit[i]) : desiredSpeed[i];
+            if (v0Local == 0.0) {
+                accInOwnLane[i] = 0.0;
+                continue;
+            }
+            final double s = netDistance[i];
+            final double v = speed[i];
+            double sstar = s0 + alphaT[i] * T * v + gapTerm(v, v0Local) + (0.5 * v * relSpeed[i]) / sqrtAB;
+            if (sstar < s0) {
+                sstar = s0;
+            }
+            accInOwnLane[i] = a * (1.0 - powDelta(v / v0Local) - (sstar / s) * (sstar / s));
+        }
     }
 
     /**
@@ -154,19 +210,37 @@ public class IDM extends LongitudinalModelBase {
         }
 
         final double s0 = getMinimumGap();
-        double sstar = s0 + TLocal * v + param.getS1() * Math.sqrt((v + 0.0001) / v0Local) + (0.5 * v * dv) / Math
-                .sqrt(aLocal * param.getB());
+        final double sqrtAB = aLocal == a ? this.sqrtAB : Math.sqrt(aLocal * b);
+        double sstar = s0 + TLocal * v + gapTerm(v, v0Local) + (0.5 * v * dv) / sqrtAB;
 
         if (sstar < s0) {
             sstar = s0;
         }
 
-        final double aWanted = aLocal * (1.0 - Math.pow((v / v0Local), param.getDelta()) - (sstar / s) * (sstar / s));
+        final double aWanted = aLocal * (1.0 - powDelta(v / v0Local) - (sstar / s) * (sstar / s));
 
         LOG.debug("aWanted = {}", aWanted);
         return aWanted; // limit to -bMax in Vehicle
     }
 
+    /**
+     * Returns the s1 contribution to the dynamic desired gap. The fast-math mode skips the square root for the usual
+     * s1=0, which gives the same result.
+     */
+    private double gapTerm(double v, double v0Local) {
+        if (fastMath && s1 == 0.0) {
+            return 0.0;
+        }
+        return s1 * Math.sqrt((v + 0.0001) / v0Local);
+    }
+
+    /**
+     * Returns x^delta, in the fast-math mode with repeated multiplication for integer delta.
+     */
+    private double powDelta(double x) {
+        return fastMath ? FastMath.pow(x, delta) : Math.pow(x, delta);
+    }
+
     @Override
     protected IModelParameterIDM getParameter() {
         return param;
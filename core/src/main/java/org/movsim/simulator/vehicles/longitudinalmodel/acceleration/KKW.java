@@ -28,7 +28,6 @@ package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 import org.movsim.autogen.DistributionTypeEnum;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameterKKW;
-import org.movsim.utilities.MyRandom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,11 +63,16 @@ class KKW extends LongitudinalModelBase {
      * @param vehLength
      */
     public KKW(IModelParameterKKW modelParameter, double vehLength) {
-        super(ModelName.KKW);
+        super(ModelName.KKW, modelParameter);
         this.length = vehLength; // model parameter!
         this.param = modelParameter;
     }
 
+    @Override
+    public LongitudinalModelBase newInstance() {
+        return new KKW(param, length);
+    }
+
     @Override
     public void setRelativeRandomizationV0(double relRandomizationFactor, DistributionTypeEnum distributionType) {
         // no modification of desired speed by randomization.
@@ -131,7 +135,7 @@ class KKW extends LongitudinalModelBase {
         vtilde = Math.max(0, vtilde);
 
         // stochastic part
-        final double r1 = MyRandom.nextDouble(); // noise terms ~ G(0,1)
+        final double r1 = random().nextDouble(); // noise terms ~ G(0,1)
         final int xi = (r1 < pb) ? -1 : (r1 < pb + pa) ? 1 : 0;
 
         int vNew = 0;
@@ -27,7 +27,6 @@ package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameterKrauss;
-import org.movsim.utilities.MyRandom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +50,11 @@ class Krauss extends LongitudinalModelBase {
 
     private final IModelParameterKrauss param;
 
+    // parameters compiled at construction, the acceleration function does not call the parameter getters
+    private final double a;
+    private final double b;
+    private final double epsilon;
+
     /**
      * The dimensionless epsilon has similar effects as the braking probability of the Nagel-Schreckenberg cellular
      * automaton default value 0.4 (PRE) or 1 (EPJB)
@@ -63,9 +67,17 @@ class Krauss extends LongitudinalModelBase {
      *            the parameters
      */
     Krauss(double simulationTimestep, IModelParameterKrauss parameters) {
-        super(ModelName.KRAUSS);
+        super(ModelName.KRAUSS, parameters);
         this.T = simulationTimestep;
         this.param = parameters;
+        this.a = parameters.getA();
+        this.b = parameters.getB();
+        this.epsilon = parameters.getEpsilon();
+    }
+
+    @Override
+    public LongitudinalModelBase newInstance() {
+        return new Krauss(T, param);
     }
 
     @Override
@@ -109,14 +121,13 @@ class Krauss extends LongitudinalModelBase {
          * model. The complicated formula considers effects of finite dt; this is treated uniformly for all models in
          * our update routine, so it is not necessary here. Therefore the simple Gipps vSafe formula is chosen
          */
-        final double b = param.getB();
         final double vSafe = -b * TLocal
                 + Math.sqrt(b * b * TLocal * TLocal + vp * vp + 2 * b * Math.max(s - getMinimumGap(), 0.));
 
         /**
          * vUpper =upper limit of new speed (denoted v1 in PRE) corresponds to vNew of the Gipps model
          */
-        final double vUpper = Math.min(vSafe, Math.min(v + param.getA() * TLocal, v0Local));
+        final double vUpper = Math.min(vSafe, Math.min(v + a * TLocal, v0Local));
 
         // The Krauss model is essentially the Gipps model with the following
         // three additional code lines
@@ -126,8 +137,8 @@ class Krauss extends LongitudinalModelBase {
          * applied. Notice that vLower may be > vUpper in some cut-in situations: these inconsistencies were not
          * recognized/treated in the PRE publication
          */
-        final double vLower = (1 - param.getEpsilon()) * vUpper + param.getEpsilon() * Math.max(0, (v - b * TLocal));
-        final double r = MyRandom.nextDouble(); // instance of uniform(0,1) distribution
+        final double vLower = (1 - epsilon) * vUpper + epsilon * Math.max(0, (v - b * TLocal));
+        final double r = random().nextDouble(); // instance of uniform(0,1) distribution
         final double vNew = vLower + r * (vUpper - vLower);
         final double aWanted = (vNew - v) / TLocal;
 
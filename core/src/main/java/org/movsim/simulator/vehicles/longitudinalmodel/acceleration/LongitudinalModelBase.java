@@ -29,7 +29,8 @@ import org.movsim.autogen.DistributionTypeEnum;
 import org.movsim.simulator.roadnetwork.LaneSegment;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameter;
-import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.FastMath;
+import org.movsim.utilities.RandomStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -103,10 +104,22 @@ public abstract class LongitudinalModelBase {
     protected final ModelName modelName;
     private final double scalingLength;
     protected double v0RandomizationFactor = 1;
+    private RandomStream random;
 
-    protected LongitudinalModelBase(ModelName modelName) {
+    /** desired speed and minimum gap of the parameters, read once at construction */
+    private final double v0;
+    private final double s0;
+    /** randomized desired speed, v0RandomizationFactor * v0 */
+    private double desiredSpeed;
+    /** use the approximations of {@link FastMath} in the acceleration function */
+    protected boolean fastMath;
+
+    protected LongitudinalModelBase(ModelName modelName, IModelParameter parameter) {
         this.modelName = modelName;
         this.scalingLength = ScalingHelper.getScalingLength(modelName);
+        this.v0 = parameter.getV0();
+        this.s0 = parameter.getS0();
+        this.desiredSpeed = v0;
     }
 
     /**
@@ -164,7 +177,7 @@ public abstract class LongitudinalModelBase {
      * @return the desired speed (m/s)
      */
     public double getDesiredSpeed() {
-        return v0RandomizationFactor * getParameter().getV0();
+        return desiredSpeed;
     }
 
     public boolean hasDesiredSpeed() {
@@ -185,7 +198,7 @@ public abstract class LongitudinalModelBase {
      * @return the minimum gap (m)
      */
     public double getMinimumGap() {
-        return getParameter().getS0();
+        return s0;
     }
 
     public boolean hasMinimumGap() {
@@ -199,6 +212,53 @@ public abstract class LongitudinalModelBase {
 
     protected abstract IModelParameter getParameter();
 
+    /**
+     * Switches the acceleration function to the approximations of {@link FastMath} (integer exponents by repeated
+     * multiplication, tabulated tanh and Gaussian density). Models without such approximations ignore this setting.
+     * 
+     * @param fastMath
+     */
+    public void setFastMath(boolean fastMath) {
+        this.fastMath = fastMath;
+    }
+
+    public boolean isFastMath() {
+        return fastMath;
+    }
+
+    /**
+     * Creates a new model instance for another vehicle of the same prototype. The instance shares the immutable model
+     * parameters and precomputed data (e.g. tabulated functions) with this model, the per-vehicle state like the
+     * randomized desired speed and the random stream are not copied.
+     * 
+     * @return the new model instance
+     */
+    public abstract LongitudinalModelBase newInstance();
+
+    /**
+     * Sets the random stream for the stochastic elements of the model. Normally the stream of the vehicle the model is
+     * assigned to.
+     * 
+     * @param random
+     *            the random stream
+     */
+    public void setRandomStream(RandomStream random) {
+        this.random = Preconditions.checkNotNull(random);
+    }
+
+    /**
+     * Returns the random stream of the model. Models which are not assigned to a vehicle (e.g. for calculating the
+     * fundamental diagram) use a fixed seed.
+     * 
+     * @return the random stream
+     */
+    protected final RandomStream random() {
+        if (random == null) {
+            random = new RandomStream(0);
+        }
+        return random;
+    }
+
     /**
      * Sets the relative randomization v0.
      * 
@@ -210,11 +270,12 @@ public abstract class LongitudinalModelBase {
      */
     public void setRelativeRandomizationV0(double relRandomizationFactor, DistributionTypeEnum distributionType) {
         if (distributionType == DistributionTypeEnum.GAUSSIAN) {
-            v0RandomizationFactor = MyRandom.getGaussiansDistributedRandomizedFactor(relRandomizationFactor, 3);
+            v0RandomizationFactor = random().getGaussiansDistributedRandomizedFactor(relRandomizationFactor, 3);
         } else {
-            v0RandomizationFactor = MyRandom.getUniformlyDistributedRandomizedFactor(relRandomizationFactor);
+            v0RandomizationFactor = random().getUniformlyDistributedRandomizedFactor(relRandomizationFactor);
         }
         Preconditions.checkArgument(v0RandomizationFactor > 0, "relative v0 randomization factor must be > 0");
+        desiredSpeed = v0RandomizationFactor * v0;
         LOG.debug("randomization (of type={}) of desired speeds with randomization factor=", distributionType,
                 v0RandomizationFactor);
     }
@@ -246,6 +307,25 @@ public abstract class LongitudinalModelBase {
 
         // calculate normal acceleration in own lane
         final double accInOwnLane = calcAcc(me, laneSegment, alphaT, alphaV0, alphaA);
+        return calcAccEur(vCritEur, me, leftLaneSegment, alphaT, alphaV0, alphaA, accInOwnLane);
+    }
+
+    /**
+     * Calculates the acceleration according to European rules (see
+     * {@link #calcAccEur(double, Vehicle, LaneSegment, LaneSegment, double, double, double)}) for a given acceleration in
+     * the own lane, e.g. calculated by the array kernel.
+     * 
+     * @param vCritEur
+     * @param me
+     * @param leftLaneSegment
+     * @param alphaT
+     * @param alphaV0
+     * @param alphaA
+     * @param accInOwnLane
+     * @return the acceleration of vehicle me
+     */
+    public double calcAccEur(double vCritEur, Vehicle me, LaneSegment leftLaneSegment, double alphaT, double alphaV0,
+            double alphaA, double accInOwnLane) {
 
         // no lane on left-hand side
         if (leftLaneSegment == null) {
@@ -28,7 +28,6 @@ package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 import org.movsim.autogen.DistributionTypeEnum;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameterNSM;
-import org.movsim.utilities.MyRandom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,10 +53,15 @@ class NSM extends LongitudinalModelBase {
      * @param modelParameter
      */
     public NSM(IModelParameterNSM modelParameter) {
-        super(ModelName.NSM);
+        super(ModelName.NSM, modelParameter);
         this.param = modelParameter;
     }
 
+    @Override
+    public LongitudinalModelBase newInstance() {
+        return new NSM(param);
+    }
+
     @Override
     public void setRelativeRandomizationV0(double relRandomizationFactor, DistributionTypeEnum distributionType) {
         // no modification of desired speed by randomization.
@@ -111,7 +115,7 @@ class NSM extends LongitudinalModelBase {
         final int vLocal = (int) (v + 0.5);
         int vNew = 0;
 
-        final double r1 = MyRandom.nextDouble();
+        final double r1 = random().nextDouble();
         final double pb = (vLocal < 1) ? param.getPSlowStart() : param.getPSlowdown();
         final int slowdown = (r1 < pb) ? 1 : 0;
 
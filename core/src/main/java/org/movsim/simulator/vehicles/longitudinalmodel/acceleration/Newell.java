@@ -44,11 +44,16 @@ class Newell extends LongitudinalModelBase {
      * @param modelParameter
      */
     public Newell(double simulationTimestep, IModelParameterNewell modelParameter) {
-        super(ModelName.NEWELL);
+        super(ModelName.NEWELL, modelParameter);
         this.dt = simulationTimestep;
         this.param = modelParameter;
     }
 
+    @Override
+    public LongitudinalModelBase newInstance() {
+        return new Newell(dt, param);
+    }
+
     @Override
     public double calcAcc(Vehicle me, Vehicle frontVehicle, double alphaT, double alphaV0, double alphaA) {
 
@@ -29,6 +29,7 @@ import org.movsim.autogen.OptimalVelocityFunctionEnum;
 import org.movsim.simulator.MovsimConstants;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameterOVMFVDM;
+import org.movsim.utilities.FastMath;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,15 +56,37 @@ class OVM_FVDM extends LongitudinalModelBase {
 
     private final IModelParameterOVMFVDM param;
 
+    // parameters compiled at construction, the acceleration function does not call the parameter getters
+    private final OptimalVelocityFunctionEnum variant;
+    private final double transitionWidth;
+    private final double beta;
+    private final double tau;
+    private final double gamma;
+    /** 1 + tanh(beta), scaling of the Bando function */
+    private final double onePlusTanhBeta;
+    /** tanh(-beta) */
+    private final double tanhMinusBeta;
+
     /**
      * Instantiates a new OVM = Optimal-Velocity Model or FVDM = Full-Velocity-Difference Model
      * 
      * @param modelParameter
      */
     public OVM_FVDM(IModelParameterOVMFVDM modelParameter) {
-        super(ModelName.OVM_FVDM);
+        super(ModelName.OVM_FVDM, modelParameter);
         this.param = modelParameter;
+        this.variant = modelParameter.getOptimalSpeedFunction();
+        this.transitionWidth = modelParameter.getTransitionWidth();
+        this.beta = modelParameter.getBeta();
+        this.tau = modelParameter.getTau();
+        this.gamma = modelParameter.getGamma();
+        this.onePlusTanhBeta = 1.0 + Math.tanh(beta);
+        this.tanhMinusBeta = Math.tanh(-beta);
+    }
 
+    @Override
+    public LongitudinalModelBase newInstance() {
+        return new OVM_FVDM(param);
     }
 
     @Override
@@ -103,27 +126,24 @@ class OVM_FVDM extends LongitudinalModelBase {
      */
     private double acc(double s, double v, double dv, double alphaT, double v0Local) {
 
-        final double transitionWidthLoc = Math.max(1e-6, param.getTransitionWidth() * alphaT);
+        final double transitionWidthLoc = Math.max(1e-6, transitionWidth * alphaT);
 
         // final double betaLoc=beta*alpha_T;
-        final double betaLoc = param.getBeta();
+        final double betaLoc = beta;
 
         double vOptimal = 0;// optimal velocity
 
         final double s0 = getMinimumGap();
 
-        OptimalVelocityFunctionEnum variant = param.getOptimalSpeedFunction();
-
         if (variant == OptimalVelocityFunctionEnum.BANDO) {
             // standard OVM function (Bando model)
             // scale OVM/VDIFF so that v0 represents actual desired speed
-            final double v0Prev = v0Local / (1.0 + Math.tanh(betaLoc));
-            vOptimal = Math
-                    .max(v0Prev * (Math.tanh((s - s0) / transitionWidthLoc - betaLoc) - Math.tanh(-betaLoc)), 0.);
+            final double v0Prev = v0Local / onePlusTanhBeta;
+            vOptimal = Math.max(v0Prev * (tanh((s - s0) / transitionWidthLoc - betaLoc) - tanhMinusBeta), 0.);
             // LOG.debug("s = {}, vOpt = {}", s, vOpt);
         } else if (variant == OptimalVelocityFunctionEnum.TRIANGULAR) {
             // triangular OVM function
-            final double T = param.getBeta(); // interpret this as "time headway"
+            final double T = beta; // interpret this as "time headway"
             vOptimal = Math.max(Math.min((s - s0) / T, v0Local), 0.0);
         } else if (variant == OptimalVelocityFunctionEnum.THREEPHASE) {
             // "Three-phase" OVM function
@@ -134,14 +154,12 @@ class OVM_FVDM extends LongitudinalModelBase {
             vOptimal = (Tdyn > Tmax) ? Math.min((s - s0) / Tmax, v0Local) : (Tdyn > Tmin) ? Math.min(v, v0Local)
                     : (Tdyn > 0) ? Math.min((s - s0) / Tmin, v0Local) : 0;
         } else {
-            logger.error("cannot map to optimal velocity variant = {}", param.getOptimalSpeedFunction());
+            logger.error("cannot map to optimal velocity variant = {}", variant);
             // System.exit(-1); // TODO throw exception
         }
 
         // calc acceleration
         double aWanted = 0; // return value
-        final double tau = param.getTau();
-        final double gamma = param.getGamma();
         if (variant == OptimalVelocityFunctionEnum.BANDO) {
             // original VDIFF model, OVM: lambda == 0
             aWanted = (vOptimal - v) / tau - gamma * dv;
@@ -160,6 +178,10 @@ class OVM_FVDM extends LongitudinalModelBase {
         return aWanted;
     }
 
+    private double tanh(double x) {
+        return fastMath ? FastMath.tanh(x) : Math.tanh(x);
+    }
+
     @Override
     protected IModelParameterOVMFVDM getParameter() {
         return param;
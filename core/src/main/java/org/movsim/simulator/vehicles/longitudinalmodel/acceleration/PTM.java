@@ -5,8 +5,10 @@ import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.Noise;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameter;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameterPTM;
+import org.movsim.utilities.FastMath;
 import org.movsim.utilities.LinearInterpolatedFunction;
 import org.movsim.utilities.ProbabilityUtils;
+import org.movsim.utilities.RandomStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,7 +47,7 @@ class PTM extends LongitudinalModelBase {
     // double delta_dv=(dvmax-dvmin)/(n-1);
 
     PTM(double simulationTimestep, IModelParameterPTM parameters) {
-        super(ModelName.PTM);
+        super(ModelName.PTM, parameters);
         this.param = parameters;
         this.dt = simulationTimestep;
         init();
@@ -53,11 +55,37 @@ class PTM extends LongitudinalModelBase {
         initTables();
     }
 
+    /**
+     * Copy constructor which shares the parameters and the tabulated utility functions with {@code other}. The Wiener
+     * process is created anew for the vehicle.
+     */
+    private PTM(PTM other) {
+        super(ModelName.PTM, other.param);
+        this.param = other.param;
+        this.dt = other.dt;
+        this.delta = other.delta;
+        this.dw = other.dw;
+        this.uPTaFunction = other.uPTaFunction;
+        this.uPaaFunction = other.uPaaFunction;
+        initNoise();
+    }
+
+    @Override
+    public LongitudinalModelBase newInstance() {
+        return new PTM(this);
+    }
+
     private void initNoise() {
         NoiseParameter noiseParameter = new NoiseParameter();
         noiseParameter.setFluctStrength(1); // standard wiener process
         noiseParameter.setTau(param.getTauCorrelation());
-        wienerProcess = new Noise(noiseParameter);
+        wienerProcess = new Noise(noiseParameter, random());
+    }
+
+    @Override
+    public void setRandomStream(RandomStream random) {
+        super.setRandomStream(random);
+        initNoise();
     }
 
     private void init() {
@@ -176,7 +204,7 @@ class PTM extends LongitudinalModelBase {
         // two times Newton
 
         // first iteration (zstar from above)
-        double gaussDensity = ProbabilityUtils.getGaussDensity(zstar);
+        double gaussDensity = gaussDensity(zstar);
         double ua = get_uPTa(astar) - param.getWeightCrash() * gaussDensity * za; // U'(a)
         double uaa = get_uPTaa(astar) + param.getWeightCrash() * gaussDensity * zstar * za * za; // U'(a)
         astar = (uaa < 0) ? astar - ua / uaa : astar;
@@ -189,7 +217,7 @@ class PTM extends LongitudinalModelBase {
         // further iterations (zstar in recursion)
         for (int k = 1; k < 2; k++) {
             zstar = (dv + 0.5 * astar * tau - sloc / tau) / (alphaloc * v);
-            gaussDensity = ProbabilityUtils.getGaussDensity(zstar);
+            gaussDensity = gaussDensity(zstar);
             ua = get_uPTa(astar) - param.getWeightCrash() * gaussDensity * za; // U'(a)
             uaa = get_uPTaa(astar) + param.getWeightCrash() * gaussDensity * zstar * za * za; // U'(a)
             astar = (uaa < 0) ? astar - ua / uaa : astar;
@@ -233,6 +261,10 @@ class PTM extends LongitudinalModelBase {
         return Math.max(aWanted, -param.getBMax());
     }
 
+    private double gaussDensity(double z) {
+        return fastMath ? FastMath.gaussDensity(z) : ProbabilityUtils.getGaussDensity(z);
+    }
+
     private void initTables() {
         double[] uPTatab = new double[NTABMAX]; // tabulated d(U_PT)/da
         double[] uPTaatab = new double[NTABMAX]; // tabulated d^2(U_PT)/da^2
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.sweep;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.movsim.autogen.Movsim;
+import org.movsim.autogen.Sweep;
+import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
+import org.movsim.shutdown.ShutdownHooks;
+import org.movsim.simulator.Simulator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * Runs a simulation for each sample point of a {@link Sweep} definition on a bounded pool of worker threads.
+ * </p>
+ * <p>
+ * Each run gets its own copy of the input and its own {@link SimulationContext}. The file outputs configured in the
+ * scenario are written to a separate directory per run, the aggregated results of all runs to a single table in the
+ * output path.
+ * </p>
+ */
+public final class ParameterSweep {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParameterSweep.class);
+
+    /** number of inputs prepared in advance per worker thread */
+    private static final int INPUTS_PER_THREAD = 2;
+
+    private final Movsim baseInput;
+
+    private final ProjectMetaData projectMetaData;
+
+    private final Sweep sweep;
+
+    /**
+     * Constructor.
+     * 
+     * @param baseInput
+     *            the unmodified input, it is not changed by the sweep
+     * @param projectMetaData
+     *            the settings of the project, copied for each run
+     * @param sweep
+     *            the parameters and the design of the sweep
+     */
+    public ParameterSweep(Movsim baseInput, ProjectMetaData projectMetaData, Sweep sweep) {
+        this.baseInput = Preconditions.checkNotNull(baseInput);
+        this.projectMetaData = Preconditions.checkNotNull(projectMetaData);
+        this.sweep = Preconditions.checkNotNull(sweep);
+    }
+
+    /**
+     * Performs all runs and waits until they are finished.
+     * 
+     * @return the number of failed runs
+     * @throws InterruptedException
+     */
+    public int run() throws InterruptedException {
+        final List<double[]> samples = SweepDesign.samples(sweep);
+        final int threadCount = sweep.getThreads() > 0 ? sweep.getThreads()
+                : Runtime.getRuntime().availableProcessors();
+        LOG.info("parameter sweep with {} runs on {} threads", samples.size(), threadCount);
+
+        final SweepInputFactory inputFactory = new SweepInputFactory(baseInput, sweep.getSweepParameter());
+        final SweepResultsTable results = new SweepResultsTable(projectMetaData.getOutputPath(),
+                projectMetaData.getProjectName(), sweep.getSweepParameter());
+        final AtomicInteger failures = new AtomicInteger();
+        // limits the number of input copies held in memory
+        final Semaphore pending = new Semaphore(threadCount * INPUTS_PER_THREAD);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            for (int i = 0; i < samples.size(); i++) {
+                final int run = i;
+                final double[] sample = samples.get(i);
+                pending.acquire();
+                final Movsim input;
+                try {
+                    input = inputFactory.create(sample);
+                } catch (RuntimeException e) {
+                    pending.release();
+                    LOG.error("cannot create input of run=" + run, e);
+                    results.writeFailure(run, sample, e);
+                    failures.incrementAndGet();
+                    continue;
+                }
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            runSimulation(run, sample, input, results);
+                        } catch (RuntimeException | Error e) {
+                            LOG.error("run=" + run + " failed", e);
+                            results.writeFailure(run, sample, e);
+                            failures.incrementAndGet();
+                        } finally {
+                            pending.release();
+                        }
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+            results.onShutDown();
+        }
+        LOG.info("parameter sweep finished: {} runs, {} failed", samples.size(), failures.get());
+        return failures.get();
+    }
+
+    private void runSimulation(int run, double[] sample, Movsim input, SweepResultsTable results) {
+        long startMillis = System.currentTimeMillis();
+        SimulationContext context = createContext(run);
+        try {
+            Simulator simulator = new Simulator(input, context);
+            simulator.initialize();
+            simulator.runToCompletion();
+            results.write(run, sample, simulator.getRoadNetwork(), System.currentTimeMillis() - startMillis);
+        } finally {
+            // closes the writers and the output queue of the run also if it failed
+            ShutdownHooks shutdownHooks = context.getShutdownHooks();
+            shutdownHooks.onShutDown();
+            shutdownHooks.clear();
+            ShutdownHooks.INSTANCE.removeCallback(shutdownHooks);
+        }
+    }
+
+    private SimulationContext createContext(int run) {
+        ProjectMetaData runMetaData = new ProjectMetaData(projectMetaData);
+        File outputDir = new File(projectMetaData.getOutputPath(),
+                String.format("%s.sweep%srun_%04d", projectMetaData.getProjectName(), File.separator, run));
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IllegalStateException("cannot create output directory=" + outputDir);
+        }
+        runMetaData.setOutputPath(outputDir.getPath());
+        // the runs are parallelized, not the road segment updates within a run
+        runMetaData.setParallelThreads(1);
+        return new SimulationContext(runMetaData);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.sweep;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.movsim.autogen.Sweep;
+import org.movsim.autogen.SweepDesignEnum;
+import org.movsim.autogen.SweepParameter;
+import org.movsim.utilities.RandomStream;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Creates the sample points of a parameter sweep. A sample point holds one value for each {@link SweepParameter} in
+ * the order of their definition.
+ */
+final class SweepDesign {
+
+    /** relative tolerance when comparing the grid values with the upper bound */
+    private static final double TOLERANCE = 1e-9;
+
+    private SweepDesign() {
+        throw new IllegalStateException("do not instanciate");
+    }
+
+    static List<double[]> samples(Sweep sweep) {
+        Preconditions.checkArgument(sweep.isSetSweepParameter(), "sweep without parameters");
+        List<SweepParameter> parameters = sweep.getSweepParameter();
+        if (sweep.getDesign() == SweepDesignEnum.LATIN_HYPERCUBE) {
+            return latinHypercube(parameters, sweep.getSamples(), new RandomStream(sweep.getSeed()));
+        }
+        return grid(parameters);
+    }
+
+    /**
+     * Full factorial design, the first parameter varies slowest.
+     */
+    static List<double[]> grid(List<SweepParameter> parameters) {
+        List<double[]> samples = new ArrayList<>();
+        samples.add(new double[parameters.size()]);
+        for (int i = 0; i < parameters.size(); i++) {
+            List<double[]> extended = new ArrayList<>();
+            for (double[] sample : samples) {
+                for (double value : gridValues(parameters.get(i))) {
+                    double[] copy = sample.clone();
+                    copy[i] = value;
+                    extended.add(copy);
+                }
+            }
+            samples = extended;
+        }
+        return samples;
+    }
+
+    /**
+     * Values from min to max with the given step. The max value is always included, also if the range is not a multiple
+     * of the step.
+     */
+    static List<Double> gridValues(SweepParameter parameter) {
+        double min = parameter.getMin();
+        double max = parameter.getMax();
+        Preconditions.checkArgument(min <= max, "parameter=" + parameter.getName() + ": min > max");
+        List<Double> values = new ArrayList<>();
+        values.add(min);
+        if (max == min) {
+            return values;
+        }
+        Preconditions.checkArgument(parameter.isSetStep(), "parameter=" + parameter.getName() + ": grid needs a step");
+        double step = parameter.getStep();
+        double eps = TOLERANCE * step;
+        for (int i = 1; min + i * step < max - eps; i++) {
+            values.add(min + i * step);
+        }
+        values.add(max);
+        return values;
+    }
+
+    /**
+     * Latin hypercube design: the range of each parameter is divided into {@code sampleCount} strata of equal size and
+     * each stratum is sampled exactly once.
+     */
+    static List<double[]> latinHypercube(List<SweepParameter> parameters, int sampleCount, RandomStream random) {
+        Preconditions.checkArgument(sampleCount > 0);
+        List<double[]> samples = new ArrayList<>(sampleCount);
+        for (int k = 0; k < sampleCount; k++) {
+            samples.add(new double[parameters.size()]);
+        }
+        for (int i = 0; i < parameters.size(); i++) {
+            SweepParameter parameter = parameters.get(i);
+            Preconditions.checkArgument(parameter.getMin() <= parameter.getMax(),
+                    "parameter=" + parameter.getName() + ": min > max");
+            int[] strata = permutation(sampleCount, random);
+            double range = parameter.getMax() - parameter.getMin();
+            for (int k = 0; k < sampleCount; k++) {
+                samples.get(k)[i] = parameter.getMin() + range * (strata[k] + random.nextDouble()) / sampleCount;
+            }
+        }
+        return samples;
+    }
+
+    private static int[] permutation(int n, RandomStream random) {
+        int[] permutation = new int[n];
+        for (int i = 0; i < n; i++) {
+            permutation[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = tmp;
+        }
+        return permutation;
+    }
+}
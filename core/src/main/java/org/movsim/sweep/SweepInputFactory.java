@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.sweep;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.movsim.autogen.Movsim;
+import org.movsim.autogen.SweepParameter;
+import org.movsim.autogen.SweepTarget;
+import org.movsim.xml.InputLoader;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Creates independent copies of the movsim input with the values of a sample point set at the xpath targets of the
+ * sweep parameters.
+ * <p>
+ * The base input is marshalled once to a DOM document. Each sample modifies a deep copy of this document which is
+ * validated against the schema while unmarshalling, so the runs never share any part of the JAXB tree.
+ * </p>
+ * <p>
+ * A target of the form {@code path/@attribute} which selects no node sets the attribute at all elements selected by
+ * {@code path}. So also attributes which are not given in the input file and take their default value can be swept.
+ * </p>
+ */
+final class SweepInputFactory {
+
+    private static final Pattern ATTRIBUTE_STEP = Pattern.compile("^(.+)/@([\\w\\-.]+)$");
+
+    private static final class Target {
+        final SweepTarget config;
+        final XPathExpression expression;
+        /** elements owning the attribute for targets ending with an attribute step, null otherwise */
+        final XPathExpression parentExpression;
+        final String attributeName;
+
+        Target(SweepTarget config, XPath xpath) throws XPathExpressionException {
+            this.config = config;
+            this.expression = xpath.compile(config.getXpath());
+            Matcher matcher = ATTRIBUTE_STEP.matcher(config.getXpath());
+            this.parentExpression = matcher.matches() ? xpath.compile(matcher.group(1)) : null;
+            this.attributeName = matcher.matches() ? matcher.group(2) : null;
+        }
+    }
+
+    private final Document baseDocument;
+
+    private final List<SweepParameter> parameters;
+
+    /** compiled targets, same order as the parameters */
+    private final List<List<Target>> targets = new ArrayList<>();
+
+    SweepInputFactory(Movsim baseInput, List<SweepParameter> parameters) {
+        this.baseDocument = InputLoader.marshallMovsim(Preconditions.checkNotNull(baseInput));
+        this.parameters = parameters;
+        XPath xpath = XPathFactory.newInstance().newXPath();
+        for (SweepParameter parameter : parameters) {
+            Preconditions.checkArgument(parameter.isSetSweepTarget(), "parameter=" + parameter.getName()
+                    + " without target");
+            List<Target> parameterTargets = new ArrayList<>();
+            for (SweepTarget target : parameter.getSweepTarget()) {
+                try {
+                    parameterTargets.add(new Target(target, xpath));
+                } catch (XPathExpressionException e) {
+                    throw new IllegalArgumentException("parameter=" + parameter.getName() + ": invalid xpath="
+                            + target.getXpath(), e);
+                }
+            }
+            targets.add(parameterTargets);
+        }
+    }
+
+    /**
+     * Creates the input of one simulation run.
+     * 
+     * @param sample
+     *            the parameter values
+     * @return a new input which is not shared with other runs
+     * @throws IllegalArgumentException
+     *             if a target does not select any node
+     * @throws IllegalStateException
+     *             if the modified input is not valid
+     */
+    synchronized Movsim create(double[] sample) {
+        Preconditions.checkArgument(sample.length == parameters.size());
+        Document document = (Document) baseDocument.cloneNode(true);
+        for (int i = 0; i < sample.length; i++) {
+            for (Target target : targets.get(i)) {
+                String value = format(target.config.getOffset() + target.config.getScale() * sample[i]);
+                setValue(document, target, value);
+            }
+        }
+        return InputLoader.unmarshallMovsim(document);
+    }
+
+    private static void setValue(Document document, Target target, String value) {
+        NodeList nodes = evaluate(document, target.expression, target.config.getXpath());
+        if (nodes.getLength() == 0 && target.parentExpression != null) {
+            nodes = evaluate(document, target.parentExpression, target.config.getXpath());
+            for (int k = 0; k < nodes.getLength(); k++) {
+                if (nodes.item(k) instanceof Element) {
+                    ((Element) nodes.item(k)).setAttribute(target.attributeName, value);
+                }
+            }
+        } else {
+            for (int k = 0; k < nodes.getLength(); k++) {
+                Node node = nodes.item(k);
+                if (node instanceof Attr) {
+                    ((Attr) node).setValue(value);
+                } else {
+                    node.setTextContent(value);
+                }
+            }
+        }
+        if (nodes.getLength() == 0) {
+            throw new IllegalArgumentException("xpath=" + target.config.getXpath()
+                    + " does not select any node of the input");
+        }
+    }
+
+    private static NodeList evaluate(Document document, XPathExpression expression, String xpath) {
+        try {
+            return (NodeList) expression.evaluate(document, XPathConstants.NODESET);
+        } catch (XPathExpressionException e) {
+            throw new IllegalArgumentException("cannot evaluate xpath=" + xpath, e);
+        }
+    }
+
+    /**
+     * Integral values are written without decimals so that they are also valid for integer attributes.
+     */
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < Long.MAX_VALUE) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.sweep;
+
+import java.util.List;
+
+import org.movsim.autogen.SweepParameter;
+import org.movsim.io.FileOutputBase;
+import org.movsim.simulator.roadnetwork.RoadNetwork;
+
+/**
+ * Aggregated results of a parameter sweep, one row per simulation run. The rows are written in the order in which the
+ * runs finish.
+ */
+final class SweepResultsTable extends FileOutputBase {
+
+    private static final String EXTENSION = ".sweep.csv";
+
+    private static final String RESULTS_FORMAT = ", %10d, %10.3f, %10.3f, %10.3f, %10d, %10d%n";
+
+    SweepResultsTable(String path, String baseFilename, List<SweepParameter> parameters) {
+        super(path, baseFilename);
+        writer = createWriter(EXTENSION);
+        StringBuilder heading = new StringBuilder(COMMENT_CHAR).append(String.format("%5s", "run"));
+        for (SweepParameter parameter : parameters) {
+            heading.append(SEPARATOR_CHAR).append(' ').append(String.format("%12s", parameter.getName()));
+        }
+        heading.append(String.format(", %10s, %10s, %10s, %10s, %10s, %10s", "removed", "avgTravelTime[s]",
+                "avgDistance[m]", "fuelUsed[l]", "vehicles", "wallTime[ms]"));
+        writer.println(heading);
+        writer.flush();
+    }
+
+    synchronized void write(int run, double[] sample, RoadNetwork roadNetwork, long wallTimeMillis) {
+        writeSample(run, sample);
+        int removed = roadNetwork.totalVehiclesRemoved();
+        double avgTravelTime = removed == 0 ? Double.NaN : roadNetwork.totalVehicleTravelTime() / removed;
+        double avgDistance = removed == 0 ? Double.NaN : roadNetwork.totalVehicleTravelDistance() / removed;
+        write(RESULTS_FORMAT, removed, avgTravelTime, avgDistance, roadNetwork.totalVehicleFuelUsedLiters(),
+                roadNetwork.vehicleCount(), wallTimeMillis);
+    }
+
+    synchronized void writeFailure(int run, double[] sample, Throwable cause) {
+        writeSample(run, sample);
+        write(", %10s %s %s%n", "failed", COMMENT_CHAR, String.valueOf(cause).replace('\n', ' '));
+    }
+
+    private void writeSample(int run, double[] sample) {
+        writer.printf("%6d", run);
+        for (double value : sample) {
+            writer.printf("%s %12.6g", SEPARATOR_CHAR, value);
+        }
+    }
+}
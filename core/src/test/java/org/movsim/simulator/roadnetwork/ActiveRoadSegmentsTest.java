@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.movsim.simulator.vehicles.Vehicle;
+
+/**
+ * Test of the active road segments, kept as road segments are woken up and parked.
+ */
+public class ActiveRoadSegmentsTest {
+
+    private static final int SEGMENT_COUNT = 6;
+
+    @Test
+    public void testWakeAndParkKeepNetworkOrder() {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+        final ActiveRoadSegments activeRoadSegments = new ActiveRoadSegments();
+        final List<RoadSegment> roadSegments = new ArrayList<>();
+        for (int i = 0; i < SEGMENT_COUNT; ++i) {
+            final RoadSegment roadSegment = new RoadSegment(100.0, 1);
+            roadSegment.setActiveRoadSegments(activeRoadSegments, i);
+            activeRoadSegments.add(roadSegment);
+            roadSegments.add(roadSegment);
+        }
+        assertEquals(roadSegments, activeRoadSegments.update());
+
+        // all road segments are empty and parked
+        for (final RoadSegment roadSegment : roadSegments) {
+            roadSegment.updateParking();
+        }
+        activeRoadSegments.removeParked();
+        assertTrue(activeRoadSegments.update().isEmpty());
+
+        // woken up out of order, inserted in network order and only once
+        roadSegments.get(4).addVehicle(new Vehicle(10.0, 0.0, Lanes.LANE1, 5.0, 2.5));
+        roadSegments.get(1).addVehicle(new Vehicle(10.0, 0.0, Lanes.LANE1, 5.0, 2.5));
+        roadSegments.get(4).addVehicle(new Vehicle(50.0, 0.0, Lanes.LANE1, 5.0, 2.5));
+        assertTrue(activeRoadSegments.hasWoken());
+        assertEquals(Arrays.asList(roadSegments.get(1), roadSegments.get(4)), activeRoadSegments.update());
+        assertFalse(activeRoadSegments.hasWoken());
+        assertEquals(1, activeRoadSegments.indexOf(roadSegments.get(4)));
+
+        // a road segment woken up and emptied again before the update is parked again at the end of the timestep
+        final RoadSegment roadSegment = roadSegments.get(2);
+        roadSegment.addVehicle(new Vehicle(10.0, 0.0, Lanes.LANE1, 5.0, 2.5));
+        assertEquals(Arrays.asList(roadSegments.get(1), roadSegment, roadSegments.get(4)),
+                activeRoadSegments.update());
+        roadSegment.laneSegment(Lanes.LANE1).clearVehicles();
+        for (final RoadSegment active : activeRoadSegments.update()) {
+            active.updateParking();
+        }
+        activeRoadSegments.removeParked();
+        assertEquals(Arrays.asList(roadSegments.get(1), roadSegments.get(4)), activeRoadSegments.update());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.movsim.autogen.AccelerationModelType;
+import org.movsim.autogen.ModelParameterGipps;
+import org.movsim.simulator.vehicles.Vehicle;
+import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelBase;
+import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelFactory;
+import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.ModelParameters;
+
+/**
+ * Regression test of the array kernels: a lane with and without {@link LaneArrays} must give the same trajectories.
+ */
+public class LaneArraysTest {
+
+    private static final double DT = 0.5;
+    private static final int STEPS = 400;
+    private static final int VEHICLE_COUNT = 30;
+
+    private static LongitudinalModelBase newIDM() {
+        final AccelerationModelType modelType = new AccelerationModelType();
+        modelType.setModelParameterIDM(ModelParameters.getDefaultModelParameterIDM());
+        return LongitudinalModelFactory.create(5.0, modelType, DT);
+    }
+
+    private static LongitudinalModelBase newGipps() {
+        final ModelParameterGipps param = new ModelParameterGipps();
+        param.setV0(33);
+        param.setS0(2);
+        param.setA(1.5);
+        param.setB(1.0);
+        final AccelerationModelType modelType = new AccelerationModelType();
+        modelType.setModelParameterGipps(param);
+        return LongitudinalModelFactory.create(5.0, modelType, DT);
+    }
+
+    /**
+     * Runs a platoon behind a standing obstacle on a single lane. Every fourth vehicle gets its own speedlimit and
+     * model instance, so the lane is split into several kernel runs.
+     */
+    private static List<double[]> simulate(LongitudinalModelBase model, boolean laneArrays) {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+        final RoadSegment roadSegment = new RoadSegment(5000.0, 1);
+        roadSegment.setLaneArrays(laneArrays);
+        roadSegment.addVehicle(new Vehicle(3000.0, 0.0, Lanes.LANE1, 5.0, 2.5));
+        for (int i = 0; i < VEHICLE_COUNT; ++i) {
+            final Vehicle vehicle = new Vehicle(2000.0 - 40.0 * i - 3.0 * (i % 3), 10.0 + i % 7, Lanes.LANE1, 5.0, 2.5);
+            vehicle.setLongitudinalModel(i % 4 == 0 ? model.newInstance() : model);
+            if (i % 4 == 1) {
+                vehicle.setSpeedlimit(80.0 / 3.6);
+            }
+            roadSegment.addVehicle(vehicle);
+        }
+        final List<double[]> trajectories = new ArrayList<>();
+        for (int step = 0; step < STEPS; ++step) {
+            roadSegment.updateVehicleAccelerations(DT, step * DT, step);
+            roadSegment.updateVehiclePositionsAndSpeeds(DT, step * DT, step);
+            final double[] state = new double[3 * roadSegment.getVehicleCount()];
+            int index = 0;
+            for (final Vehicle vehicle : roadSegment) {
+                state[index++] = vehicle.getFrontPosition();
+                state[index++] = vehicle.getSpeed();
+                state[index++] = vehicle.getAcc();
+            }
+            trajectories.add(state);
+        }
+        return trajectories;
+    }
+
+    private static void assertSameTrajectories(LongitudinalModelBase model) {
+        final List<double[]> expected = simulate(model, false);
+        final List<double[]> actual = simulate(model, true);
+        for (int step = 0; step < STEPS; ++step) {
+            final double[] expectedState = expected.get(step);
+            final double[] actualState = actual.get(step);
+            assertEquals("vehicles in step " + step, expectedState.length, actualState.length);
+            for (int i = 0; i < expectedState.length; ++i) {
+                assertEquals("step " + step + ", vehicle " + i / 3, expectedState[i], actualState[i], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testIDM() {
+        assertSameTrajectories(newIDM());
+    }
+
+    @Test
+    public void testGipps() {
+        assertSameTrajectories(newGipps());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.movsim.simulator.roadnetwork.predicates.VehiclePassedPosition;
+import org.movsim.simulator.vehicles.Vehicle;
+
+/**
+ * Test module for the LaneSegment class.
+ */
+public class LaneSegmentTest {
+
+    private static final double ROAD_LENGTH = 5000.0;
+    private static final double DETECTOR_SPACING = 3.7;
+
+    /**
+     * Registers the vehicles passing detectors along the lane with the windowed search and compares them with the
+     * full scan over all vehicles. Returns the total number of passed vehicles.
+     */
+    private static int assertSamePassedVehicles(LaneSegment laneSegment) {
+        final double maxRearDisplacement = laneSegment.maxRearDisplacement();
+        int passedCount = 0;
+        for (double position = 0; position < ROAD_LENGTH; position += DETECTOR_SPACING) {
+            final VehiclePassedPosition passedPosition = new VehiclePassedPosition(position);
+            final List<Vehicle> expected = new ArrayList<>();
+            for (final Vehicle vehicle : laneSegment) {
+                if (passedPosition.apply(vehicle)) {
+                    expected.add(vehicle);
+                }
+            }
+            final List<Vehicle> actual = new ArrayList<>();
+            laneSegment.addVehiclesPassed(position, maxRearDisplacement, passedPosition, actual);
+            assertEquals("detector at " + position, expected, actual);
+            passedCount += actual.size();
+        }
+        return passedCount;
+    }
+
+    /**
+     * Test method for {@link LaneSegment#addVehiclesPassed(double, double, com.google.common.base.Predicate, java.util.Collection)}
+     */
+    @Test
+    public void testAddVehiclesPassedMatchesFullScan() {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+        final RoadSegment roadSegment = new RoadSegment(ROAD_LENGTH, 1);
+        final LaneSegment laneSegment = roadSegment.laneSegment(Lanes.LANE1);
+        final int vehicleCount = 40;
+        for (int i = 0; i < vehicleCount; ++i) {
+            roadSegment.addVehicle(new Vehicle(100.0 * (vehicleCount - i), 0.0, Lanes.LANE1, 5.0, 2.5));
+        }
+        final Random random = new Random(42);
+        int passedCount = 0;
+        for (int step = 0; step < 20; ++step) {
+            double frontRearPosition = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < vehicleCount; ++i) {
+                final Vehicle vehicle = laneSegment.getVehicle(i);
+                // a few vehicles jump far beyond the others, but not beyond their front vehicle
+                final double speed = random.nextInt(10) == 0 ? 90.0 : random.nextDouble() * 15.0;
+                vehicle.setSpeed(Math.min(speed, frontRearPosition - vehicle.getRearPosition() - 1.0));
+                vehicle.updatePositionAndSpeed(1.0);
+                frontRearPosition = vehicle.getRearPosition();
+            }
+            assertTrue(laneSegment.laneIsSorted());
+            assertTrue(laneSegment.maxRearDisplacement() < Double.POSITIVE_INFINITY);
+            passedCount += assertSamePassedVehicles(laneSegment);
+        }
+        // each vehicle has moved across many detectors
+        assertTrue(passedCount > vehicleCount * 20);
+    }
+
+    /**
+     * Test method for {@link LaneSegment#addVehiclesPassed(double, double, com.google.common.base.Predicate, java.util.Collection)}
+     */
+    @Test
+    public void testAddVehiclesPassedUnsortedLane() {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+        final RoadSegment roadSegment = new RoadSegment(ROAD_LENGTH, 1);
+        final LaneSegment laneSegment = roadSegment.laneSegment(Lanes.LANE1);
+        final Vehicle front = new Vehicle(1000.0, 0.0, Lanes.LANE1, 5.0, 2.5);
+        final Vehicle rear = new Vehicle(990.0, 0.0, Lanes.LANE1, 5.0, 2.5);
+        roadSegment.addVehicle(front);
+        roadSegment.addVehicle(rear);
+        // the rear vehicle overtakes the front vehicle within the lane
+        rear.setSpeed(30.0);
+        rear.updatePositionAndSpeed(1.0);
+        front.updatePositionAndSpeed(1.0);
+        assertEquals(Double.POSITIVE_INFINITY, laneSegment.maxRearDisplacement(), 0.0);
+        assertEquals(8, assertSamePassedVehicles(laneSegment));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.movsim.simulator.vehicles.Vehicle;
+
+public class LaneVehiclesTest {
+
+    private static Vehicle newVehicle(double rearPosition) {
+        return new Vehicle(rearPosition, 0.0, Lanes.LANE1, 5.0, 2.5);
+    }
+
+    @Test
+    public void testRemoveFrontAndAppendWrapAround() {
+        final LaneVehicles vehicles = new LaneVehicles(4);
+        final List<Vehicle> expected = new ArrayList<>();
+        for (int i = 0; i < 20; ++i) {
+            final Vehicle vehicle = newVehicle(100.0 - i);
+            vehicles.add(vehicle);
+            expected.add(vehicle);
+            if (i % 3 == 0) {
+                assertSame(expected.remove(0), vehicles.remove(0));
+            }
+        }
+        assertEquals(expected, vehicles);
+        vehicles.clear();
+        assertEquals(0, vehicles.size());
+    }
+
+    @Test
+    public void testInsertAndRemoveMatchArrayList() {
+        final Random random = new Random(42);
+        final LaneVehicles vehicles = new LaneVehicles(2);
+        final List<Vehicle> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; ++i) {
+            final int modCount = vehicles.modCount();
+            if (expected.isEmpty() || random.nextInt(3) != 0) {
+                final int index = random.nextInt(expected.size() + 1);
+                final Vehicle vehicle = newVehicle(i);
+                vehicles.add(index, vehicle);
+                expected.add(index, vehicle);
+            } else {
+                final int index = random.nextInt(expected.size());
+                assertSame(expected.remove(index), vehicles.remove(index));
+            }
+            assertNotEquals(modCount, vehicles.modCount());
+            assertEquals(expected.size(), vehicles.size());
+        }
+        assertEquals(expected, vehicles);
+    }
+
+    @Test
+    public void testObstacleCount() {
+        final LaneVehicles vehicles = new LaneVehicles(4);
+        final Vehicle obstacle = newVehicle(50.0);
+        obstacle.setType(Vehicle.Type.OBSTACLE);
+        vehicles.add(newVehicle(100.0));
+        vehicles.add(obstacle);
+        vehicles.add(newVehicle(10.0));
+        assertEquals(1, vehicles.obstacleCount());
+        vehicles.set(0, vehicles.get(1));
+        assertEquals(2, vehicles.obstacleCount());
+        vehicles.remove(1);
+        assertEquals(1, vehicles.obstacleCount());
+        vehicles.clear();
+        assertEquals(0, vehicles.obstacleCount());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        final LaneVehicles vehicles = new LaneVehicles(4);
+        vehicles.add(newVehicle(0));
+        vehicles.get(1);
+    }
+}
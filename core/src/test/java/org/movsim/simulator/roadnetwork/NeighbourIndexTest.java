@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.movsim.simulator.vehicles.Vehicle;
+
+public class NeighbourIndexTest {
+
+    private static Vehicle newVehicle(double rearPosition, int lane) {
+        return new Vehicle(rearPosition, 0.0, lane, 5.0, 2.5);
+    }
+
+    @Test
+    public void testNeighboursInOwnAndAdjacentLanes() {
+        final RoadSegment roadSegment = new RoadSegment(1000.0, 2);
+        final NeighbourIndex index = new NeighbourIndex();
+        roadSegment.setNeighbourIndex(index);
+
+        final Vehicle v0 = newVehicle(900.0, Lanes.LANE1);
+        final Vehicle v1 = newVehicle(500.0, Lanes.LANE1);
+        final Vehicle v2 = newVehicle(100.0, Lanes.LANE1);
+        final Vehicle w0 = newVehicle(700.0, Lanes.LANE2);
+        final Vehicle w1 = newVehicle(300.0, Lanes.LANE2);
+        for (Vehicle vehicle : new Vehicle[] { v0, v1, v2, w0, w1 }) {
+            roadSegment.addVehicle(vehicle);
+        }
+        final LaneSegment lane1 = roadSegment.laneSegment(Lanes.LANE1);
+        final LaneSegment lane2 = roadSegment.laneSegment(Lanes.LANE2);
+
+        index.rebuild(Collections.singletonList(roadSegment));
+        assertSame(v0, index.frontVehicle(v1, lane1));
+        assertSame(v1, index.rearVehicle(v1, lane1)); // same result as the search at the vehicle's position
+        assertSame(w0, index.frontVehicle(v1, lane2));
+        assertSame(w1, index.rearVehicle(v1, lane2));
+        assertSame(v1, index.frontVehicle(w1, lane1));
+        assertSame(v2, index.rearVehicle(w1, lane1));
+        // neighbours on other road segments are not cached
+        assertNull(index.frontVehicle(v0, lane1));
+        assertNull(index.rearVehicle(v2, lane2));
+
+        // the cached neighbours equal the search results
+        for (LaneSegment laneSegment : new LaneSegment[] { lane1, lane2 }) {
+            for (Vehicle vehicle : new Vehicle[] { v1, w1 }) {
+                assertSame(laneSegment.frontVehicle(vehicle.getRearPosition()), laneSegment.frontVehicle(vehicle));
+                assertSame(laneSegment.rearVehicle(vehicle.getRearPosition()), laneSegment.rearVehicle(vehicle));
+            }
+        }
+
+        // a modification of a lane invalidates the entries referring to it
+        final Vehicle v3 = newVehicle(600.0, Lanes.LANE1);
+        roadSegment.addVehicle(v3);
+        assertNull(index.frontVehicle(v1, lane1));
+        assertSame(v3, lane1.frontVehicle(v1));
+        assertSame(w0, index.frontVehicle(v1, lane2));
+
+        index.invalidate();
+        assertNull(index.frontVehicle(v1, lane2));
+        assertEquals(4, lane1.vehicleCount());
+    }
+}
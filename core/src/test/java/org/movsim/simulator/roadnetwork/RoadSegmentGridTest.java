@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
+import org.movsim.network.autogen.opendrive.OpenDRIVE.Road.PlanView.Geometry;
+import org.movsim.network.autogen.opendrive.OpenDRIVE.Road.PlanView.Geometry.Arc;
+import org.movsim.network.autogen.opendrive.OpenDRIVE.Road.PlanView.Geometry.Line;
+import org.movsim.roadmappings.LaneGeometries;
+import org.movsim.roadmappings.LaneGeometries.LaneGeometry;
+import org.movsim.roadmappings.RoadGeometry;
+import org.movsim.roadmappings.RoadMapping;
+import org.movsim.roadmappings.RoadMappingArc;
+import org.movsim.roadmappings.RoadMapping.PolygonFloat;
+import org.movsim.roadmappings.RoadMappingLine;
+
+/**
+ * Test module for the RoadSegmentGrid class: the grid queries must give the same road segments as a brute-force scan
+ * over the bounding boxes of all road segments.
+ */
+public class RoadSegmentGridTest {
+
+    private static final double NETWORK_SIZE = 5000.0;
+
+    private static RoadSegment newRoadSegment(Random random) {
+        final double length = 20.0 + random.nextDouble() * 1500.0;
+        final Geometry geometry = new Geometry();
+        geometry.setS(0);
+        geometry.setX(random.nextDouble() * NETWORK_SIZE);
+        geometry.setY(random.nextDouble() * NETWORK_SIZE);
+        geometry.setHdg(random.nextDouble() * 2 * Math.PI);
+        geometry.setLength(length);
+        final LaneGeometries laneGeometries = new LaneGeometries();
+        final int laneCount = 1 + random.nextInt(3);
+        laneGeometries.setRight(new LaneGeometry(laneCount, 3.75));
+        final RoadMapping roadMapping;
+        if (random.nextBoolean()) {
+            geometry.setLine(new Line());
+            roadMapping = RoadMappingLine.create(new RoadGeometry(geometry, laneGeometries));
+        } else {
+            final Arc arc = new Arc();
+            arc.setCurvature((random.nextBoolean() ? 1 : -1) / (100.0 + random.nextDouble() * 1000.0));
+            geometry.setArc(arc);
+            roadMapping = RoadMappingArc.create(new RoadGeometry(geometry, laneGeometries));
+        }
+        return new RoadSegment(length, laneCount, roadMapping, RoadSegmentDirection.FORWARD);
+    }
+
+    private static List<RoadSegment> newRoadSegments(int count) {
+        RoadSegment.resetNextId();
+        final Random random = new Random(42);
+        final List<RoadSegment> roadSegments = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            roadSegments.add(newRoadSegment(random));
+        }
+        return roadSegments;
+    }
+
+    private static List<double[]> boundingBoxes(List<RoadSegment> roadSegments) {
+        final List<double[]> boxes = new ArrayList<>();
+        for (final RoadSegment roadSegment : roadSegments) {
+            boxes.add(RoadSegmentGrid.boundingBox(roadSegment.roadMapping()));
+        }
+        return boxes;
+    }
+
+    private static List<RoadSegment> bruteForce(List<RoadSegment> roadSegments, List<double[]> boxes, double x0,
+            double y0, double x1, double y1) {
+        final List<RoadSegment> result = new ArrayList<>();
+        if (x1 < x0 || y1 < y0) {
+            return result;
+        }
+        for (int i = 0; i < roadSegments.size(); ++i) {
+            final double[] box = boxes.get(i);
+            if (box[0] <= x1 && x0 <= box[2] && box[1] <= y1 && y0 <= box[3]) {
+                result.add(roadSegments.get(i));
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testPointQueryMatchesBruteForce() {
+        final List<RoadSegment> roadSegments = newRoadSegments(200);
+        final List<double[]> boxes = boundingBoxes(roadSegments);
+        final RoadSegmentGrid grid = new RoadSegmentGrid(roadSegments);
+        final Random random = new Random(4711);
+        int hitCount = 0;
+        int multipleCount = 0;
+        for (int i = 0; i < 5000; ++i) {
+            // includes points beyond the network
+            final double x = -1000.0 + random.nextDouble() * (NETWORK_SIZE + 3000.0);
+            final double y = -1000.0 + random.nextDouble() * (NETWORK_SIZE + 3000.0);
+            final List<RoadSegment> expected = bruteForce(roadSegments, boxes, x, y, x, y);
+            assertEquals("x=" + x + ", y=" + y, expected, grid.roadSegmentsNear(x, y));
+            hitCount += expected.isEmpty() ? 0 : 1;
+            multipleCount += expected.size() > 1 ? 1 : 0;
+        }
+        assertTrue(hitCount > 1000);
+        assertTrue(multipleCount > 100);
+    }
+
+    @Test
+    public void testRectangleQueryMatchesBruteForce() {
+        final List<RoadSegment> roadSegments = newRoadSegments(200);
+        final List<double[]> boxes = boundingBoxes(roadSegments);
+        final RoadSegmentGrid grid = new RoadSegmentGrid(roadSegments);
+        final Random random = new Random(815);
+        int hitCount = 0;
+        for (int i = 0; i < 2000; ++i) {
+            final double x0 = -1000.0 + random.nextDouble() * (NETWORK_SIZE + 3000.0);
+            final double y0 = -1000.0 + random.nextDouble() * (NETWORK_SIZE + 3000.0);
+            // from points to rectangles covering many cells
+            final double size = i % 2 == 0 ? random.nextDouble() * 100.0 : random.nextDouble() * 3000.0;
+            final double x1 = x0 + size;
+            final double y1 = y0 + random.nextDouble() * size;
+            final List<RoadSegment> expected = bruteForce(roadSegments, boxes, x0, y0, x1, y1);
+            assertEquals("x0=" + x0 + ", y0=" + y0 + ", x1=" + x1 + ", y1=" + y1, expected,
+                    grid.roadSegmentsWithin(x0, y0, x1, y1));
+            hitCount += expected.size() > 1 ? 1 : 0;
+        }
+        assertTrue(hitCount > 500);
+    }
+
+    @Test
+    public void testSegmentsCrossingCells() {
+        final List<RoadSegment> roadSegments = newRoadSegments(200);
+        final RoadSegmentGrid grid = new RoadSegmentGrid(roadSegments);
+        // the whole network returns every mapped road segment once
+        final List<RoadSegment> all = grid.roadSegmentsWithin(-NETWORK_SIZE, -NETWORK_SIZE, 2 * NETWORK_SIZE,
+                2 * NETWORK_SIZE);
+        assertEquals(roadSegments, all);
+        // each road segment is found at both ends of its bounding box, which lie in different cells for long roads
+        for (final RoadSegment roadSegment : all) {
+            final double[] box = RoadSegmentGrid.boundingBox(roadSegment.roadMapping());
+            assertTrue(grid.roadSegmentsNear(box[0], box[1]).contains(roadSegment));
+            assertTrue(grid.roadSegmentsNear(box[2], box[3]).contains(roadSegment));
+            assertTrue(grid.roadSegmentsWithin(box[2], box[3], box[2] + 1.0, box[3] + 1.0).contains(roadSegment));
+        }
+    }
+
+    @Test
+    public void testEmptyAndOutsideRectangle() {
+        final List<RoadSegment> roadSegments = newRoadSegments(50);
+        final RoadSegmentGrid grid = new RoadSegmentGrid(roadSegments);
+        final double x = 0.5 * NETWORK_SIZE;
+        final double y = 0.5 * NETWORK_SIZE;
+        // empty rectangles
+        assertTrue(grid.roadSegmentsWithin(x, y, x - 1.0, y + 1.0).isEmpty());
+        assertTrue(grid.roadSegmentsWithin(x, y, x + 1.0, y - 1.0).isEmpty());
+        assertTrue(grid.roadSegmentsWithin(-NETWORK_SIZE, -NETWORK_SIZE, -2 * NETWORK_SIZE, 2 * NETWORK_SIZE)
+                .isEmpty());
+        // rectangles outside the network on each side
+        final double far = 10 * NETWORK_SIZE;
+        assertTrue(grid.roadSegmentsWithin(-far, -far, far, -far + 1.0).isEmpty());
+        assertTrue(grid.roadSegmentsWithin(-far, far - 1.0, far, far).isEmpty());
+        assertTrue(grid.roadSegmentsWithin(-far, -far, -far + 1.0, far).isEmpty());
+        assertTrue(grid.roadSegmentsWithin(far - 1.0, -far, far, far).isEmpty());
+        assertTrue(grid.roadSegmentsNear(far, far).isEmpty());
+    }
+
+    @Test
+    public void testEmptyNetwork() {
+        final RoadSegmentGrid grid = new RoadSegmentGrid(new ArrayList<RoadSegment>());
+        assertTrue(grid.roadSegmentsNear(0, 0).isEmpty());
+        assertTrue(grid.roadSegmentsWithin(-1000.0, -1000.0, 1000.0, 1000.0).isEmpty());
+    }
+
+    /**
+     * The viewer tests the mouse position against the polygons of {@link RoadMapping#mapFloat} in screen coordinates,
+     * the road network must then be queried with the negated screen y coordinate.
+     */
+    @Test
+    public void testScreenPointOfPolygon() {
+        final List<RoadSegment> roadSegments = newRoadSegments(200);
+        final RoadNetwork roadNetwork = new RoadNetwork(new SimulationContext(new ProjectMetaData(ProjectMetaData
+                .getInstance())));
+        for (final RoadSegment roadSegment : roadSegments) {
+            roadNetwork.add(roadSegment);
+        }
+        final Random random = new Random(7);
+        for (final RoadSegment roadSegment : roadSegments) {
+            final RoadMapping roadMapping = roadSegment.roadMapping();
+            final double position = random.nextDouble() * roadSegment.roadLength();
+            final int lane = 1 + random.nextInt(roadSegment.laneCount());
+            final PolygonFloat polygon = roadMapping.mapFloat(position, lane, 5.0, 2.5);
+            for (int i = 0; i < polygon.pointCount; ++i) {
+                final double screenX = polygon.getXPoint(i);
+                final double screenY = polygon.getYPoint(i);
+                assertTrue(roadNetwork.roadSegmentsNear(screenX, -screenY).contains(roadSegment));
+                assertTrue(roadNetwork.roadSegmentsWithin(screenX - 1.0, -screenY - 1.0, screenX + 1.0, -screenY + 1.0)
+                        .contains(roadSegment));
+            }
+        }
+    }
+}
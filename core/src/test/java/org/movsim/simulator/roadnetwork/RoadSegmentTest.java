@@ -27,13 +27,25 @@
 package org.movsim.simulator.roadnetwork;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.Random;
 
 import org.junit.Test;
+import org.movsim.autogen.Inflow;
 import org.movsim.autogen.LaneChangeModelType;
 import org.movsim.autogen.ModelParameterMOBIL;
+import org.movsim.network.autogen.opendrive.OpenDRIVE.Controller;
+import org.movsim.network.autogen.opendrive.OpenDRIVE.Road.Signals.Signal;
 import org.movsim.roadmappings.RoadMapping;
+import org.movsim.simulator.roadnetwork.boundaries.InflowTimeSeries;
+import org.movsim.simulator.roadnetwork.boundaries.TrafficSourceMacro;
+import org.movsim.simulator.roadnetwork.controller.TrafficLight;
+import org.movsim.simulator.roadnetwork.predicates.VehicleWithinRange;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.lanechange.LaneChangeModel;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.IDM;
@@ -372,6 +384,64 @@ public class RoadSegmentTest {
         assertEquals(null, rV);
     }
 
+    @Test
+    public final void testVehiclesWithinRange() {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+
+        final RoadSegment roadSegment = new RoadSegment(1000.0, 2);
+        final Random random = new Random(42);
+        for (int i = 0; i < 200; ++i) {
+            final int lane = random.nextBoolean() ? Lanes.LANE1 : Lanes.LANE2;
+            final double length = 2.0 + 18.0 * random.nextDouble();
+            roadSegment.addVehicle(new Vehicle(980.0 * random.nextDouble(), 0.0, lane, length, 2.5));
+        }
+        final double[][] ranges = { { 0.0, 1000.0 }, { 100.0, 150.0 }, { 500.0, 500.5 }, { 990.0, 2000.0 } };
+        for (double[] range : ranges) {
+            final Iterator<Vehicle> expected = roadSegment.filteredVehicles(new VehicleWithinRange(range[0], range[1]));
+            final Iterator<Vehicle> actual = roadSegment.vehiclesWithinRange(range[0], range[1]);
+            while (expected.hasNext()) {
+                assertSame(expected.next(), actual.next());
+            }
+            assertFalse(actual.hasNext());
+        }
+    }
+
+    @Test
+    public final void testFrontVehicleJoinReusesCopy() {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+
+        final int laneCount = 1;
+        final RoadSegment r0 = new RoadSegment(700.0, laneCount);
+        final RoadSegment r1 = new RoadSegment(5100.0, laneCount);
+        Link.addJoin(r0, r1);
+
+        final Vehicle v0 = newVehicle(3900.0, 1.0, Lanes.LANE1);
+        r1.addVehicle(v0);
+        final Vehicle v1 = newVehicle(600.0, 2.0, Lanes.LANE1);
+        r0.addVehicle(v1);
+
+        final Vehicle fV = r0.frontVehicle(Lanes.LANE1, 601.0);
+        assertEquals(v0.getId(), fV.getId());
+        assertEquals(4600.0, fV.getRearPosition(), delta); // pos relative to r0
+        assertTrue(fV.isCopyOf(v0));
+
+        // the copy is updated in place as long as the front vehicle does not change
+        v0.setFrontPosition(v0.getFrontPosition() + 10.0);
+        v0.setSpeed(3.0);
+        assertSame(fV, r0.frontVehicle(Lanes.LANE1, 601.0));
+        assertEquals(4610.0, fV.getRearPosition(), delta);
+        assertEquals(3.0, fV.getSpeed(), delta);
+
+        final Vehicle v2 = newVehicle(100.0, 4.0, Lanes.LANE1);
+        r1.addVehicle(v2);
+        final Vehicle fV2 = r0.frontVehicle(Lanes.LANE1, 601.0);
+        assertEquals(v2.getId(), fV2.getId());
+        assertEquals(800.0, fV2.getRearPosition(), delta);
+        assertEquals(4.0, fV2.getSpeed(), delta);
+    }
+
     @Test
     public final void testRearVehicleOffsetJoin() {
         // test rear vehicle when there is an offset join, for example a join
@@ -1128,4 +1198,80 @@ public class RoadSegmentTest {
         next = iterator.next();
         assertEquals(laneSegment.lane(), next.lane());
     }
+
+    /**
+     * Test method for {@link org.movsim.simulator.roadnetwork.RoadSegment#updateParking()}
+     */
+    @Test
+    public final void testUpdateParkingEmpty() {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+        final RoadSegment roadSegment = new RoadSegment(1000.0, 2);
+        assertFalse(roadSegment.isParked());
+        roadSegment.updateParking();
+        assertTrue(roadSegment.isParked());
+
+        // an update of the parked road segment must keep it parked
+        roadSegment.updateParking();
+        assertTrue(roadSegment.isParked());
+    }
+
+    /**
+     * Test method for {@link org.movsim.simulator.roadnetwork.RoadSegment#wake()}
+     */
+    @Test
+    public final void testWakeByAddedVehicles() {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+        final RoadSegment roadSegment = new RoadSegment(1000.0, 2);
+        roadSegment.updateParking();
+        assertTrue(roadSegment.isParked());
+        roadSegment.appendVehicle(newVehicle(0.0, 20.0, Lanes.LANE2));
+        assertFalse(roadSegment.isParked());
+        // not parked again as long as the vehicle is on the road segment
+        roadSegment.updateParking();
+        assertFalse(roadSegment.isParked());
+
+        final RoadSegment other = new RoadSegment(1000.0, 2);
+        other.updateParking();
+        assertTrue(other.isParked());
+        other.addVehicle(newVehicle(500.0, 20.0, Lanes.LANE1));
+        assertFalse(other.isParked());
+    }
+
+    /**
+     * Test method for {@link org.movsim.simulator.roadnetwork.RoadSegment#updateParking()}
+     */
+    @Test
+    public final void testNotParkedWithTrafficSource() {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+        final RoadSegment roadSegment = new RoadSegment(1000.0, 1);
+        roadSegment.setTrafficSource(new TrafficSourceMacro(null, roadSegment, new InflowTimeSeries(
+                new ArrayList<Inflow>())));
+        roadSegment.updateParking();
+        assertFalse(roadSegment.isParked());
+    }
+
+    /**
+     * Test method for {@link org.movsim.simulator.roadnetwork.RoadSegment#updateParking()}
+     */
+    @Test
+    public final void testNotParkedWithTrafficLight() {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+        final RoadSegment roadSegment = new RoadSegment(1000.0, 1);
+        final Signal signal = new Signal();
+        signal.setId("signal1");
+        signal.setS(800.0);
+        final Controller.Control control = new Controller.Control();
+        control.setSignalId(signal.getId());
+        control.setType("1000001");
+        final Controller controller = new Controller();
+        controller.setId("controller1");
+        controller.getControl().add(control);
+        roadSegment.roadObjects().add(new TrafficLight(signal, controller, roadSegment));
+        roadSegment.updateParking();
+        assertFalse(roadSegment.isParked());
+    }
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.movsim.input.ProjectMetaData;
+import org.movsim.input.SimulationContext;
+import org.movsim.simulator.roadnetwork.routing.Route;
+import org.movsim.simulator.vehicles.Vehicle;
+
+/**
+ * Test of the running vehicle counts and sums of the road segments and the road network against a scan over all
+ * vehicles.
+ */
+public class VehicleAggregatesTest {
+
+    private static final double ROAD_LENGTH = 300.0;
+    private static final int SEGMENT_COUNT = 6;
+
+    private static int stoppedVehicleCount(RoadSegment roadSegment) {
+        int stoppedVehicleCount = 0;
+        for (final LaneSegment laneSegment : roadSegment.laneSegments()) {
+            stoppedVehicleCount += laneSegment.stoppedVehicleCount();
+        }
+        return stoppedVehicleCount;
+    }
+
+    private static double travelDistance(RoadSegment roadSegment) {
+        double travelDistance = 0;
+        for (final LaneSegment laneSegment : roadSegment.laneSegments()) {
+            travelDistance += laneSegment.totalVehicleTravelDistance();
+        }
+        return travelDistance;
+    }
+
+    private static double meanSpeed(RoadSegment roadSegment) {
+        double speedSum = 0;
+        int count = 0;
+        for (final LaneSegment laneSegment : roadSegment.laneSegments()) {
+            for (final Vehicle vehicle : laneSegment) {
+                if (vehicle.type() != Vehicle.Type.OBSTACLE) {
+                    speedSum += Math.max(1.0, vehicle.getSpeed());
+                    ++count;
+                }
+            }
+        }
+        return count > 0 ? speedSum / count : roadSegment.getFreeFlowSpeed();
+    }
+
+    private static void assertSameAggregates(RoadNetwork roadNetwork, Route route) {
+        int vehicleCount = 0;
+        int obstacleCount = 0;
+        int stoppedVehicleCount = 0;
+        double travelDistance = 0;
+        double meanSpeedSum = 0;
+        for (final RoadSegment roadSegment : roadNetwork) {
+            int segmentVehicleCount = 0;
+            int segmentObstacleCount = 0;
+            for (final LaneSegment laneSegment : roadSegment.laneSegments()) {
+                segmentVehicleCount += laneSegment.vehicleCount();
+                segmentObstacleCount += laneSegment.obstacleCount();
+            }
+            assertEquals(segmentVehicleCount, roadSegment.getVehicleCount());
+            assertEquals(segmentObstacleCount, roadSegment.getObstacleCount());
+            assertEquals(stoppedVehicleCount(roadSegment), roadSegment.getStoppedVehicleCount());
+            assertEquals(travelDistance(roadSegment), roadSegment.totalVehicleTravelDistance(), 1e-6);
+            assertEquals(meanSpeed(roadSegment), roadSegment.meanSpeedOfVehicles(), 1e-9);
+            vehicleCount += segmentVehicleCount;
+            obstacleCount += segmentObstacleCount;
+            stoppedVehicleCount += stoppedVehicleCount(roadSegment);
+            travelDistance += travelDistance(roadSegment);
+            if (roadSegment.sink() != null) {
+                travelDistance += roadSegment.sink().totalVehicleTravelDistance();
+            }
+            meanSpeedSum += meanSpeed(roadSegment);
+        }
+        assertEquals(vehicleCount, roadNetwork.vehicleCount());
+        assertEquals(obstacleCount, roadNetwork.getObstacleCount());
+        assertEquals(obstacleCount, roadNetwork.obstacleCount());
+        assertEquals(stoppedVehicleCount, roadNetwork.getStoppedVehicleCount());
+        assertEquals(travelDistance, roadNetwork.totalVehicleTravelDistance(), 1e-6);
+        assertEquals(meanSpeedSum / roadNetwork.size(), roadNetwork.vehiclesMeanSpeed(), 1e-9);
+
+        int routeVehicleCount = 0;
+        int routeObstacleCount = 0;
+        for (final RoadSegment roadSegment : route) {
+            for (final LaneSegment laneSegment : roadSegment.laneSegments()) {
+                routeVehicleCount += laneSegment.vehicleCount();
+                routeObstacleCount += laneSegment.obstacleCount();
+            }
+        }
+        assertEquals(routeVehicleCount, roadNetwork.vehicleCount(route));
+        assertEquals(routeVehicleCount, RoadNetworkUtils.vehicleCount(route));
+        assertEquals(routeObstacleCount, roadNetwork.obstacleCount(route));
+    }
+
+    /**
+     * Moves the vehicles through a chain of road segments as in the update of the road network, with vehicles and
+     * obstacles added and removed in between. Lane 1 carries the moving traffic, all with the same speed so the lane
+     * stays sorted, lane 2 only standing vehicles and obstacles.
+     */
+    @Test
+    public void testRunningSumsMatchFullScan() {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+        final RoadNetwork roadNetwork = new RoadNetwork(new SimulationContext(new ProjectMetaData(ProjectMetaData
+                .getInstance())));
+        final Route route = new Route("route");
+        RoadSegment previous = null;
+        for (int i = 0; i < SEGMENT_COUNT; ++i) {
+            final RoadSegment roadSegment = roadNetwork.add(new RoadSegment(ROAD_LENGTH, 2));
+            if (previous != null) {
+                Link.addJoin(previous, roadSegment);
+            }
+            if (i >= 2 && i < 5) {
+                route.add(roadSegment);
+            }
+            previous = roadSegment;
+        }
+        previous.addDefaultSink();
+        final List<RoadSegment> roadSegments = new ArrayList<>();
+        for (final RoadSegment roadSegment : roadNetwork) {
+            roadSegments.add(roadSegment);
+        }
+
+        final Random random = new Random(42);
+        final double dt = 1.0;
+        double speed = 10.0;
+        int removedCount = 0;
+        for (int step = 0; step < 200; ++step) {
+            // new traffic at the start of the chain
+            final LaneSegment entryLane = roadSegments.get(0).laneSegment(Lanes.LANE1);
+            if (entryLane.vehicleCount() == 0 || entryLane.rearVehicle().getRearPosition() > 2 * speed + 10.0) {
+                roadSegments.get(0).addVehicle(new Vehicle(0.0, speed, Lanes.LANE1, 5.0, 2.5));
+            }
+            // standing vehicles and obstacles come and go in lane 2
+            final RoadSegment roadSegment = roadSegments.get(random.nextInt(SEGMENT_COUNT));
+            final LaneSegment laneSegment = roadSegment.laneSegment(Lanes.LANE2);
+            if (random.nextInt(3) > 0) {
+                final Vehicle vehicle = new Vehicle(random.nextDouble() * (ROAD_LENGTH - 10.0), 0.0, Lanes.LANE2, 5.0,
+                        2.5);
+                if (random.nextBoolean()) {
+                    vehicle.setType(Vehicle.Type.OBSTACLE);
+                }
+                roadSegment.addVehicle(vehicle);
+            } else if (laneSegment.vehicleCount() > 0) {
+                laneSegment.removeVehicle(random.nextInt(laneSegment.vehicleCount()));
+                ++removedCount;
+            }
+            if (step % 50 == 49) {
+                roadSegment.setFreeFlowSpeed(20.0 + random.nextDouble() * 20.0);
+                laneSegment.clearVehicles();
+            }
+            assertSameAggregates(roadNetwork, route);
+
+            // the moving traffic sometimes stops
+            speed = step % 40 < 5 ? 0.0 : 10.0 + step % 7;
+            for (final RoadSegment segment : roadSegments) {
+                for (final Vehicle vehicle : segment.laneSegment(Lanes.LANE1)) {
+                    vehicle.setSpeed(speed);
+                }
+                segment.updateVehiclePositionsAndSpeeds(dt, step * dt, step);
+            }
+            for (final RoadSegment segment : roadSegments) {
+                segment.vehicleAggregates().flush();
+                segment.outFlow(dt, step * dt, step);
+            }
+            assertSameAggregates(roadNetwork, route);
+        }
+        assertTrue(removedCount > 10);
+        assertTrue(previous.sink().totalVehiclesRemoved() > 10);
+        assertTrue(roadNetwork.totalVehicleTravelDistance() > 5 * ROAD_LENGTH * SEGMENT_COUNT);
+
+        roadNetwork.clear();
+        assertEquals(0, roadNetwork.vehicleCount());
+        assertEquals(0, roadNetwork.getStoppedVehicleCount());
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.movsim.autogen.ModelParameterACC;
+import org.movsim.autogen.ModelParameterOVMFVDM;
+import org.movsim.autogen.OptimalVelocityFunctionEnum;
+
+/**
+ * Regression test of the fast-math acceleration functions against the exact ones.
+ */
+public class FastMathKernelTest {
+
+    private static void assertKernelsAgree(LongitudinalModelBase exact, LongitudinalModelBase fast, double tolerance) {
+        fast.setFastMath(true);
+        for (double s = 0.5; s < 200; s += 1.13) {
+            for (double v = 0; v < 40; v += 0.57) {
+                for (double dv = -10; dv < 10; dv += 0.83) {
+                    final double acc = exact.calcAccSimple(s, v, dv);
+                    final double fastAcc = fast.calcAccSimple(s, v, dv);
+                    if (Math.abs(acc - fastAcc) > tolerance) {
+                        assertEquals("s=" + s + ", v=" + v + ", dv=" + dv, acc, fastAcc, tolerance);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIDM() {
+        assertKernelsAgree(new IDM(ModelParameters.getDefaultModelParameterIDM()), new IDM(
+                ModelParameters.getDefaultModelParameterIDM()), 1e-12);
+    }
+
+    @Test
+    public void testACC() {
+        final ModelParameterACC param = new ModelParameterACC();
+        param.setV0(33);
+        param.setS0(2);
+        param.setT(1.2);
+        param.setA(1.4);
+        param.setB(2);
+        param.setCoolness(0.99);
+        // tanh error below 1e-7 multiplied by b*coolness
+        assertKernelsAgree(new ACC(param), new ACC(param), 1e-6);
+    }
+
+    @Test
+    public void testOVM() {
+        final ModelParameterOVMFVDM param = new ModelParameterOVMFVDM();
+        param.setV0(33);
+        param.setS0(2);
+        param.setTau(0.65);
+        param.setTransitionWidth(8.5);
+        param.setBeta(1.5);
+        param.setGamma(0.6);
+        param.setOptimalSpeedFunction(OptimalVelocityFunctionEnum.BANDO);
+        // tanh error below 1e-7 multiplied by v0/(1+tanh(beta))/tau
+        assertKernelsAgree(new OVM_FVDM(param), new OVM_FVDM(param), 1e-5);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.sweep;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.movsim.autogen.SweepParameter;
+import org.movsim.utilities.RandomStream;
+
+public class SweepDesignTest {
+
+    private static final double delta = 1e-9;
+
+    private static SweepParameter createParameter(double min, double max, double step) {
+        SweepParameter parameter = new SweepParameter();
+        parameter.setName("p");
+        parameter.setMin(min);
+        parameter.setMax(max);
+        parameter.setStep(step);
+        return parameter;
+    }
+
+    @Test
+    public void testGridValuesIncludeMax() {
+        List<Double> values = SweepDesign.gridValues(createParameter(0, 1, 0.3));
+        assertEquals(5, values.size());
+        assertEquals(0.9, values.get(3), delta);
+        assertEquals(1.0, values.get(4), delta);
+
+        // no duplicate of max due to rounding errors
+        assertEquals(11, SweepDesign.gridValues(createParameter(0, 1, 0.1)).size());
+        assertEquals(1, SweepDesign.gridValues(createParameter(2, 2, 1)).size());
+    }
+
+    @Test
+    public void testGrid() {
+        List<double[]> samples = SweepDesign.grid(Arrays.asList(createParameter(0, 1, 0.5),
+                createParameter(10, 20, 10)));
+        assertEquals(6, samples.size());
+        assertEquals(0, samples.get(1)[0], delta);
+        assertEquals(20, samples.get(1)[1], delta);
+        assertEquals(0.5, samples.get(2)[0], delta);
+        assertEquals(10, samples.get(2)[1], delta);
+    }
+
+    @Test
+    public void testLatinHypercubeSamplesEachStratumOnce() {
+        final int n = 20;
+        List<SweepParameter> parameters = Arrays.asList(createParameter(0, 1, 1), createParameter(-10, 10, 1));
+        List<double[]> samples = SweepDesign.latinHypercube(parameters, n, new RandomStream(42));
+        assertEquals(n, samples.size());
+        for (int i = 0; i < parameters.size(); i++) {
+            SweepParameter parameter = parameters.get(i);
+            boolean[] hit = new boolean[n];
+            for (double[] sample : samples) {
+                double relative = (sample[i] - parameter.getMin()) / (parameter.getMax() - parameter.getMin());
+                assertTrue(relative >= 0 && relative < 1);
+                hit[(int) (relative * n)] = true;
+            }
+            for (boolean stratumHit : hit) {
+                assertTrue(stratumHit);
+            }
+        }
+    }
+}
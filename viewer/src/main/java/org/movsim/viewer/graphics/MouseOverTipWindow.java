@@ -16,12 +16,12 @@ import java.awt.Frame;
 import java.awt.Label;
 import java.awt.Point;
 import java.awt.Window;
+import java.util.Random;
 import java.util.Timer;
 import java.util.TimerTask;
 
 import org.movsim.simulator.vehicles.PhysicalQuantities;
 import org.movsim.simulator.vehicles.Vehicle;
-import org.movsim.utilities.MyRandom;
 import org.movsim.utilities.Units;
 
 import com.google.common.base.Preconditions;
@@ -34,6 +34,8 @@ class MouseOverTipWindow extends Window {
 
     private long currentPopupId = 0;
 
+    private final Random random = new Random();
+
     private final Frame owner;
 
     class PopupTimer {
@@ -97,7 +99,7 @@ class MouseOverTipWindow extends Window {
         pack();
         final Point screenLocation = owner.getLocationOnScreen();
         setLocation(point.x + screenLocation.x + 15, point.y + screenLocation.y + 90);
-        currentPopupId = MyRandom.nextInt();
+        currentPopupId = random.nextInt();
         setVisible(true);
         final PopupTimer popupTimer = new PopupTimer();
         popupTimer.start(currentPopupId);
@@ -27,6 +27,7 @@
 package org.movsim.viewer.graphics;
 
 import org.apache.commons.lang3.StringUtils;
+import org.movsim.autogen.TrafficLightStatus;
 import org.movsim.input.ProjectMetaData;
 import org.movsim.roadmappings.PosTheta;
 import org.movsim.roadmappings.RoadMapping;
@@ -40,7 +41,6 @@ import org.movsim.simulator.roadnetwork.boundaries.TrafficSink;
 import org.movsim.simulator.roadnetwork.controller.FlowConservingBottleneck;
 import org.movsim.simulator.roadnetwork.controller.GradientProfile;
 import org.movsim.simulator.roadnetwork.controller.SpeedLimit;
-import org.movsim.simulator.roadnetwork.controller.TrafficLight;
 import org.movsim.simulator.roadnetwork.regulator.NotifyObject;
 import org.movsim.simulator.roadnetwork.regulator.Regulator;
 import org.movsim.simulator.vehicles.Vehicle;
@@ -56,11 +56,12 @@ import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.nio.file.Paths;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
@@ -80,8 +81,15 @@ import java.util.Properties;
  * </ul>
  * </p>
  * <p>
- * The vehicles are redrawn in their new positions in the drawForeground() method, which is indirectly invoked from repaint(). The
- * drawForeground() method has a synchronization lock so that vehicles are not updated or removed while they are being drawn.
+ * The vehicles are redrawn in their new positions in the drawForeground() method, which is indirectly invoked from repaint(). After
+ * each timestep the simulation thread publishes a {@link TrafficFrame} snapshot of the vehicles, drawForeground() draws the latest
+ * frame without locking, so painting and simulation run independently.
+ * </p>
+ * <p>
+ * Only the road segments within the visible region are drawn, found with the grid of the road network over their bounding boxes (see
+ * {@link RoadNetwork#roadSegmentsWithin(double, double, double, double)}). Below the <code>levelOfDetailScale</code>, when
+ * the vehicles would be hardly larger than a pixel, the lanes of each road segment are colored by the mean speed or the density of its
+ * vehicles instead of drawing the vehicles, so the painting time depends on the screen size and not on the number of vehicles.
  * </p>
  * <p>
  * Actual road networks and traffic scenarios should be set up in a subclass.
@@ -96,6 +104,12 @@ public class TrafficCanvas extends SimulationCanvasBase
 
     private static final String FONT_NAME = "SansSerif";
 
+    // length of the pieces of the level-of-detail road coloring, in pixels
+    private static final double LEVEL_OF_DETAIL_PIECE_PIXELS = 4;
+
+    // density shown with the color of a standing jam, vehicles per km and lane
+    private static final double MAX_DENSITY_INVKM = 150;
+
     protected final Simulator simulator;
     protected final RoadNetwork roadNetwork;
     private Properties properties;
@@ -116,6 +130,15 @@ public class TrafficCanvas extends SimulationCanvasBase
 
     protected StatusControlCallbacks statusControlCallbacks;
 
+    // vehicle snapshots handed from the simulation thread to the UI thread
+    private final TrafficFrameBuffer frames = new TrafficFrameBuffer();
+
+    // AWT colors of the vehicle colors in VEHICLE_COLOR mode, only used by the UI thread
+    private final Map<Integer, Color> vehicleColors = new HashMap<>();
+
+    // visible region in drawing coordinates
+    private final Rectangle2D.Double viewport = new Rectangle2D.Double();
+
     // pre-allocate vehicle drawing path
     private final GeneralPath vehiclePath = new GeneralPath();
 
@@ -131,6 +154,9 @@ public class TrafficCanvas extends SimulationCanvasBase
 
     private double vmaxForColorSpectrum;
 
+    // scale below which the road segments are colored instead of drawing the vehicles
+    private double levelOfDetailScale;
+
     private boolean drawRoadId;
     private boolean drawSources;
     private boolean drawSinks;
@@ -207,6 +233,7 @@ public class TrafficCanvas extends SimulationCanvasBase
         addMouseListener(mouseListener);
         addMouseMotionListener(mouseListener);
         addMouseWheelListener(mouseListener);
+        publishFrame();
     }
 
     /**
@@ -236,6 +263,7 @@ public class TrafficCanvas extends SimulationCanvasBase
         setVehicleColorMode(VehicleColorMode.valueOf(properties.getProperty("vehicleColorMode")));
 
         setVmaxForColorSpectrum(Double.parseDouble(properties.getProperty("vmaxForColorSpectrum")));
+        levelOfDetailScale = Double.parseDouble(properties.getProperty("levelOfDetailScale"));
 
         lineWidth = Float.parseFloat(properties.getProperty("lineWidth"));
         lineLength = Float.parseFloat(properties.getProperty("lineLength"));
@@ -262,9 +290,19 @@ public class TrafficCanvas extends SimulationCanvasBase
         simulator.reset();
         vehicleToHighlightId = -1;
         initGraphicSettings();
+        publishFrame();
         forceRepaintBackground();
     }
 
+    /**
+     * Publishes the current state of the road network from the UI thread, synchronized with the simulation thread.
+     */
+    private void publishFrame() {
+        synchronized (simulationRunnable.dataLock) {
+            frames.publish(roadNetwork, simulationRunnable.simulationTime(), simulationRunnable.iterationCount());
+        }
+    }
+
     @Override
     public void resetScaleAndOffset() {
         scale = Double.parseDouble(properties.getProperty("initialScale"));
@@ -428,17 +466,17 @@ public class TrafficCanvas extends SimulationCanvasBase
     }
 
     /**
-     * Returns the color of the vehicle. The color may depend on the vehicle's properties, such as its velocity.
+     * Returns the color of a vehicle of the frame. The color may depend on the vehicle's properties, such as its velocity.
      *
-     * @param vehicle
-     * @param simulationTime
+     * @param frame
+     * @param vehicle index of the vehicle in the frame
      */
-    protected Color vehicleColor(Vehicle vehicle) {
+    protected Color vehicleColor(TrafficFrame frame, int vehicle) {
         Color color;
 
         switch (vehicleColorMode) {
             case ACCELERATION_COLOR:
-                final double a = vehicle.physicalQuantities().getAcc();
+                final double a = frame.acceleration(vehicle);
                 final int count = ACCELERATIONS.length;
                 for (int i = 0; i < count; ++i) {
                     if (a < ACCELERATIONS[i])
@@ -448,34 +486,34 @@ public class TrafficCanvas extends SimulationCanvasBase
                 break;
             case EXIT_COLOR:
                 color = Color.BLACK;
-                if (vehicle.exitRoadSegmentId() != Vehicle.ROAD_SEGMENT_ID_NOT_SET) {
+                if (frame.hasFlag(vehicle, TrafficFrame.EXIT_SET)) {
                     color = Color.WHITE;
                 }
                 break;
             case HIGHLIGHT_VEHICLE:
-                color = vehicle.getId() == vehicleToHighlightId ? Color.BLUE : Color.BLACK;
+                color = frame.id(vehicle) == vehicleToHighlightId ? Color.BLUE : Color.BLACK;
                 break;
             case LANE_CHANGE:
                 color = Color.BLACK;
-                if (vehicle.inProcessOfLaneChange()) {
+                if (frame.hasFlag(vehicle, TrafficFrame.LANE_CHANGE)) {
                     color = Color.ORANGE;
                 }
                 break;
             case VEHICLE_COLOR:
-                // use vehicle's cache for AWT color object
-                color = (Color) vehicle.colorObject();
+                // cache the AWT color objects
+                final int vehColorInt = frame.color(vehicle);
+                color = vehicleColors.get(vehColorInt);
                 if (color == null) {
-                    int vehColorInt = vehicle.color();
                     color = new Color(Colors.red(vehColorInt), Colors.green(vehColorInt), Colors.blue(vehColorInt));
-                    vehicle.setColorObject(color);
+                    vehicleColors.put(vehColorInt, color);
                 }
                 break;
             case VEHICLE_LABEL_COLOR:
-                String label = vehicle.getLabel();
+                String label = frame.label(vehicle);
                 color = labelColors.containsKey(label) ? labelColors.get(label) : Color.WHITE;
                 break;
             case VELOCITY_COLOR:
-                double v = vehicle.physicalQuantities().getSpeed() * 3.6;
+                double v = frame.speed(vehicle) * 3.6;
                 color = SwingHelper.getColorAccordingToSpectrum(0, getVmaxForColorSpectrum(), v);
                 break;
             default:
@@ -501,8 +539,8 @@ public class TrafficCanvas extends SimulationCanvasBase
      * </p>
      * <p>
      * <p>
-     * This method is synchronized with the <code>SimulationRunnable.run()</code> method, so that vehicles are not updated, added or removed
-     * while they are being drawn.
+     * The vehicles are drawn from the latest {@link TrafficFrame} published by the simulation thread, so this method does not
+     * synchronize with the <code>SimulationRunnable.run()</code> method and a slow repaint does not delay the simulation.
      * </p>
      * <p>
      * tm The abstract method paintAfterVehiclesMoved is called after the vehicles have been moved, to allow any further required drawing on
@@ -511,40 +549,61 @@ public class TrafficCanvas extends SimulationCanvasBase
      */
     @Override
     protected void drawForeground(Graphics2D g) {
-        // moveVehicles occurs in the UI thread, so must synchronize with the
-        // update of the road network in the calculation thread.
         final long timeBeforePaint_ms = System.currentTimeMillis();
-        synchronized (simulationRunnable.dataLock) {
-            drawTrafficLights(g);
-            for (final RoadSegment roadSegment : roadNetwork) {
-                final RoadMapping roadMapping = roadSegment.roadMapping();
-                assert roadMapping != null;
-                PaintRoadMapping.setClipPath(g, roadMapping, clipPath);
-                for (final Vehicle vehicle : roadSegment) {
-                    drawVehicle(g, roadMapping, vehicle);
-                }
-                for (Iterator<Vehicle> vehIter = roadSegment.overtakingVehicles(); vehIter.hasNext(); ) {
-                    Vehicle vehicle = vehIter.next();
-                    drawVehicle(g, roadMapping, vehicle);
+        final TrafficFrame frame = frames.latest();
+        final boolean culling = updateViewport();
+        final boolean levelOfDetail = isLevelOfDetail();
+        drawTrafficLights(g, frame);
+        if (culling) {
+            for (final RoadSegment roadSegment : visibleRoadSegments()) {
+                // the frame holds the road segments in the order of the road network
+                final int segment = roadSegment.networkIndex();
+                if (segment >= 0 && segment < frame.segmentCount() && frame.segment(segment) == roadSegment) {
+                    drawVehicles(g, frame, segment, levelOfDetail);
                 }
             }
-            totalAnimationTime += System.currentTimeMillis() - timeBeforePaint_ms;
-            drawAfterVehiclesMoved(g, simulationRunnable.simulationTime(), simulationRunnable.iterationCount());
+        } else {
+            for (int segment = 0, count = frame.segmentCount(); segment < count; ++segment) {
+                drawVehicles(g, frame, segment, levelOfDetail);
+            }
+        }
+        totalAnimationTime += System.currentTimeMillis() - timeBeforePaint_ms;
+        drawAfterVehiclesMoved(g, frame.simulationTime(), frame.iterationCount());
+    }
+
+    /**
+     * Draws the vehicles of a road segment of the frame, or colors its lanes in the level-of-detail rendering.
+     */
+    private void drawVehicles(Graphics2D g, TrafficFrame frame, int segment, boolean levelOfDetail) {
+        if (levelOfDetail && !frame.hasVehicles(segment)) {
+            return;
+        }
+        final RoadSegment roadSegment = frame.segment(segment);
+        final RoadMapping roadMapping = roadSegment.roadMapping();
+        assert roadMapping != null;
+        PaintRoadMapping.setClipPath(g, roadMapping, clipPath);
+        if (levelOfDetail) {
+            drawRoadSegmentLevelOfDetail(g, roadSegment, levelOfDetailColor(frame, segment));
+            return;
+        }
+        for (int vehicle = frame.firstVehicle(segment), end = frame.firstVehicle(segment + 1); vehicle < end; ++vehicle) {
+            drawVehicle(g, roadMapping, frame, vehicle);
         }
     }
 
-    private void drawVehicle(Graphics2D g, RoadMapping roadMapping, Vehicle vehicle) {
+    private void drawVehicle(Graphics2D g, RoadMapping roadMapping, TrafficFrame frame, int vehicle) {
         // draw vehicle polygon at new position
-        final RoadMapping.PolygonFloat polygon = roadMapping.mapFloat(vehicle);
+        final RoadMapping.PolygonFloat polygon = roadMapping.mapFloat(frame.midPosition(vehicle),
+                frame.continuousLane(vehicle), frame.length(vehicle), frame.width(vehicle));
         vehiclePath.reset();
         vehiclePath.moveTo(polygon.getXPoint(0), polygon.getYPoint(0));
         vehiclePath.lineTo(polygon.getXPoint(1), polygon.getYPoint(1));
         vehiclePath.lineTo(polygon.getXPoint(2), polygon.getYPoint(2));
         vehiclePath.lineTo(polygon.getXPoint(3), polygon.getYPoint(3));
         vehiclePath.closePath();
-        g.setPaint(vehicleColor(vehicle));
+        g.setPaint(vehicleColor(frame, vehicle));
         g.fill(vehiclePath);
-        if (vehicle.isBrakeLightOn()) {
+        if (frame.hasFlag(vehicle, TrafficFrame.BRAKE_LIGHT)) {
             // if the vehicle is decelerating then display the
             vehiclePath.reset();
             // points 2 & 3 are at the rear of vehicle
@@ -561,6 +620,74 @@ public class TrafficCanvas extends SimulationCanvasBase
         }
     }
 
+    /**
+     * Colors the lanes of the road segment, piece by piece with pieces of a few pixels.
+     */
+    private void drawRoadSegmentLevelOfDetail(Graphics2D g, RoadSegment roadSegment, Color color) {
+        final RoadMapping roadMapping = roadSegment.roadMapping();
+        final double roadLength = roadMapping.roadLength();
+        final int pieceCount = Math.max(1, (int) Math.ceil(roadLength * scale / LEVEL_OF_DETAIL_PIECE_PIXELS));
+        final double pieceLength = roadLength / pieceCount;
+        final int laneCount = roadSegment.laneCount();
+        // the center lane and the width of all lanes cover the road segment in its driving direction
+        final double centerLane = 0.5 * (1 + laneCount);
+        final double width = laneCount * roadMapping.laneWidth();
+        g.setPaint(color);
+        for (int piece = 0; piece < pieceCount; ++piece) {
+            final RoadMapping.PolygonFloat polygon = roadMapping.mapFloat((piece + 0.5) * pieceLength, centerLane,
+                    pieceLength, width);
+            vehiclePath.reset();
+            vehiclePath.moveTo(polygon.getXPoint(0), polygon.getYPoint(0));
+            vehiclePath.lineTo(polygon.getXPoint(1), polygon.getYPoint(1));
+            vehiclePath.lineTo(polygon.getXPoint(2), polygon.getYPoint(2));
+            vehiclePath.lineTo(polygon.getXPoint(3), polygon.getYPoint(3));
+            vehiclePath.closePath();
+            g.fill(vehiclePath);
+        }
+    }
+
+    /**
+     * Returns the level-of-detail color of a road segment: the mean speed in the velocity color mode, the density otherwise.
+     */
+    private Color levelOfDetailColor(TrafficFrame frame, int segment) {
+        if (vehicleColorMode == VehicleColorMode.VELOCITY_COLOR) {
+            return SwingHelper.getColorAccordingToSpectrum(0, getVmaxForColorSpectrum(), frame.meanSpeed(segment) * 3.6);
+        }
+        // low density in violet-blue, high density in red
+        final double density = frame.density(segment) * Units.INVM_TO_INVKM;
+        return SwingHelper.getColorAccordingToSpectrum(0, MAX_DENSITY_INVKM, MAX_DENSITY_INVKM - density);
+    }
+
+    /**
+     * Returns true if the vehicles are too small to be drawn individually.
+     */
+    private boolean isLevelOfDetail() {
+        return scale < levelOfDetailScale;
+    }
+
+    /**
+     * Updates the visible region in drawing coordinates.
+     *
+     * @return false if the canvas has no size yet, then nothing is culled
+     */
+    private boolean updateViewport() {
+        if (getWidth() <= 0 || getHeight() <= 0) {
+            return false;
+        }
+        // inverse of the transform: scale, then translate by the offsets
+        viewport.setRect(-xOffset, -yOffset, getWidth() / scale, getHeight() / scale);
+        return true;
+    }
+
+    /**
+     * Returns the road segments whose bounding boxes intersect the visible region, in the order of the road network.
+     */
+    private List<RoadSegment> visibleRoadSegments() {
+        // the road mappings have the y-axis upwards, the drawing coordinates downwards
+        return roadNetwork.roadSegmentsWithin(viewport.getMinX(), -viewport.getMaxY(), viewport.getMaxX(),
+                -viewport.getMinY());
+    }
+
     /**
      * Draws the background: everything that does not move each timestep. The background consists of the road segments and the sources and
      * sinks, if they are visible.
@@ -609,14 +736,19 @@ public class TrafficCanvas extends SimulationCanvasBase
      * Draws each road segment in the road network.
      */
     private void drawRoadSegmentsAndLines(Graphics2D g) {
-        for (final RoadSegment roadSegment : roadNetwork) {
+        final Iterable<RoadSegment> roadSegments = updateViewport() ? visibleRoadSegments() : roadNetwork;
+        final boolean levelOfDetail = isLevelOfDetail();
+        for (final RoadSegment roadSegment : roadSegments) {
             final RoadMapping roadMapping = roadSegment.roadMapping();
             if (roadMapping.isPeer()) {
                 LOG.debug("skip painting peer element={}", roadMapping);
                 continue;
             }
             TrafficCanvasUtils.drawRoadSegment(g, roadMapping);
-            drawRoadSegmentLines(g, roadMapping);
+            if (!levelOfDetail) {
+                // the road lines are not visible at low zoom
+                drawRoadSegmentLines(g, roadMapping);
+            }
         }
     }
 
@@ -664,20 +796,17 @@ public class TrafficCanvas extends SimulationCanvasBase
         PaintRoadMapping.paintRoadMapping(g, roadMapping, offset);
     }
 
-    private void drawTrafficLights(Graphics2D g) {
+    private static void drawTrafficLights(Graphics2D g, TrafficFrame frame) {
         int strokeWidth = 3;
-        for (final RoadSegment roadSegment : roadNetwork) {
-            assert roadSegment.trafficLights() != null;
-            for (TrafficLight trafficLight : roadSegment.trafficLights()) {
-                Color color = getTrafficLightColor(trafficLight);
-                TrafficCanvasUtils.drawLine(g, roadSegment.roadMapping(), trafficLight.position(), strokeWidth, color);
-            }
+        for (int i = 0, count = frame.trafficLightCount(); i < count; ++i) {
+            Color color = getTrafficLightColor(frame.trafficLightStatus(i));
+            TrafficCanvasUtils.drawLine(g, frame.trafficLightMapping(i), frame.trafficLightPosition(i), strokeWidth, color);
         }
     }
 
-    private static Color getTrafficLightColor(TrafficLight trafficLight) {
+    private static Color getTrafficLightColor(TrafficLightStatus status) {
         Color color = null;
-        switch (trafficLight.status()) {
+        switch (status) {
             case GREEN:
                 color = Color.GREEN;
                 break;
@@ -866,11 +995,13 @@ public class TrafficCanvas extends SimulationCanvasBase
      * Implements SimulationRunnable.UpdateDrawingCallback.updateDrawing().
      * </p>
      * <p>
-     * Calls repaint() which causes UI framework to asynchronously call update(g).
+     * Called from the simulation thread after each timestep: publishes a snapshot of the vehicles and calls repaint(),
+     * which causes the UI framework to asynchronously call update(g).
      * </p>
      */
     @Override
     public void updateDrawing(double simulationTime) {
+        frames.publish(roadNetwork, simulationTime, simulationRunnable.iterationCount());
         repaint();
     }
 
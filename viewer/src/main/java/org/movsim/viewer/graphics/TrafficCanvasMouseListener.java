@@ -92,7 +92,9 @@ public class TrafficCanvasMouseListener implements MouseListener, MouseMotionLis
             // convert from mouse coordinates to canvas coordinates
             Point2D transformedPoint = TrafficCanvasUtils.getTransformed(eventPoint, trafficCanvas.transform);
             LOG.debug("mouse clicked at transformed point={}", transformedPoint);
-            for (final RoadSegment roadSegment : roadNetwork) {
+            // traffic lights and message signs are located in screen coordinates, the y coordinate is negated
+            for (final RoadSegment roadSegment : roadNetwork.roadSegmentsNear(transformedPoint.getX(),
+                    -transformedPoint.getY())) {
                 final RoadMapping roadMapping = roadSegment.roadMapping();
                 // TODO check if angles are correctly mapped
                 checkForVariableMessageSigns(transformedPoint, roadSegment, roadMapping);
@@ -197,9 +199,10 @@ public class TrafficCanvasMouseListener implements MouseListener, MouseMotionLis
                 Point2D transformedPoint = TrafficCanvasUtils.getTransformed(mouseEvent.getPoint(),
                         trafficCanvas.transform);
                 final GeneralPath path = new GeneralPath();
-                // iterate over all vehicles in all road segments, to see if the
-                // mouse is over a vehicle
-                for (RoadSegment roadSegment : roadNetwork) {
+                // iterate over all vehicles in the road segments near the mouse, to see if the
+                // mouse is over a vehicle. The paths are in screen coordinates, the y coordinate is negated
+                for (RoadSegment roadSegment : roadNetwork.roadSegmentsNear(transformedPoint.getX(),
+                        -transformedPoint.getY())) {
                     RoadMapping roadMapping = roadSegment.roadMapping();
 
                     AbstractTrafficSource source = roadSegment.trafficSource();
@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.viewer.graphics;
+
+import org.movsim.autogen.TrafficLightStatus;
+import org.movsim.roadmappings.RoadMapping;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.movsim.simulator.roadnetwork.controller.TrafficLight;
+import org.movsim.simulator.vehicles.PhysicalQuantities;
+import org.movsim.simulator.vehicles.Vehicle;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * <p>
+ * Compact snapshot of everything that moves in the road network: the vehicles and the traffic light states at the end
+ * of a simulation timestep.
+ * </p>
+ * <p>
+ * The vehicles are stored in primitive arrays, grouped by road segment in the iteration order of the road network. The
+ * arrays are reused and only grow on demand, so capturing a frame does not allocate once the number of vehicles has
+ * settled. For the level-of-detail rendering the mean speed and the density of each road segment are aggregated during
+ * the capture. Frames are captured by the simulation thread and handed to the UI thread by a {@link TrafficFrameBuffer},
+ * which guarantees that a frame is never modified while it is drawn.
+ * </p>
+ */
+final class TrafficFrame {
+
+    static final int BRAKE_LIGHT = 1;
+    static final int LANE_CHANGE = 2;
+    static final int EXIT_SET = 4;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private volatile long sequence;
+    private double simulationTime;
+    private long iterationCount;
+
+    private int segmentCount;
+    private RoadSegment[] segments = new RoadSegment[0];
+    /** index of the first vehicle of each road segment, the last entry is the vehicle count */
+    private int[] segmentStart = new int[1];
+    /** mean speed of the vehicles of each road segment, in m/s */
+    private double[] segmentMeanSpeeds = new double[0];
+    /** number of vehicles per lane and meter of each road segment */
+    private double[] segmentDensities = new double[0];
+
+    private int vehicleCount;
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private double[] midPositions = new double[INITIAL_CAPACITY];
+    private double[] continuousLanes = new double[INITIAL_CAPACITY];
+    private float[] lengths = new float[INITIAL_CAPACITY];
+    private float[] widths = new float[INITIAL_CAPACITY];
+    private float[] speeds = new float[INITIAL_CAPACITY];
+    private float[] accelerations = new float[INITIAL_CAPACITY];
+    private int[] colors = new int[INITIAL_CAPACITY];
+    private String[] labels = new String[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+
+    private int trafficLightCount;
+    private RoadMapping[] trafficLightMappings = new RoadMapping[0];
+    private double[] trafficLightPositions = new double[0];
+    private TrafficLightStatus[] trafficLightStatus = new TrafficLightStatus[0];
+
+    /**
+     * Captures the current state of the road network. Must be called by the thread which updates the road network or
+     * while it is not updated.
+     *
+     * @param roadSegments   the road segments of the road network
+     * @param simulationTime
+     * @param iterationCount
+     * @param sequence       the number of the frame, increasing with each capture
+     */
+    void capture(Iterable<RoadSegment> roadSegments, double simulationTime, long iterationCount, long sequence) {
+        this.simulationTime = simulationTime;
+        this.iterationCount = iterationCount;
+        segmentCount = 0;
+        vehicleCount = 0;
+        trafficLightCount = 0;
+        for (final RoadSegment roadSegment : roadSegments) {
+            if (segmentCount + 1 >= segmentStart.length) {
+                segments = Arrays.copyOf(segments, 2 * segmentStart.length);
+                segmentMeanSpeeds = Arrays.copyOf(segmentMeanSpeeds, 2 * segmentStart.length);
+                segmentDensities = Arrays.copyOf(segmentDensities, 2 * segmentStart.length);
+                segmentStart = Arrays.copyOf(segmentStart, 2 * segmentStart.length + 1);
+            }
+            segments[segmentCount] = roadSegment;
+            segmentStart[segmentCount] = vehicleCount;
+            ++segmentCount;
+            for (final Vehicle vehicle : roadSegment) {
+                addVehicle(vehicle);
+            }
+            for (Iterator<Vehicle> vehIter = roadSegment.overtakingVehicles(); vehIter.hasNext(); ) {
+                addVehicle(vehIter.next());
+            }
+            for (final TrafficLight trafficLight : roadSegment.trafficLights()) {
+                addTrafficLight(roadSegment.roadMapping(), trafficLight);
+            }
+            aggregate(segmentCount - 1, roadSegment);
+        }
+        segmentStart[segmentCount] = vehicleCount;
+        this.sequence = sequence;
+    }
+
+    private void aggregate(int segment, RoadSegment roadSegment) {
+        final int start = segmentStart[segment];
+        final int count = vehicleCount - start;
+        double speedSum = 0;
+        for (int i = start; i < vehicleCount; ++i) {
+            speedSum += speeds[i];
+        }
+        segmentMeanSpeeds[segment] = count == 0 ? 0 : speedSum / count;
+        segmentDensities[segment] = count / (roadSegment.roadLength() * roadSegment.laneCount());
+    }
+
+    private void addVehicle(Vehicle vehicle) {
+        if (vehicleCount == ids.length) {
+            growVehicleArrays(2 * vehicleCount);
+        }
+        final int i = vehicleCount++;
+        final PhysicalQuantities physicalQuantities = vehicle.physicalQuantities();
+        ids[i] = vehicle.getId();
+        midPositions[i] = physicalQuantities.getMidPosition();
+        continuousLanes[i] = vehicle.getContinuousLane();
+        lengths[i] = (float) physicalQuantities.getLength();
+        widths[i] = (float) physicalQuantities.getWidth();
+        speeds[i] = (float) physicalQuantities.getSpeed();
+        accelerations[i] = (float) physicalQuantities.getAcc();
+        colors[i] = vehicle.color();
+        labels[i] = vehicle.getLabel();
+        int flag = 0;
+        if (vehicle.isBrakeLightOn()) {
+            flag |= BRAKE_LIGHT;
+        }
+        if (vehicle.inProcessOfLaneChange()) {
+            flag |= LANE_CHANGE;
+        }
+        if (vehicle.exitRoadSegmentId() != Vehicle.ROAD_SEGMENT_ID_NOT_SET) {
+            flag |= EXIT_SET;
+        }
+        flags[i] = (byte) flag;
+    }
+
+    private void growVehicleArrays(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        midPositions = Arrays.copyOf(midPositions, capacity);
+        continuousLanes = Arrays.copyOf(continuousLanes, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        widths = Arrays.copyOf(widths, capacity);
+        speeds = Arrays.copyOf(speeds, capacity);
+        accelerations = Arrays.copyOf(accelerations, capacity);
+        colors = Arrays.copyOf(colors, capacity);
+        labels = Arrays.copyOf(labels, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+    }
+
+    private void addTrafficLight(RoadMapping roadMapping, TrafficLight trafficLight) {
+        if (trafficLightCount == trafficLightPositions.length) {
+            final int capacity = Math.max(4, 2 * trafficLightCount);
+            trafficLightMappings = Arrays.copyOf(trafficLightMappings, capacity);
+            trafficLightPositions = Arrays.copyOf(trafficLightPositions, capacity);
+            trafficLightStatus = Arrays.copyOf(trafficLightStatus, capacity);
+        }
+        trafficLightMappings[trafficLightCount] = roadMapping;
+        trafficLightPositions[trafficLightCount] = trafficLight.position();
+        trafficLightStatus[trafficLightCount] = trafficLight.status();
+        ++trafficLightCount;
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    double simulationTime() {
+        return simulationTime;
+    }
+
+    long iterationCount() {
+        return iterationCount;
+    }
+
+    int segmentCount() {
+        return segmentCount;
+    }
+
+    RoadSegment segment(int segment) {
+        return segments[segment];
+    }
+
+    /**
+     * Returns the index of the first vehicle of the given road segment, the vehicles of the segment end before the
+     * first vehicle of the next segment.
+     */
+    int firstVehicle(int segment) {
+        return segmentStart[segment];
+    }
+
+    /**
+     * Returns true if the road segment contains at least one vehicle.
+     */
+    boolean hasVehicles(int segment) {
+        return segmentStart[segment + 1] > segmentStart[segment];
+    }
+
+    double meanSpeed(int segment) {
+        return segmentMeanSpeeds[segment];
+    }
+
+    double density(int segment) {
+        return segmentDensities[segment];
+    }
+
+    int vehicleCount() {
+        return vehicleCount;
+    }
+
+    long id(int vehicle) {
+        return ids[vehicle];
+    }
+
+    double midPosition(int vehicle) {
+        return midPositions[vehicle];
+    }
+
+    double continuousLane(int vehicle) {
+        return continuousLanes[vehicle];
+    }
+
+    double length(int vehicle) {
+        return lengths[vehicle];
+    }
+
+    double width(int vehicle) {
+        return widths[vehicle];
+    }
+
+    double speed(int vehicle) {
+        return speeds[vehicle];
+    }
+
+    double acceleration(int vehicle) {
+        return accelerations[vehicle];
+    }
+
+    int color(int vehicle) {
+        return colors[vehicle];
+    }
+
+    String label(int vehicle) {
+        return labels[vehicle];
+    }
+
+    boolean hasFlag(int vehicle, int flag) {
+        return (flags[vehicle] & flag) != 0;
+    }
+
+    int trafficLightCount() {
+        return trafficLightCount;
+    }
+
+    RoadMapping trafficLightMapping(int trafficLight) {
+        return trafficLightMappings[trafficLight];
+    }
+
+    double trafficLightPosition(int trafficLight) {
+        return trafficLightPositions[trafficLight];
+    }
+
+    TrafficLightStatus trafficLightStatus(int trafficLight) {
+        return trafficLightStatus[trafficLight];
+    }
+}
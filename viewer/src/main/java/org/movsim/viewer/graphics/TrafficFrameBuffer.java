@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.viewer.graphics;
+
+import org.movsim.simulator.roadnetwork.RoadSegment;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * Lock-free triple buffer which hands {@link TrafficFrame}s from the simulation thread to the UI thread.
+ * </p>
+ * <p>
+ * Each of the three frames is at any time either being captured by the writer, being drawn by the reader, or the
+ * latest published frame. The writer captures into its own frame and exchanges it with the published one; the reader
+ * exchanges its frame with the published one if that is newer. Neither side waits for the other: a slow repaint only
+ * skips frames, the simulation keeps running.
+ * </p>
+ */
+final class TrafficFrameBuffer {
+
+    private final AtomicReference<TrafficFrame> published = new AtomicReference<>(new TrafficFrame());
+
+    private TrafficFrame writeFrame = new TrafficFrame();
+
+    private TrafficFrame readFrame = new TrafficFrame();
+
+    private long sequence;
+
+    /**
+     * Captures the road network into a new frame and publishes it. Called by the simulation thread after each timestep,
+     * or by another thread while the road network is not updated.
+     *
+     * @param roadSegments
+     * @param simulationTime
+     * @param iterationCount
+     */
+    synchronized void publish(Iterable<RoadSegment> roadSegments, double simulationTime, long iterationCount) {
+        writeFrame.capture(roadSegments, simulationTime, iterationCount, ++sequence);
+        writeFrame = published.getAndSet(writeFrame);
+    }
+
+    /**
+     * Returns the latest published frame. Must only be called by the UI thread, the frame stays unchanged until the
+     * next call.
+     *
+     * @return the latest frame
+     */
+    TrafficFrame latest() {
+        if (published.get().sequence() > readFrame.sequence()) {
+            readFrame = published.getAndSet(readFrame);
+        }
+        return readFrame;
+    }
+}